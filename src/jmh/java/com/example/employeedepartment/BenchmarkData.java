@@ -0,0 +1,163 @@
+package com.example.employeedepartment;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.employeedepartment.model.DepartmentAssignment;
+import com.example.employeedepartment.model.ResponseEmployee;
+
+/**
+ * Synthetic data shared by the benchmarks. Every employee works in ASSIGNMENTS_PER_EMPLOYEE departments,
+ * so a result of n rows contains n / ASSIGNMENTS_PER_EMPLOYEE employees, like the joins of the DAOs.
+ */
+public final class BenchmarkData {
+    public static final int ASSIGNMENTS_PER_EMPLOYEE = 2;
+
+    private static final String[] DEPARTMENTS = {"Sales", "Engineering", "Finance", "Marketing", "Support"};
+    private static final String[] REGIONS = {"Asia", "Europe", "North America", "South America"};
+    private static final Date START_DATE = Date.valueOf(LocalDate.of(2013, 1, 1));
+    private static final Date END_DATE = Date.valueOf(LocalDate.of(2020, 6, 30));
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Rows in the column order of the employee details query:
+     * id, name, role, email, department_name, region, emp_start_date, emp_end_date.
+     */
+    public static Object[][] employeeRows(int rows) {
+        Object[][] data = new Object[rows][];
+        for (int row = 0; row < rows; row++) {
+            long id = row / ASSIGNMENTS_PER_EMPLOYEE + 1;
+            data[row] = new Object[]{id, "Employee " + id, "Engineer", "employee" + id + "@example.com",
+                    DEPARTMENTS[row % DEPARTMENTS.length], REGIONS[row % REGIONS.length], START_DATE, row % 3 == 0 ? END_DATE : null};
+        }
+        return data;
+    }
+
+    /**
+     * Rows in the column order of the department details query: id, name, region, dept_start_date, dept_end_date.
+     */
+    public static Object[][] departmentRows(int rows) {
+        Object[][] data = new Object[rows][];
+        for (int row = 0; row < rows; row++) {
+            long id = row / ASSIGNMENTS_PER_EMPLOYEE + 1;
+            data[row] = new Object[]{id, "Department " + id, REGIONS[row % REGIONS.length], START_DATE, row % 3 == 0 ? END_DATE : null};
+        }
+        return data;
+    }
+
+    public static List<ResponseEmployee> employees(int count) {
+        List<ResponseEmployee> employees = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            List<DepartmentAssignment> departmentDetails = new ArrayList<>(ASSIGNMENTS_PER_EMPLOYEE);
+            for (int assignment = 0; assignment < ASSIGNMENTS_PER_EMPLOYEE; assignment++) {
+                departmentDetails.add(new DepartmentAssignment(DEPARTMENTS[(int) (id + assignment) % DEPARTMENTS.length],
+                        REGIONS[(int) (id + assignment) % REGIONS.length], START_DATE.toLocalDate(), assignment == 0 ? END_DATE.toLocalDate() : null));
+            }
+            employees.add(new ResponseEmployee(id, "Employee " + id, "Engineer", "employee" + id + "@example.com", departmentDetails));
+        }
+        return employees;
+    }
+
+    /**
+     * Copies the rows into one array per column, the number columns into long arrays, so the getters of the ResultSets
+     * opened on them are array reads without boxing, like the row buffer of a JDBC driver. The copy is made once, in the
+     * setup of the benchmarks, and not in the measured methods.
+     */
+    public static RowColumns columns(Object[][] rows) {
+        return new RowColumns(rows);
+    }
+
+    /**
+     * Rows of a synthetic result, stored by column.
+     */
+    public static final class RowColumns {
+        private final int rowCount;
+        private final long[][] longColumns;
+        private final Object[][] objectColumns;
+
+        private RowColumns(Object[][] rows) {
+            int columnCount = rows.length == 0 ? 0 : rows[0].length;
+            rowCount = rows.length;
+            longColumns = new long[columnCount][];
+            objectColumns = new Object[columnCount][];
+            for (int column = 0; column < columnCount; column++) {
+                if (rows.length > 0 && rows[0][column] instanceof Number) {
+                    longColumns[column] = new long[rowCount];
+                    for (int row = 0; row < rowCount; row++) {
+                        longColumns[column][row] = ((Number) rows[row][column]).longValue();
+                    }
+                } else {
+                    objectColumns[column] = new Object[rowCount];
+                    for (int row = 0; row < rowCount; row++) {
+                        objectColumns[column][row] = rows[row][column];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Opens a forward-only ResultSet over the rows. Only next() and the getters by column index are supported,
+         * which is all the row mappers of the DAOs use.
+         */
+        public ResultSet resultSet() {
+            return new ArrayResultSet(this);
+        }
+    }
+
+    private static final class ArrayResultSet extends ResultSetStub {
+        private final RowColumns columns;
+        private int cursor = -1;
+        private boolean wasNull;
+
+        private ArrayResultSet(RowColumns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public boolean next() {
+            return ++cursor < columns.rowCount;
+        }
+
+        @Override
+        public long getLong(int columnIndex) {
+            wasNull = false;
+            return columns.longColumns[columnIndex - 1][cursor];
+        }
+
+        @Override
+        public String getString(int columnIndex) {
+            return (String) getObject(columnIndex);
+        }
+
+        @Override
+        public Date getDate(int columnIndex) {
+            return (Date) getObject(columnIndex);
+        }
+
+        @Override
+        public Object getObject(int columnIndex) {
+            Object value = columns.objectColumns[columnIndex - 1][cursor];
+            wasNull = value == null;
+            return value;
+        }
+
+        @Override
+        public boolean wasNull() {
+            return wasNull;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isClosed() {
+            return cursor >= columns.rowCount;
+        }
+    }
+}
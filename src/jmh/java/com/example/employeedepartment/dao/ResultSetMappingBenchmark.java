@@ -0,0 +1,55 @@
+package com.example.employeedepartment.dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.employeedepartment.BenchmarkData;
+import com.example.employeedepartment.model.ResponseDepartment;
+import com.example.employeedepartment.model.ResponseEmployee;
+
+/**
+ * Measures the grouping and mapping of the rows of EmployeeDao.getAll and DepartmentDao.getAll
+ * against synthetic ResultSets, without any database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultSetMappingBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int rows;
+
+    private BenchmarkData.RowColumns employeeRows;
+    private BenchmarkData.RowColumns departmentRows;
+
+    @Setup
+    public void setup() {
+        employeeRows = BenchmarkData.columns(BenchmarkData.employeeRows(rows));
+        departmentRows = BenchmarkData.columns(BenchmarkData.departmentRows(rows));
+    }
+
+    @Benchmark
+    public List<ResponseEmployee> employeeGetAllMapping() throws SQLException {
+        return new EmployeeResultSetExtractor(rows / BenchmarkData.ASSIGNMENTS_PER_EMPLOYEE).extractData(employeeRows.resultSet());
+    }
+
+    @Benchmark
+    public List<ResponseDepartment> departmentGetAllMapping() throws SQLException {
+        return new DepartmentResultSetExtractor(rows / BenchmarkData.ASSIGNMENTS_PER_EMPLOYEE).extractData(departmentRows.resultSet());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.employeedepartment.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import com.example.employeedepartment.BenchmarkData;
+
+/**
+ * Measures the Jackson serialization of ResponseEmployee lists, configured like the Spring Boot ObjectMapper.
+ * The JSON is written to a stream which only counts the bytes, so the benchmark does not measure buffer copies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int employees;
+
+    private List<ResponseEmployee> responseEmployees;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setup() {
+        responseEmployees = BenchmarkData.employees(employees);
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, ResponseEmployee.class));
+    }
+
+    @Benchmark
+    public long serializeResponseEmployees() throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        writer.writeValue(outputStream, responseEmployees);
+        return outputStream.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.employeedepartment.service.imp;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.employeedepartment.BenchmarkData;
+import com.example.employeedepartment.dao.EmployeeDao;
+import com.example.employeedepartment.model.ResponseEmployee;
+
+/**
+ * Measures the parameter validation and the bookkeeping of EmployeeServiceImpl.getAllEmployees.
+ * The DAO is replaced by a stub which returns a fixed page, so only the service layer is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeServiceBenchmark {
+    private EmployeeServiceImpl employeeService;
+
+    @Setup
+    public void setup() {
+        List<ResponseEmployee> page = BenchmarkData.employees(5);
+        EmployeeDao employeeDao = new EmployeeDao(null) {
+            @Override
+            public List<ResponseEmployee> getAll(int page1, int size, String sortField, String sortDirection, String searchTerm) {
+                return page;
+            }
+        };
+        employeeService = new EmployeeServiceImpl(employeeDao);
+    }
+
+    @Benchmark
+    public List<ResponseEmployee> getAllEmployeesValidParameters() {
+        return employeeService.getAllEmployees(3, 5, "name", "DESC", "Employee");
+    }
+
+    @Benchmark
+    public void getAllEmployeesInvalidParameters(Blackhole blackhole) {
+        try {
+            blackhole.consume(employeeService.getAllEmployees(0, 5, "email", "asc", null));
+        } catch (IllegalArgumentException e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.employeedepartment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.example.employeedepartment.dao.CacheNames;
+
+@Configuration
+public class CacheConfig {
+    /**
+     * Registers the caches of the listing counts with their own spec, so that they can live shorter than the getById caches.
+     * The DAO write methods evict them, the time to live bounds how long the writes of other instances stay unnoticed.
+     *
+     * @param countCacheSpec Caffeine spec of the count caches (listing.count.cache-spec).
+     * @return CacheManagerCustomizer adding the count caches to the cache manager.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> listingCountCaches(
+            @Value("${listing.count.cache-spec:maximumSize=1000,expireAfterWrite=60s,recordStats}") String countCacheSpec) {
+        return cacheManager -> {
+            for (String cacheName : CacheNames.LISTING_COUNTS) {
+                cacheManager.registerCustomCache(cacheName, Caffeine.from(countCacheSpec).build());
+            }
+        };
+    }
+
+    /**
+     * Registers the cache of the listing versions with its own spec. The listings themselves are not cached,
+     * so their versions live only a few seconds: the time to live bounds how long a listing changed by another instance
+     * can still be answered with 304 Not Modified.
+     *
+     * @param listingVersionCacheSpec Caffeine spec of the listing version cache (etag.listing-version-cache-spec).
+     * @return CacheManagerCustomizer adding the listing version cache to the cache manager.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> listingVersionCache(
+            @Value("${etag.listing-version-cache-spec:maximumSize=100,expireAfterWrite=2s,recordStats}") String listingVersionCacheSpec) {
+        return cacheManager -> cacheManager.registerCustomCache(CacheNames.LISTING_VERSIONS, Caffeine.from(listingVersionCacheSpec).build());
+    }
+
+    /**
+     * Wraps the cache manager so that the evictions and puts within a transaction are applied once it has been committed.
+     * A DAO write method evicts its caches when it returns, which is before the commit when it joined the transaction of
+     * a job chunk, and a read in between would cache the rows of before the write again.
+     *
+     * @return BeanPostProcessor wrapping the cache manager in a TransactionAwareCacheManagerProxy.
+     */
+    @Bean
+    public static BeanPostProcessor transactionAwareCacheManager() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof CaffeineCacheManager cacheManager ? new TransactionAwareCacheManagerProxy(cacheManager) : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.employeedepartment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sizes the connection pool from the number of cores when running with the prod profile, following
+ * the HikariCP guideline: connections = cores * connections-per-core + extra-connections.
+ * The extra connections cover the time the connections spend waiting on the network to the remote database.
+ * An explicit spring.datasource.hikari.maximum-pool-size or minimum-idle is always kept.
+ */
+@Component
+@Profile("prod")
+public class HikariPoolSizer implements BeanPostProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(HikariPoolSizer.class);
+
+    private final Environment environment;
+    private final int connectionsPerCore;
+    private final int extraConnections;
+
+    public HikariPoolSizer(Environment environment,
+                           @Value("${datasource.pool.connections-per-core:2}") int connectionsPerCore,
+                           @Value("${datasource.pool.extra-connections:1}") int extraConnections) {
+        this.environment = environment;
+        this.connectionsPerCore = connectionsPerCore;
+        this.extraConnections = extraConnections;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource)) {
+            return bean;
+        }
+        HikariDataSource dataSource = (HikariDataSource) bean;
+        int poolSize = Runtime.getRuntime().availableProcessors() * connectionsPerCore + extraConnections;
+        if (!environment.containsProperty("spring.datasource.hikari.maximum-pool-size")) {
+            dataSource.setMaximumPoolSize(poolSize);
+        }
+        // A fixed size pool does not open connections to the remote database during bursts of requests.
+        if (!environment.containsProperty("spring.datasource.hikari.minimum-idle")) {
+            dataSource.setMinimumIdle(dataSource.getMaximumPoolSize());
+        }
+        logger.info("Connection pool {} sized to {} connections ({} idle) for {} cores", dataSource.getPoolName(),
+                dataSource.getMaximumPoolSize(), dataSource.getMinimumIdle(), Runtime.getRuntime().availableProcessors());
+        return bean;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.employeedepartment;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+@Configuration
+public class MessageConverterConfig {
+    /**
+     * Converter of the application/cbor responses, sent when the client asks for them in the Accept header.
+     * CBOR (RFC 8949) is a binary encoding of the same data as the JSON, readable in most languages.
+     * The mapper is built from the builder of Spring Boot, so it writes the same fields and dates as the JSON mapper.
+     *
+     * @param builder object mapper builder configured by Spring Boot.
+     * @return MappingJackson2CborHttpMessageConverter for application/cbor.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Converter of the application/x-jackson-smile responses, the most compact encoding for Jackson clients.
+     * Smile writes a repeated key like departmentName or empStartDate once per response and then refers back to it,
+     * and it does the same for repeated short values like the department and region names.
+     *
+     * @param builder object mapper builder configured by Spring Boot.
+     * @return MappingJackson2SmileHttpMessageConverter for application/x-jackson-smile.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(smileFactory).build());
+    }
+}
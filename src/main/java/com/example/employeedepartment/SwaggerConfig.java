@@ -1,19 +1,19 @@
 package com.example.employeedepartment;
 
-import springfox.documentation.builders.PathSelectors;
-import springfox.documentation.builders.RequestHandlerSelectors;
-import springfox.documentation.spi.DocumentationType;
-import springfox.documentation.spring.web.plugins.Docket;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Info;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * OpenAPI description of the endpoints, served on /v3/api-docs and shown by the Swagger UI on /swagger-ui.html.
+ */
 @Configuration
 public class SwaggerConfig {
-    public Docket SwaggerApi() {
-        return new Docket(DocumentationType.SWAGGER_2)
-                .select()
-                .apis(RequestHandlerSelectors.any())
-                .paths(PathSelectors.any())
-                .build();
+    @Bean
+    public OpenAPI swaggerApi() {
+        return new OpenAPI()
+                .info(new Info().title("Employee and Department Management System"));
     }
 }
@@ -0,0 +1,30 @@
+package com.example.employeedepartment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class TransactionConfig {
+    /**
+     * Transaction template used by the DAO write methods which send more than one statement,
+     * so that the statements are committed or rolled back together.
+     *
+     * @param transactionManager transaction manager of the data source.
+     * @param isolation          isolation level of the write transactions (dao.write.isolation). DEFAULT keeps the level of the database.
+     * @param timeoutSeconds     timeout of the write transactions in seconds (dao.write.timeout-seconds). -1 means no timeout.
+     * @return TransactionTemplate for the DAO write methods.
+     */
+    @Bean
+    public TransactionTemplate writeTransactionTemplate(PlatformTransactionManager transactionManager,
+                                                        @Value("${dao.write.isolation:DEFAULT}") Isolation isolation,
+                                                        @Value("${dao.write.timeout-seconds:-1}") int timeoutSeconds) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(isolation.value());
+        transactionTemplate.setTimeout(timeoutSeconds);
+        return transactionTemplate;
+    }
+}
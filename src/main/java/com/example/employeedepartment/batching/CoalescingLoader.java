@@ -0,0 +1,145 @@
+package com.example.employeedepartment.batching;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces the single key lookups which arrive within a short window into one call of a batch function,
+ * like a dataloader. It turns N concurrent getById calls into one IN (...) query.
+ *
+ * The first caller of a batch is its leader: it waits until the window has passed or the batch is full,
+ * then runs the batch function with all the keys collected meanwhile and hands every caller its value.
+ * The other callers only wait for their value. A key requested twice in the same batch is loaded once.
+ * The callers block while they wait, which is cheap on the virtual threads of the request executor.
+ *
+ * A window of zero turns the coalescing off, every load then runs the batch function with its own key.
+ * The sizes of the batches are published as the dao.lookup.batch.size metric, tagged by name.
+ *
+ * @param <K> type of the keys, e.g. the ids.
+ * @param <V> type of the loaded values.
+ */
+public class CoalescingLoader<K, V> {
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Batch<K, V> openBatch;
+
+    /**
+     * @param name          name of the loader, used as the tag of the batch size metric.
+     * @param window        how long the leader of a batch waits for other keys.
+     * @param maxBatchSize  number of keys after which the batch is loaded without waiting for the rest of the window.
+     * @param batchFunction loads the values of a set of keys. Keys which are not found are left out of the map.
+     * @param meterRegistry registry of the batch size metric, may be null.
+     */
+    public CoalescingLoader(String name, Duration window, int maxBatchSize, Function<Set<K>, Map<K, V>> batchFunction,
+                            MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid parameter: maxBatchSize must be at least 1");
+        }
+        this.batchFunction = batchFunction;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = meterRegistry == null ? null : DistributionSummary.builder("dao.lookup.batch.size")
+                .description("Number of keys loaded together by one batched lookup")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * This function loads the value of one key, together with the keys requested by other threads in the same window.
+     *
+     * @param key key to be loaded.
+     * @return Value of the key, or null if the batch function did not find it.
+     */
+    public V load(K key) {
+        if (windowNanos <= 0) {
+            recordBatchSize(1);
+            return batchFunction.apply(Collections.singleton(key)).get(key);
+        }
+        Batch<K, V> batch;
+        CompletableFuture<V> value;
+        boolean leader = false;
+        lock.lock();
+        try {
+            if (openBatch == null) {
+                openBatch = new Batch<>();
+                leader = true;
+            }
+            batch = openBatch;
+            value = batch.values.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (batch.values.size() >= maxBatchSize) {
+                // No more keys are added, the leader loads it right away.
+                openBatch = null;
+                batch.full.countDown();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (leader) {
+            awaitWindow(batch);
+            lock.lock();
+            try {
+                if (openBatch == batch) {
+                    openBatch = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+            dispatch(batch);
+        }
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void awaitWindow(Batch<K, V> batch) {
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // Load what has been collected so far, the other callers of the batch still need their values.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        // The batch is closed, so its map is no longer changed by other threads.
+        recordBatchSize(batch.values.size());
+        try {
+            Map<K, V> loaded = batchFunction.apply(Collections.unmodifiableSet(batch.values.keySet()));
+            batch.values.forEach((key, value) -> value.complete(loaded.get(key)));
+        } catch (RuntimeException | Error e) {
+            batch.values.values().forEach(value -> value.completeExceptionally(e));
+        }
+    }
+
+    private void recordBatchSize(int size) {
+        if (batchSizes != null) {
+            batchSizes.record(size);
+        }
+    }
+
+    private static class Batch<K, V> {
+        private final Map<K, CompletableFuture<V>> values = new LinkedHashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+    }
+}
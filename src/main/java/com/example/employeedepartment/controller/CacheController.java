@@ -0,0 +1,54 @@
+package com.example.employeedepartment.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import com.example.employeedepartment.model.CacheStatistics;
+
+@RestController
+@RequestMapping(path = "/caches")
+public class CacheController {
+    private final CacheManager cacheManager;
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheController.class);
+
+    public CacheController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * This GET API request sends the hit, miss and eviction counters of the getById caches.
+     * Evictions only count the entries removed because of the size limit or the time to live,
+     * not the entries removed by the DAO write methods.
+     *
+     * @return ArrayList containing the statistics of every cache.
+     */
+    @GetMapping(path = "/stats")
+    public ResponseEntity<Object> getCacheStatistics() {
+        logger.info("Received GET /caches/stats request");
+        List<CacheStatistics> cacheStatistics = new ArrayList<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache)) {
+                continue;
+            }
+            com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache = (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+            CacheStats stats = nativeCache.stats();
+            cacheStatistics.add(new CacheStatistics(cacheName, nativeCache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount()));
+        }
+        logger.info("Sent GET /caches/stats response with {} caches", cacheStatistics.size());
+        return new ResponseEntity<>(cacheStatistics, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.employeedepartment.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.employeedepartment.exception.ChangeFeedExpiredException;
+import com.example.employeedepartment.execution.EndpointFamily;
+import com.example.employeedepartment.execution.RequestExecutor;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.ChangeFeedPage;
+import com.example.employeedepartment.service.imp.ChangeFeedServiceImpl;
+
+@Tag(name = "Change Feed")
+@RestController
+@RequestMapping(path = "/changes")
+public class ChangeController {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeController.class);
+
+    private final ChangeFeedServiceImpl changeFeedService;
+
+    private final RequestExecutor requestExecutor;
+
+    public ChangeController(ChangeFeedServiceImpl changeFeedService, RequestExecutor requestExecutor) {
+        this.changeFeedService = changeFeedService;
+        this.requestExecutor = requestExecutor;
+    }
+
+    /**
+     * This GET API request gets the changes of the employees, departments and regions which follow a cursor, in order.
+     * A consumer reads the listings once, then follows the feed from the seq it had at that time, instead of reading
+     * the listings again to find the changes. Every change names the entity and whether it was saved or deleted,
+     * the saved entities are read again, e.g. with GET /employees?ids=.
+     *
+     * @param since (Optional) seq of the last change the consumer has applied, the nextSeq of the previous response.
+     *              Default value is 0, which starts from the oldest change which was not purged yet.
+     * @param limit (Optional) largest number of changes sent. Default value is 500, at most 5000.
+     * @return Object containing the changes, the nextSeq for the next request and hasMore, true when more changes are ready.
+     *         410 Gone when since is not 0 and the changes after it were purged.
+     */
+    @Operation(summary = "View the changes of the employees, departments and regions after a cursor.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully retrieved the changes."),
+            @ApiResponse(responseCode = "400", description = "Invalid Parameters."),
+            @ApiResponse(responseCode = "410", description = "The changes after the cursor were purged, the consumer has to read everything again.")})
+    @GetMapping
+    public CompletableFuture<ResponseEntity<Object>> getChanges(@RequestParam(value = "since", required = false, defaultValue = "0") long since,
+                                                                @RequestParam(value = "limit", required = false, defaultValue = "500") int limit) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /changes request with since={}, limit={}", since, limit);
+        }
+        return requestExecutor.submit(EndpointFamily.LISTING, () -> {
+            try {
+                ChangeFeedPage changeFeedPage = changeFeedService.getChanges(since, limit);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /changes response with {} changes", changeFeedPage.changes().size());
+                }
+                return new ResponseEntity<>(changeFeedPage, HttpStatus.OK);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (ChangeFeedExpiredException ex) {
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.GONE);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.employeedepartment.controller;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.example.employeedepartment.model.EntityVersion;
+
+/**
+ * Conditional GET of the entity and listing endpoints.
+ * The ETag of a response is built from the version of the entity or the listing, which the DAO write methods increment,
+ * and its Last-Modified from the time of that write. The ETag is weak: the same version is sent as JSON, CBOR or Smile
+ * and with or without gzip, and Tomcat does not compress the responses which have a strong ETag.
+ * The responses vary by the Accept header, which selects the encoding. When the client sends back a matching If-None-Match, or an
+ * If-Modified-Since which is not older than the write, the controller answers 304 Not Modified before the body is fetched.
+ * The responses carry Cache-Control: no-cache, so the clients revalidate every time instead of guessing a freshness.
+ */
+final class ConditionalGet {
+    private ConditionalGet() {
+    }
+
+    /**
+     * This function checks whether the copy of the client is still current.
+     * If-Modified-Since is only used when the request has no If-None-Match, like RFC 9110 requires.
+     *
+     * @param ifNoneMatch     If-None-Match header of the request, may be null.
+     * @param ifModifiedSince If-Modified-Since header of the request, may be null.
+     * @param resource        name of the entity or the listing, e.g. employee-12 or employees.
+     * @param version         current version of the entity or the listing, null if it has none.
+     * @return true if the response can be 304 Not Modified.
+     */
+    static boolean isNotModified(String ifNoneMatch, String ifModifiedSince, String resource, EntityVersion version) {
+        if (version == null) {
+            return false;
+        }
+        if (ifNoneMatch != null) {
+            String opaqueTag = etag(resource, version).substring(2);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                // If-None-Match uses the weak comparison, so W/"x" matches W/"x" and "x".
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(opaqueTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (ifModifiedSince != null) {
+            try {
+                Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                // HTTP dates have no fractions of seconds.
+                return version.getUpdatedAt().getEpochSecond() <= since.getEpochSecond();
+            } catch (DateTimeParseException e) {
+                // An invalid date is ignored.
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This function builds the 304 Not Modified response, without a body.
+     */
+    static ResponseEntity<Object> notModified(String resource, EntityVersion version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag(resource, version))
+                .lastModified(version.getUpdatedAt())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+
+    /**
+     * This function builds the 200 OK response with the ETag and Last-Modified headers of the version.
+     * Without a version, the response has no validators.
+     */
+    static ResponseEntity<Object> ok(Object body, String resource, EntityVersion version) {
+        if (version == null) {
+            return new ResponseEntity<>(body, HttpStatus.OK);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag(resource, version))
+                .lastModified(version.getUpdatedAt())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    /**
+     * This function builds the weak ETag of a response from the version.
+     */
+    static String etag(String resource, EntityVersion version) {
+        return "W/\"" + resource + "-" + version.getVersion() + "\"";
+    }
+}
@@ -2,25 +2,36 @@ package com.example.employeedepartment.controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PatchMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
 
+import com.example.employeedepartment.execution.EndpointFamily;
+import com.example.employeedepartment.execution.RequestExecutor;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
 import com.example.employeedepartment.model.RequestDepartment;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
 import com.example.employeedepartment.model.ResponseDepartment;
 import com.example.employeedepartment.service.imp.DepartmentServiceImpl;
 
@@ -33,8 +44,11 @@ public class DepartmentController {
 
     private static final Logger logger = LoggerFactory.getLogger(DepartmentController.class);
 
-    public DepartmentController(DepartmentServiceImpl departmentService) {
+    private final RequestExecutor requestExecutor;
+
+    public DepartmentController(DepartmentServiceImpl departmentService, RequestExecutor requestExecutor) {
         this.departmentService = departmentService;
+        this.requestExecutor = requestExecutor;
     }
 
     /**
@@ -48,45 +62,119 @@ public class DepartmentController {
      * @param sortField     (Optional) parameter based on which sorting happens. Must be either name or id. Default value is id.
      * @param sortDirection (Optional) decides whether the sorting would be ascending or descending. Default value is asc.
      * @param searchTerm    (Optional) Fetches data according to the input. It would happen either by name or id.
+     * @param count         (Optional) Wraps the page in an object with the totalCount, totalPages and hasNext of the listing.
+     *                      Must be exact, estimated (from the table statistics or the name index, exact if none) or none (only hasNext).
+     * @param ifNoneMatch     (Optional) ETag of the copy of the client. If it is still current, 304 Not Modified is sent without a body.
+     * @param ifModifiedSince (Optional) Last-Modified of the copy of the client, used when there is no If-None-Match.
      * @return ArrayList containing all the departments and their details.
+     *         With count, an object containing the departments as items and the paging details.
      */
     @GetMapping(path = "/all")
-    public ResponseEntity<Object> getAllDepartments(@RequestParam(value = "page", required = false, defaultValue = "0") int page,
+    public CompletableFuture<ResponseEntity<Object>> getAllDepartments(@RequestParam(value = "page", required = false, defaultValue = "0") int page,
                                                     @RequestParam(value = "size", required = false, defaultValue = "5") int size,
                                                     @RequestParam(value = "sortField", required = false, defaultValue = "id") String sortField,
                                                     @RequestParam(value = "sortDirection", required = false, defaultValue = "asc") String sortDirection,
-                                                    @RequestParam(value = "searchTerm", required = false) String searchTerm) {
-        logger.info("Received GET /departments/all request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
-        try {
-            List<ResponseDepartment> responseDepartments = departmentService.getAllDepartments(page, size, sortField, sortDirection, searchTerm);
-            logger.info("Sent GET /departments/all response with {} departments", responseDepartments.size());
-            return new ResponseEntity<>(responseDepartments, HttpStatus.OK);
-        } catch (IllegalArgumentException ex) {
-            logger.error("Error in passing parameters.");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
-        } catch (RuntimeException ex) {
-            logger.error("Some error occurred in the server");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+                                                    @RequestParam(value = "searchTerm", required = false) String searchTerm,
+                                                    @RequestParam(value = "count", required = false) String count,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                    @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /departments/all request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}, count={}", page, size, sortField, sortDirection, searchTerm, count);
+        }
+        return requestExecutor.submit(EndpointFamily.LISTING, () -> {
+            try {
+                EntityVersion listingVersion = departmentService.getDepartmentsListingVersion();
+                if (ConditionalGet.isNotModified(ifNoneMatch, ifModifiedSince, "departments", listingVersion)) {
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /departments/all response with 304 Not Modified");
+                    }
+                    return ConditionalGet.notModified("departments", listingVersion);
+                }
+                if (count != null) {
+                    ListingPage<ResponseDepartment> listingPage = departmentService.getDepartmentsPage(page, size, sortField, sortDirection, searchTerm, CountMode.fromParameter(count));
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /departments/all response with {} departments", listingPage.getItems().size());
+                    }
+                    return ConditionalGet.ok(listingPage, "departments", listingVersion);
+                }
+                List<ResponseDepartment> responseDepartments = departmentService.getAllDepartments(page, size, sortField, sortDirection, searchTerm);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /departments/all response with {} departments", responseDepartments.size());
+                }
+                return ConditionalGet.ok(responseDepartments, "departments", listingVersion);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    /**
+     * This GET API request gets the details of all the departments whose ids have been passed, like GET /departments?ids=1,2,3.
+     * The departments are fetched with a single query instead of one GET /departments/{id} request per department.
+     *
+     * @param ids comma separated ids of the requested departments. At most 1000 ids.
+     * @return ArrayList containing the departments which were found, in the order of the ids.
+     */
+    @GetMapping(params = "ids")
+    public CompletableFuture<ResponseEntity<Object>> getDepartmentsByIds(@RequestParam(value = "ids") List<Long> ids) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /departments request with {} ids", ids.size());
         }
+        return requestExecutor.submit(EndpointFamily.LOOKUP, () -> {
+            try {
+                List<ResponseDepartment> responseDepartments = departmentService.getDepartmentsByIds(ids);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /departments response with {} departments", responseDepartments.size());
+                }
+                return new ResponseEntity<>(responseDepartments, HttpStatus.OK);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
      * This GET API request gets the details of the department whose id has been passed as the parameter.
      *
      * @param id id of the requested department.
+     * @param ifNoneMatch     (Optional) ETag of the copy of the client. If it is still current, 304 Not Modified is sent without a body.
+     * @param ifModifiedSince (Optional) Last-Modified of the copy of the client, used when there is no If-None-Match.
      * @return Department object containing the necessary details.
      */
     @GetMapping(path = "/{id}")
-    public ResponseEntity<Object> getDepartmentById(@PathVariable Long id) {
-        logger.info("Received GET /departments/{} request with id = {}", id, id);
-        try {
-            ResponseDepartment requestedResponseDepartment = departmentService.getDepartmentById(id);
-            logger.info("Sent GET /departments/{} response with id = {}", id, id);
-            return new ResponseEntity<>(requestedResponseDepartment, HttpStatus.OK);
-        } catch (RuntimeException ex) {
-            logger.error("Some error occurred in the server");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    public CompletableFuture<ResponseEntity<Object>> getDepartmentById(@PathVariable Long id,
+                                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                       @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /departments/{} request with id = {}", id, id);
         }
+        return requestExecutor.submit(EndpointFamily.LOOKUP, () -> {
+            try {
+                EntityVersion version = departmentService.getDepartmentVersion(id);
+                if (ConditionalGet.isNotModified(ifNoneMatch, ifModifiedSince, "department-" + id, version)) {
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /departments/{} response with 304 Not Modified", id);
+                    }
+                    return ConditionalGet.notModified("department-" + id, version);
+                }
+                ResponseDepartment requestedResponseDepartment = departmentService.getDepartmentById(id);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /departments/{} response with id = {}", id, id);
+                }
+                return ConditionalGet.ok(requestedResponseDepartment, "department-" + id, version);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -96,15 +184,17 @@ public class DepartmentController {
      * @return A success message string or error message.
      */
     @PostMapping(path = "/add")
-    public ResponseEntity<Object> createDepartment(@RequestBody RequestDepartment newRequestDepartment) {
-        try {
-            departmentService.addDepartment(newRequestDepartment);
-            logger.info("Sent POST /employees/add response with success message.");
-            return new ResponseEntity<>("Department created successfully", HttpStatus.OK);
-        } catch (RuntimeException e){
-            logger.error("Some error occurred in the server");
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<Object>> createDepartment(@RequestBody RequestDepartment newRequestDepartment) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            try {
+                departmentService.addDepartment(newRequestDepartment);
+                logger.info("Sent POST /employees/add response with success message.");
+                return new ResponseEntity<>("Department created successfully", HttpStatus.OK);
+            } catch (RuntimeException e){
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -114,9 +204,11 @@ public class DepartmentController {
      * @return String containing success message.
      */
     @PutMapping("/{id}")
-    public @ResponseBody String updateDepartment(@PathVariable Long id, @RequestBody RequestDepartment updatedRequestDepartment) {
-        departmentService.updateDepartment(id, updatedRequestDepartment);
-        return "Department updated successfully";
+    public @ResponseBody CompletableFuture<String> updateDepartment(@PathVariable Long id, @RequestBody RequestDepartment updatedRequestDepartment) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            departmentService.updateDepartment(id, updatedRequestDepartment);
+            return "Department updated successfully";
+        });
     }
 
     /**
@@ -126,16 +218,46 @@ public class DepartmentController {
      * @return Success message string
      */
     @PatchMapping(path = "/{deptId}")
-    public ResponseEntity<Object> updateEndDate (@PathVariable Long deptId, @RequestBody Map<String, Object> updates){
+    public CompletableFuture<ResponseEntity<Object>> updateEndDate (@PathVariable Long deptId, @RequestBody Map<String, Object> updates){
         logger.info("Received PATCH /departments/{} request with department id = {}, region id = {} and end date = {}", deptId, deptId, updates.get("regId"), updates.get("deptEndDate"));
-        try {
-            departmentService.updateEndDate(deptId, updates);
-            logger.info("Sent PATCH /departments/{} response with updated department.", deptId);
-            return new ResponseEntity<>("Added or updated end date successfully", HttpStatus.OK);
-        } catch (RuntimeException e){
-            logger.error("Some error occurred in the server");
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            try {
+                departmentService.updateEndDate(deptId, updates);
+                logger.info("Sent PATCH /departments/{} response with updated department.", deptId);
+                return new ResponseEntity<>("Added or updated end date successfully", HttpStatus.OK);
+            } catch (RuntimeException e){
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    /**
+     * This PATCH API closes many departments in one request, e.g. for a reorganization.
+     * It is much faster than calling PATCH /departments/{deptId} for every department.
+     * @param endDates List of end dates. Every item must have deptId, regId and deptEndDate.
+     * @return ArrayList containing the outcome of every item (UPDATED, NOT_FOUND, REJECTED or FAILED).
+     */
+    @PatchMapping(path = "/end-dates")
+    public CompletableFuture<ResponseEntity<Object>> updateEndDates(@RequestBody List<RequestDepartmentEndDate> endDates) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received PATCH /departments/end-dates request with {} end dates", endDates.size());
         }
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            try {
+                List<EndDateResult> results = departmentService.updateEndDates(endDates);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent PATCH /departments/end-dates response with {} results", results.size());
+                }
+                return new ResponseEntity<>(results, HttpStatus.OK);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -144,8 +266,10 @@ public class DepartmentController {
      * @return String containing the success message.
      */
     @DeleteMapping("/{id}")
-    public @ResponseBody String deleteDepartment(@PathVariable Long id) {
-        departmentService.deleteDepartment(id);
-        return "Department deleted successfully";
+    public @ResponseBody CompletableFuture<String> deleteDepartment(@PathVariable Long id) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            departmentService.deleteDepartment(id);
+            return "Department deleted successfully";
+        });
     }
 }
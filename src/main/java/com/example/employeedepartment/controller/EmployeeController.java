@@ -1,38 +1,57 @@
 package com.example.employeedepartment.controller;
 
-import io.swagger.annotations.Api;
-import io.swagger.annotations.ApiOperation;
-import io.swagger.annotations.ApiResponse;
-import io.swagger.annotations.ApiResponses;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
-import org.springframework.web.bind.annotation.PatchMapping;
-import org.springframework.web.bind.annotation.PutMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
+import com.example.employeedepartment.execution.EndpointFamily;
+import com.example.employeedepartment.execution.RequestExecutor;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.BatchInsertResult;
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EmployeeCursorPage;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
 import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
 import com.example.employeedepartment.model.ResponseEmployee;
 import com.example.employeedepartment.service.imp.EmployeeServiceImpl;
 
-@Api(value = "Employee Management System", tags = "Operations pertaining to employee in Employee Management System")
+@Tag(name = "Employee Management System", description = "Operations pertaining to employee in Employee Management System")
 @RestController
 @RequestMapping(path = "/employees")
 public class EmployeeController {
@@ -41,8 +60,16 @@ public class EmployeeController {
 
     private static final Logger logger = LoggerFactory.getLogger(EmployeeController.class);
 
-    public EmployeeController(EmployeeServiceImpl employeeService) {
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+
+    private final RequestExecutor requestExecutor;
+
+    public EmployeeController(EmployeeServiceImpl employeeService, ObjectMapper objectMapper, RequestExecutor requestExecutor) {
         this.employeeService = employeeService;
+        this.objectMapper = objectMapper;
+        this.requestExecutor = requestExecutor;
     }
 
     /**
@@ -56,53 +83,183 @@ public class EmployeeController {
      * @param sortField     (Optional) parameter based on which sorting happens. Must be either name or id. Default value is id.
      * @param sortDirection (Optional) decides whether the sorting would be ascending or descending. Default value is asc.
      * @param searchTerm    (Optional) Fetches data according to the input. It would happen either by name or id.
+     * @param cursor        (Optional) Switches to keyset pagination. Pass it empty for the first page and then pass the nextCursor
+     *                      of the previous response. The page parameter is ignored in this mode.
+     * @param count         (Optional) Wraps the page in an object with the totalCount, totalPages and hasNext of the listing.
+     *                      Must be exact, estimated (from the table statistics or the name index, exact if none) or none (only hasNext).
+     * @param ifNoneMatch     (Optional) ETag of the copy of the client. If it is still current, 304 Not Modified is sent without a body.
+     * @param ifModifiedSince (Optional) Last-Modified of the copy of the client, used when there is no If-None-Match.
      * @return ArrayList containing all the employees and their details.
+     *         In keyset mode, an object containing the employees and the nextCursor (null on the last page).
+     *         With count, an object containing the employees as items and the paging details.
      */
-    @ApiOperation(value = "View a list of available employees which matches the criteria given in the parameters.", response = List.class)
-    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successfully retrieved the list of employees."),
-            @ApiResponse(code = 400, message = "Invalid Parameters."),
-            @ApiResponse(code = 401, message = "You are not authorized to view the resource."),
-            @ApiResponse(code = 403, message = "Accessing the resource you were trying to reach is forbidden."),
-            @ApiResponse(code = 404, message = "The resource you were trying to reach is not found")})
+    @Operation(summary = "View a list of available employees which matches the criteria given in the parameters.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully retrieved the list of employees."),
+            @ApiResponse(responseCode = "400", description = "Invalid Parameters."),
+            @ApiResponse(responseCode = "401", description = "You are not authorized to view the resource."),
+            @ApiResponse(responseCode = "403", description = "Accessing the resource you were trying to reach is forbidden."),
+            @ApiResponse(responseCode = "404", description = "The resource you were trying to reach is not found")})
     @GetMapping(path = "/all")
-    public ResponseEntity<Object> getAllEmployees(@RequestParam(value = "page", required = false, defaultValue = "0") int page,
+    public CompletableFuture<ResponseEntity<Object>> getAllEmployees(@RequestParam(value = "page", required = false, defaultValue = "0") int page,
                                                   @RequestParam(value = "size", required = false, defaultValue = "5") int size,
                                                   @RequestParam(value = "sortField", required = false, defaultValue = "id") String sortField,
                                                   @RequestParam(value = "sortDirection", required = false, defaultValue = "asc") String sortDirection,
                                                   @RequestParam(value = "searchTerm", required = false) String searchTerm,
+                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "count", required = false) String count,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince,
                                                   HttpServletRequest request,
                                                   HttpServletResponse response) {
-        logger.info("Received GET /employees/all request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /employees/all request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}, cursor={}, count={}", page, size, sortField, sortDirection, searchTerm, cursor, count);
+        }
+        return requestExecutor.submit(EndpointFamily.LISTING, () -> {
+            try {
+                EntityVersion listingVersion = employeeService.getEmployeesListingVersion();
+                if (ConditionalGet.isNotModified(ifNoneMatch, ifModifiedSince, "employees", listingVersion)) {
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /employees/all response with 304 Not Modified");
+                    }
+                    return ConditionalGet.notModified("employees", listingVersion);
+                }
+                if (cursor != null) {
+                    EmployeeCursorPage employeeCursorPage = employeeService.getEmployeesAfterCursor(size, sortField, sortDirection, searchTerm, cursor);
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /employees/all response with {} employees", employeeCursorPage.getEmployees().size());
+                    }
+                    return ConditionalGet.ok(employeeCursorPage, "employees", listingVersion);
+                }
+                if (count != null) {
+                    ListingPage<ResponseEmployee> listingPage = employeeService.getEmployeesPage(page, size, sortField, sortDirection, searchTerm, CountMode.fromParameter(count));
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /employees/all response with {} employees", listingPage.getItems().size());
+                    }
+                    return ConditionalGet.ok(listingPage, "employees", listingVersion);
+                }
+                List<ResponseEmployee> responseEmployees = employeeService.getAllEmployees(page, size, sortField, sortDirection, searchTerm);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /employees/all response with {} employees", responseEmployees.size());
+                }
+                return ConditionalGet.ok(responseEmployees, "employees", listingVersion);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    /**
+     * This GET API request exports all the employees with all of their department details as newline-delimited JSON.
+     * Every line is one employee. The employees are written to the response as they are read from the database,
+     * so the memory used does not grow with the number of employees.
+     *
+     * @param response servlet response to which the employees are streamed.
+     */
+    @Operation(summary = "Export all the employees as newline-delimited JSON (one employee per line).")
+    @GetMapping(path = "/export", produces = NDJSON_MEDIA_TYPE)
+    public void exportEmployees(HttpServletResponse response) throws IOException {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /employees/export request");
+        }
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream outputStream = response.getOutputStream();
+        ObjectWriter employeeWriter = objectMapper.writerFor(ResponseEmployee.class);
+        int[] exported = {0};
         try {
-            List<ResponseEmployee> responseEmployees = employeeService.getAllEmployees(page, size, sortField, sortDirection, searchTerm);
-            logger.info("Sent GET /employees/all response with {} employees", responseEmployees.size());
-            return new ResponseEntity<>(responseEmployees, HttpStatus.OK);
-        } catch (IllegalArgumentException ex) {
-            logger.error("Error in passing parameters.");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            employeeService.exportEmployees(responseEmployee -> {
+                try {
+                    outputStream.write(employeeWriter.writeValueAsBytes(responseEmployee));
+                    outputStream.write('\n');
+                    exported[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Sent GET /employees/export response with {} employees", exported[0]);
+            }
         } catch (RuntimeException ex) {
-            logger.error("Some error occurred in the server");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            logger.error("Some error occurred in the server after exporting {} employees", exported[0]);
+            // Once the first employee was written the status is already sent, the client sees a truncated stream.
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), ex.getMessage());
+            }
         }
     }
 
+    /**
+     * This GET API request gets the details of all the employees whose ids have been passed, like GET /employees?ids=1,2,3.
+     * The employees are fetched with a single query instead of one GET /employees/{id} request per employee.
+     *
+     * @param ids comma separated ids of the requested employees. At most 1000 ids.
+     * @return ArrayList containing the employees which were found, in the order of the ids.
+     */
+    @Operation(summary = "View the employees of the ids given in the parameter.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully retrieved the employees which exist."),
+            @ApiResponse(responseCode = "400", description = "Invalid Parameters.")})
+    @GetMapping(params = "ids")
+    public CompletableFuture<ResponseEntity<Object>> getEmployeesByIds(@RequestParam(value = "ids") List<Long> ids) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /employees request with {} ids", ids.size());
+        }
+        return requestExecutor.submit(EndpointFamily.LOOKUP, () -> {
+            try {
+                List<ResponseEmployee> responseEmployees = employeeService.getEmployeesByIds(ids);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /employees response with {} employees", responseEmployees.size());
+                }
+                return new ResponseEntity<>(responseEmployees, HttpStatus.OK);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
     /**
      * This GET API request gets the details of the employee whose id has been passed as the parameter.
      *
      * @param id id of the requested employee.
+     * @param ifNoneMatch     (Optional) ETag of the copy of the client. If it is still current, 304 Not Modified is sent without a body.
+     * @param ifModifiedSince (Optional) Last-Modified of the copy of the client, used when there is no If-None-Match.
      * @return Employee object containing the necessary details.
      */
     @GetMapping(path = "/{id}")
-    public ResponseEntity<Object> getEmployeeById(@PathVariable Long id) {
-        logger.info("Received GET /employees/{} request with employee id = {}", id, id);
-        try {
-            ResponseEmployee requestedResponseEmployee = employeeService.getEmployeeById(id);
-            logger.info("Sent GET /employees/{} response with employee id = {}", id, id);
-            return new ResponseEntity<>(requestedResponseEmployee, HttpStatus.OK);
-        } catch (RuntimeException ex) {
-            logger.error("Some error occurred in the server");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    public CompletableFuture<ResponseEntity<Object>> getEmployeeById(@PathVariable Long id,
+                                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                     @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /employees/{} request with employee id = {}", id, id);
         }
+        return requestExecutor.submit(EndpointFamily.LOOKUP, () -> {
+            try {
+                EntityVersion version = employeeService.getEmployeeVersion(id);
+                if (ConditionalGet.isNotModified(ifNoneMatch, ifModifiedSince, "employee-" + id, version)) {
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /employees/{} response with 304 Not Modified", id);
+                    }
+                    return ConditionalGet.notModified("employee-" + id, version);
+                }
+                ResponseEmployee requestedResponseEmployee = employeeService.getEmployeeById(id);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /employees/{} response with employee id = {}", id, id);
+                }
+                return ConditionalGet.ok(requestedResponseEmployee, "employee-" + id, version);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -111,15 +268,49 @@ public class EmployeeController {
      * @param newRequestEmployee This request body contains details of the new Employee. It must have name, role and departmentId.
      * @return A success message string.
      */
-    @ApiOperation(value = "Add a new employee in the system", response = String.class)
-    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successfully added a new employee."),
-            @ApiResponse(code = 400, message = "Invalid data types in the input."),
-            @ApiResponse(code = 401, message = "You are not authorized to view the resource."),
-            @ApiResponse(code = 403, message = "Accessing the resource you were trying to reach is forbidden.")})
+    @Operation(summary = "Add a new employee in the system")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully added a new employee."),
+            @ApiResponse(responseCode = "400", description = "Invalid data types in the input."),
+            @ApiResponse(responseCode = "401", description = "You are not authorized to view the resource."),
+            @ApiResponse(responseCode = "403", description = "Accessing the resource you were trying to reach is forbidden.")})
     @PostMapping(path = "/add")
-    public @ResponseBody String createEmployee(@RequestBody RequestEmployee newRequestEmployee) {
-        employeeService.addEmployee(newRequestEmployee);
-        return "Employee added successfully";
+    public @ResponseBody CompletableFuture<String> createEmployee(@RequestBody RequestEmployee newRequestEmployee) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            employeeService.addEmployee(newRequestEmployee);
+            return "Employee added successfully";
+        });
+    }
+
+    /**
+     * This POST API request adds many employees to the system in one transaction.
+     * It is much faster than calling /employees/add for every employee.
+     *
+     * @param newRequestEmployees List of new employees. Every employee must have name, email, regDeptId and empStartDate.
+     * @return ArrayList containing the outcome of every employee (CREATED, EXISTING or REJECTED) and its id.
+     */
+    @Operation(summary = "Add many employees in the system in one batch")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully processed the batch. Check the status of every employee."),
+            @ApiResponse(responseCode = "400", description = "Empty or too large batch.")})
+    @PostMapping(path = "/batch")
+    public CompletableFuture<ResponseEntity<Object>> createEmployees(@RequestBody List<RequestEmployee> newRequestEmployees) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received POST /employees/batch request with {} employees", newRequestEmployees.size());
+        }
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            try {
+                List<BatchInsertResult> results = employeeService.addEmployees(newRequestEmployees);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent POST /employees/batch response with {} results", results.size());
+                }
+                return new ResponseEntity<>(results, HttpStatus.OK);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -127,12 +318,18 @@ public class EmployeeController {
      *
      * @param id              the id which is passed as a parameter in the API endpoint. Refers to the id in the Employee table in the database.
      * @param updatedRequestEmployee Contains the updates required from the request body. Needs to have name, role and departmentId in the request.
-     * @return A success message String
+     * @return A success message String, or 400 BAD_REQUEST when the employee has more than one assignment.
      */
     @PutMapping(path = "/{id}")
-    public @ResponseBody String updateEmployee(@PathVariable Long id, @RequestBody RequestEmployee updatedRequestEmployee) {
-        employeeService.updateEmployee(id, updatedRequestEmployee);
-        return "Employee updated successfully";
+    public CompletableFuture<ResponseEntity<Object>> updateEmployee(@PathVariable Long id, @RequestBody RequestEmployee updatedRequestEmployee) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            try {
+                employeeService.updateEmployee(id, updatedRequestEmployee);
+                return new ResponseEntity<>("Employee updated successfully", HttpStatus.OK);
+            } catch (IllegalArgumentException ex) {
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     /**
@@ -142,15 +339,53 @@ public class EmployeeController {
      * @return Success message string
      */
     @PatchMapping(path = "/{empId}")
-    public ResponseEntity<Object> updateEmployeeEndDate(@PathVariable Long empId, @RequestBody Map<String, Object> updates){
-        logger.info("Received PATCH /employees/{} request with employee id = {}, department id = {}, regionId = {} and end date = {}", empId, empId, updates.get("deptId"), updates.get("regId"), updates.get("empEndDate"));
-        try {
-            employeeService.updateEmployeeEndDate(empId, updates);
-            logger.info("Sent PATCH /departments/{} response with updated employee.", empId);
-            return new ResponseEntity<>("Added or updated end date successfully", HttpStatus.OK);
-        } catch (RuntimeException e){
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    public CompletableFuture<ResponseEntity<Object>> updateEmployeeEndDate(@PathVariable Long empId, @RequestBody Map<String, Object> updates){
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received PATCH /employees/{} request with employee id = {}, department id = {}, regionId = {} and end date = {}", empId, empId, updates.get("deptId"), updates.get("regId"), updates.get("empEndDate"));
+        }
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            try {
+                employeeService.updateEmployeeEndDate(empId, updates);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent PATCH /employees/{} response with updated employee.", empId);
+                }
+                return new ResponseEntity<>("Added or updated end date successfully", HttpStatus.OK);
+            } catch (RuntimeException e){
+                return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    /**
+     * This PATCH API request adds or updates the end dates of many employees in one request, e.g. for a reorganization.
+     * It is much faster than calling PATCH /employees/{empId} for every employee.
+     *
+     * @param endDates List of end dates. Every item must have empId, regId, deptId and empEndDate.
+     * @return ArrayList containing the outcome of every item (UPDATED, NOT_FOUND, REJECTED or FAILED).
+     */
+    @Operation(summary = "Add or update the end dates of many employees in one request")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully processed the end dates. Check the status of every item."),
+            @ApiResponse(responseCode = "400", description = "Empty or too large request.")})
+    @PatchMapping(path = "/end-dates")
+    public CompletableFuture<ResponseEntity<Object>> updateEmployeeEndDates(@RequestBody List<RequestEmployeeEndDate> endDates) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received PATCH /employees/end-dates request with {} end dates", endDates.size());
         }
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            try {
+                List<EndDateResult> results = employeeService.updateEmployeeEndDates(endDates);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent PATCH /employees/end-dates response with {} results", results.size());
+                }
+                return new ResponseEntity<>(results, HttpStatus.OK);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -160,8 +395,10 @@ public class EmployeeController {
      * @return A success message string
      */
     @DeleteMapping(path = "/{id}")
-    public @ResponseBody String deleteEmployee(@PathVariable Long id) {
-        employeeService.deleteEmployee(id);
-        return "Employee deleted successfully";
+    public @ResponseBody CompletableFuture<String> deleteEmployee(@PathVariable Long id) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            employeeService.deleteEmployee(id);
+            return "Employee deleted successfully";
+        });
     }
 }
@@ -0,0 +1,194 @@
+package com.example.employeedepartment.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.employeedepartment.exception.IdNotFoundException;
+import com.example.employeedepartment.exception.ServiceBusyException;
+import com.example.employeedepartment.execution.EndpointFamily;
+import com.example.employeedepartment.execution.RequestExecutor;
+import com.example.employeedepartment.model.Job;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
+import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
+import com.example.employeedepartment.service.imp.JobServiceImpl;
+
+@Tag(name = "Background Jobs")
+@RestController
+@RequestMapping(path = "/jobs")
+public class JobController {
+    private static final Logger logger = LoggerFactory.getLogger(JobController.class);
+
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private final JobServiceImpl jobService;
+
+    private final RequestExecutor requestExecutor;
+
+    public JobController(JobServiceImpl jobService, RequestExecutor requestExecutor) {
+        this.jobService = jobService;
+        this.requestExecutor = requestExecutor;
+    }
+
+    /**
+     * This POST API request queues a job which adds the employees like POST /employees/batch, without a limit of 10000.
+     *
+     * @param requestEmployees employees to add.
+     * @return 202 Accepted with the queued job. Its Location header is the url to poll for the progress.
+     */
+    @Operation(summary = "Queue a job which adds the employees of the body.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "202", description = "The job was queued."),
+            @ApiResponse(responseCode = "400", description = "Invalid Parameters."),
+            @ApiResponse(responseCode = "503", description = "Too many jobs are queued.")})
+    @PostMapping(path = "/employee-import")
+    public CompletableFuture<ResponseEntity<Object>> submitEmployeeImport(@RequestBody List<RequestEmployee> requestEmployees) {
+        logger.info("Received POST /jobs/employee-import request with {} employees", requestEmployees.size());
+        return submit(() -> jobService.submitEmployeeImport(requestEmployees));
+    }
+
+    /**
+     * This POST API request queues a job which saves the end dates like PATCH /employees/end-dates.
+     *
+     * @param endDates end dates of the employee assignments.
+     * @return 202 Accepted with the queued job. Its Location header is the url to poll for the progress.
+     */
+    @Operation(summary = "Queue a job which saves the end dates of the employees of the body.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "202", description = "The job was queued."),
+            @ApiResponse(responseCode = "400", description = "Invalid Parameters."),
+            @ApiResponse(responseCode = "503", description = "Too many jobs are queued.")})
+    @PostMapping(path = "/employee-end-dates")
+    public CompletableFuture<ResponseEntity<Object>> submitEmployeeEndDates(@RequestBody List<RequestEmployeeEndDate> endDates) {
+        logger.info("Received POST /jobs/employee-end-dates request with {} end dates", endDates.size());
+        return submit(() -> jobService.submitEmployeeEndDates(endDates));
+    }
+
+    /**
+     * This POST API request queues a job which saves the end dates like PATCH /departments/end-dates.
+     *
+     * @param endDates end dates of the departments.
+     * @return 202 Accepted with the queued job. Its Location header is the url to poll for the progress.
+     */
+    @Operation(summary = "Queue a job which saves the end dates of the departments of the body.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "202", description = "The job was queued."),
+            @ApiResponse(responseCode = "400", description = "Invalid Parameters."),
+            @ApiResponse(responseCode = "503", description = "Too many jobs are queued.")})
+    @PostMapping(path = "/department-end-dates")
+    public CompletableFuture<ResponseEntity<Object>> submitDepartmentEndDates(@RequestBody List<RequestDepartmentEndDate> endDates) {
+        logger.info("Received POST /jobs/department-end-dates request with {} end dates", endDates.size());
+        return submit(() -> jobService.submitDepartmentEndDates(endDates));
+    }
+
+    /**
+     * This POST API request queues a job which writes all the employees to a file like GET /employees/export.
+     * The file is downloaded with GET /jobs/{id}/output once the job has succeeded.
+     *
+     * @return 202 Accepted with the queued job. Its Location header is the url to poll for the progress.
+     */
+    @Operation(summary = "Queue a job which exports all the employees as newline-delimited JSON.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "202", description = "The job was queued."),
+            @ApiResponse(responseCode = "503", description = "Too many jobs are queued.")})
+    @PostMapping(path = "/employee-export")
+    public CompletableFuture<ResponseEntity<Object>> submitEmployeeExport() {
+        logger.info("Received POST /jobs/employee-export request");
+        return submit(jobService::submitEmployeeExport);
+    }
+
+    /**
+     * This GET API request gets the status and the progress of a job.
+     *
+     * @param id id of the job.
+     * @return The job with its status, processedItems of totalItems and the outcomes of the processed items.
+     */
+    @Operation(summary = "View the status and the progress of a job.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully retrieved the job."),
+            @ApiResponse(responseCode = "404", description = "The job does not exist.")})
+    @GetMapping(path = "/{id}")
+    public CompletableFuture<ResponseEntity<Object>> getJob(@PathVariable Long id) {
+        return requestExecutor.submit(EndpointFamily.LOOKUP, () -> {
+            try {
+                return new ResponseEntity<>(jobService.getJob(id), HttpStatus.OK);
+            } catch (IdNotFoundException ex) {
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    /**
+     * This GET API request downloads the file written by a succeeded export job, one employee per line.
+     *
+     * @param id id of the job.
+     * @return The newline-delimited JSON file of the job.
+     */
+    @Operation(summary = "Download the file written by an export job.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully retrieved the file."),
+            @ApiResponse(responseCode = "400", description = "The job has no file, it is not a succeeded export."),
+            @ApiResponse(responseCode = "404", description = "The job does not exist.")})
+    @GetMapping(path = "/{id}/output")
+    public CompletableFuture<ResponseEntity<Object>> getJobOutput(@PathVariable Long id) {
+        logger.info("Received GET /jobs/{}/output request", id);
+        return requestExecutor.submit(EndpointFamily.LOOKUP, () -> {
+            try {
+                Path output = jobService.getJobOutput(id);
+                return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                        .body(new FileSystemResource(output));
+            } catch (IdNotFoundException ex) {
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    /**
+     * This function queues a job on the write executor and answers with 202 Accepted and the url of the job.
+     *
+     * @param submitter queues the job.
+     * @return CompletableFuture of the response.
+     */
+    private CompletableFuture<ResponseEntity<Object>> submit(Supplier<Job> submitter) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            try {
+                Job job = submitter.get();
+                logger.info("Sent 202 Accepted response with job {}", job.id());
+                return ResponseEntity.accepted().location(URI.create("/jobs/" + job.id())).body(job);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (ServiceBusyException ex) {
+                logger.error("Too many jobs are queued");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+}
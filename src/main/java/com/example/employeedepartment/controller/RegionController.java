@@ -1,15 +1,17 @@
 package com.example.employeedepartment.controller;
 
-import io.swagger.annotations.Api;
-import io.swagger.annotations.ApiOperation;
-import io.swagger.annotations.ApiResponse;
-import io.swagger.annotations.ApiResponses;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,15 +20,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.employeedepartment.execution.EndpointFamily;
+import com.example.employeedepartment.execution.RequestExecutor;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
 import com.example.employeedepartment.model.Region;
 import com.example.employeedepartment.service.imp.RegionServiceImpl;
 
-@Api(value = "Region Management System")
+@Tag(name = "Region Management System")
 @RestController
 @RequestMapping(path = "/regions")
 public class RegionController {
@@ -35,8 +44,11 @@ public class RegionController {
 
     private static final Logger logger = LoggerFactory.getLogger(EmployeeController.class);
 
-    public RegionController(RegionServiceImpl regionService) {
+    private final RequestExecutor requestExecutor;
+
+    public RegionController(RegionServiceImpl regionService, RequestExecutor requestExecutor) {
         this.regionService = regionService;
+        this.requestExecutor = requestExecutor;
     }
 
     /**
@@ -50,51 +62,96 @@ public class RegionController {
      * @param sortField     (Optional) parameter based on which sorting happens. Must be either name or id. Default value is id.
      * @param sortDirection (Optional) decides whether the sorting would be ascending or descending. Default value is asc.
      * @param searchTerm    (Optional) Fetches data according to the input. It would happen either by name or id.
+     * @param count         (Optional) Wraps the page in an object with the totalCount, totalPages and hasNext of the listing.
+     *                      Must be exact, estimated (from the table statistics or the name index, exact if none) or none (only hasNext).
+     * @param ifNoneMatch     (Optional) ETag of the copy of the client. If it is still current, 304 Not Modified is sent without a body.
+     * @param ifModifiedSince (Optional) Last-Modified of the copy of the client, used when there is no If-None-Match.
      * @return ArrayList containing all the regions and their details.
+     *         With count, an object containing the regions as items and the paging details.
      */
-    @ApiOperation(value = "View a list of available regions which matches the criteria given in the parameters.", response = List.class)
-    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successfully retrieved the list of regions."),
-            @ApiResponse(code = 400, message = "Invalid Parameters."),
-            @ApiResponse(code = 401, message = "You are not authorized to view the resource."),
-            @ApiResponse(code = 403, message = "Accessing the resource you were trying to reach is forbidden."),
-            @ApiResponse(code = 404, message = "The resource you were trying to reach is not found")})
+    @Operation(summary = "View a list of available regions which matches the criteria given in the parameters.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully retrieved the list of regions."),
+            @ApiResponse(responseCode = "400", description = "Invalid Parameters."),
+            @ApiResponse(responseCode = "401", description = "You are not authorized to view the resource."),
+            @ApiResponse(responseCode = "403", description = "Accessing the resource you were trying to reach is forbidden."),
+            @ApiResponse(responseCode = "404", description = "The resource you were trying to reach is not found")})
     @GetMapping(path = "/all")
-    public ResponseEntity<Object> getAllRegions(@RequestParam(value = "page", required = false, defaultValue = "0") int page,
+    public CompletableFuture<ResponseEntity<Object>> getAllRegions(@RequestParam(value = "page", required = false, defaultValue = "0") int page,
                                                   @RequestParam(value = "size", required = false, defaultValue = "5") int size,
                                                   @RequestParam(value = "sortField", required = false, defaultValue = "id") String sortField,
                                                   @RequestParam(value = "sortDirection", required = false, defaultValue = "asc") String sortDirection,
-                                                  @RequestParam(value = "searchTerm", required = false) String searchTerm) {
-        logger.info("Received GET /regions/all request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
-        try {
-            List<Region> regions = regionService.getAllRegions(page, size, sortField, sortDirection, searchTerm);
-            logger.info("Sent GET /regions/all response with {} employees", regions.size());
-            return new ResponseEntity<>(regions, HttpStatus.OK);
-        } catch (IllegalArgumentException ex) {
-            logger.error("Error in passing parameters.");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
-        } catch (RuntimeException ex) {
-            logger.error("Some error occurred in the server");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+                                                  @RequestParam(value = "searchTerm", required = false) String searchTerm,
+                                                  @RequestParam(value = "count", required = false) String count,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /regions/all request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}, count={}", page, size, sortField, sortDirection, searchTerm, count);
         }
+        return requestExecutor.submit(EndpointFamily.LISTING, () -> {
+            try {
+                EntityVersion listingVersion = regionService.getRegionsListingVersion();
+                if (ConditionalGet.isNotModified(ifNoneMatch, ifModifiedSince, "regions", listingVersion)) {
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /regions/all response with 304 Not Modified");
+                    }
+                    return ConditionalGet.notModified("regions", listingVersion);
+                }
+                if (count != null) {
+                    ListingPage<Region> listingPage = regionService.getRegionsPage(page, size, sortField, sortDirection, searchTerm, CountMode.fromParameter(count));
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /regions/all response with {} regions", listingPage.getItems().size());
+                    }
+                    return ConditionalGet.ok(listingPage, "regions", listingVersion);
+                }
+                List<Region> regions = regionService.getAllRegions(page, size, sortField, sortDirection, searchTerm);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /regions/all response with {} employees", regions.size());
+                }
+                return ConditionalGet.ok(regions, "regions", listingVersion);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Error in passing parameters.");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
      * This GET API request gets the details of the region whose id has been passed as the parameter.
      *
      * @param id id of the requested region.
+     * @param ifNoneMatch     (Optional) ETag of the copy of the client. If it is still current, 304 Not Modified is sent without a body.
+     * @param ifModifiedSince (Optional) Last-Modified of the copy of the client, used when there is no If-None-Match.
      * @return Region object containing the necessary details.
      */
     @GetMapping(path = "/{id}")
-    public ResponseEntity<Object> getRegionById(@PathVariable Long id) {
-        logger.info("Received GET /employees/{} request with employee id = {}", id, id);
-        try {
-            Region requestedRegion = regionService.getRegionById(id);
-            logger.info("Sent GET /employees/{} response with employee id = {}", id, id);
-            return new ResponseEntity<>(requestedRegion, HttpStatus.OK);
-        } catch (RuntimeException ex) {
-            logger.error("Some error occurred in the server");
-            return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    public CompletableFuture<ResponseEntity<Object>> getRegionById(@PathVariable Long id,
+                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                   @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Received GET /employees/{} request with employee id = {}", id, id);
         }
+        return requestExecutor.submit(EndpointFamily.LOOKUP, () -> {
+            try {
+                EntityVersion version = regionService.getRegionVersion(id);
+                if (ConditionalGet.isNotModified(ifNoneMatch, ifModifiedSince, "region-" + id, version)) {
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Sent GET /regions/{} response with 304 Not Modified", id);
+                    }
+                    return ConditionalGet.notModified("region-" + id, version);
+                }
+                Region requestedRegion = regionService.getRegionById(id);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Sent GET /employees/{} response with employee id = {}", id, id);
+                }
+                return ConditionalGet.ok(requestedRegion, "region-" + id, version);
+            } catch (RuntimeException ex) {
+                logger.error("Some error occurred in the server");
+                return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     /**
@@ -103,15 +160,17 @@ public class RegionController {
      * @param newRegion This request body contains details of the new Region. It must have name and startDate.
      * @return A success message string.
      */
-    @ApiOperation(value = "Add a new region in the system", response = String.class)
-    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successfully added a new region."),
-            @ApiResponse(code = 400, message = "Invalid data types in the input."),
-            @ApiResponse(code = 401, message = "You are not authorized to view the resource."),
-            @ApiResponse(code = 403, message = "Accessing the resource you were trying to reach is forbidden.")})
+    @Operation(summary = "Add a new region in the system")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully added a new region."),
+            @ApiResponse(responseCode = "400", description = "Invalid data types in the input."),
+            @ApiResponse(responseCode = "401", description = "You are not authorized to view the resource."),
+            @ApiResponse(responseCode = "403", description = "Accessing the resource you were trying to reach is forbidden.")})
     @PostMapping(path = "/add")
-    public @ResponseBody String createEmployee(@RequestBody Region newRegion) {
-        regionService.addRegion(newRegion);
-        return "Region added successfully";
+    public @ResponseBody CompletableFuture<String> createEmployee(@RequestBody Region newRegion) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            regionService.addRegion(newRegion);
+            return "Region added successfully";
+        });
     }
 
     /**
@@ -122,9 +181,11 @@ public class RegionController {
      * @return A success message String
      */
     @PutMapping(path = "/{id}")
-    public @ResponseBody String updateEmployee(@PathVariable Long id, @RequestBody Region updatedRegion) {
-        regionService.updateRegion(id, updatedRegion);
-        return "Region updated successfully";
+    public @ResponseBody CompletableFuture<String> updateEmployee(@PathVariable Long id, @RequestBody Region updatedRegion) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            regionService.updateRegion(id, updatedRegion);
+            return "Region updated successfully";
+        });
     }
 
     /**
@@ -134,8 +195,10 @@ public class RegionController {
      * @return A success message string
      */
     @DeleteMapping(path = "/{id}")
-    public @ResponseBody String deleteEmployee(@PathVariable Long id) {
-        regionService.deleteRegion(id);
-        return "Employee deleted successfully";
+    public @ResponseBody CompletableFuture<String> deleteEmployee(@PathVariable Long id) {
+        return requestExecutor.submit(EndpointFamily.WRITE, () -> {
+            regionService.deleteRegion(id);
+            return "Employee deleted successfully";
+        });
     }
 }
@@ -0,0 +1,27 @@
+package com.example.employeedepartment.dao;
+
+import java.util.List;
+
+/**
+ * Names of the caches which hold the results of the getById lookups, the listing counts and the versions of the DAOs.
+ * The sizes and the time to live of the caches are configured in application.properties.
+ */
+public final class CacheNames {
+    public static final String EMPLOYEES = "employees";
+    public static final String DEPARTMENTS = "departments";
+    public static final String REGIONS = "regions";
+
+    public static final String EMPLOYEE_COUNTS = "employeeCounts";
+    public static final String DEPARTMENT_COUNTS = "departmentCounts";
+    public static final String REGION_COUNTS = "regionCounts";
+
+    public static final List<String> LISTING_COUNTS = List.of(EMPLOYEE_COUNTS, DEPARTMENT_COUNTS, REGION_COUNTS);
+
+    public static final String EMPLOYEE_VERSIONS = "employeeVersions";
+    public static final String DEPARTMENT_VERSIONS = "departmentVersions";
+    public static final String REGION_VERSIONS = "regionVersions";
+    public static final String LISTING_VERSIONS = "listingVersions";
+
+    private CacheNames() {
+    }
+}
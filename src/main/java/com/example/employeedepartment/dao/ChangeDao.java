@@ -0,0 +1,110 @@
+package com.example.employeedepartment.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.ChangeFeedPage;
+import com.example.employeedepartment.model.ChangeRecord;
+import com.example.employeedepartment.routing.PrimaryRead;
+
+/**
+ * Reads the change feed appended by ChangeOutbox and purges its old changes.
+ *
+ * The seq of a change is taken when it is inserted, but the changes become visible when their transactions commit,
+ * which is not always in seq order. A consumer which moved its cursor past a change that is not committed yet would
+ * never see it. So getAfter stops before a gap in the seqs until the change after the gap is older than
+ * changes.gap-wait-seconds, longer than a write transaction can last (dao.write.timeout-seconds). By then the missing
+ * seq belongs to a transaction which was rolled back and it will never appear.
+ * The reads run on the primary: the replicas can show the commits in another order than the seqs as well.
+ */
+@Repository
+public class ChangeDao {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeDao.class);
+
+    private static final int PURGE_BATCH_SIZE = 10000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${changes.gap-wait-seconds:15}")
+    private int gapWaitSeconds;
+
+    @Value("${changes.retention-hours:168}")
+    private int retentionHours;
+
+    public ChangeDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * This function reads the changes which follow a cursor, in seq order.
+     *
+     * @param since seq of the last change the consumer has, 0 for all the changes.
+     * @param limit largest number of changes returned.
+     * @return ChangeFeedPage with the changes and the cursor of the next request.
+     */
+    @PrimaryRead
+    public ChangeFeedPage getAfter(long since, int limit) {
+        String query = "SELECT seq, entity_type, entity_id, operation, changed_at, changed_at > TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) AS recent FROM change_outbox WHERE seq > ? ORDER BY seq LIMIT ?";
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query: {}", query);
+        }
+        List<ChangeRecord> changes = new ArrayList<>();
+        // Next seq which can be served, and whether the feed stopped before a gap or after limit changes.
+        long[] nextSeq = {since};
+        boolean[] stopped = {false};
+        jdbcTemplate.query(query, (RowCallbackHandler) rs -> {
+            if (stopped[0]) {
+                return;
+            }
+            long seq = rs.getLong("seq");
+            boolean gap = seq != nextSeq[0] + 1;
+            if (changes.size() == limit || (gap && rs.getBoolean("recent"))) {
+                stopped[0] = true;
+                return;
+            }
+            changes.add(new ChangeRecord(seq, ChangeRecord.EntityType.valueOf(rs.getString("entity_type")), rs.getLong("entity_id"),
+                    ChangeRecord.Operation.valueOf(rs.getString("operation")), rs.getTimestamp("changed_at").toInstant()));
+            nextSeq[0] = seq;
+        }, -gapWaitSeconds, since, limit + 1);
+        // More changes are ready only when the page is full, a page which stopped before a recent gap has to wait.
+        boolean hasMore = stopped[0] && changes.size() == limit;
+        return new ChangeFeedPage(changes, nextSeq[0], hasMore);
+    }
+
+    /**
+     * @return Highest seq removed by purge, 0 if none was.
+     */
+    @PrimaryRead
+    public long getPurgedThrough() {
+        return jdbcTemplate.queryForObject("SELECT purged_through FROM change_outbox_purge WHERE id = 1", Long.class);
+    }
+
+    /**
+     * This function removes the changes older than changes.retention-hours, PURGE_BATCH_SIZE rows per statement.
+     * The purged seq is saved first, so a consumer behind it gets a 410 instead of a feed with a hole.
+     */
+    @Scheduled(initialDelayString = "${changes.purge-interval-ms:3600000}", fixedDelayString = "${changes.purge-interval-ms:3600000}")
+    public void purge() {
+        Long purgedThrough = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM change_outbox WHERE changed_at < TIMESTAMPADD(HOUR, ?, CURRENT_TIMESTAMP)", Long.class, -retentionHours);
+        if (purgedThrough == null) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE change_outbox_purge SET purged_through = ? WHERE id = 1 AND purged_through < ?", purgedThrough, purgedThrough);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM change_outbox WHERE seq <= ? LIMIT " + PURGE_BATCH_SIZE, purgedThrough);
+            total += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        logger.info("Purged {} changes up to seq {}", total, purgedThrough);
+    }
+}
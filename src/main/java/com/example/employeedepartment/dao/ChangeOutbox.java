@@ -0,0 +1,61 @@
+package com.example.employeedepartment.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.ChangeRecord;
+
+/**
+ * Appends the changes of the employees, departments and regions to the change_outbox table, the source of GET /changes.
+ *
+ * The DAO write methods call it inside the transaction of the write, so a change is in the feed exactly when the write
+ * is committed. The rows whose details change are the rows whose version changes, so EntityVersions appends them
+ * when it touches the versions. The DAO write methods only append the rows which they create or delete themselves.
+ * The table is created by src/main/resources/db/migration/V7__change_outbox.sql.
+ */
+@Repository
+class ChangeOutbox {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeOutbox.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ChangeOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void appendSaved(ChangeRecord.EntityType entityType, long id) {
+        append(entityType, ChangeRecord.Operation.SAVED, id);
+    }
+
+    void appendDeleted(ChangeRecord.EntityType entityType, long id) {
+        append(entityType, ChangeRecord.Operation.DELETED, id);
+    }
+
+    /**
+     * This function appends a SAVED change for every row of a table which matches a condition.
+     *
+     * @param entityType entity of the rows.
+     * @param table      employee, department or region.
+     * @param where      condition on the rows of the table, with ? placeholders.
+     * @param args       arguments of the condition.
+     */
+    void appendSavedWhere(ChangeRecord.EntityType entityType, String table, String where, Object... args) {
+        // The entity type and the operation are constants of the code, they are part of the statement so the arguments stay those of the condition.
+        execute("INSERT INTO change_outbox (entity_type, entity_id, operation) SELECT '" + entityType.name() + "', id, '"
+                + ChangeRecord.Operation.SAVED.name() + "' FROM " + table + " WHERE " + where, args);
+    }
+
+    private void append(ChangeRecord.EntityType entityType, ChangeRecord.Operation operation, long id) {
+        execute("INSERT INTO change_outbox (entity_type, entity_id, operation) VALUES (?, ?, ?)", entityType.name(), id, operation.name());
+    }
+
+    private void execute(String query, Object... args) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query: {}", query);
+        }
+        jdbcTemplate.update(query, args);
+    }
+}
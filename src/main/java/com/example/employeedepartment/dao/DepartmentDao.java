@@ -1,35 +1,124 @@
 package com.example.employeedepartment.dao;
 
 import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.employeedepartment.batching.CoalescingLoader;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.ChangeRecord;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
 import com.example.employeedepartment.model.RequestDepartment;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
 import com.example.employeedepartment.model.ResponseDepartment;
+import com.example.employeedepartment.routing.ReplicaRead;
+import com.example.employeedepartment.routing.RoutingContext;
+import com.example.employeedepartment.search.NameSearchIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Repository
-public class DepartmentDao {
+public class DepartmentDao implements ListingCounter {
     @Autowired
     private final JdbcTemplate jdbcTemplate;
     private static final Logger logger = LoggerFactory.getLogger(DepartmentDao.class);
 
+    private static final int ID_LOOKUP_CHUNK_SIZE = 1000;
+
+    /**
+     * Statements of getAll: a page of the ids filtered by the LIKE filter joined with the details,
+     * or the departments of a page of the ids found by the name index.
+     */
+    private static final QueryPlans LISTING_PLANS = QueryPlans.precompute(EnumSet.allOf(SearchFilter.class), true, false, DepartmentDao::listingPlan);
+
+    private static final QueryPlans ID_LOOKUP_PLANS = QueryPlans.precompute(EnumSet.of(SearchFilter.IDS), false, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan(DepartmentResultSetExtractor.SELECT_DEPARTMENT_DETAILS + filter.whereClause("department.id", null, idCount), filter.parameterTypes(idCount)));
+
+    private static final QueryPlans COUNT_PLANS = QueryPlans.precompute(EnumSet.of(SearchFilter.NONE, SearchFilter.NAME, SearchFilter.ID_OR_NAME), false, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan("SELECT COUNT(*) FROM department" + filter.whereClause("department.id", "department.name", 0), filter.parameterTypes(0)));
+
+    private static final QueryPlans HAS_MORE_PLANS = QueryPlans.precompute(EnumSet.of(SearchFilter.NONE, SearchFilter.NAME, SearchFilter.ID_OR_NAME), false, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan("SELECT id FROM department" + filter.whereClause("department.id", "department.name", 0) + " ORDER BY id LIMIT 1 OFFSET ?",
+                    QueryPlan.types(filter.parameterTypes(0), Types.BIGINT)));
+
+    private final NameSearchIndex nameIndex = new NameSearchIndex();
+
+    @Autowired
+    private TransactionTemplate writeTransactionTemplate;
+
+    @Value("${dao.lookup.batch-window-ms:2}")
+    private long lookupBatchWindowMs;
+
+    @Value("${dao.lookup.max-batch-size:100}")
+    private int lookupMaxBatchSize;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EmployeeAssignmentView assignmentView;
+
+    @Autowired
+    private TableStatistics tableStatistics;
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // The lookups are coalesced by the database they read, since the batch runs on the connection of its first caller:
+    // a lookup pinned to a replica or to the primary gets the row of that database, like the version of the request.
+    private final Map<String, CoalescingLoader<Long, ResponseDepartment>> departmentLoaders = new ConcurrentHashMap<>();
+
     public DepartmentDao(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    private CoalescingLoader<Long, ResponseDepartment> createLoader() {
+        return new CoalescingLoader<>("departments", Duration.ofMillis(lookupBatchWindowMs), lookupMaxBatchSize,
+                this::loadByIds, meterRegistry);
+    }
+
     /**
      * This function returns all the departments with pagination to reduce load.
      * Also contains sorting by name and id feature.
@@ -42,145 +131,315 @@ public class DepartmentDao {
      * @param searchTerm    String used for filtering by name or id.
      * @return List of all departments found in the database.
      */
+    @ReplicaRead
     public List<ResponseDepartment> getAll(int page, int size, String sortField, String sortDirection, String searchTerm) {
-        List<Object> args = new ArrayList<>();
-        String query = "SELECT department.id, department.name AS name, region.name AS region, region_department.dept_start_date, region_department.dept_end_date FROM department JOIN region_department ON department.id = region_department.dept_id JOIN region ON region_department.reg_id = region.id INNER JOIN (SELECT id FROM department";
+        ListingSort sort = ListingSort.of(sortField, sortDirection);
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent()) {
+            return getPageOfIds(matchingIds.get(), page, size, sort);
+        }
+
+        SearchFilter filter = SearchFilter.of(searchTerm);
+        QueryPlan plan = LISTING_PLANS.get(filter, 0, false, sort);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
+            }
+            return plan.query(jdbcTemplate, new DepartmentResultSetExtractor(size), filter.args(searchTerm, false, size, page * size));
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This function builds the statement of getAll for one variant.
+     * The LIKE filters page the ids in the subquery, ordered by id, and the page is joined with the details and sorted.
+     * The IDS filter selects the departments of a page of ids found by the name index.
+     */
+    private static QueryPlan listingPlan(SearchFilter filter, int idCount, boolean afterCursor, ListingSort sort) {
+        String orderBy = " ORDER BY " + sort.orderBy("department.id", "department.name");
+        if (filter == SearchFilter.IDS) {
+            return new QueryPlan(DepartmentResultSetExtractor.SELECT_DEPARTMENT_DETAILS + filter.whereClause("department.id", null, idCount) + orderBy,
+                    filter.parameterTypes(idCount));
+        }
+        return new QueryPlan(DepartmentResultSetExtractor.SELECT_DEPARTMENT_DETAILS + " INNER JOIN (SELECT id FROM department" + filter.whereClause("department.id", "department.name", 0)
+                + " ORDER BY id LIMIT ? OFFSET ?) AS deptId ON department.id = deptId.id" + orderBy,
+                QueryPlan.types(filter.parameterTypes(0), Types.INTEGER, Types.INTEGER));
+    }
+
+    /**
+     * This function finds the ids of the departments matching the search term with the name index.
+     *
+     * @param searchTerm String used for filtering by name or id.
+     * @return Sorted ids of the matching departments, or an empty Optional when there is no search term or the index is not built yet.
+     */
+    private Optional<long[]> searchIds(String searchTerm) {
+        if (searchTerm == null) {
+            return Optional.empty();
+        }
+        return nameIndex.search(searchTerm).map(ids -> SearchTerms.withSearchedId(ids, searchTerm, nameIndex));
+    }
 
-        if (searchTerm != null) {
-            query += " WHERE department.id = ? OR department.name LIKE ?";
-            args.add(searchTerm);
-            args.add("%"+searchTerm+"%");
+    /**
+     * This function counts the departments listed by getAll for the search term.
+     * A search is answered by the name index without a query once it is built, otherwise the departments are counted
+     * with the filter of getAll. The count is cached per search term and evicted by the department writes.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for all the departments.
+     * @return Number of matching departments.
+     */
+    @Override
+    @Cacheable(cacheNames = CacheNames.DEPARTMENT_COUNTS, key = "#searchTerm == null ? '' : #searchTerm")
+    @ReplicaRead(cached = true)
+    public long count(String searchTerm) {
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent()) {
+            return matchingIds.get().length;
+        }
+        SearchFilter filter = SearchFilter.of(searchTerm);
+        QueryPlan plan = COUNT_PLANS.get(filter, 0, false, null);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
+            }
+            return plan.queryForObject(jdbcTemplate, Long.class, filter.args(searchTerm, false));
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This function estimates the number of departments listed by getAll for the search term.
+     * All the departments are estimated from the table statistics and a search by the name index.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for all the departments.
+     * @return Estimated number of matching departments, or an empty OptionalLong when neither can answer.
+     */
+    @Override
+    @ReplicaRead
+    public OptionalLong estimateCount(String searchTerm) {
+        if (searchTerm == null) {
+            return tableStatistics.estimateRows("department");
+        }
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        return matchingIds.isPresent() ? OptionalLong.of(matchingIds.get().length) : OptionalLong.empty();
+    }
+
+    /**
+     * This function checks whether getAll has departments after the first offset departments, ordered by id.
+     *
+     * @param offset     number of departments of the current and the previous pages.
+     * @param searchTerm String used for filtering by name or id. Null for all the departments.
+     * @return true if a next page exists.
+     */
+    @Override
+    @ReplicaRead
+    public boolean hasMore(long offset, String searchTerm) {
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent()) {
+            return offset < matchingIds.get().length;
+        }
+        SearchFilter filter = SearchFilter.of(searchTerm);
+        QueryPlan plan = HAS_MORE_PLANS.get(filter, 0, false, null);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
+            }
+            return !plan.queryForList(jdbcTemplate, Long.class, filter.args(searchTerm, false, offset)).isEmpty();
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
         }
+    }
 
-        query += " ORDER BY id LIMIT ? OFFSET ?) AS deptId ON department.id = deptId.id ORDER BY department." + sortField + " " + sortDirection;
-        args.add(size);
-        args.add(page * size);
-        Map<String, ResponseDepartment> deptNameObjectMap = new LinkedHashMap<>();
+    /**
+     * This function returns one page of the departments found by the name index.
+     * The ids are sorted, so the page is cut from them directly, like the ORDER BY id LIMIT OFFSET subquery of getAll.
+     *
+     * @param matchingIds   sorted ids of the departments matching the search term.
+     * @param page          page number for pagination.
+     * @param size          number of rows to be sent for a single page.
+     * @param sort          sort order of the page.
+     * @return List of the departments of the page.
+     */
+    private List<ResponseDepartment> getPageOfIds(long[] matchingIds, int page, int size, ListingSort sort) {
+        long from = (long) page * size;
+        if (from >= matchingIds.length) {
+            return new ArrayList<>();
+        }
+        int to = (int) Math.min(from + size, matchingIds.length);
+        QueryPlan plan = LISTING_PLANS.get(SearchFilter.IDS, to - (int) from, false, sort);
         try {
-            logger.info("Executing SQL query: {}", query);
-             jdbcTemplate.query(query, args.toArray(), (rs, rowNum) -> {
-                 ResponseDepartment responseDepartment;
-                 String deptName = rs.getString("name");
-
-                 // Retrieve or create the ResponseDepartment object
-                 if (!deptNameObjectMap.containsKey(deptName)) {
-                     responseDepartment = new ResponseDepartment();
-                     responseDepartment.setId(rs.getLong("id"));
-                     responseDepartment.setName(deptName);
-                     List<Map<String, Object>> regionDetailsList = new ArrayList<>();
-                     responseDepartment.setRegionDetails(regionDetailsList);
-                     deptNameObjectMap.put(deptName, responseDepartment);
-                 } else {
-                     responseDepartment = deptNameObjectMap.get(deptName);
-                 }
-
-                 // Create a new region details map for each row
-                 Map<String, Object> regionDetailsMap = new HashMap<>();
-                 regionDetailsMap.put("region", rs.getString("region"));
-                 regionDetailsMap.put("deptStartDate", rs.getDate("dept_start_date").toLocalDate());
-
-                 // Check if "dept_end_date" column is null
-                 if (rs.getObject("dept_end_date") != null) {
-                     regionDetailsMap.put("deptEndDate", rs.getDate("dept_end_date").toLocalDate());
-                 } else {
-                     // Handle null value
-                     regionDetailsMap.put("deptEndDate", null);
-                 }
-
-                 // Add the current region detail to the list
-                 responseDepartment.getRegionDetails().add(regionDetailsMap);
-                 return responseDepartment;
-             });
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query with {} ids from the name index: {}", to - from, plan.getSql());
+            }
+            return plan.query(jdbcTemplate, new DepartmentResultSetExtractor(size), QueryPlans.idArgs(matchingIds, (int) from, to));
         } catch (Exception ex) {
             logger.error("Error executing SQL query", ex);
             throw ex;
         }
-        return new ArrayList<>(deptNameObjectMap.values());
     }
 
     /**
      * This method interacts with the database and fetches the department whose id matches the id in the input.
+     * The lookups which miss the cache within the batch window are coalesced into one IN (...) query.
      * @param id id of the department which needs to be fetched.
      * @return Department object containing the requested department details.
      */
+    @Cacheable(cacheNames = CacheNames.DEPARTMENTS, key = "#id")
+    @ReplicaRead(cached = true)
     public ResponseDepartment getById(Long id) {
-        String query = "SELECT department.id, department.name AS name, region_department.reg_id, region.name AS region, region_department.dept_start_date, region_department.dept_end_date FROM department JOIN region_department ON department.id = region_department.dept_id JOIN region ON region_department.reg_id = region.id WHERE department.id = ?";
-        Map<String, ResponseDepartment> deptNameObjectMap = new HashMap<>();
+        ResponseDepartment responseDepartment = RoutingContext.pinReads(() -> departmentLoaders
+                .computeIfAbsent(RoutingContext.readTarget(jdbcTemplate.getDataSource()), target -> createLoader()).load(id)).get();
+        if (responseDepartment == null) {
+            logger.error("Department not found with id: {}", id);
+            throw new RuntimeException("Department not found with id: " + id);
+        }
+        return responseDepartment;
+    }
 
-        try {
-            logger.info("Executing SQL query: {}", query);
-            jdbcTemplate.query(query, (rs, numRow) -> {
-                ResponseDepartment responseDepartment;
-                String deptName = rs.getString("name");
-
-                // Retrieve or create the ResponseDepartment object
-                if (!deptNameObjectMap.containsKey(deptName)) {
-                    responseDepartment = new ResponseDepartment();
-                    responseDepartment.setId(rs.getLong("id"));
-                    responseDepartment.setName(deptName);
-                    List<Map<String, Object>> regionDetailsList = new ArrayList<>();
-                    responseDepartment.setRegionDetails(regionDetailsList);
-                    deptNameObjectMap.put(deptName, responseDepartment);
-                } else {
-                    responseDepartment = deptNameObjectMap.get(deptName);
-                }
+    /**
+     * This method gets the version of the department, the ETag of GET /departments/{id}.
+     * It is cached like the departments and evicted by the same writes, so a matching If-None-Match is answered without a query.
+     * @param id id of the department.
+     * @return EntityVersion of the department, or null if the department does not exist.
+     */
+    @Cacheable(cacheNames = CacheNames.DEPARTMENT_VERSIONS, key = "#id", unless = "#result == null")
+    @ReplicaRead(cached = true)
+    public EntityVersion getVersion(Long id) {
+        return entityVersions.read("department", id);
+    }
 
-                // Create a new region details map for each row
-                Map<String, Object> regionDetailsMap = new HashMap<>();
-                regionDetailsMap.put("region", rs.getString("region"));
-                regionDetailsMap.put("deptStartDate", rs.getDate("dept_start_date").toLocalDate());
+    /**
+     * This method gets the version of the department listings, the ETag of GET /departments/all.
+     * Every write which changes a department increments it, including the region writes.
+     * @return EntityVersion of the department listings.
+     */
+    @ReplicaRead(cached = true)
+    public EntityVersion getListingVersion() {
+        return entityVersions.readListing(EntityVersions.DEPARTMENT_LISTING);
+    }
 
-                // Check if "dept_end_date" column is null
-                if (rs.getObject("dept_end_date") != null) {
-                    regionDetailsMap.put("deptEndDate", rs.getDate("dept_end_date").toLocalDate());
-                } else {
-                    // Handle null value
-                    regionDetailsMap.put("deptEndDate", null);
-                }
+    /**
+     * This method fetches the departments of all the given ids.
+     * The departments found in the cache are not fetched again, the others are fetched with one IN (...) query
+     * per ID_LOOKUP_CHUNK_SIZE ids and put in the cache.
+     * @param ids ids of the departments which need to be fetched.
+     * @return Map of the found departments by id. Ids which do not exist are left out.
+     */
+    @ReplicaRead(cached = true)
+    public Map<Long, ResponseDepartment> getByIds(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheNames.DEPARTMENTS);
+        Map<Long, ResponseDepartment> responseDepartments = new HashMap<>(Math.max(16, ids.size() * 4 / 3 + 1));
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            ResponseDepartment cached = cache == null ? null : cache.get(id, ResponseDepartment.class);
+            if (cached != null) {
+                responseDepartments.put(id, cached);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            Map<Long, ResponseDepartment> loaded = loadByIds(missingIds);
+            if (cache != null) {
+                loaded.forEach(cache::put);
+            }
+            responseDepartments.putAll(loaded);
+        }
+        return responseDepartments;
+    }
 
-                // Add the current region detail to the list
-                responseDepartment.getRegionDetails().add(regionDetailsMap);
-                return responseDepartment;
-            }, id);
-        } catch (EmptyResultDataAccessException e) {
-            logger.error("Error executing SQL query");
-            throw new RuntimeException("Department not found with id: " + id);
+    /**
+     * This method fetches the departments of the given ids, with one query per ID_LOOKUP_CHUNK_SIZE ids.
+     * @param ids ids of the departments which need to be fetched.
+     * @return Map of the found departments by id.
+     */
+    private Map<Long, ResponseDepartment> loadByIds(Set<Long> ids) {
+        Map<Long, ResponseDepartment> responseDepartments = new HashMap<>(Math.max(16, ids.size() * 4 / 3 + 1));
+        long[] idArray = ids.stream().mapToLong(Long::longValue).toArray();
+        for (int from = 0; from < idArray.length; from += ID_LOOKUP_CHUNK_SIZE) {
+            int to = Math.min(from + ID_LOOKUP_CHUNK_SIZE, idArray.length);
+            QueryPlan plan = ID_LOOKUP_PLANS.get(SearchFilter.IDS, to - from, false, null);
+            try {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query with {} ids: {}", to - from, plan.getSql());
+                }
+                List<ResponseDepartment> found = plan.query(jdbcTemplate, new DepartmentResultSetExtractor(to - from), QueryPlans.idArgs(idArray, from, to));
+                if (found != null) {
+                    for (ResponseDepartment responseDepartment : found) {
+                        responseDepartments.put(responseDepartment.getId(), responseDepartment);
+                    }
+                }
+            } catch (Exception ex) {
+                logger.error("Error executing SQL query", ex);
+                throw ex;
+            }
         }
-        Map.Entry<String, ResponseDepartment> entry = deptNameObjectMap.entrySet().iterator().next();
-        return entry.getValue();
+        return responseDepartments;
     }
 
     /**
      * This method adds a new department to the database.
-     * Checks if the department already exists in department table and region_department table. If yes then it only adds the same department in new region.
-     * If no, it adds Department name in the department table.
+     * The department name is inserted only if no department has the same name, the check and the insert are a single statement.
+     * A department with the same name saved concurrently makes the unique index refuse the insert, then that department is used.
+     * If the department already exists, only the same department is added in the new region.
      * Maps its id to the given region id in the input and adds both of them along with start date
-     * into the region_department table.
+     * into the region_department table. Both statements run in one transaction.
      * @param requestDepartment Department object containing the info to be added in the database.
+     * @return id of the new or the already existing department.
      */
-    public void save(RequestDepartment requestDepartment) {
-        String queryToCheckIfDepartmentExists = "SELECT * FROM department WHERE name = ?";
-        String queryToAddInDepartmentTable = "INSERT INTO department (name) VALUES (?)";
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENTS, key = "#result"),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_VERSIONS, key = "#result"),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
+    public long save(RequestDepartment requestDepartment) {
+        String queryToAddInDepartmentTable = "INSERT INTO department (name) SELECT ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM department WHERE name = ?)";
+        String queryToFetchExistingDepartmentId = "SELECT id FROM department WHERE name = ? LIMIT 1";
         String queryToAddInRegionDepartmentTable = "INSERT INTO region_department (reg_id, dept_id, dept_start_date) VALUES (?, ? ,?)";
-        KeyHolder holder = new GeneratedKeyHolder();
-        long departmentId;
         try {
-            logger.info("Executing SQL query: {}", queryToCheckIfDepartmentExists);
-            try{
-                RequestDepartment exisitngRequestDepartment = jdbcTemplate.queryForObject(queryToCheckIfDepartmentExists, new BeanPropertyRowMapper<>(RequestDepartment.class), requestDepartment.getName());
-                departmentId = exisitngRequestDepartment.getId();
-            } catch (EmptyResultDataAccessException e){
-                logger.info("Executing SQL query: {}", queryToAddInDepartmentTable);
-                jdbcTemplate.update(connection -> {
-                    PreparedStatement preparedStatement = connection.prepareStatement(queryToAddInDepartmentTable, new String[]{"id"});
-                    preparedStatement.setString(1, requestDepartment.getName());
-                    return preparedStatement;
-                }, holder);
-                departmentId = holder.getKey().longValue();
-            }
+            return writeTransactionTemplate.execute(status -> {
+                KeyHolder holder = new GeneratedKeyHolder();
+                long departmentId;
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToAddInDepartmentTable);
+                }
+                int insertedRows;
+                try {
+                    insertedRows = jdbcTemplate.update(connection -> {
+                        PreparedStatement preparedStatement = connection.prepareStatement(queryToAddInDepartmentTable, new String[]{"id"});
+                        preparedStatement.setString(1, requestDepartment.getName());
+                        preparedStatement.setString(2, requestDepartment.getName());
+                        return preparedStatement;
+                    }, holder);
+                } catch (DuplicateKeyException ex) {
+                    // A concurrent save inserted the same name after the NOT EXISTS check and committed first,
+                    // the unique index refuses this insert and the department of the other save is used.
+                    insertedRows = 0;
+                }
+                if (insertedRows == 1) {
+                    departmentId = holder.getKey().longValue();
+                    changeOutbox.appendSaved(ChangeRecord.EntityType.DEPARTMENT, departmentId);
+                    NameSearchIndex.afterCommit(() -> nameIndex.put(departmentId, requestDepartment.getName()));
+                } else {
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Executing SQL query: {}", queryToFetchExistingDepartmentId);
+                    }
+                    departmentId = jdbcTemplate.queryForObject(queryToFetchExistingDepartmentId, Long.class, requestDepartment.getName());
+                    entityVersions.touchDepartment(departmentId);
+                }
 
-            logger.info("Executing SQL query: {}", queryToAddInRegionDepartmentTable);
-            jdbcTemplate.update(queryToAddInRegionDepartmentTable, requestDepartment.getRegId(), departmentId, requestDepartment.getDeptStartDate());
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToAddInRegionDepartmentTable);
+                }
+                jdbcTemplate.update(queryToAddInRegionDepartmentTable, requestDepartment.getRegId(), departmentId, requestDepartment.getDeptStartDate());
+                entityVersions.touchListings(EntityVersions.DEPARTMENT_LISTING);
+                return departmentId;
+            });
         } catch (Exception ex) {
             logger.error("Error executing SQL query", ex);
             throw ex;
@@ -189,17 +448,39 @@ public class DepartmentDao {
 
     /**
      * This method updates the department details in the database.
+     * The name and the region change the rows of the employees of the department in the read model, so they and the versions
+     * of the employees are refreshed in the same transaction.
      * @param id id of the department that needs to be updated.
      * @param requestDepartment Department object containing new details.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_VERSIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
     public void update(Long id, RequestDepartment requestDepartment) {
         String queryToUpdateInDepartmentTable = "UPDATE department SET name = ? WHERE id = ?";
         String queryToUpdateInRegionDepartmentTable = "UPDATE region_department SET reg_id = ?, dept_start_date = ?, dept_end_date = ? WHERE dept_id = ?";
         try {
-            logger.info("Executing SQL query: {}", queryToUpdateInDepartmentTable);
-            jdbcTemplate.update(queryToUpdateInDepartmentTable, requestDepartment.getName(), id);
-            logger.info("Executing SQL query: {}", queryToUpdateInRegionDepartmentTable);
-            jdbcTemplate.update(queryToUpdateInRegionDepartmentTable,requestDepartment.getRegId(), requestDepartment.getDeptStartDate(), requestDepartment.getDeptEndDate(), id);
+            writeTransactionTemplate.execute(status -> {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToUpdateInDepartmentTable);
+                }
+                jdbcTemplate.update(queryToUpdateInDepartmentTable, requestDepartment.getName(), id);
+                NameSearchIndex.afterCommit(() -> nameIndex.put(id, requestDepartment.getName()));
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToUpdateInRegionDepartmentTable);
+                }
+                jdbcTemplate.update(queryToUpdateInRegionDepartmentTable,requestDepartment.getRegId(), requestDepartment.getDeptStartDate(), requestDepartment.getDeptEndDate(), id);
+                entityVersions.touchDepartment(id);
+                entityVersions.touchEmployeesOfDepartment(id);
+                assignmentView.refreshDepartment(id);
+                entityVersions.touchListings(EntityVersions.DEPARTMENT_LISTING, EntityVersions.EMPLOYEE_LISTING);
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Error executing SQL query");
             throw new RuntimeException(e);
@@ -208,43 +489,192 @@ public class DepartmentDao {
 
     /**
      * This DAO method interacts with region_department and employee_region_department tables of the database.
-     * It first adds the end date to the employees currently working in the department.
+     * It first adds the end date to the employees currently working in the department of the region.
      * Then it adds the end date to the region_department so that department becomes closed.
+     * The region-department is looked up by a subquery, and both updates and the update of the read model run in one transaction.
+     * The end date changes the department details of every employee of the department, so all the cached employees are evicted.
      * @param deptId id of the department that needs to be closed.
      * @param updates Map containing region id and end date as values.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENTS, key = "#deptId"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_VERSIONS, key = "#deptId"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
     public void saveEndDate(Long deptId, Map<String, Object> updates){
-        String queryToFetchRegDeptId = "SELECT reg_dept_id FROM employee_region_department JOIN region_department ON employee_region_department.reg_dept_id = region_department.id WHERE region_department.reg_id = ? AND region_department.dept_id = ? LIMIT 1";
-        String queryToUpdateEmployeeRegionDepartmentTable = "UPDATE employee_region_department SET emp_end_date = ? WHERE reg_dept_id = ? AND emp_end_date IS NULL";
+        String queryToUpdateEmployeeRegionDepartmentTable = "UPDATE employee_region_department SET emp_end_date = ? WHERE emp_end_date IS NULL AND reg_dept_id IN (SELECT id FROM region_department WHERE reg_id = ? AND dept_id = ?)";
         String queryToUpdateRegionDepartmentTable = "UPDATE region_department SET dept_end_date = ? WHERE reg_id = ? AND dept_id = ?";
         try {
-            logger.info("Executing SQL query: {}", queryToFetchRegDeptId);
-            Long regDeptId = jdbcTemplate.queryForObject(queryToFetchRegDeptId, Long.class, updates.get("regId"), deptId);
-            logger.info("Executing SQL query: {}", queryToUpdateEmployeeRegionDepartmentTable);
-            jdbcTemplate.update(queryToUpdateEmployeeRegionDepartmentTable, updates.get("deptEndDate"), regDeptId);
-            logger.info("Executing SQL query: {}", queryToUpdateRegionDepartmentTable);
-            jdbcTemplate.update(queryToUpdateRegionDepartmentTable, updates.get("deptEndDate"), updates.get("regId"), deptId);
+            writeTransactionTemplate.execute(status -> {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToUpdateEmployeeRegionDepartmentTable);
+                }
+                jdbcTemplate.update(queryToUpdateEmployeeRegionDepartmentTable, updates.get("deptEndDate"), updates.get("regId"), deptId);
+                assignmentView.updateDepartmentEndDate(deptId, updates.get("regId"), updates.get("deptEndDate"));
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToUpdateRegionDepartmentTable);
+                }
+                jdbcTemplate.update(queryToUpdateRegionDepartmentTable, updates.get("deptEndDate"), updates.get("regId"), deptId);
+                entityVersions.touchDepartment(deptId);
+                entityVersions.touchEmployeesOfDepartment(deptId);
+                entityVersions.touchListings(EntityVersions.DEPARTMENT_LISTING, EntityVersions.EMPLOYEE_LISTING);
+                return null;
+            });
         } catch (Exception e){
             logger.error("Error executing SQL query");
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * This method closes many departments, e.g. for a reorganization, instead of one saveEndDate per department.
+     * The items are saved in chunks of EndDates.CHUNK_SIZE, every chunk in its own transaction with a handful of statements:
+     * one query finds the region-departments of the chunk, one UPDATE ends the open assignments of all of them
+     * and one UPDATE sets their end dates, then the read model and the versions are updated with one statement each.
+     * A failing chunk is rolled back and its items are reported as FAILED, the other chunks are still saved.
+     * An item for the same region-department as an earlier item of its chunk overrides it, like a later PATCH would.
+     * @param endDates department id, region id and end date of every department to close.
+     * @return Outcome of every item, in the order of the request.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
+    public List<EndDateResult> saveEndDates(List<RequestDepartmentEndDate> endDates) {
+        EndDateResult[] results = new EndDateResult[endDates.size()];
+        List<Integer> validIndexes = new ArrayList<>(endDates.size());
+        for (int index = 0; index < endDates.size(); index++) {
+            RequestDepartmentEndDate endDate = endDates.get(index);
+            if (endDate == null || endDate.deptId() == null || endDate.regId() == null || endDate.deptEndDate() == null) {
+                results[index] = new EndDateResult(index, endDate == null ? null : endDate.deptId(), EndDateResult.Status.REJECTED, "deptId, regId and deptEndDate are required");
+            } else {
+                validIndexes.add(index);
+            }
+        }
+        for (int from = 0; from < validIndexes.size(); from += EndDates.CHUNK_SIZE) {
+            List<Integer> chunk = validIndexes.subList(from, Math.min(from + EndDates.CHUNK_SIZE, validIndexes.size()));
+            try {
+                writeTransactionTemplate.executeWithoutResult(status -> saveEndDateChunk(endDates, chunk, results));
+            } catch (Exception ex) {
+                logger.error("Error executing SQL query", ex);
+                for (int index : chunk) {
+                    results[index] = new EndDateResult(index, endDates.get(index).deptId(), EndDateResult.Status.FAILED, "Some error occurred in the server, the chunk of this item was rolled back");
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void saveEndDateChunk(List<RequestDepartmentEndDate> endDates, List<Integer> chunk, EndDateResult[] results) {
+        Object[] deptIds = chunk.stream().map(index -> endDates.get(index).deptId()).distinct().toArray();
+        String queryToSelectRegionDepartments = "SELECT id, reg_id, dept_id FROM region_department WHERE dept_id IN (" + SearchTerms.placeholders(deptIds.length) + ")";
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query with {} ids: {}", deptIds.length, queryToSelectRegionDepartments);
+        }
+        // Region-department ids by region id and department id.
+        Map<List<Long>, List<Long>> regionDepartmentIds = new HashMap<>();
+        jdbcTemplate.query(queryToSelectRegionDepartments, (RowCallbackHandler) rs -> regionDepartmentIds
+                .computeIfAbsent(List.of(rs.getLong("reg_id"), rs.getLong("dept_id")), key -> new ArrayList<>())
+                .add(rs.getLong("id")), deptIds);
+
+        Map<Long, LocalDate> endDateByRegionDepartmentId = new LinkedHashMap<>();
+        Map<List<Long>, RequestDepartmentEndDate> closedDepartments = new LinkedHashMap<>();
+        for (int index : chunk) {
+            RequestDepartmentEndDate endDate = endDates.get(index);
+            List<Long> regionDepartmentKey = List.of(endDate.regId(), endDate.deptId());
+            List<Long> ids = regionDepartmentIds.get(regionDepartmentKey);
+            if (ids == null) {
+                results[index] = new EndDateResult(index, endDate.deptId(), EndDateResult.Status.NOT_FOUND, "The department is not in the region");
+                continue;
+            }
+            ids.forEach(id -> endDateByRegionDepartmentId.put(id, endDate.deptEndDate()));
+            closedDepartments.put(regionDepartmentKey, endDate);
+            results[index] = new EndDateResult(index, endDate.deptId(), EndDateResult.Status.UPDATED, null);
+        }
+        if (endDateByRegionDepartmentId.isEmpty()) {
+            return;
+        }
+        int count = endDateByRegionDepartmentId.size();
+        Object[] args = EndDates.args(endDateByRegionDepartmentId);
+        String queryToUpdateEmployeeRegionDepartmentTable = "UPDATE employee_region_department SET emp_end_date = " + EndDates.caseOf("reg_dept_id", "emp_end_date", count) + " WHERE emp_end_date IS NULL AND reg_dept_id IN (" + SearchTerms.placeholders(count) + ")";
+        String queryToUpdateRegionDepartmentTable = "UPDATE region_department SET dept_end_date = " + EndDates.caseOf("id", "dept_end_date", count) + " WHERE id IN (" + SearchTerms.placeholders(count) + ")";
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query with {} region-departments: UPDATE employee_region_department SET emp_end_date = CASE reg_dept_id ... END WHERE emp_end_date IS NULL AND reg_dept_id IN (...)", count);
+        }
+        jdbcTemplate.update(queryToUpdateEmployeeRegionDepartmentTable, args);
+        assignmentView.updateDepartmentEndDates(new ArrayList<>(closedDepartments.values()));
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query with {} region-departments: UPDATE region_department SET dept_end_date = CASE id ... END WHERE id IN (...)", count);
+        }
+        jdbcTemplate.update(queryToUpdateRegionDepartmentTable, args);
+        Set<Long> closedDepartmentIds = new HashSet<>();
+        closedDepartments.values().forEach(endDate -> closedDepartmentIds.add(endDate.deptId()));
+        entityVersions.touchDepartments(closedDepartmentIds);
+        entityVersions.touchEmployeesOfDepartments(closedDepartmentIds);
+        entityVersions.touchListings(EntityVersions.DEPARTMENT_LISTING, EntityVersions.EMPLOYEE_LISTING);
+    }
+
     /**
      * This method deletes the department from the database.
      * @param id id of the department that needs to be deleted.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_VERSIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
     public void delete(Long id) {
         String queryToDeleteFromRegionDepartmentTable = "DELETE FROM region_department WHERE dept_id = ?";
         String queryToDeleteFromDepartmentTable = "DELETE FROM department WHERE id = ?";
         try {
-            logger.info("Executing SQL query: {}", queryToDeleteFromRegionDepartmentTable);
-            jdbcTemplate.update(queryToDeleteFromRegionDepartmentTable, id);
-            logger.info("Executing SQL query: {}", queryToDeleteFromDepartmentTable);
-            jdbcTemplate.update(queryToDeleteFromDepartmentTable, id);
+            writeTransactionTemplate.execute(status -> {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToDeleteFromRegionDepartmentTable);
+                }
+                jdbcTemplate.update(queryToDeleteFromRegionDepartmentTable, id);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToDeleteFromDepartmentTable);
+                }
+                jdbcTemplate.update(queryToDeleteFromDepartmentTable, id);
+                changeOutbox.appendDeleted(ChangeRecord.EntityType.DEPARTMENT, id);
+                entityVersions.touchEmployeesOfDepartment(id);
+                assignmentView.removeDepartment(id);
+                entityVersions.touchListings(EntityVersions.DEPARTMENT_LISTING, EntityVersions.EMPLOYEE_LISTING);
+                NameSearchIndex.afterCommit(() -> nameIndex.remove(id));
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Error executing SQL query");
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * This function builds the in-memory name index used by the searchTerm of the listing from the department table.
+     * It runs once the application is ready and then every search.index.rebuild-interval-ms.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval-ms:600000}", fixedDelayString = "${search.index.rebuild-interval-ms:600000}")
+    @ReplicaRead(cached = true)
+    public void buildNameIndex() {
+        String query = "SELECT id, name FROM department";
+        long start = System.currentTimeMillis();
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", query);
+            }
+            nameIndex.rebuild(consumer -> jdbcTemplate.query(query, (RowCallbackHandler) rs -> consumer.accept(rs.getLong("id"), rs.getString("name"))));
+            logger.info("Built the department name index with {} departments in {} ms", nameIndex.size(), System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            logger.error("Error building the department name index", ex);
+        }
+    }
 }
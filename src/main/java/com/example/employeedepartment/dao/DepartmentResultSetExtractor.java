@@ -0,0 +1,59 @@
+package com.example.employeedepartment.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import com.example.employeedepartment.model.RegionAssignment;
+import com.example.employeedepartment.model.ResponseDepartment;
+
+/**
+ * Groups the rows of the department details query into one ResponseDepartment per department, in the order of the rows.
+ * Every column is read once, by its index in SELECT_DEPARTMENT_DETAILS.
+ */
+class DepartmentResultSetExtractor implements ResultSetExtractor<List<ResponseDepartment>> {
+    /**
+     * Select and joins shared by all the department detail queries. Queries append their own join, WHERE and ORDER BY clauses.
+     */
+    static final String SELECT_DEPARTMENT_DETAILS = "SELECT department.id, department.name AS name, region.name AS region, region_department.dept_start_date, region_department.dept_end_date FROM department JOIN region_department ON department.id = region_department.dept_id JOIN region ON region_department.reg_id = region.id";
+
+    private static final int ID = 1;
+    private static final int NAME = 2;
+    private static final int REGION = 3;
+    private static final int DEPT_START_DATE = 4;
+    private static final int DEPT_END_DATE = 5;
+
+    /** Most departments are open in a few regions. */
+    private static final int EXPECTED_REGIONS_PER_DEPARTMENT = 4;
+
+    private final int expectedDepartments;
+
+    /**
+     * @param expectedDepartments number of departments expected in the result, used to size the map. E.g. the page size.
+     */
+    DepartmentResultSetExtractor(int expectedDepartments) {
+        this.expectedDepartments = expectedDepartments;
+    }
+
+    @Override
+    public List<ResponseDepartment> extractData(ResultSet rs) throws SQLException {
+        Map<Long, ResponseDepartment> deptIdObjectMap = new LinkedHashMap<>(Math.max(16, expectedDepartments * 4 / 3 + 1));
+        while (rs.next()) {
+            long deptId = rs.getLong(ID);
+            ResponseDepartment responseDepartment = deptIdObjectMap.get(deptId);
+            if (responseDepartment == null) {
+                responseDepartment = new ResponseDepartment(deptId, rs.getString(NAME), new ArrayList<>(EXPECTED_REGIONS_PER_DEPARTMENT));
+                deptIdObjectMap.put(deptId, responseDepartment);
+            }
+            responseDepartment.getRegionDetails().add(new RegionAssignment(rs.getString(REGION),
+                    EmployeeResultSetExtractor.toLocalDate(rs.getDate(DEPT_START_DATE)),
+                    EmployeeResultSetExtractor.toLocalDate(rs.getDate(DEPT_END_DATE))));
+        }
+        return new ArrayList<>(deptIdObjectMap.values());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.employeedepartment.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks the employee emails and department names for duplicates before src/main/resources/db/migration/V4__indexes.sql
+ * makes them unique. A database which was taken over by the baseline of Flyway was written by the inserts which only
+ * checked the uniqueness with a SELECT before the INSERT, so two concurrent inserts may have saved the same value twice.
+ * The CREATE UNIQUE INDEX of V4 would then fail with the error of the database only.
+ *
+ * Every duplicate is logged with the ids of its rows, and the migration is stopped with a FlywayException which lists them.
+ * The duplicates are merged by hand into the row with the lowest id before the application is started again, e.g. for
+ * an employee email with the rows kept_id and duplicate_id:
+ *   UPDATE employee_region_department SET emp_id = kept_id WHERE emp_id = duplicate_id;
+ *   UPDATE employee_assignment_view SET emp_id = kept_id WHERE emp_id = duplicate_id;
+ *   DELETE FROM employee WHERE id = duplicate_id;
+ * and for a department name the same with region_department.dept_id, employee_assignment_view.dept_id and the department table.
+ *
+ * It is registered with Flyway by Spring Boot as a Callback bean, and runs in the transaction of the migration.
+ */
+@Component
+public class DuplicateKeyCheck implements Callback {
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateKeyCheck.class);
+
+    /** Version of V4__indexes.sql, which creates the unique indexes. */
+    private static final MigrationVersion UNIQUE_INDEXES_VERSION = MigrationVersion.fromVersion("4");
+
+    /** Tables and columns made unique by V4__indexes.sql. */
+    private static final String[][] UNIQUE_COLUMNS = {{"employee", "email"}, {"department", "name"}};
+
+    /** Number of the duplicates listed in the message of the exception, all of them are logged. */
+    private static final int MAX_REPORTED_DUPLICATES = 20;
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.BEFORE_EACH_MIGRATE && context.getMigrationInfo() != null
+                && UNIQUE_INDEXES_VERSION.equals(context.getMigrationInfo().getVersion());
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        List<String> duplicates = new ArrayList<>();
+        try {
+            for (String[] unique : UNIQUE_COLUMNS) {
+                findDuplicates(context.getConnection(), unique[0], unique[1]).forEach((value, ids) ->
+                        duplicates.add(unique[0] + "." + unique[1] + " '" + value + "' in the rows " + ids));
+            }
+        } catch (SQLException ex) {
+            throw new FlywayException("Error checking the duplicates before the unique indexes of V4__indexes.sql", ex);
+        }
+        if (duplicates.isEmpty()) {
+            return;
+        }
+        for (String duplicate : duplicates) {
+            logger.error("Duplicate {}, it has to be merged before V4__indexes.sql can create the unique index", duplicate);
+        }
+        throw new FlywayException(duplicates.size() + " duplicate values prevent the unique indexes of V4__indexes.sql, merge them into"
+                + " the row with the lowest id as described in DuplicateKeyCheck: "
+                + String.join("; ", duplicates.subList(0, Math.min(MAX_REPORTED_DUPLICATES, duplicates.size())))
+                + (duplicates.size() > MAX_REPORTED_DUPLICATES ? "; ..." : ""));
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "DuplicateKeyCheck";
+    }
+
+    /**
+     * This function finds the rows whose value of the column is also the value of another row.
+     * The values are grouped by the collation of the column, like the unique index compares them.
+     *
+     * @return Ids of the rows by duplicated value, in the order of the values.
+     */
+    private static Map<String, List<Long>> findDuplicates(Connection connection, String table, String column) throws SQLException {
+        String query = "SELECT id, " + column + " FROM " + table + " WHERE " + column + " IN (SELECT " + column + " FROM " + table
+                + " GROUP BY " + column + " HAVING COUNT(*) > 1) ORDER BY " + column + ", id";
+        Map<String, List<Long>> idsByValue = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(query); ResultSet rs = statement.executeQuery()) {
+            List<Long> ids = null;
+            String previous = null;
+            while (rs.next()) {
+                String value = rs.getString(2);
+                // A case-insensitive collation groups values which differ in case, they are listed under the first one.
+                if (previous == null || !previous.equalsIgnoreCase(value)) {
+                    ids = new ArrayList<>();
+                    idsByValue.put(value, ids);
+                    previous = value;
+                }
+                ids.add(rs.getLong(1));
+            }
+        }
+        return idsByValue;
+    }
+}
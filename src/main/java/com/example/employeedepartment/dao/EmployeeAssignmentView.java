@@ -0,0 +1,174 @@
+package com.example.employeedepartment.dao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
+
+/**
+ * Denormalized read model of the employees: the employee_assignment_view table holds one row per department assignment
+ * with the employee, department and region columns already joined, so the employee reads query a single table instead of
+ * joining employee, employee_region_department, region_department, region and department.
+ *
+ * The table is kept up to date by the DAO write methods, inside the transaction of the write, so it never shows a change
+ * which was rolled back and every instance of the application reads the same rows.
+ * An employee whose rows may have changed in several ways is refreshed: its rows are deleted and selected again from the tables.
+ * Renames and end dates, which can touch the rows of many employees, are applied with one UPDATE of the matching rows.
+ * The table is created and filled from the existing data by src/main/resources/db/migration/V2__employee_assignment_view.sql.
+ */
+@Repository
+public class EmployeeAssignmentView {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeAssignmentView.class);
+
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+
+    /**
+     * Select shared by the employee detail queries. Queries append their own join, WHERE and ORDER BY clauses.
+     * The columns are in the order read by EmployeeResultSetExtractor.
+     */
+    static final String SELECT_EMPLOYEE_DETAILS = "SELECT employee_assignment_view.emp_id, employee_assignment_view.name, employee_assignment_view.role, employee_assignment_view.email, employee_assignment_view.department_name, employee_assignment_view.region, employee_assignment_view.emp_start_date, employee_assignment_view.emp_end_date FROM employee_assignment_view";
+
+    private static final String INSERT_FROM_TABLES = "INSERT INTO employee_assignment_view (assignment_id, emp_id, name, role, email, reg_id, dept_id, department_name, region, emp_start_date, emp_end_date) SELECT employee_region_department.id, employee.id, employee.name, employee.role, employee.email, region.id, department.id, department.name, region.name, employee_region_department.emp_start_date, employee_region_department.emp_end_date FROM employee JOIN employee_region_department ON employee_region_department.emp_id = employee.id JOIN region_department ON employee_region_department.reg_dept_id = region_department.id JOIN region ON region_department.reg_id = region.id JOIN department ON region_department.dept_id = department.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmployeeAssignmentView(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * This function selects the rows of one employee again from the tables.
+     *
+     * @param empId id of the employee which was changed.
+     */
+    void refreshEmployee(long empId) {
+        execute("DELETE FROM employee_assignment_view WHERE emp_id = ?", empId);
+        execute(INSERT_FROM_TABLES + " WHERE employee.id = ?", empId);
+    }
+
+    /**
+     * This function selects the rows of the employees again from the tables, with two statements per REFRESH_CHUNK_SIZE employees.
+     *
+     * @param empIds ids of the employees which were changed.
+     */
+    void refreshEmployees(Collection<Long> empIds) {
+        List<Long> ids = new ArrayList<>(empIds);
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK_SIZE) {
+            Object[] chunk = ids.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, ids.size())).toArray();
+            String placeholders = SearchTerms.placeholders(chunk.length);
+            execute("DELETE FROM employee_assignment_view WHERE emp_id IN (" + placeholders + ")", chunk);
+            execute(INSERT_FROM_TABLES + " WHERE employee.id IN (" + placeholders + ")", chunk);
+        }
+    }
+
+    /**
+     * This function selects the rows of the employees of a department again from the tables.
+     *
+     * @param deptId id of the department which was changed.
+     */
+    void refreshDepartment(long deptId) {
+        execute("DELETE FROM employee_assignment_view WHERE dept_id = ?", deptId);
+        execute(INSERT_FROM_TABLES + " WHERE department.id = ?", deptId);
+    }
+
+    /**
+     * This function sets the end date of the assignments of an employee in the department of a region,
+     * like the update of employee_region_department made by EmployeeDao.saveEndDate.
+     */
+    void updateEmployeeEndDate(long empId, Object regId, Object deptId, Object empEndDate) {
+        execute("UPDATE employee_assignment_view SET emp_end_date = ? WHERE emp_id = ? AND reg_id = ? AND dept_id = ?", empEndDate, empId, regId, deptId);
+    }
+
+    /**
+     * This function sets the end date of the open assignments in the department of a region,
+     * like the update of employee_region_department made by DepartmentDao.saveEndDate.
+     */
+    void updateDepartmentEndDate(long deptId, Object regId, Object endDate) {
+        execute("UPDATE employee_assignment_view SET emp_end_date = ? WHERE emp_end_date IS NULL AND reg_id = ? AND dept_id = ?", endDate, regId, deptId);
+    }
+
+    /**
+     * This function sets the end dates of many assignments with one statement, like the update of
+     * employee_region_department made by EmployeeDao.saveEndDates.
+     *
+     * @param endDateByAssignmentId end date of every employee_region_department row which was changed.
+     */
+    void updateAssignmentEndDates(Map<Long, LocalDate> endDateByAssignmentId) {
+        execute("UPDATE employee_assignment_view SET emp_end_date = " + EndDates.caseOf("assignment_id", "emp_end_date", endDateByAssignmentId.size())
+                + " WHERE assignment_id IN (" + SearchTerms.placeholders(endDateByAssignmentId.size()) + ")", EndDates.args(endDateByAssignmentId));
+    }
+
+    /**
+     * This function sets the end date of the open assignments in the departments of the regions with one statement,
+     * like the update of employee_region_department made by DepartmentDao.saveEndDates.
+     *
+     * @param endDates region id, department id and end date of every closed department.
+     */
+    void updateDepartmentEndDates(List<RequestDepartmentEndDate> endDates) {
+        StringBuilder query = new StringBuilder("UPDATE employee_assignment_view SET emp_end_date = CASE");
+        List<Object> args = new ArrayList<>(endDates.size() * 4);
+        for (RequestDepartmentEndDate endDate : endDates) {
+            query.append(" WHEN reg_id = ? AND dept_id = ? THEN CAST(? AS DATE)");
+            args.add(endDate.regId());
+            args.add(endDate.deptId());
+            args.add(endDate.deptEndDate());
+        }
+        query.append(" ELSE emp_end_date END WHERE emp_end_date IS NULL AND dept_id IN (").append(SearchTerms.placeholders(endDates.size())).append(")");
+        endDates.forEach(endDate -> args.add(endDate.deptId()));
+        execute(query.toString(), args.toArray());
+    }
+
+    /**
+     * This function renames the region in the rows of all the assignments of the region.
+     */
+    void updateRegionName(long regId, String name) {
+        execute("UPDATE employee_assignment_view SET region = ? WHERE reg_id = ?", name, regId);
+    }
+
+    /**
+     * This function deletes the rows of the assignments of the deleted employee.
+     */
+    void removeEmployee(long empId) {
+        execute("DELETE FROM employee_assignment_view WHERE emp_id = ?", empId);
+    }
+
+    /**
+     * This function deletes the rows of the assignments of the deleted department.
+     */
+    void removeDepartment(long deptId) {
+        execute("DELETE FROM employee_assignment_view WHERE dept_id = ?", deptId);
+    }
+
+    /**
+     * This function deletes the rows of the assignments of the deleted region.
+     */
+    void removeRegion(long regId) {
+        execute("DELETE FROM employee_assignment_view WHERE reg_id = ?", regId);
+    }
+
+    /**
+     * This function fills the view again from the tables, e.g. after rows were inserted into the tables without the DAOs.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        execute("DELETE FROM employee_assignment_view");
+        int rows = execute(INSERT_FROM_TABLES);
+        logger.info("Rebuilt the employee assignment view with {} rows in {} ms", rows, System.currentTimeMillis() - start);
+    }
+
+    private int execute(String query, Object... args) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query: {}", query);
+        }
+        return jdbcTemplate.update(query, args);
+    }
+}
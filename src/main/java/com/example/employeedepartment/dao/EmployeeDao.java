@@ -1,68 +1,349 @@
 package com.example.employeedepartment.dao;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.employeedepartment.batching.CoalescingLoader;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.BatchInsertResult;
+import com.example.employeedepartment.model.ChangeRecord;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.PageCursor;
 import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
 import com.example.employeedepartment.model.ResponseEmployee;
+import com.example.employeedepartment.routing.ReplicaRead;
+import com.example.employeedepartment.routing.RoutingContext;
+import com.example.employeedepartment.search.NameSearchIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Repository
-public class EmployeeDao {
+public class EmployeeDao implements ListingCounter {
     @Autowired
     private final JdbcTemplate jdbcTemplate;
     private static final Logger logger = LoggerFactory.getLogger(EmployeeDao.class);
 
+    private static final int EMAIL_LOOKUP_CHUNK_SIZE = 1000;
+    private static final int ID_LOOKUP_CHUNK_SIZE = 1000;
+
+    /**
+     * Statements of getAll: a page of the ids filtered by the LIKE filter joined with the view,
+     * or the employees of a page of the ids found by the name index.
+     */
+    private static final QueryPlans LISTING_PLANS = QueryPlans.precompute(EnumSet.allOf(SearchFilter.class), true, false, EmployeeDao::listingPlan);
+
+    /**
+     * Statements of getAllAfter, with and without a cursor.
+     */
+    private static final QueryPlans KEYSET_PLANS = QueryPlans.precompute(EnumSet.allOf(SearchFilter.class), true, true, EmployeeDao::keysetPlan);
+
+    private static final QueryPlans ID_LOOKUP_PLANS = QueryPlans.precompute(EnumSet.of(SearchFilter.IDS), false, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan(EmployeeAssignmentView.SELECT_EMPLOYEE_DETAILS + filter.whereClause("employee_assignment_view.emp_id", null, idCount), filter.parameterTypes(idCount)));
+
+    private static final QueryPlans COUNT_PLANS = QueryPlans.precompute(EnumSet.of(SearchFilter.NONE, SearchFilter.NAME, SearchFilter.ID_OR_NAME), false, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan("SELECT COUNT(*) FROM employee" + filter.whereClause("employee.id", "employee.name", 0), filter.parameterTypes(0)));
+
+    private static final QueryPlans HAS_MORE_PLANS = QueryPlans.precompute(EnumSet.of(SearchFilter.NONE, SearchFilter.NAME, SearchFilter.ID_OR_NAME), false, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan("SELECT id FROM employee" + filter.whereClause("employee.id", "employee.name", 0) + " ORDER BY id LIMIT 1 OFFSET ?",
+                    QueryPlan.types(filter.parameterTypes(0), Types.BIGINT)));
+
+    @Value("${employee.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    @Value("${search.index.max-in-list-size:1000}")
+    private int maxSearchInListSize;
+
+    @Autowired
+    private TransactionTemplate writeTransactionTemplate;
+
+    @Value("${dao.lookup.batch-window-ms:2}")
+    private long lookupBatchWindowMs;
+
+    @Value("${dao.lookup.max-batch-size:100}")
+    private int lookupMaxBatchSize;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EmployeeAssignmentView assignmentView;
+
+    @Autowired
+    private TableStatistics tableStatistics;
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final NameSearchIndex nameIndex = new NameSearchIndex();
+
+    // The lookups are coalesced by the database they read, since the batch runs on the connection of its first caller:
+    // a lookup pinned to a replica or to the primary gets the row of that database, like the version of the request.
+    private final Map<String, CoalescingLoader<Long, ResponseEmployee>> employeeLoaders = new ConcurrentHashMap<>();
+
     public EmployeeDao(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    private CoalescingLoader<Long, ResponseEmployee> createLoader() {
+        return new CoalescingLoader<>("employees", Duration.ofMillis(lookupBatchWindowMs), lookupMaxBatchSize,
+                this::loadByIds, meterRegistry);
+    }
+
     /**
      * This function adds employee details to the database.
+     * The employee is inserted only if no employee has the same email, the check and the insert are a single statement.
+     * An employee with the same email saved concurrently makes the unique index refuse the insert, then that employee is used.
+     * Then the employee is linked to the region-department and its rows of the read model and its version are refreshed. All run in one transaction.
      *
      * @param requestEmployee Employee object received from client side
+     * @return id of the new or the already existing employee.
      */
-    public void save(RequestEmployee requestEmployee) {
-        String queryToCheckIfEmployeeExists = "SELECT * FROM employee WHERE email = ?";
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, key = "#result"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, key = "#result"),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
+    public long save(RequestEmployee requestEmployee) {
+        String queryToInsertInEmployeeTable = "INSERT INTO employee (name, role, email) SELECT ?, ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM employee WHERE email = ?)";
+        String queryToFetchExistingEmployeeId = "SELECT id FROM employee WHERE email = ? LIMIT 1";
+        String queryToInsertInEmployeeRegionDepartmentTable = "INSERT INTO employee_region_department (emp_id, reg_dept_id, emp_start_date, emp_end_date) VALUES (?, ?, ?, ?)";
+        try {
+            return writeTransactionTemplate.execute(status -> {
+                KeyHolder holder = new GeneratedKeyHolder();
+                long employeeId;
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToInsertInEmployeeTable);
+                }
+                int insertedRows;
+                try {
+                    insertedRows = jdbcTemplate.update(connection -> {
+                        PreparedStatement preparedStatement = connection.prepareStatement(queryToInsertInEmployeeTable, new String[]{"id"});
+                        preparedStatement.setString(1, requestEmployee.getName());
+                        preparedStatement.setString(2, requestEmployee.getRole());
+                        preparedStatement.setString(3, requestEmployee.getEmail());
+                        preparedStatement.setString(4, requestEmployee.getEmail());
+                        return preparedStatement;
+                    }, holder);
+                } catch (DuplicateKeyException ex) {
+                    // A concurrent save inserted the same email after the NOT EXISTS check and committed first,
+                    // the unique index refuses this insert and the employee of the other save is used.
+                    insertedRows = 0;
+                }
+                if (insertedRows == 1) {
+                    employeeId = holder.getKey().longValue();
+                    changeOutbox.appendSaved(ChangeRecord.EntityType.EMPLOYEE, employeeId);
+                    NameSearchIndex.afterCommit(() -> nameIndex.put(employeeId, requestEmployee.getName()));
+                } else {
+                    if (HotPathLog.isEnabled(logger)) {
+                        logger.debug("Executing SQL query: {}", queryToFetchExistingEmployeeId);
+                    }
+                    employeeId = jdbcTemplate.queryForObject(queryToFetchExistingEmployeeId, Long.class, requestEmployee.getEmail());
+                    entityVersions.touchEmployee(employeeId);
+                }
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToInsertInEmployeeRegionDepartmentTable);
+                }
+                jdbcTemplate.update(queryToInsertInEmployeeRegionDepartmentTable, employeeId, requestEmployee.getRegDeptId(), requestEmployee.getEmpStartDate(), requestEmployee.getEmpEndDate());
+                assignmentView.refreshEmployee(employeeId);
+                entityVersions.touchListings(EntityVersions.EMPLOYEE_LISTING);
+                return employeeId;
+            });
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This function adds many employees to the database in one transaction.
+     * All the existing emails are resolved with IN queries, the new employees are inserted with one JDBC batch
+     * and all the employee_region_department rows with another batch, instead of two or three round trips per employee.
+     * The rows of the read model and the versions of the changed employees are refreshed with one statement per 1000 employees.
+     * Employees with the same email in the request are created only once.
+     *
+     * @param requestEmployees Employee objects received from client side.
+     * @return Outcome of every employee, in the order of the request.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
+    public List<BatchInsertResult> saveAll(List<RequestEmployee> requestEmployees) {
+        return writeTransactionTemplate.execute(status -> insertAll(requestEmployees));
+    }
+
+    private List<BatchInsertResult> insertAll(List<RequestEmployee> requestEmployees) {
         String queryToInsertInEmployeeTable = "INSERT INTO employee (name, role, email) VALUES (?, ?, ?)";
         String queryToInsertInEmployeeRegionDepartmentTable = "INSERT INTO employee_region_department (emp_id, reg_dept_id, emp_start_date, emp_end_date) VALUES (?, ?, ?, ?)";
-        KeyHolder holder = new GeneratedKeyHolder();
-        long employeeId;
+        List<BatchInsertResult> results = new ArrayList<>(requestEmployees.size());
         try {
-            try {
-                logger.info("Executing SQL query: {}", queryToCheckIfEmployeeExists);
-                RequestEmployee existingRequestEmployee = jdbcTemplate.queryForObject(queryToCheckIfEmployeeExists, new BeanPropertyRowMapper<>(RequestEmployee.class), requestEmployee.getEmail());
-                employeeId = existingRequestEmployee.getId();
-            } catch (EmptyResultDataAccessException e){
-                logger.info("Executing SQL query: {}", queryToInsertInEmployeeTable);
-                jdbcTemplate.update(connection -> {
-                    PreparedStatement preparedStatement = connection.prepareStatement(queryToInsertInEmployeeTable, new String[]{"id"});
-                    preparedStatement.setString(1, requestEmployee.getName());
-                    preparedStatement.setString(2, requestEmployee.getRole());
-                    preparedStatement.setString(3, requestEmployee.getEmail());
-                    return preparedStatement;
-                }, holder);
-                employeeId = holder.getKey().longValue();
-            }
-            logger.info("Executing SQL query: {}", queryToInsertInEmployeeRegionDepartmentTable);
-            jdbcTemplate.update(queryToInsertInEmployeeRegionDepartmentTable, employeeId, requestEmployee.getRegDeptId(), requestEmployee.getEmpStartDate(), requestEmployee.getEmpEndDate());
+            // Emails are compared in lower case, like the case-insensitive collation of the email column.
+            Map<String, Long> employeeIdByEmail = getIdsByEmail(requestEmployees);
+            Map<String, RequestEmployee> newEmployeesByEmail = new LinkedHashMap<>();
+            for (RequestEmployee requestEmployee : requestEmployees) {
+                if (isValidForBatchInsert(requestEmployee)) {
+                    String email = requestEmployee.getEmail().toLowerCase();
+                    if (!employeeIdByEmail.containsKey(email)) {
+                        newEmployeesByEmail.putIfAbsent(email, requestEmployee);
+                    }
+                }
+            }
+
+            Set<String> createdEmails = new HashSet<>();
+            if (!newEmployeesByEmail.isEmpty()) {
+                List<RequestEmployee> newEmployees = new ArrayList<>(newEmployeesByEmail.values());
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL batch of {} statements: {}", newEmployees.size(), queryToInsertInEmployeeTable);
+                }
+                List<Long> generatedIds = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+                    List<Long> ids = new ArrayList<>(newEmployees.size());
+                    try (PreparedStatement preparedStatement = connection.prepareStatement(queryToInsertInEmployeeTable, new String[]{"id"})) {
+                        for (RequestEmployee newEmployee : newEmployees) {
+                            preparedStatement.setString(1, newEmployee.getName());
+                            preparedStatement.setString(2, newEmployee.getRole());
+                            preparedStatement.setString(3, newEmployee.getEmail());
+                            preparedStatement.addBatch();
+                        }
+                        preparedStatement.executeBatch();
+                        try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                            while (generatedKeys.next()) {
+                                ids.add(generatedKeys.getLong(1));
+                            }
+                        }
+                    }
+                    return ids;
+                });
+                if (generatedIds == null || generatedIds.size() != newEmployees.size()) {
+                    throw new IllegalStateException("Expected " + newEmployees.size() + " generated ids but the database returned " + (generatedIds == null ? 0 : generatedIds.size()));
+                }
+                int position = 0;
+                for (Map.Entry<String, RequestEmployee> newEmployee : newEmployeesByEmail.entrySet()) {
+                    long employeeId = generatedIds.get(position++);
+                    employeeIdByEmail.put(newEmployee.getKey(), employeeId);
+                    createdEmails.add(newEmployee.getKey());
+                    NameSearchIndex.afterCommit(() -> nameIndex.put(employeeId, newEmployee.getValue().getName()));
+                }
+            }
+
+            List<Object[]> employeeRegionDepartmentRows = new ArrayList<>(requestEmployees.size());
+            for (int index = 0; index < requestEmployees.size(); index++) {
+                RequestEmployee requestEmployee = requestEmployees.get(index);
+                if (!isValidForBatchInsert(requestEmployee)) {
+                    results.add(new BatchInsertResult(index, requestEmployee == null ? null : requestEmployee.getEmail(), null, BatchInsertResult.Status.REJECTED, "name, email, regDeptId and empStartDate are required"));
+                    continue;
+                }
+                String email = requestEmployee.getEmail().toLowerCase();
+                Long employeeId = employeeIdByEmail.get(email);
+                employeeRegionDepartmentRows.add(new Object[]{employeeId, requestEmployee.getRegDeptId(), requestEmployee.getEmpStartDate(), requestEmployee.getEmpEndDate()});
+                // Only the first employee with a new email created it, the following ones reuse it.
+                BatchInsertResult.Status status = createdEmails.remove(email) ? BatchInsertResult.Status.CREATED : BatchInsertResult.Status.EXISTING;
+                results.add(new BatchInsertResult(index, requestEmployee.getEmail(), employeeId, status, null));
+            }
+
+            if (!employeeRegionDepartmentRows.isEmpty()) {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL batch of {} statements: {}", employeeRegionDepartmentRows.size(), queryToInsertInEmployeeRegionDepartmentTable);
+                }
+                jdbcTemplate.batchUpdate(queryToInsertInEmployeeRegionDepartmentTable, employeeRegionDepartmentRows);
+                Set<Long> changedEmployeeIds = new HashSet<>();
+                for (Object[] row : employeeRegionDepartmentRows) {
+                    changedEmployeeIds.add((Long) row[0]);
+                }
+                assignmentView.refreshEmployees(changedEmployeeIds);
+                entityVersions.touchEmployees(changedEmployeeIds);
+                entityVersions.touchListings(EntityVersions.EMPLOYEE_LISTING);
+            }
         } catch (Exception ex) {
             logger.error("Error executing SQL query", ex);
             throw ex;
         }
+        return results;
+    }
+
+    /**
+     * This function finds the ids of the employees which already exist for the emails of the request.
+     * The emails are looked up with IN queries of at most EMAIL_LOOKUP_CHUNK_SIZE emails each.
+     *
+     * @param requestEmployees Employee objects received from client side.
+     * @return Map of the lower case email to the id of the existing employee.
+     */
+    private Map<String, Long> getIdsByEmail(List<RequestEmployee> requestEmployees) {
+        List<String> emails = requestEmployees.stream()
+                .filter(this::isValidForBatchInsert)
+                .map(RequestEmployee::getEmail)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, Long> employeeIdByEmail = new HashMap<>();
+        for (int from = 0; from < emails.size(); from += EMAIL_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = emails.subList(from, Math.min(from + EMAIL_LOOKUP_CHUNK_SIZE, emails.size()));
+            String query = "SELECT id, email FROM employee WHERE email IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query with {} emails: SELECT id, email FROM employee WHERE email IN (...)", chunk.size());
+            }
+            jdbcTemplate.query(query, (RowCallbackHandler) rs -> employeeIdByEmail.putIfAbsent(rs.getString("email").toLowerCase(), rs.getLong("id")), chunk.toArray());
+        }
+        return employeeIdByEmail;
+    }
+
+    private boolean isValidForBatchInsert(RequestEmployee requestEmployee) {
+        return requestEmployee != null
+                && requestEmployee.getName() != null
+                && requestEmployee.getEmail() != null && !requestEmployee.getEmail().isEmpty()
+                && requestEmployee.getRegDeptId() != null
+                && requestEmployee.getEmpStartDate() != null;
     }
 
     /**
@@ -77,128 +358,407 @@ public class EmployeeDao {
      * @param searchTerm    String used for filtering by name or id.
      * @return List of all employees found in the database
      */
+    @ReplicaRead
     public List<ResponseEmployee> getAll(int page, int size, String sortField, String sortDirection, String searchTerm) {
-        List<Object> args = new ArrayList<>();
-        String query = "SELECT employee.id, employee.name AS name, employee.role, employee.email, department.name as department_name, region.name AS region, employee_region_department.emp_start_date, employee_region_department.emp_end_date FROM employee JOIN employee_region_department ON employee_region_department.emp_id = employee.id JOIN region_department ON employee_region_department.reg_dept_id = region_department.id JOIN region ON region_department.reg_id = region.id JOIN department ON region_department.dept_id = department.id INNER JOIN (SELECT id FROM employee";
+        ListingSort sort = ListingSort.of(sortField, sortDirection);
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent()) {
+            return getPageOfIds(matchingIds.get(), page, size, sort);
+        }
 
-        if (searchTerm != null) {
-            query += " WHERE employee.id = ? OR employee.name LIKE ?";
-            args.add(searchTerm);
-            args.add("%"+searchTerm+"%");
+        SearchFilter filter = SearchFilter.of(searchTerm);
+        QueryPlan plan = LISTING_PLANS.get(filter, 0, false, sort);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
+            }
+            return plan.query(jdbcTemplate, new EmployeeResultSetExtractor(size), filter.args(searchTerm, false, size, page * size));
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
         }
+    }
 
-        query += " ORDER BY id LIMIT ? OFFSET ?) AS empId ON employee.id = empId.id ORDER BY employee." + sortField + " " + sortDirection;
-        args.add(size);
-        args.add(page * size);
+    /**
+     * This function builds the statement of getAll for one variant.
+     * The LIKE filters page the ids in the subquery, ordered by id, and the page is joined with the view and sorted.
+     * The IDS filter selects the employees of a page of ids found by the name index.
+     */
+    private static QueryPlan listingPlan(SearchFilter filter, int idCount, boolean afterCursor, ListingSort sort) {
+        String orderBy = " ORDER BY " + sort.orderBy("employee_assignment_view.emp_id", "employee_assignment_view.name");
+        if (filter == SearchFilter.IDS) {
+            return new QueryPlan(EmployeeAssignmentView.SELECT_EMPLOYEE_DETAILS + filter.whereClause("employee_assignment_view.emp_id", null, idCount) + orderBy,
+                    filter.parameterTypes(idCount));
+        }
+        return new QueryPlan(EmployeeAssignmentView.SELECT_EMPLOYEE_DETAILS + " INNER JOIN (SELECT id FROM employee" + filter.whereClause("employee.id", "employee.name", 0)
+                + " ORDER BY id LIMIT ? OFFSET ?) AS empId ON employee_assignment_view.emp_id = empId.id" + orderBy,
+                QueryPlan.types(filter.parameterTypes(0), Types.INTEGER, Types.INTEGER));
+    }
 
-        Map<String, ResponseEmployee> empNameObjectMap = new LinkedHashMap<>();
+    /**
+     * This function finds the ids of the employees matching the search term with the name index.
+     *
+     * @param searchTerm String used for filtering by name or id.
+     * @return Sorted ids of the matching employees, or an empty Optional when there is no search term or the index is not built yet.
+     */
+    private Optional<long[]> searchIds(String searchTerm) {
+        if (searchTerm == null) {
+            return Optional.empty();
+        }
+        return nameIndex.search(searchTerm).map(ids -> SearchTerms.withSearchedId(ids, searchTerm, nameIndex));
+    }
+
+    /**
+     * This function counts the employees listed by getAll for the search term.
+     * A search is answered by the name index without a query once it is built, otherwise the employees are counted
+     * with the filter of getAll. The count is cached per search term and evicted by the employee writes.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for all the employees.
+     * @return Number of matching employees.
+     */
+    @Override
+    @Cacheable(cacheNames = CacheNames.EMPLOYEE_COUNTS, key = "#searchTerm == null ? '' : #searchTerm")
+    @ReplicaRead(cached = true)
+    public long count(String searchTerm) {
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent()) {
+            return matchingIds.get().length;
+        }
+        SearchFilter filter = SearchFilter.of(searchTerm);
+        QueryPlan plan = COUNT_PLANS.get(filter, 0, false, null);
         try {
-            logger.info("Executing SQL query: {}", query);
-            jdbcTemplate.query(query, args.toArray(), (rs, numRow) -> {
-                ResponseEmployee responseEmployee;
-                String empName = rs.getString("name");
-
-                if(!empNameObjectMap.containsKey(empName)){
-                    responseEmployee = new ResponseEmployee();
-                    responseEmployee.setId(rs.getLong("id"));
-                    responseEmployee.setName(empName);
-                    responseEmployee.setRole(rs.getString("role"));
-                    responseEmployee.setEmail(rs.getString("email"));
-                    List<Map<String, Object>> deptDetailsList = new ArrayList<>();
-                    responseEmployee.setDepartmentDetails(deptDetailsList);
-                    empNameObjectMap.put(empName, responseEmployee);
-                }
-                else{
-                    responseEmployee = empNameObjectMap.get(empName);
-                }
-
-                Map<String, Object> deptDetailsMap = new HashMap<>();
-                deptDetailsMap.put("departmentName", rs.getString("department_name"));
-                deptDetailsMap.put("region", rs.getString("region"));
-                deptDetailsMap.put("empStartDate", rs.getDate("emp_start_date").toLocalDate());
-
-                if(rs.getDate("emp_end_date") != null){
-                    deptDetailsMap.put("empEndDate", rs.getDate("emp_end_date").toLocalDate());
-                }
-                else{
-                    deptDetailsMap.put("empEndDate", null);
-                }
-                responseEmployee.getDepartmentDetails().add(deptDetailsMap);
-                return responseEmployee;
-            });
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
+            }
+            return plan.queryForObject(jdbcTemplate, Long.class, filter.args(searchTerm, false));
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This function estimates the number of employees listed by getAll for the search term.
+     * All the employees are estimated from the table statistics and a search by the name index.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for all the employees.
+     * @return Estimated number of matching employees, or an empty OptionalLong when neither can answer.
+     */
+    @Override
+    @ReplicaRead
+    public OptionalLong estimateCount(String searchTerm) {
+        if (searchTerm == null) {
+            return tableStatistics.estimateRows("employee");
+        }
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        return matchingIds.isPresent() ? OptionalLong.of(matchingIds.get().length) : OptionalLong.empty();
+    }
+
+    /**
+     * This function checks whether getAll has employees after the first offset employees, ordered by id.
+     *
+     * @param offset     number of employees of the current and the previous pages.
+     * @param searchTerm String used for filtering by name or id. Null for all the employees.
+     * @return true if a next page exists.
+     */
+    @Override
+    @ReplicaRead
+    public boolean hasMore(long offset, String searchTerm) {
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent()) {
+            return offset < matchingIds.get().length;
+        }
+        SearchFilter filter = SearchFilter.of(searchTerm);
+        QueryPlan plan = HAS_MORE_PLANS.get(filter, 0, false, null);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
+            }
+            return !plan.queryForList(jdbcTemplate, Long.class, filter.args(searchTerm, false, offset)).isEmpty();
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This function returns one page of the employees found by the name index.
+     * The ids are sorted, so the page is cut from them directly. It gives the same employees as the
+     * ORDER BY id LIMIT OFFSET subquery of getAll, and only the ids of the page are sent to the database.
+     *
+     * @param matchingIds   sorted ids of the employees matching the search term.
+     * @param page          page number for pagination.
+     * @param size          number of rows to be sent for a single page.
+     * @param sort          sort order of the page.
+     * @return List of the employees of the page.
+     */
+    private List<ResponseEmployee> getPageOfIds(long[] matchingIds, int page, int size, ListingSort sort) {
+        long from = (long) page * size;
+        if (from >= matchingIds.length) {
+            return new ArrayList<>();
+        }
+        int to = (int) Math.min(from + size, matchingIds.length);
+        QueryPlan plan = LISTING_PLANS.get(SearchFilter.IDS, to - (int) from, false, sort);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query with {} ids from the name index: {}", to - from, plan.getSql());
+            }
+            return plan.query(jdbcTemplate, new EmployeeResultSetExtractor(size), QueryPlans.idArgs(matchingIds, (int) from, to));
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This function returns the employees which come after the given cursor (keyset pagination).
+     * Instead of skipping rows with OFFSET, it seeks directly to the last row of the previous page
+     * using the (sortField, id) pair, so every page costs the same no matter how deep the client goes.
+     * Only employees which have at least one department assignment are paged, since others never appear in the listing.
+     * One more employee than the requested size is fetched so that the caller knows if there is a next page.
+     *
+     * @param size          number of employees to be sent for a single page.
+     * @param sortField     Sort by id or by name.
+     * @param sortDirection Ascending or descending sorting.
+     * @param searchTerm    String used for filtering by name or id.
+     * @param cursor        Position of the last employee of the previous page. Null for the first page.
+     * @return List of at most size + 1 employees in the requested order.
+     */
+    @ReplicaRead
+    public List<ResponseEmployee> getAllAfter(int size, String sortField, String sortDirection, String searchTerm, PageCursor cursor) {
+        ListingSort sort = ListingSort.of(sortField, sortDirection);
+        Object[] cursorArgs = cursor == null ? new Object[0] : sort.isByName() ? new Object[]{cursor.getLastValue(), cursor.getLastId()} : new Object[]{cursor.getLastId()};
+        QueryPlan plan;
+        Object[] args;
+        Optional<long[]> matchingIds = searchTerm == null ? Optional.empty()
+                : nameIndex.search(searchTerm).map(ids -> SearchTerms.withSearchedId(ids, searchTerm, nameIndex));
+        if (matchingIds.isPresent() && matchingIds.get().length == 0) {
+            return new ArrayList<>();
+        }
+        // Long id lists are slower to send and to plan than the LIKE, they are only used up to maxSearchInListSize ids.
+        if (matchingIds.isPresent() && matchingIds.get().length <= maxSearchInListSize) {
+            long[] ids = matchingIds.get();
+            plan = KEYSET_PLANS.get(SearchFilter.IDS, ids.length, cursor != null, sort);
+            args = QueryPlans.idArgs(ids, 0, ids.length, appendArg(cursorArgs, size + 1));
+        } else {
+            SearchFilter filter = SearchFilter.of(searchTerm);
+            plan = KEYSET_PLANS.get(filter, 0, cursor != null, sort);
+            args = filter.args(searchTerm, false, appendArg(cursorArgs, size + 1));
+        }
+
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
+            }
+            return plan.query(jdbcTemplate, new EmployeeResultSetExtractor(size + 1), args);
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This function builds the statement of getAllAfter for one variant.
+     * The cursor condition compares the (name, id) pair or the id with the last employee of the previous page.
+     * id is the tie-breaker so that the order is total and no employee is skipped or repeated between pages.
+     */
+    private static QueryPlan keysetPlan(SearchFilter filter, int idCount, boolean afterCursor, ListingSort sort) {
+        String query = EmployeeAssignmentView.SELECT_EMPLOYEE_DETAILS + " INNER JOIN (SELECT id FROM employee WHERE EXISTS (SELECT 1 FROM employee_region_department WHERE employee_region_department.emp_id = employee.id)";
+        String condition = filter.condition("employee.id", "employee.name", idCount);
+        if (condition != null) {
+            query += " AND " + condition;
+        }
+        int[] parameterTypes = filter.parameterTypes(idCount);
+        if (afterCursor && sort.isByName()) {
+            query += " AND (employee.name, employee.id) " + sort.comparison() + " (?, ?)";
+            parameterTypes = QueryPlan.types(parameterTypes, Types.VARCHAR, Types.BIGINT);
+        } else if (afterCursor) {
+            query += " AND employee.id " + sort.comparison() + " ?";
+            parameterTypes = QueryPlan.types(parameterTypes, Types.BIGINT);
+        }
+        String orderBy = sort.isByName() ? "employee.name " + sort.direction() + ", employee.id " + sort.direction() : "employee.id " + sort.direction();
+        String viewOrderBy = sort.isByName() ? "employee_assignment_view.name " + sort.direction() + ", employee_assignment_view.emp_id " + sort.direction() : "employee_assignment_view.emp_id " + sort.direction();
+        query += " ORDER BY " + orderBy + " LIMIT ?) AS empId ON employee_assignment_view.emp_id = empId.id ORDER BY " + viewOrderBy;
+        return new QueryPlan(query, QueryPlan.types(parameterTypes, Types.INTEGER));
+    }
+
+    private static Object[] appendArg(Object[] args, Object arg) {
+        Object[] appended = Arrays.copyOf(args, args.length + 1);
+        appended[args.length] = arg;
+        return appended;
+    }
+
+    /**
+     * This function streams all the employees with their department details to the consumer, one employee at a time.
+     * The rows are read through a forward-only, read-only ResultSet with a fetch size, ordered by employee id,
+     * so the rows of an employee arrive together and the employee can be handed over as soon as its last row was read.
+     * Only the employee which is currently being built is kept in memory.
+     *
+     * @param consumer receives every employee with all of its department details.
+     */
+    @ReplicaRead
+    public void exportAll(Consumer<ResponseEmployee> consumer) {
+        String query = EmployeeAssignmentView.SELECT_EMPLOYEE_DETAILS + " ORDER BY employee_assignment_view.emp_id";
+        EmployeeGroupingRowHandler rowHandler = new EmployeeGroupingRowHandler(consumer);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", query);
+            }
+            jdbcTemplate.query(connection -> {
+                PreparedStatement preparedStatement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                preparedStatement.setFetchSize(exportFetchSize);
+                return preparedStatement;
+            }, rowHandler);
+            rowHandler.finish();
         } catch (Exception ex) {
             logger.error("Error executing SQL query", ex);
             throw ex;
         }
-        return new ArrayList<>(empNameObjectMap.values());
     }
 
     /**
      * This function gets the specific employee by matching the id.
+     * The lookups which miss the cache within the batch window are coalesced into one IN (...) query.
      *
      * @param id - id of the requested employee
      * @return Employee object of the specified id.
      */
+    @Cacheable(cacheNames = CacheNames.EMPLOYEES, key = "#id")
+    @ReplicaRead(cached = true)
     public ResponseEmployee getById(Long id){
-        String query = "SELECT employee.id, employee.name AS name, employee.role, employee.email, department.name as department_name, region.name AS region, employee_region_department.emp_start_date, employee_region_department.emp_end_date FROM employee JOIN employee_region_department ON employee_region_department.emp_id = employee.id JOIN region_department ON employee_region_department.reg_dept_id = region_department.id JOIN region ON region_department.reg_id = region.id JOIN department ON region_department.dept_id = department.id WHERE employee.id = ?";
-        Map<String, ResponseEmployee> empNameObjectMap = new HashMap<>();
-
-        try {
-            logger.info("Executing SQL query: {}", query);
-            jdbcTemplate.query(query, (rs, numRow) -> {
-                ResponseEmployee responseEmployee;
-                String empName = rs.getString("name");
-
-                if(!empNameObjectMap.containsKey(empName)){
-                    responseEmployee = new ResponseEmployee();
-                    responseEmployee.setId(rs.getLong("id"));
-                    responseEmployee.setName(empName);
-                    responseEmployee.setRole(rs.getString("role"));
-                    responseEmployee.setEmail(rs.getString("email"));
-                    List<Map<String, Object>> deptDetailsList = new ArrayList<>();
-                    responseEmployee.setDepartmentDetails(deptDetailsList);
-                    empNameObjectMap.put(empName, responseEmployee);
-                }
-                else{
-                    responseEmployee = empNameObjectMap.get(empName);
-                }
-
-                Map<String, Object> deptDetailsMap = new HashMap<>();
-                deptDetailsMap.put("departmentName", rs.getString("department_name"));
-                deptDetailsMap.put("region", rs.getString("region"));
-                deptDetailsMap.put("empStartDate", rs.getDate("emp_start_date").toLocalDate());
-
-                if(rs.getDate("emp_end_date") != null){
-                    deptDetailsMap.put("empEndDate", rs.getDate("emp_end_date").toLocalDate());
-                }
-                else{
-                    deptDetailsMap.put("empEndDate", null);
-                }
-                responseEmployee.getDepartmentDetails().add(deptDetailsMap);
-                return responseEmployee;
-            }, id);
-        } catch (EmptyResultDataAccessException e) {
-            logger.error("Error executing SQL query");
+        ResponseEmployee responseEmployee = RoutingContext.pinReads(() -> employeeLoaders
+                .computeIfAbsent(RoutingContext.readTarget(jdbcTemplate.getDataSource()), target -> createLoader()).load(id)).get();
+        if (responseEmployee == null) {
+            logger.error("Employee not found with id: {}", id);
             throw new RuntimeException("Employee not found with id: " + id);
         }
-        Map.Entry<String, ResponseEmployee> entry = empNameObjectMap.entrySet().iterator().next();
-        return entry.getValue();
+        return responseEmployee;
+    }
+
+    /**
+     * This function gets the employees of all the given ids.
+     * The employees found in the cache are not fetched again, the others are fetched with one IN (...) query
+     * per ID_LOOKUP_CHUNK_SIZE ids and put in the cache.
+     *
+     * @param ids ids of the requested employees.
+     * @return Map of the found employees by id. Ids which do not exist are left out.
+     */
+    @ReplicaRead(cached = true)
+    public Map<Long, ResponseEmployee> getByIds(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheNames.EMPLOYEES);
+        Map<Long, ResponseEmployee> responseEmployees = new HashMap<>(Math.max(16, ids.size() * 4 / 3 + 1));
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            ResponseEmployee cached = cache == null ? null : cache.get(id, ResponseEmployee.class);
+            if (cached != null) {
+                responseEmployees.put(id, cached);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            Map<Long, ResponseEmployee> loaded = loadByIds(missingIds);
+            if (cache != null) {
+                loaded.forEach(cache::put);
+            }
+            responseEmployees.putAll(loaded);
+        }
+        return responseEmployees;
+    }
+
+    /**
+     * This function fetches the employees of the given ids, with one query per ID_LOOKUP_CHUNK_SIZE ids.
+     *
+     * @param ids ids of the requested employees.
+     * @return Map of the found employees by id.
+     */
+    private Map<Long, ResponseEmployee> loadByIds(Set<Long> ids) {
+        Map<Long, ResponseEmployee> responseEmployees = new HashMap<>(Math.max(16, ids.size() * 4 / 3 + 1));
+        long[] idArray = ids.stream().mapToLong(Long::longValue).toArray();
+        for (int from = 0; from < idArray.length; from += ID_LOOKUP_CHUNK_SIZE) {
+            int to = Math.min(from + ID_LOOKUP_CHUNK_SIZE, idArray.length);
+            QueryPlan plan = ID_LOOKUP_PLANS.get(SearchFilter.IDS, to - from, false, null);
+            try {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query with {} ids: {}", to - from, plan.getSql());
+                }
+                List<ResponseEmployee> found = plan.query(jdbcTemplate, new EmployeeResultSetExtractor(to - from), QueryPlans.idArgs(idArray, from, to));
+                if (found != null) {
+                    for (ResponseEmployee responseEmployee : found) {
+                        responseEmployees.put(responseEmployee.getId(), responseEmployee);
+                    }
+                }
+            } catch (Exception ex) {
+                logger.error("Error executing SQL query", ex);
+                throw ex;
+            }
+        }
+        return responseEmployees;
+    }
+
+    /**
+     * This function gets the version of the employee, the ETag of GET /employees/{id}.
+     * It is cached like the employees and evicted by the same writes, so a matching If-None-Match is answered without a query.
+     *
+     * @param id id of the employee.
+     * @return EntityVersion of the employee, or null if the employee does not exist.
+     */
+    @Cacheable(cacheNames = CacheNames.EMPLOYEE_VERSIONS, key = "#id", unless = "#result == null")
+    @ReplicaRead(cached = true)
+    public EntityVersion getVersion(Long id) {
+        return entityVersions.read("employee", id);
+    }
+
+    /**
+     * This function gets the version of the employee listings, the ETag of GET /employees/all.
+     * Every write which changes an employee increments it, including the department and region writes.
+     *
+     * @return EntityVersion of the employee listings.
+     */
+    @ReplicaRead(cached = true)
+    public EntityVersion getListingVersion() {
+        return entityVersions.readListing(EntityVersions.EMPLOYEE_LISTING);
     }
 
     /**
      * This function updates the employee details of the specified employee in the database
+     * The region-department and the dates replace the ones of the assignment of the employee. An employee assigned to
+     * several departments is not updated, since the request does not tell which of its assignments to change.
      *
      * @param id       id of the employee that needs to be updated
      * @param requestEmployee Employee object with the updated details
+     * @return Number of assignments of the employee. Nothing is changed when it is more than one.
      */
-    public void update(long id, RequestEmployee requestEmployee) {
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
+    public int update(long id, RequestEmployee requestEmployee) {
         String queryToUpdateInEmployeeTable = "UPDATE employee SET name = ?, role = ?, email = ? WHERE id = ?";
-        String queryToUpdateInEmployeeRegionDepartmentTable = "UPDATE employee_region_department SET emp_id = ?, reg_dept_id = ?, emp_start_date = ?, emp_end_date = ? WHERE ID = ?";
+        String queryToUpdateInEmployeeRegionDepartmentTable = "UPDATE employee_region_department SET reg_dept_id = ?, emp_start_date = ?, emp_end_date = ? WHERE emp_id = ?";
         try {
-            logger.info("Executing SQL query: {}", queryToUpdateInEmployeeTable);
-            jdbcTemplate.update(queryToUpdateInEmployeeTable, requestEmployee.getName(), requestEmployee.getRole(), requestEmployee.getEmail(), id);
-            logger.info("Executing SQL query: {}", queryToUpdateInEmployeeRegionDepartmentTable);
-            jdbcTemplate.update(queryToUpdateInEmployeeRegionDepartmentTable, id, requestEmployee.getRegDeptId(), requestEmployee.getEmpStartDate(), requestEmployee.getEmpEndDate(), id);
+            return writeTransactionTemplate.execute(status -> {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToUpdateInEmployeeTable);
+                }
+                jdbcTemplate.update(queryToUpdateInEmployeeTable, requestEmployee.getName(), requestEmployee.getRole(), requestEmployee.getEmail(), id);
+                NameSearchIndex.afterCommit(() -> nameIndex.put(id, requestEmployee.getName()));
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToUpdateInEmployeeRegionDepartmentTable);
+                }
+                int updatedAssignments = jdbcTemplate.update(queryToUpdateInEmployeeRegionDepartmentTable, requestEmployee.getRegDeptId(), requestEmployee.getEmpStartDate(), requestEmployee.getEmpEndDate(), id);
+                if (updatedAssignments > 1) {
+                    // The assignments keep their own departments and dates, and the employee its details.
+                    status.setRollbackOnly();
+                    return updatedAssignments;
+                }
+                assignmentView.refreshEmployee(id);
+                entityVersions.touchEmployee(id);
+                entityVersions.touchListings(EntityVersions.EMPLOYEE_LISTING);
+                return updatedAssignments;
+            });
         } catch (Exception e) {
             logger.error("Error executing SQL query");
             throw new RuntimeException(e);
@@ -207,42 +767,202 @@ public class EmployeeDao {
 
     /**
      * This DAO method interacts with employee_region_department table in the database.
-     * It first fetches the reg_dept_id from region department using department id and region id.
-     * Then it adds or updates the end date in the employee_region_department table of the corresponding employee id
-     * and region department id.
+     * It adds or updates the end date of the employee in the region-department of the given region id and department id.
+     * The region-department is looked up by a subquery, and the same end date is set in the read model in the same transaction.
      * @param empId id of the employee.
      * @param updates Map containing region id, department id and end date.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, key = "#empId"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, key = "#empId"),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
     public void saveEndDate(Long empId, Map<String, Object> updates){
-        String queryToFetchRegDeptId = "SELECT reg_dept_id FROM employee_region_department JOIN region_department ON employee_region_department.reg_dept_id = region_department.id WHERE region_department.reg_id = ? AND region_department.dept_id = ? LIMIT 1";
-        String queryToUpdateInEmployeeRegionDepartmentTable = "UPDATE employee_region_department SET emp_end_date = ? WHERE reg_dept_id = ? AND emp_id = ?";
+        String queryToUpdateInEmployeeRegionDepartmentTable = "UPDATE employee_region_department SET emp_end_date = ? WHERE emp_id = ? AND reg_dept_id IN (SELECT id FROM region_department WHERE reg_id = ? AND dept_id = ?)";
         try {
-            logger.info("Executing SQL query: {}", queryToFetchRegDeptId);
-            Long regDeptId = jdbcTemplate.queryForObject(queryToFetchRegDeptId, Long.class, updates.get("regId"), updates.get("deptId"));
-            logger.info("Executing SQL query: {}", queryToUpdateInEmployeeRegionDepartmentTable);
-            jdbcTemplate.update(queryToUpdateInEmployeeRegionDepartmentTable, updates.get("empEndDate"), regDeptId, empId);
+            writeTransactionTemplate.execute(status -> {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToUpdateInEmployeeRegionDepartmentTable);
+                }
+                jdbcTemplate.update(queryToUpdateInEmployeeRegionDepartmentTable, updates.get("empEndDate"), empId, updates.get("regId"), updates.get("deptId"));
+                assignmentView.updateEmployeeEndDate(empId, updates.get("regId"), updates.get("deptId"), updates.get("empEndDate"));
+                entityVersions.touchEmployee(empId);
+                entityVersions.touchListings(EntityVersions.EMPLOYEE_LISTING);
+                return null;
+            });
         } catch (Exception e){
             logger.error("Error executing SQL query");
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * This function sets the end dates of many assignments, e.g. for a reorganization, instead of one saveEndDate per employee.
+     * The items are saved in chunks of EndDates.CHUNK_SIZE, every chunk in its own transaction with a handful of statements:
+     * one query finds the assignments of the employees of the chunk joined with their region-departments, one UPDATE sets all
+     * their end dates, then the read model and the versions are updated with one statement each.
+     * A failing chunk is rolled back and its items are reported as FAILED, the other chunks are still saved.
+     * An item for the same assignment as an earlier item of its chunk overrides it, like a later PATCH would.
+     *
+     * @param endDates employee id, region id, department id and end date of every assignment to close.
+     * @return Outcome of every item, in the order of the request.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
+    public List<EndDateResult> saveEndDates(List<RequestEmployeeEndDate> endDates) {
+        EndDateResult[] results = new EndDateResult[endDates.size()];
+        List<Integer> validIndexes = new ArrayList<>(endDates.size());
+        for (int index = 0; index < endDates.size(); index++) {
+            RequestEmployeeEndDate endDate = endDates.get(index);
+            if (endDate == null || endDate.empId() == null || endDate.regId() == null || endDate.deptId() == null || endDate.empEndDate() == null) {
+                results[index] = new EndDateResult(index, endDate == null ? null : endDate.empId(), EndDateResult.Status.REJECTED, "empId, regId, deptId and empEndDate are required");
+            } else {
+                validIndexes.add(index);
+            }
+        }
+        for (int from = 0; from < validIndexes.size(); from += EndDates.CHUNK_SIZE) {
+            List<Integer> chunk = validIndexes.subList(from, Math.min(from + EndDates.CHUNK_SIZE, validIndexes.size()));
+            try {
+                writeTransactionTemplate.executeWithoutResult(status -> saveEndDateChunk(endDates, chunk, results));
+            } catch (Exception ex) {
+                logger.error("Error executing SQL query", ex);
+                for (int index : chunk) {
+                    results[index] = new EndDateResult(index, endDates.get(index).empId(), EndDateResult.Status.FAILED, "Some error occurred in the server, the chunk of this item was rolled back");
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void saveEndDateChunk(List<RequestEmployeeEndDate> endDates, List<Integer> chunk, EndDateResult[] results) {
+        Object[] empIds = chunk.stream().map(index -> endDates.get(index).empId()).distinct().toArray();
+        String queryToSelectAssignments = "SELECT employee_region_department.id, employee_region_department.emp_id, region_department.reg_id, region_department.dept_id FROM employee_region_department JOIN region_department ON region_department.id = employee_region_department.reg_dept_id WHERE employee_region_department.emp_id IN (" + SearchTerms.placeholders(empIds.length) + ")";
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query with {} ids: {}", empIds.length, queryToSelectAssignments);
+        }
+        // Assignment ids by employee id, region id and department id.
+        Map<List<Long>, List<Long>> assignmentIds = new HashMap<>();
+        jdbcTemplate.query(queryToSelectAssignments, (RowCallbackHandler) rs -> assignmentIds
+                .computeIfAbsent(List.of(rs.getLong(2), rs.getLong(3), rs.getLong(4)), key -> new ArrayList<>())
+                .add(rs.getLong(1)), empIds);
+
+        Map<Long, LocalDate> endDateByAssignmentId = new LinkedHashMap<>();
+        Set<Long> changedEmployeeIds = new HashSet<>();
+        for (int index : chunk) {
+            RequestEmployeeEndDate endDate = endDates.get(index);
+            List<Long> ids = assignmentIds.get(List.of(endDate.empId(), endDate.regId(), endDate.deptId()));
+            if (ids == null) {
+                results[index] = new EndDateResult(index, endDate.empId(), EndDateResult.Status.NOT_FOUND, "The employee has no assignment in the department of the region");
+                continue;
+            }
+            ids.forEach(id -> endDateByAssignmentId.put(id, endDate.empEndDate()));
+            changedEmployeeIds.add(endDate.empId());
+            results[index] = new EndDateResult(index, endDate.empId(), EndDateResult.Status.UPDATED, null);
+        }
+        if (endDateByAssignmentId.isEmpty()) {
+            return;
+        }
+        String queryToUpdateInEmployeeRegionDepartmentTable = "UPDATE employee_region_department SET emp_end_date = " + EndDates.caseOf("id", "emp_end_date", endDateByAssignmentId.size()) + " WHERE id IN (" + SearchTerms.placeholders(endDateByAssignmentId.size()) + ")";
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query with {} assignments: UPDATE employee_region_department SET emp_end_date = CASE id ... END WHERE id IN (...)", endDateByAssignmentId.size());
+        }
+        jdbcTemplate.update(queryToUpdateInEmployeeRegionDepartmentTable, EndDates.args(endDateByAssignmentId));
+        assignmentView.updateAssignmentEndDates(endDateByAssignmentId);
+        entityVersions.touchEmployees(changedEmployeeIds);
+        entityVersions.touchListings(EntityVersions.EMPLOYEE_LISTING);
+    }
+
     /**
      * This function deletes the specified employee from the database
      *
      * @param id - id of the employee that needs to be deleted
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
     public void delete(long id) {
-        String queryToDeleteFromEmployeeRegionDepartmentTable = "DELETE FROM employee_region_department WHERE id = ?";
+        String queryToDeleteFromEmployeeRegionDepartmentTable = "DELETE FROM employee_region_department WHERE emp_id = ?";
         String queryToDeleteFromEmployeeTable = "DELETE FROM employee WHERE id = ?";
         try {
-            logger.info("Executing SQL query: {}", queryToDeleteFromEmployeeRegionDepartmentTable);
-            jdbcTemplate.update(queryToDeleteFromEmployeeRegionDepartmentTable, id);
-            logger.info("Executing SQL query: {}", queryToDeleteFromEmployeeTable);
-            jdbcTemplate.update(queryToDeleteFromEmployeeTable, id);
+            writeTransactionTemplate.execute(status -> {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToDeleteFromEmployeeRegionDepartmentTable);
+                }
+                jdbcTemplate.update(queryToDeleteFromEmployeeRegionDepartmentTable, id);
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", queryToDeleteFromEmployeeTable);
+                }
+                jdbcTemplate.update(queryToDeleteFromEmployeeTable, id);
+                changeOutbox.appendDeleted(ChangeRecord.EntityType.EMPLOYEE, id);
+                assignmentView.removeEmployee(id);
+                entityVersions.touchListings(EntityVersions.EMPLOYEE_LISTING);
+                NameSearchIndex.afterCommit(() -> nameIndex.remove(id));
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Error executing SQL query");
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Row handler which groups consecutive rows of the same employee and hands every finished employee to the consumer.
+     * It expects the rows to be ordered by employee id.
+     */
+    private static class EmployeeGroupingRowHandler implements RowCallbackHandler {
+        private final Consumer<ResponseEmployee> consumer;
+        private ResponseEmployee current;
+
+        EmployeeGroupingRowHandler(Consumer<ResponseEmployee> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long empId = EmployeeResultSetExtractor.readId(rs);
+            if (current == null || current.getId() != empId) {
+                finish();
+                current = EmployeeResultSetExtractor.newEmployee(rs, empId);
+            }
+            current.getDepartmentDetails().add(EmployeeResultSetExtractor.readAssignment(rs));
+        }
+
+        /**
+         * Hands over the employee which is currently being built, if any.
+         */
+        void finish() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * This function builds the in-memory name index used by the searchTerm of the listings from the employee table.
+     * It runs once the application is ready and then every search.index.rebuild-interval-ms, so that the changes
+     * made by other instances of the application are picked up as well. Searches use LIKE until the first build is done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval-ms:600000}", fixedDelayString = "${search.index.rebuild-interval-ms:600000}")
+    @ReplicaRead(cached = true)
+    public void buildNameIndex() {
+        String query = "SELECT id, name FROM employee";
+        long start = System.currentTimeMillis();
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", query);
+            }
+            nameIndex.rebuild(consumer -> jdbcTemplate.query(query, (RowCallbackHandler) rs -> consumer.accept(rs.getLong("id"), rs.getString("name"))));
+            logger.info("Built the employee name index with {} employees in {} ms", nameIndex.size(), System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            logger.error("Error building the employee name index", ex);
+        }
+    }
 }
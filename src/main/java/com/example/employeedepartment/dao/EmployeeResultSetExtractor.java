@@ -0,0 +1,79 @@
+package com.example.employeedepartment.dao;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import com.example.employeedepartment.model.DepartmentAssignment;
+import com.example.employeedepartment.model.ResponseEmployee;
+
+/**
+ * Groups the rows of the employee details query into one ResponseEmployee per employee, in the order of the rows.
+ * Every column is read once, by its index in EmployeeAssignmentView.SELECT_EMPLOYEE_DETAILS.
+ */
+class EmployeeResultSetExtractor implements ResultSetExtractor<List<ResponseEmployee>> {
+    private static final int ID = 1;
+    private static final int NAME = 2;
+    private static final int ROLE = 3;
+    private static final int EMAIL = 4;
+    private static final int DEPARTMENT_NAME = 5;
+    private static final int REGION = 6;
+    private static final int EMP_START_DATE = 7;
+    private static final int EMP_END_DATE = 8;
+
+    /** Most employees work in one or two departments. */
+    private static final int EXPECTED_ASSIGNMENTS_PER_EMPLOYEE = 2;
+
+    private final int expectedEmployees;
+
+    /**
+     * @param expectedEmployees number of employees expected in the result, used to size the map. E.g. the page size.
+     */
+    EmployeeResultSetExtractor(int expectedEmployees) {
+        this.expectedEmployees = expectedEmployees;
+    }
+
+    @Override
+    public List<ResponseEmployee> extractData(ResultSet rs) throws SQLException {
+        Map<Long, ResponseEmployee> empIdObjectMap = new LinkedHashMap<>(Math.max(16, expectedEmployees * 4 / 3 + 1));
+        while (rs.next()) {
+            long empId = rs.getLong(ID);
+            ResponseEmployee responseEmployee = empIdObjectMap.get(empId);
+            if (responseEmployee == null) {
+                responseEmployee = newEmployee(rs, empId);
+                empIdObjectMap.put(empId, responseEmployee);
+            }
+            responseEmployee.getDepartmentDetails().add(readAssignment(rs));
+        }
+        return new ArrayList<>(empIdObjectMap.values());
+    }
+
+    /**
+     * Creates the employee of the current row, without its department details.
+     */
+    static ResponseEmployee newEmployee(ResultSet rs, long empId) throws SQLException {
+        return new ResponseEmployee(empId, rs.getString(NAME), rs.getString(ROLE), rs.getString(EMAIL), new ArrayList<>(EXPECTED_ASSIGNMENTS_PER_EMPLOYEE));
+    }
+
+    /**
+     * Reads the department details of the current row.
+     */
+    static DepartmentAssignment readAssignment(ResultSet rs) throws SQLException {
+        return new DepartmentAssignment(rs.getString(DEPARTMENT_NAME), rs.getString(REGION), toLocalDate(rs.getDate(EMP_START_DATE)), toLocalDate(rs.getDate(EMP_END_DATE)));
+    }
+
+    static long readId(ResultSet rs) throws SQLException {
+        return rs.getLong(ID);
+    }
+
+    static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+}
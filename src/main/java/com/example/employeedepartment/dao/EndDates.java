@@ -0,0 +1,48 @@
+package com.example.employeedepartment.dao;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Helpers for the bulk end date writes, which set a different end date on every row of a set with one UPDATE:
+ * UPDATE ... SET end_date = CASE id WHEN ? THEN ? WHEN ? THEN ? ... END WHERE id IN (?, ?, ...).
+ */
+final class EndDates {
+    /** Number of items of a bulk end date request which are saved in one transaction. */
+    static final int CHUNK_SIZE = 500;
+
+    private EndDates() {
+    }
+
+    /**
+     * This function builds the CASE expression which picks the end date of every key.
+     * The dates are cast, so the databases do not have to infer the type of the THEN parameters.
+     *
+     * @param keyColumn  column of the keys, e.g. id.
+     * @param dateColumn column which is set, it keeps its value for the rows without a key.
+     * @param count      number of keys.
+     * @return String like "CASE id WHEN ? THEN CAST(? AS DATE) ... ELSE emp_end_date END".
+     */
+    static String caseOf(String keyColumn, String dateColumn, int count) {
+        return "CASE " + keyColumn + " WHEN ? THEN CAST(? AS DATE)".repeat(count) + " ELSE " + dateColumn + " END";
+    }
+
+    /**
+     * This function builds the arguments of an UPDATE made of caseOf and an IN list of the same keys.
+     *
+     * @param endDateByKey end date of every key.
+     * @return Array of the key and date pairs of the CASE followed by the keys of the IN list.
+     */
+    static Object[] args(Map<Long, LocalDate> endDateByKey) {
+        Object[] args = new Object[endDateByKey.size() * 3];
+        int position = 0;
+        for (Map.Entry<Long, LocalDate> endDate : endDateByKey.entrySet()) {
+            args[position++] = endDate.getKey();
+            args[position++] = endDate.getValue();
+        }
+        for (Long key : endDateByKey.keySet()) {
+            args[position++] = key;
+        }
+        return args;
+    }
+}
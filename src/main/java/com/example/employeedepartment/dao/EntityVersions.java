@@ -0,0 +1,196 @@
+package com.example.employeedepartment.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.ChangeRecord;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.routing.RoutingContext;
+
+/**
+ * Keeps the version and updated_at columns of the employee, department and region tables and the rows of the
+ * listing_version table up to date. They are the ETag and the Last-Modified of the responses.
+ *
+ * The DAO write methods call it inside the transaction of the write, for every row whose response changes:
+ * a department rename, for example, changes the response of the department and of all the employees of the department.
+ * The employees of a department or a region are found by the read model of the employees, so it is called before
+ * the rows of the read model are removed.
+ * The listings are updated last, so the lock on their row is held as short as possible. Each listing has
+ * LISTING_SHARDS rows and a write increments one of them at random, so the writers of a listing, e.g. the chunks of
+ * the bulk end dates and of the jobs, rarely wait for each other. The version of a listing is the sum of its rows.
+ * Every row whose version is incremented is also appended to the change feed as SAVED, see ChangeOutbox.
+ * The columns and the table are created by the Java migration db.migration.V3__entity_versions,
+ * the shards by V8__listing_version_shards.sql.
+ */
+@Repository
+class EntityVersions {
+    private static final Logger logger = LoggerFactory.getLogger(EntityVersions.class);
+
+    static final String EMPLOYEE_LISTING = "employee";
+    static final String DEPARTMENT_LISTING = "department";
+    static final String REGION_LISTING = "region";
+
+    private static final int TOUCH_CHUNK_SIZE = 1000;
+
+    /** Number of rows of every listing in listing_version, created by V8__listing_version_shards.sql. */
+    private static final int LISTING_SHARDS = 16;
+
+    private static final String SET_NEXT_VERSION = " SET version = version + 1, updated_at = CURRENT_TIMESTAMP";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    EntityVersions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * This function reads the version of a row of the employee, department or region table.
+     *
+     * @param table employee, department or region.
+     * @param id    id of the row.
+     * @return EntityVersion of the row, or null if the row does not exist.
+     */
+    EntityVersion read(String table, long id) {
+        return readOne("SELECT version, updated_at FROM " + table + " WHERE id = ?", id);
+    }
+
+    /**
+     * This function reads the version of a listing, on the database which the reads of the request are pinned to.
+     * The versions are cached by listing and database, so a request never gets the version of one replica and
+     * the rows of another one which is further behind. The DAO write methods evict them all.
+     *
+     * @param listing EMPLOYEE_LISTING, DEPARTMENT_LISTING or REGION_LISTING.
+     * @return EntityVersion of the listing, or null if its row is missing.
+     */
+    EntityVersion readListing(String listing) {
+        return RoutingContext.pinReads(() -> {
+            String key = listing + "@" + RoutingContext.readTarget(jdbcTemplate.getDataSource());
+            Cache cache = cacheManager.getCache(CacheNames.LISTING_VERSIONS);
+            EntityVersion version = cache == null ? null : cache.get(key, EntityVersion.class);
+            if (version == null) {
+                version = readOne("SELECT SUM(version) AS version, MAX(updated_at) AS updated_at FROM listing_version WHERE name = ? HAVING COUNT(*) > 0", listing);
+                if (version != null && cache != null) {
+                    cache.put(key, version);
+                }
+            }
+            return version;
+        }).get();
+    }
+
+    void touchEmployee(long empId) {
+        touch(ChangeRecord.EntityType.EMPLOYEE, "employee", "id = ?", empId);
+    }
+
+    /**
+     * This function increments the versions of the employees, with one statement per TOUCH_CHUNK_SIZE employees.
+     */
+    void touchEmployees(Collection<Long> empIds) {
+        touchInChunks(ChangeRecord.EntityType.EMPLOYEE, "employee", "id IN (%s)", empIds);
+    }
+
+    void touchEmployeesOfDepartment(long deptId) {
+        touch(ChangeRecord.EntityType.EMPLOYEE, "employee", "id IN (SELECT emp_id FROM employee_assignment_view WHERE dept_id = ?)", deptId);
+    }
+
+    /**
+     * This function increments the versions of the employees of the departments, with one statement per TOUCH_CHUNK_SIZE departments.
+     */
+    void touchEmployeesOfDepartments(Collection<Long> deptIds) {
+        touchInChunks(ChangeRecord.EntityType.EMPLOYEE, "employee", "id IN (SELECT emp_id FROM employee_assignment_view WHERE dept_id IN (%s))", deptIds);
+    }
+
+    void touchEmployeesOfRegion(long regId) {
+        touch(ChangeRecord.EntityType.EMPLOYEE, "employee", "id IN (SELECT emp_id FROM employee_assignment_view WHERE reg_id = ?)", regId);
+    }
+
+    void touchDepartment(long deptId) {
+        touch(ChangeRecord.EntityType.DEPARTMENT, "department", "id = ?", deptId);
+    }
+
+    /**
+     * This function increments the versions of the departments, with one statement per TOUCH_CHUNK_SIZE departments.
+     */
+    void touchDepartments(Collection<Long> deptIds) {
+        touchInChunks(ChangeRecord.EntityType.DEPARTMENT, "department", "id IN (%s)", deptIds);
+    }
+
+    void touchDepartmentsOfRegion(long regId) {
+        touch(ChangeRecord.EntityType.DEPARTMENT, "department", "id IN (SELECT dept_id FROM region_department WHERE reg_id = ?)", regId);
+    }
+
+    void touchRegion(long regId) {
+        touch(ChangeRecord.EntityType.REGION, "region", "id = ?", regId);
+    }
+
+    /**
+     * This function increments the versions of the listings, on one shard picked at random for all of them.
+     * The rows are locked in the order of the primary key, so two writes of the same listings can not deadlock.
+     *
+     * @param listings EMPLOYEE_LISTING, DEPARTMENT_LISTING or REGION_LISTING.
+     */
+    void touchListings(String... listings) {
+        Object[] args = Arrays.copyOf(listings, listings.length + 1, Object[].class);
+        args[listings.length] = ThreadLocalRandom.current().nextInt(LISTING_SHARDS);
+        execute("UPDATE listing_version" + SET_NEXT_VERSION + " WHERE name IN (" + SearchTerms.placeholders(listings.length) + ") AND shard = ?", args);
+    }
+
+    /**
+     * This function increments the versions of the rows of a table which match a condition and appends them to the change feed.
+     *
+     * @param entityType entity of the rows.
+     * @param table      employee, department or region.
+     * @param where      condition on the rows of the table, with ? placeholders.
+     * @param args       arguments of the condition.
+     */
+    private void touch(ChangeRecord.EntityType entityType, String table, String where, Object... args) {
+        execute("UPDATE " + table + SET_NEXT_VERSION + " WHERE " + where, args);
+        changeOutbox.appendSavedWhere(entityType, table, where, args);
+    }
+
+    /**
+     * This function runs touch once per TOUCH_CHUNK_SIZE ids.
+     *
+     * @param where condition whose %s is replaced by the placeholders of the ids.
+     * @param ids   ids of the rows.
+     */
+    private void touchInChunks(ChangeRecord.EntityType entityType, String table, String where, Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        for (int from = 0; from < idList.size(); from += TOUCH_CHUNK_SIZE) {
+            Object[] chunk = idList.subList(from, Math.min(from + TOUCH_CHUNK_SIZE, idList.size())).toArray();
+            touch(entityType, table, String.format(where, SearchTerms.placeholders(chunk.length)), chunk);
+        }
+    }
+
+    private EntityVersion readOne(String query, Object arg) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query: {}", query);
+        }
+        List<EntityVersion> versions = jdbcTemplate.query(query, (rs, rowNum) -> new EntityVersion(rs.getLong("version"), rs.getTimestamp("updated_at").toInstant()), arg);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    private void execute(String query, Object... args) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query: {}", query);
+        }
+        jdbcTemplate.update(query, args);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.employeedepartment.dao;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Checks at startup that the indexes which the queries of the DAOs depend on exist, and reports the missing ones.
+ * The indexes are created by src/main/resources/db/migration/V4__indexes.sql, but a database which was taken over
+ * by the baseline of Flyway, or whose indexes were changed by hand, may not have them. Without them the joins of
+ * the listings and the existence checks of the inserts scan whole tables.
+ *
+ * An index is found when an index of the table starts with its columns, in order. The names of the indexes do not matter.
+ * The missing indexes are logged as warnings and counted by the db.indexes.missing gauge. The startup is not stopped.
+ */
+@Repository
+public class IndexCheck {
+    private static final Logger logger = LoggerFactory.getLogger(IndexCheck.class);
+
+    /**
+     * Indexes of V4__indexes.sql and the dept_id index of the read model created by V2__employee_assignment_view.sql.
+     */
+    private static final List<ExpectedIndex> EXPECTED_INDEXES = List.of(
+            new ExpectedIndex("employee", true, "email"),
+            new ExpectedIndex("department", true, "name"),
+            new ExpectedIndex("employee", false, "name"),
+            new ExpectedIndex("region", false, "name"),
+            new ExpectedIndex("region_department", false, "reg_id", "dept_id"),
+            new ExpectedIndex("region_department", false, "dept_id", "reg_id", "dept_start_date", "dept_end_date"),
+            new ExpectedIndex("employee_region_department", false, "emp_id", "reg_dept_id"),
+            new ExpectedIndex("employee_region_department", false, "reg_dept_id", "emp_end_date"),
+            new ExpectedIndex("employee_assignment_view", false, "emp_id", "reg_id", "dept_id"),
+            new ExpectedIndex("employee_assignment_view", false, "reg_id", "dept_id", "emp_end_date"),
+            new ExpectedIndex("employee_assignment_view", false, "dept_id"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicInteger missingIndexes = new AtomicInteger();
+
+    @Value("${schema.index-check.enabled:true}")
+    private boolean enabled;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    public IndexCheck(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * This function checks the indexes once the application is ready and logs the missing ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkIndexes() {
+        if (!enabled) {
+            return;
+        }
+        if (meterRegistry != null) {
+            Gauge.builder("db.indexes.missing", missingIndexes, AtomicInteger::get)
+                    .description("Number of the indexes needed by the queries which are missing in the database")
+                    .register(meterRegistry);
+        }
+        try {
+            List<String> missing = findMissingIndexes();
+            missingIndexes.set(missing.size());
+            for (String index : missing) {
+                logger.warn("Missing index {}, the queries which use it scan the table. See db/migration/V4__indexes.sql", index);
+            }
+            if (missing.isEmpty()) {
+                logger.info("All the {} indexes needed by the queries exist", EXPECTED_INDEXES.size());
+            }
+        } catch (Exception ex) {
+            logger.error("Error checking the indexes of the database", ex);
+        }
+    }
+
+    /**
+     * This function reads the indexes of the tables from the metadata of the database and compares them with the expected indexes.
+     *
+     * @return Missing indexes, e.g. "UNIQUE employee (email)". Empty if all of them exist.
+     */
+    public List<String> findMissingIndexes() {
+        return jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, List<IndexColumns>> indexesByTable = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (ExpectedIndex expected : EXPECTED_INDEXES) {
+                List<IndexColumns> indexes = indexesByTable.get(expected.table);
+                if (indexes == null) {
+                    indexes = readIndexes(metaData, connection.getCatalog(), connection.getSchema(), expected.table);
+                    indexesByTable.put(expected.table, indexes);
+                }
+                if (indexes.stream().noneMatch(expected::isCoveredBy)) {
+                    missing.add(expected.toString());
+                }
+            }
+            return missing;
+        });
+    }
+
+    private static List<IndexColumns> readIndexes(DatabaseMetaData metaData, String catalog, String schema, String table) throws SQLException {
+        Map<String, IndexColumns> indexes = new HashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table, false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (indexName == null || column == null) {
+                    // Table statistics rows have no index.
+                    continue;
+                }
+                IndexColumns index = indexes.computeIfAbsent(indexName, name -> new IndexColumns());
+                index.unique = !rs.getBoolean("NON_UNIQUE");
+                index.put(rs.getInt("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+            }
+        }
+        return new ArrayList<>(indexes.values());
+    }
+
+    private static class IndexColumns {
+        private final List<String> columns = new ArrayList<>();
+        private boolean unique;
+
+        private void put(int position, String column) {
+            while (columns.size() < position) {
+                columns.add(null);
+            }
+            columns.set(position - 1, column);
+        }
+    }
+
+    private static class ExpectedIndex {
+        private final String table;
+        private final boolean unique;
+        private final List<String> columns;
+
+        private ExpectedIndex(String table, boolean unique, String... columns) {
+            this.table = table;
+            this.unique = unique;
+            this.columns = List.of(columns);
+        }
+
+        private boolean isCoveredBy(IndexColumns index) {
+            if (unique && (!index.unique || index.columns.size() != columns.size())) {
+                // A unique index on more columns does not make the columns unique.
+                return false;
+            }
+            return index.columns.size() >= columns.size() && index.columns.subList(0, columns.size()).equals(columns);
+        }
+
+        @Override
+        public String toString() {
+            return (unique ? "UNIQUE " : "") + table + " (" + String.join(", ", columns) + ")";
+        }
+    }
+}
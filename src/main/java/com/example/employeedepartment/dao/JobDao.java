@@ -0,0 +1,178 @@
+package com.example.employeedepartment.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.Job;
+import com.example.employeedepartment.model.JobType;
+import com.example.employeedepartment.routing.PrimaryRead;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Stores the background jobs in the job table created by src/main/resources/db/migration/V6__job.sql.
+ * The outcomes of a job are kept as a JSON object of the counts by status.
+ */
+@Repository
+public class JobDao {
+    private static final Logger logger = LoggerFactory.getLogger(JobDao.class);
+
+    private static final String SELECT_JOB = "SELECT id, type, status, total_items, processed_items, outcomes, error, created_at, updated_at FROM job";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public JobDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * This function adds a queued job.
+     *
+     * @param type       kind of the job.
+     * @param instanceId instance which runs the job and resumes it after a restart.
+     * @param payload    items of the job as JSON, null for an export.
+     * @param totalItems number of items of the job.
+     * @return id of the new job.
+     */
+    public long insert(JobType type, String instanceId, String payload, int totalItems) {
+        String query = "INSERT INTO job (type, status, instance_id, payload, total_items) VALUES (?, ?, ?, ?, ?)";
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query: {}", query);
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(query, new String[]{"id"});
+            preparedStatement.setString(1, type.name());
+            preparedStatement.setString(2, Job.Status.QUEUED.name());
+            preparedStatement.setString(3, instanceId);
+            preparedStatement.setString(4, payload);
+            preparedStatement.setInt(5, totalItems);
+            return preparedStatement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * @param id id of the job.
+     * @return Job of the id, or null if it does not exist.
+     */
+    @PrimaryRead
+    public Job getById(long id) {
+        String query = SELECT_JOB + " WHERE id = ?";
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query: {}", query);
+        }
+        List<Job> jobs = jdbcTemplate.query(query, (rs, rowNum) -> mapJob(rs), id);
+        return jobs.isEmpty() ? null : jobs.get(0);
+    }
+
+    /**
+     * @param id id of the job.
+     * @return Items of the job as JSON, or null if it has none.
+     */
+    @PrimaryRead
+    public String getPayload(long id) {
+        return jdbcTemplate.queryForObject("SELECT payload FROM job WHERE id = ?", String.class, id);
+    }
+
+    /**
+     * @param id id of the job.
+     * @return Path of the file written by the job, or null if it has none.
+     */
+    @PrimaryRead
+    public String getOutputFile(long id) {
+        List<String> outputFiles = jdbcTemplate.queryForList("SELECT output_file FROM job WHERE id = ?", String.class, id);
+        return outputFiles.isEmpty() ? null : outputFiles.get(0);
+    }
+
+    /**
+     * @param instanceId id of this instance.
+     * @return Ids of the queued and running jobs of the instance, oldest first.
+     */
+    @PrimaryRead
+    public List<Long> getUnfinishedIds(String instanceId) {
+        return jdbcTemplate.queryForList("SELECT id FROM job WHERE instance_id = ? AND status IN (?, ?) ORDER BY id", Long.class,
+                instanceId, Job.Status.QUEUED.name(), Job.Status.RUNNING.name());
+    }
+
+    public void markRunning(long id) {
+        execute("UPDATE job SET status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?", Job.Status.RUNNING.name(), id);
+    }
+
+    /**
+     * This function saves the progress of a job. It is called in the transaction which saved the items,
+     * so the checkpoint never points past an item which was rolled back.
+     *
+     * @param id             id of the job.
+     * @param processedItems number of the items saved so far.
+     * @param outcomes       counts of the saved items by status.
+     */
+    public void checkpoint(long id, int processedItems, Map<String, Long> outcomes) {
+        execute("UPDATE job SET processed_items = ?, outcomes = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?", processedItems, toJson(outcomes), id);
+    }
+
+    /**
+     * This function ends a job.
+     *
+     * @param id         id of the job.
+     * @param status     SUCCEEDED or FAILED.
+     * @param totalItems number of items of the job, known at the end for an export.
+     * @param outputFile path of the file written by the job, or null.
+     * @param error      reason of the failure, or null.
+     */
+    public void finish(long id, Job.Status status, int totalItems, String outputFile, String error) {
+        execute("UPDATE job SET status = ?, total_items = ?, output_file = ?, error = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                status.name(), totalItems, outputFile, error == null ? null : error.substring(0, Math.min(error.length(), 1000)), id);
+    }
+
+    private Job mapJob(ResultSet rs) throws SQLException {
+        return new Job(rs.getLong("id"), JobType.valueOf(rs.getString("type")), Job.Status.valueOf(rs.getString("status")),
+                rs.getInt("total_items"), rs.getInt("processed_items"), fromJson(rs.getString("outcomes")), rs.getString("error"),
+                rs.getTimestamp("created_at").toInstant(), rs.getTimestamp("updated_at").toInstant());
+    }
+
+    private String toJson(Map<String, Long> outcomes) {
+        try {
+            return objectMapper.writeValueAsString(outcomes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write the outcomes of the job", e);
+        }
+    }
+
+    private Map<String, Long> fromJson(String outcomes) {
+        if (outcomes == null) {
+            return Collections.emptyMap();
+        }
+        try {
+            return objectMapper.readValue(outcomes, new TypeReference<TreeMap<String, Long>>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read the outcomes of the job", e);
+        }
+    }
+
+    private void execute(String query, Object... args) {
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Executing SQL query: {}", query);
+        }
+        jdbcTemplate.update(query, args);
+    }
+}
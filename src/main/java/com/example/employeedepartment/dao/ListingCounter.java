@@ -0,0 +1,35 @@
+package com.example.employeedepartment.dao;
+
+import java.util.OptionalLong;
+
+/**
+ * Counts of a listing of a DAO, used to fill the total count and the hasNext flag of the paged listings.
+ * The counts are about the rows of the main table of the listing (employee, department or region) which match the
+ * searchTerm, the same rows which are cut into pages by getAll.
+ */
+public interface ListingCounter {
+    /**
+     * This function counts the rows matching the search term exactly. Implementations cache the count per search term.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for all the rows.
+     * @return Number of matching rows.
+     */
+    long count(String searchTerm);
+
+    /**
+     * This function estimates the number of rows matching the search term without counting them in the database.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for all the rows.
+     * @return Estimated number of matching rows, or an empty OptionalLong when no estimate is available.
+     */
+    OptionalLong estimateCount(String searchTerm);
+
+    /**
+     * This function checks whether a row matching the search term exists after the first offset rows, ordered by id.
+     *
+     * @param offset     number of rows to be skipped, e.g. the rows of the current and the previous pages.
+     * @param searchTerm String used for filtering by name or id. Null for all the rows.
+     * @return true if at least one more row exists.
+     */
+    boolean hasMore(long offset, String searchTerm);
+}
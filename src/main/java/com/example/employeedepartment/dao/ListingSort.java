@@ -0,0 +1,75 @@
+package com.example.employeedepartment.dao;
+
+/**
+ * Sort orders of the listings, one per valid pair of sortField and sortDirection.
+ * The queries of the listings are precomputed per sort order by QueryPlans, so the sortField and sortDirection
+ * received from the client select a statement and are never written into the SQL.
+ */
+enum ListingSort {
+    ID_ASC(false, false),
+    ID_DESC(false, true),
+    NAME_ASC(true, false),
+    NAME_DESC(true, true);
+
+    private final boolean byName;
+    private final boolean descending;
+
+    ListingSort(boolean byName, boolean descending) {
+        this.byName = byName;
+        this.descending = descending;
+    }
+
+    /**
+     * This function finds the sort order of a listing request.
+     *
+     * @param sortField     id or name.
+     * @param sortDirection asc or desc, in any case.
+     * @return ListingSort of the pair.
+     */
+    static ListingSort of(String sortField, String sortDirection) {
+        boolean descending;
+        if ("asc".equalsIgnoreCase(sortDirection)) {
+            descending = false;
+        } else if ("desc".equalsIgnoreCase(sortDirection)) {
+            descending = true;
+        } else {
+            throw new IllegalArgumentException("Invalid parameter: sortDirection must be asc or desc");
+        }
+        if ("id".equals(sortField)) {
+            return descending ? ID_DESC : ID_ASC;
+        }
+        if ("name".equals(sortField)) {
+            return descending ? NAME_DESC : NAME_ASC;
+        }
+        throw new IllegalArgumentException("Invalid parameter: sortField must be id or name");
+    }
+
+    boolean isByName() {
+        return byName;
+    }
+
+    /**
+     * @return ASC or DESC.
+     */
+    String direction() {
+        return descending ? "DESC" : "ASC";
+    }
+
+    /**
+     * @return Operator which selects the rows after a cursor in this order.
+     */
+    String comparison() {
+        return descending ? "<" : ">";
+    }
+
+    /**
+     * This function builds the ORDER BY columns of this sort order.
+     *
+     * @param idColumn   id column of the query.
+     * @param nameColumn name column of the query.
+     * @return e.g. "employee.name DESC".
+     */
+    String orderBy(String idColumn, String nameColumn) {
+        return (byName ? nameColumn : idColumn) + " " + direction();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.employeedepartment.dao;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Immutable SQL statement of a listing query, with the JDBC types of its parameters.
+ * The statements are built once by QueryPlans, so every request of the same shape sends the same SQL string
+ * and the driver finds it in its prepared statement cache. The parameters are bound with their declared types,
+ * which spares the driver from guessing the type of each value.
+ */
+final class QueryPlan {
+    private final String sql;
+    private final int[] parameterTypes;
+
+    QueryPlan(String sql, int... parameterTypes) {
+        this.sql = sql;
+        this.parameterTypes = parameterTypes.clone();
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    int getParameterCount() {
+        return parameterTypes.length;
+    }
+
+    <T> T query(JdbcTemplate jdbcTemplate, ResultSetExtractor<T> extractor, Object... args) {
+        checkArgs(args);
+        return jdbcTemplate.query(sql, args, parameterTypes, extractor);
+    }
+
+    <T> List<T> query(JdbcTemplate jdbcTemplate, RowMapper<T> rowMapper, Object... args) {
+        checkArgs(args);
+        return jdbcTemplate.query(sql, args, parameterTypes, rowMapper);
+    }
+
+    <T> T queryForObject(JdbcTemplate jdbcTemplate, Class<T> requiredType, Object... args) {
+        checkArgs(args);
+        return jdbcTemplate.queryForObject(sql, args, parameterTypes, requiredType);
+    }
+
+    <T> List<T> queryForList(JdbcTemplate jdbcTemplate, Class<T> elementType, Object... args) {
+        checkArgs(args);
+        return jdbcTemplate.queryForList(sql, args, parameterTypes, elementType);
+    }
+
+    /**
+     * This function joins the parameter types of the parts of a statement.
+     *
+     * @param first types of the first part.
+     * @param more  types of the following parameters.
+     * @return All the types, in order.
+     */
+    static int[] types(int[] first, int... more) {
+        int[] types = Arrays.copyOf(first, first.length + more.length);
+        System.arraycopy(more, 0, types, first.length, more.length);
+        return types;
+    }
+
+    private void checkArgs(Object[] args) {
+        if (args.length != parameterTypes.length) {
+            throw new IllegalStateException("Query plan expects " + parameterTypes.length + " arguments but got " + args.length + ": " + sql);
+        }
+    }
+}
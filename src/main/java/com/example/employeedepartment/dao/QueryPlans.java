@@ -0,0 +1,157 @@
+package com.example.employeedepartment.dao;
+
+import java.util.Set;
+
+/**
+ * Registry of the precomputed statements of one listing query, one QueryPlan per search filter, sort order
+ * and whether a keyset cursor is given. All the variants are built when the DAO class is loaded,
+ * so a request only looks its statement up and no SQL is concatenated per request.
+ *
+ * The IN lists of the IDS filter are padded to the next power of two up to MAX_IN_LIST_BUCKET ids, by repeating
+ * the last id, which keeps the number of distinct statements small enough for the prepared statement cache of the driver.
+ * A longer list, e.g. a page larger than MAX_IN_LIST_BUCKET, gets a statement of its exact length built on the fly.
+ */
+final class QueryPlans {
+    static final int MAX_IN_LIST_BUCKET = 1024;
+
+    private static final int BUCKETS = Integer.numberOfTrailingZeros(MAX_IN_LIST_BUCKET) + 1;
+    private static final int FILTER_SLOTS = SearchFilter.IDS.ordinal() + BUCKETS;
+    private static final ListingSort[] SORTS = ListingSort.values();
+
+    /**
+     * Builds the statement of one variant.
+     */
+    @FunctionalInterface
+    interface Factory {
+        /**
+         * @param filter      search filter of the statement.
+         * @param idCount     number of placeholders of the IN list of IDS, 0 for the other filters.
+         * @param afterCursor whether the statement continues after a keyset cursor.
+         * @param sort        sort order of the statement, null for unsorted registries.
+         * @return QueryPlan of the variant.
+         */
+        QueryPlan create(SearchFilter filter, int idCount, boolean afterCursor, ListingSort sort);
+    }
+
+    private final Factory factory;
+    private final boolean sorted;
+    private final boolean withCursor;
+    private final QueryPlan[] plans;
+
+    private QueryPlans(Set<SearchFilter> filters, boolean sorted, boolean withCursor, Factory factory) {
+        this.factory = factory;
+        this.sorted = sorted;
+        this.withCursor = withCursor;
+        this.plans = new QueryPlan[FILTER_SLOTS * cursorSlots() * sortSlots()];
+        for (SearchFilter filter : filters) {
+            for (int bucket = 0; bucket < (filter == SearchFilter.IDS ? BUCKETS : 1); bucket++) {
+                int idCount = filter == SearchFilter.IDS ? 1 << bucket : 0;
+                for (int cursor = 0; cursor < cursorSlots(); cursor++) {
+                    for (int sort = 0; sort < sortSlots(); sort++) {
+                        ListingSort listingSort = sorted ? SORTS[sort] : null;
+                        plans[index(filter, idCount, cursor == 1, listingSort)] = factory.create(filter, idCount, cursor == 1, listingSort);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This function builds every variant of a listing query.
+     *
+     * @param filters    search filters used by the query.
+     * @param sorted     whether the query has a sort order, unsorted queries are looked up with a null sort.
+     * @param withCursor whether the query also has keyset variants.
+     * @param factory    builds the statement of one variant.
+     * @return QueryPlans of the query.
+     */
+    static QueryPlans precompute(Set<SearchFilter> filters, boolean sorted, boolean withCursor, Factory factory) {
+        return new QueryPlans(filters, sorted, withCursor, factory);
+    }
+
+    /**
+     * This function gives the statement of a variant.
+     *
+     * @param filter      search filter of the request.
+     * @param idCount     number of ids of the IN list before padding, only for IDS.
+     * @param afterCursor whether the request continues after a keyset cursor.
+     * @param sort        sort order of the request, null for unsorted registries.
+     * @return QueryPlan of the variant. Its IN list has bucketSize(idCount) placeholders.
+     */
+    QueryPlan get(SearchFilter filter, int idCount, boolean afterCursor, ListingSort sort) {
+        int bucketSize = filter == SearchFilter.IDS ? bucketSize(idCount) : 0;
+        if (bucketSize > MAX_IN_LIST_BUCKET) {
+            return factory.create(filter, bucketSize, afterCursor, sort);
+        }
+        QueryPlan plan = plans[index(filter, bucketSize, afterCursor, sort)];
+        if (plan == null) {
+            throw new IllegalStateException("No query plan for " + filter + (sort == null ? "" : ", " + sort) + (afterCursor ? " after a cursor" : ""));
+        }
+        return plan;
+    }
+
+    /**
+     * @return Number of precomputed statements.
+     */
+    int size() {
+        int size = 0;
+        for (QueryPlan plan : plans) {
+            if (plan != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * This function gives the number of placeholders of the IN list for the ids.
+     *
+     * @param idCount number of ids, at least 1.
+     * @return Next power of two, or idCount itself beyond MAX_IN_LIST_BUCKET.
+     */
+    static int bucketSize(int idCount) {
+        if (idCount < 1) {
+            throw new IllegalArgumentException("Invalid parameter: an IN list needs at least one id");
+        }
+        if (idCount > MAX_IN_LIST_BUCKET) {
+            return idCount;
+        }
+        return Integer.highestOneBit(idCount) == idCount ? idCount : Integer.highestOneBit(idCount) << 1;
+    }
+
+    /**
+     * This function binds ids to an IN list of bucketSize placeholders, followed by the other arguments of the query.
+     * The list is padded by repeating the last id, which does not change the rows matched by the IN list.
+     *
+     * @param ids      ids of the request.
+     * @param from     index of the first id, inclusive.
+     * @param to       index of the last id, exclusive. Greater than from.
+     * @param trailing arguments of the query after the IN list.
+     * @return Arguments of the query.
+     */
+    static Object[] idArgs(long[] ids, int from, int to, Object... trailing) {
+        int bucketSize = bucketSize(to - from);
+        Object[] args = new Object[bucketSize + trailing.length];
+        for (int i = 0; i < bucketSize; i++) {
+            args[i] = ids[Math.min(from + i, to - 1)];
+        }
+        System.arraycopy(trailing, 0, args, bucketSize, trailing.length);
+        return args;
+    }
+
+    private int index(SearchFilter filter, int idCount, boolean afterCursor, ListingSort sort) {
+        if (afterCursor && !withCursor || sorted != (sort != null)) {
+            throw new IllegalStateException("No query plan for " + filter + (sort == null ? "" : ", " + sort) + (afterCursor ? " after a cursor" : ""));
+        }
+        int filterSlot = filter == SearchFilter.IDS ? filter.ordinal() + Integer.numberOfTrailingZeros(idCount) : filter.ordinal();
+        return (filterSlot * cursorSlots() + (afterCursor ? 1 : 0)) * sortSlots() + (sort == null ? 0 : sort.ordinal());
+    }
+
+    private int cursorSlots() {
+        return withCursor ? 2 : 1;
+    }
+
+    private int sortSlots() {
+        return sorted ? SORTS.length : 1;
+    }
+}
@@ -1,37 +1,115 @@
 package com.example.employeedepartment.dao;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.ChangeRecord;
+import com.example.employeedepartment.model.EntityVersion;
 import com.example.employeedepartment.model.Region;
+import com.example.employeedepartment.routing.ReplicaRead;
+import com.example.employeedepartment.search.NameSearchIndex;
 
 @Repository
-public class RegionDao {
+public class RegionDao implements ListingCounter {
     @Autowired
     private final JdbcTemplate jdbcTemplate;
     private static final Logger logger = LoggerFactory.getLogger(RegionDao.class);
 
+    @Value("${search.index.max-in-list-size:1000}")
+    private int maxSearchInListSize;
+
+    @Autowired
+    private TransactionTemplate writeTransactionTemplate;
+
+    @Autowired
+    private EmployeeAssignmentView assignmentView;
+
+    @Autowired
+    private TableStatistics tableStatistics;
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    private final NameSearchIndex nameIndex = new NameSearchIndex();
+
+    /**
+     * Statements of getAll, filtered by the LIKE filter or by the ids found by the name index.
+     */
+    private static final QueryPlans LISTING_PLANS = QueryPlans.precompute(EnumSet.allOf(SearchFilter.class), true, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan("SELECT * FROM region" + filter.whereClause("region.id", "region.name", idCount)
+                    + " ORDER BY " + sort.orderBy("region.id", "region.name") + " LIMIT ? OFFSET ?",
+                    QueryPlan.types(filter.parameterTypes(idCount), Types.INTEGER, Types.INTEGER)));
+
+    private static final QueryPlans COUNT_PLANS = QueryPlans.precompute(EnumSet.of(SearchFilter.NONE, SearchFilter.NAME, SearchFilter.ID_OR_NAME), false, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan("SELECT COUNT(*) FROM region" + filter.whereClause("region.id", "region.name", 0), filter.parameterTypes(0)));
+
+    private static final QueryPlans HAS_MORE_PLANS = QueryPlans.precompute(EnumSet.of(SearchFilter.NONE, SearchFilter.NAME, SearchFilter.ID_OR_NAME), false, false,
+            (filter, idCount, afterCursor, sort) -> new QueryPlan("SELECT id FROM region" + filter.whereClause("region.id", "region.name", 0) + " ORDER BY id LIMIT 1 OFFSET ?",
+                    QueryPlan.types(filter.parameterTypes(0), Types.BIGINT)));
+
     public RegionDao(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
     /**
      * This function adds region details to the database.
+     * The region and the version of the region listings are written in one transaction.
      *
      * @param region - Region object received from service method
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.REGION_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
     public void save(Region region) {
         String query = "INSERT INTO region (name, start_date) VALUES (?, ?)";
         try {
-            logger.info("Executing SQL query: {}", query);
-            jdbcTemplate.update(query, region.getName(), region.getStartDate());
+            writeTransactionTemplate.execute(status -> {
+                if (HotPathLog.isEnabled(logger)) {
+                    logger.debug("Executing SQL query: {}", query);
+                }
+                KeyHolder holder = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement preparedStatement = connection.prepareStatement(query, new String[]{"id"});
+                    preparedStatement.setString(1, region.getName());
+                    preparedStatement.setDate(2, region.getStartDate() == null ? null : Date.valueOf(region.getStartDate()));
+                    return preparedStatement;
+                }, holder);
+                long regionId = holder.getKey().longValue();
+                changeOutbox.appendSaved(ChangeRecord.EntityType.REGION, regionId);
+                entityVersions.touchListings(EntityVersions.REGION_LISTING);
+                NameSearchIndex.afterCommit(() -> nameIndex.put(regionId, region.getName()));
+                return null;
+            });
         } catch (Exception ex) {
             logger.error("Error executing SQL query", ex);
             throw ex;
@@ -50,26 +128,118 @@ public class RegionDao {
      * @param searchTerm    String used for filtering by name or id.
      * @return List of all regions found in the database
      */
+    @ReplicaRead
     public List<Region> getAll(int page, int size, String sortField, String sortDirection, String searchTerm) {
-        String query = "SELECT * FROM region";
-
-        if (searchTerm != null) {
-            query += " WHERE id = ? OR name LIKE ?";
+        ListingSort sort = ListingSort.of(sortField, sortDirection);
+        QueryPlan plan;
+        Object[] args;
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent() && matchingIds.get().length == 0) {
+            return new ArrayList<>();
+        }
+        if (matchingIds.isPresent() && matchingIds.get().length <= maxSearchInListSize) {
+            long[] ids = matchingIds.get();
+            plan = LISTING_PLANS.get(SearchFilter.IDS, ids.length, false, sort);
+            args = QueryPlans.idArgs(ids, 0, ids.length, size, page * size);
+        } else {
+            // Regions are matched by the start of their name.
+            SearchFilter filter = SearchFilter.of(searchTerm);
+            plan = LISTING_PLANS.get(filter, 0, false, sort);
+            args = filter.args(searchTerm, true, size, page * size);
         }
-
-        query += " ORDER BY " + sortField + " " + sortDirection + " LIMIT ? OFFSET ?";
 
         BeanPropertyRowMapper<Region> rowMapper = new BeanPropertyRowMapper<>(Region.class);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
+            }
+            return plan.query(jdbcTemplate, rowMapper, args);
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
 
+    /**
+     * This function finds the ids of the regions whose name starts with the search term with the name index.
+     *
+     * @param searchTerm String used for filtering by name or id.
+     * @return Sorted ids of the matching regions, or an empty Optional when there is no search term or the index is not built yet.
+     */
+    private Optional<long[]> searchIds(String searchTerm) {
+        if (searchTerm == null) {
+            return Optional.empty();
+        }
+        return nameIndex.searchPrefix(searchTerm).map(ids -> SearchTerms.withSearchedId(ids, searchTerm, nameIndex));
+    }
+
+    /**
+     * This function counts the regions listed by getAll for the search term.
+     * A search is answered by the name index without a query once it is built, otherwise the regions are counted
+     * with the filter of getAll. The count is cached per search term and evicted by the region writes.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for all the regions.
+     * @return Number of matching regions.
+     */
+    @Override
+    @Cacheable(cacheNames = CacheNames.REGION_COUNTS, key = "#searchTerm == null ? '' : #searchTerm")
+    @ReplicaRead(cached = true)
+    public long count(String searchTerm) {
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent()) {
+            return matchingIds.get().length;
+        }
+        SearchFilter filter = SearchFilter.of(searchTerm);
+        QueryPlan plan = COUNT_PLANS.get(filter, 0, false, null);
         try {
-            if (searchTerm != null) {
-                logger.info("Executing SQL query: {}", query);
-                return jdbcTemplate.query(query, rowMapper, searchTerm, searchTerm + "%", size, page * size);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
             }
-            else {
-                logger.info("Executing SQL query: {}", query);
-                return jdbcTemplate.query(query, rowMapper, size, page * size);
+            return plan.queryForObject(jdbcTemplate, Long.class, filter.args(searchTerm, true));
+        } catch (Exception ex) {
+            logger.error("Error executing SQL query", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * This function estimates the number of regions listed by getAll for the search term.
+     * All the regions are estimated from the table statistics and a search by the name index.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for all the regions.
+     * @return Estimated number of matching regions, or an empty OptionalLong when neither can answer.
+     */
+    @Override
+    @ReplicaRead
+    public OptionalLong estimateCount(String searchTerm) {
+        if (searchTerm == null) {
+            return tableStatistics.estimateRows("region");
+        }
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        return matchingIds.isPresent() ? OptionalLong.of(matchingIds.get().length) : OptionalLong.empty();
+    }
+
+    /**
+     * This function checks whether getAll has regions after the first offset regions.
+     *
+     * @param offset     number of regions of the current and the previous pages.
+     * @param searchTerm String used for filtering by name or id. Null for all the regions.
+     * @return true if a next page exists.
+     */
+    @Override
+    @ReplicaRead
+    public boolean hasMore(long offset, String searchTerm) {
+        Optional<long[]> matchingIds = searchIds(searchTerm);
+        if (matchingIds.isPresent()) {
+            return offset < matchingIds.get().length;
+        }
+        SearchFilter filter = SearchFilter.of(searchTerm);
+        QueryPlan plan = HAS_MORE_PLANS.get(filter, 0, false, null);
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", plan.getSql());
             }
+            return !plan.queryForList(jdbcTemplate, Long.class, filter.args(searchTerm, true, offset)).isEmpty();
         } catch (Exception ex) {
             logger.error("Error executing SQL query", ex);
             throw ex;
@@ -82,11 +252,15 @@ public class RegionDao {
      * @param id - id of the requested employee
      * @return Region object of the specified id.
      */
+    @Cacheable(cacheNames = CacheNames.REGIONS, key = "#id")
+    @ReplicaRead(cached = true)
     public Region getById(Long id){
         String query = "SELECT * FROM region WHERE id = ?";
 
         try {
-            logger.info("Executing SQL query: {}", query);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", query);
+            }
             return jdbcTemplate.queryForObject(query, new BeanPropertyRowMapper<>(Region.class), id);
         } catch (EmptyResultDataAccessException e) {
             logger.error("Error executing SQL query");
@@ -95,16 +269,63 @@ public class RegionDao {
     }
 
     /**
-     * This function updates the region details of the specified region in the database
+     * This function gets the version of the region, the ETag of GET /regions/{id}.
+     * It is cached like the regions and evicted by the same writes, so a matching If-None-Match is answered without a query.
+     *
+     * @param id id of the region.
+     * @return EntityVersion of the region, or null if the region does not exist.
+     */
+    @Cacheable(cacheNames = CacheNames.REGION_VERSIONS, key = "#id", unless = "#result == null")
+    @ReplicaRead(cached = true)
+    public EntityVersion getVersion(Long id) {
+        return entityVersions.read("region", id);
+    }
+
+    /**
+     * This function gets the version of the region listings, the ETag of GET /regions/all.
+     *
+     * @return EntityVersion of the region listings.
+     */
+    @ReplicaRead(cached = true)
+    public EntityVersion getListingVersion() {
+        return entityVersions.readListing(EntityVersions.REGION_LISTING);
+    }
+
+    /**
+     * This function updates the region details of the specified region in the database.
+     * The region name is part of the cached departments and employees, so they are evicted as well.
+     * It is also part of the read model of the employees, which is updated in the same transaction with the versions
+     * of the region, its departments and their employees.
      *
      * @param id       id of the region that needs to be updated
      * @param region Region object with the updated details
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.REGIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.REGION_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.REGION_VERSIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
     public void update(long id, Region region) {
         String query = "UPDATE region SET name = ?, start_date = ?, end_date = ? WHERE id = ?";
         try {
-            logger.info("Executing SQL query: {}", query);
-            jdbcTemplate.update(query, region.getName(), region.getStartDate(), region.getEndDate(), id);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", query);
+            }
+            writeTransactionTemplate.execute(status -> {
+                jdbcTemplate.update(query, region.getName(), region.getStartDate(), region.getEndDate(), id);
+                entityVersions.touchRegion(id);
+                entityVersions.touchDepartmentsOfRegion(id);
+                entityVersions.touchEmployeesOfRegion(id);
+                assignmentView.updateRegionName(id, region.getName());
+                entityVersions.touchListings(EntityVersions.REGION_LISTING, EntityVersions.DEPARTMENT_LISTING, EntityVersions.EMPLOYEE_LISTING);
+                NameSearchIndex.afterCommit(() -> nameIndex.put(id, region.getName()));
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Error executing SQL query");
             throw new RuntimeException(e);
@@ -113,17 +334,60 @@ public class RegionDao {
 
     /**
      * This function deletes the specified region from the database
+     * and the assignments of the region from the read model of the employees, in one transaction.
      *
      * @param id - id of the region that needs to be deleted
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.REGIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.REGION_COUNTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.REGION_VERSIONS, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.DEPARTMENT_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.EMPLOYEE_VERSIONS, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.LISTING_VERSIONS, allEntries = true)
+    })
     public void delete(long id) {
         String query = "DELETE FROM region WHERE id = ?";
         try {
-            logger.info("Executing SQL query: {}", query);
-            jdbcTemplate.update(query, id);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", query);
+            }
+            writeTransactionTemplate.execute(status -> {
+                jdbcTemplate.update(query, id);
+                changeOutbox.appendDeleted(ChangeRecord.EntityType.REGION, id);
+                entityVersions.touchDepartmentsOfRegion(id);
+                entityVersions.touchEmployeesOfRegion(id);
+                assignmentView.removeRegion(id);
+                entityVersions.touchListings(EntityVersions.REGION_LISTING, EntityVersions.DEPARTMENT_LISTING, EntityVersions.EMPLOYEE_LISTING);
+                NameSearchIndex.afterCommit(() -> nameIndex.remove(id));
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Error executing SQL query");
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * This function builds the in-memory name index used by the searchTerm of the listing from the region table.
+     * It runs once the application is ready and then every search.index.rebuild-interval-ms.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval-ms:600000}", fixedDelayString = "${search.index.rebuild-interval-ms:600000}")
+    @ReplicaRead(cached = true)
+    public void buildNameIndex() {
+        String query = "SELECT id, name FROM region";
+        long start = System.currentTimeMillis();
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", query);
+            }
+            nameIndex.rebuild(consumer -> jdbcTemplate.query(query, (RowCallbackHandler) rs -> consumer.accept(rs.getLong("id"), rs.getString("name"))));
+            logger.info("Built the region name index with {} regions in {} ms", nameIndex.size(), System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            logger.error("Error building the region name index", ex);
+        }
+    }
 }
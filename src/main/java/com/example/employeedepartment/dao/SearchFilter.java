@@ -0,0 +1,101 @@
+package com.example.employeedepartment.dao;
+
+import java.sql.Types;
+import java.util.Collections;
+
+/**
+ * Shapes of the searchTerm filter of the listings. Each shape has its own precomputed statements in QueryPlans.
+ * NAME and ID_OR_NAME filter with LIKE, used when the name index can not answer the search.
+ * IDS filters with an IN list of the ids found by the name index.
+ */
+enum SearchFilter {
+    NONE,
+    NAME,
+    ID_OR_NAME,
+    IDS;
+
+    /**
+     * This function finds the LIKE filter of a search term.
+     * A term which is not a number can never be equal to an id, so the id comparison is left out of the query for it.
+     *
+     * @param searchTerm String used for filtering by name or id. Null for no filter.
+     * @return NONE, NAME or ID_OR_NAME.
+     */
+    static SearchFilter of(String searchTerm) {
+        if (searchTerm == null) {
+            return NONE;
+        }
+        return SearchTerms.canMatchId(searchTerm) ? ID_OR_NAME : NAME;
+    }
+
+    /**
+     * This function builds the condition of the filter, without WHERE.
+     *
+     * @param idColumn   id column of the filtered table.
+     * @param nameColumn name column of the filtered table.
+     * @param idCount    number of placeholders of the IN list of IDS.
+     * @return Condition, or null for NONE.
+     */
+    String condition(String idColumn, String nameColumn, int idCount) {
+        switch (this) {
+            case NAME:
+                return nameColumn + " LIKE ?";
+            case ID_OR_NAME:
+                return "(" + idColumn + " = ? OR " + nameColumn + " LIKE ?)";
+            case IDS:
+                return idColumn + " IN (" + SearchTerms.placeholders(idCount) + ")";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * This function builds the WHERE clause of the filter.
+     *
+     * @return WHERE clause with a leading space, or an empty string for NONE.
+     */
+    String whereClause(String idColumn, String nameColumn, int idCount) {
+        String condition = condition(idColumn, nameColumn, idCount);
+        return condition == null ? "" : " WHERE " + condition;
+    }
+
+    /**
+     * This function gives the JDBC types of the parameters of the condition.
+     *
+     * @param idCount number of placeholders of the IN list of IDS.
+     * @return java.sql.Types of the parameters, in order.
+     */
+    int[] parameterTypes(int idCount) {
+        switch (this) {
+            case NAME:
+                return new int[]{Types.VARCHAR};
+            case ID_OR_NAME:
+                return new int[]{Types.BIGINT, Types.VARCHAR};
+            case IDS:
+                return Collections.nCopies(idCount, Types.BIGINT).stream().mapToInt(Integer::intValue).toArray();
+            default:
+                return new int[0];
+        }
+    }
+
+    /**
+     * This function binds the search term to the parameters of a NAME or ID_OR_NAME condition, followed by the other arguments of the query.
+     *
+     * @param searchTerm String used for filtering by name or id.
+     * @param prefix     whether the name starts with the search term, otherwise it contains it.
+     * @param trailing   arguments of the query after the condition.
+     * @return Arguments of the query.
+     */
+    Object[] args(String searchTerm, boolean prefix, Object... trailing) {
+        int leading = this == NAME ? 1 : this == ID_OR_NAME ? 2 : 0;
+        Object[] args = new Object[leading + trailing.length];
+        if (this == ID_OR_NAME) {
+            args[0] = Long.parseLong(searchTerm);
+        }
+        if (leading > 0) {
+            args[leading - 1] = prefix ? searchTerm + "%" : "%" + searchTerm + "%";
+        }
+        System.arraycopy(trailing, 0, args, leading, trailing.length);
+        return args;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.employeedepartment.dao;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.example.employeedepartment.search.NameSearchIndex;
+
+/**
+ * Helpers for the searchTerm filter of the listings, which matches either the id or a part of the name.
+ * The name part is resolved with the NameSearchIndex of the DAO when possible, and with LIKE otherwise.
+ */
+final class SearchTerms {
+    private SearchTerms() {
+    }
+
+    /**
+     * This function checks whether the search term can match an id.
+     * A term which is not a number can never be equal to an id, so the id comparison is left out of the query
+     * for it instead of letting the database convert the text to a number.
+     *
+     * @param searchTerm search term received from the client.
+     * @return true if the search term only contains digits.
+     */
+    static boolean canMatchId(String searchTerm) {
+        if (searchTerm.isEmpty() || searchTerm.length() > 18) {
+            return false;
+        }
+        for (int i = 0; i < searchTerm.length(); i++) {
+            if (!Character.isDigit(searchTerm.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This function adds the id given as search term to the ids found by the name index, like "id = ? OR name LIKE ?".
+     *
+     * @param matchingIds sorted ids of the names matching the search term.
+     * @param searchTerm  search term received from the client.
+     * @param nameIndex   name index of the table, used to check that the id exists.
+     * @return Sorted ids matching the id or the name.
+     */
+    static long[] withSearchedId(long[] matchingIds, String searchTerm, NameSearchIndex nameIndex) {
+        if (!canMatchId(searchTerm)) {
+            return matchingIds;
+        }
+        long id = Long.parseLong(searchTerm);
+        int position = Arrays.binarySearch(matchingIds, id);
+        if (position >= 0 || !nameIndex.contains(id)) {
+            return matchingIds;
+        }
+        int insertAt = -position - 1;
+        long[] ids = new long[matchingIds.length + 1];
+        System.arraycopy(matchingIds, 0, ids, 0, insertAt);
+        ids[insertAt] = id;
+        System.arraycopy(matchingIds, insertAt, ids, insertAt + 1, matchingIds.length - insertAt);
+        return ids;
+    }
+
+    /**
+     * This function builds the placeholders of an IN list.
+     *
+     * @param count number of values in the list.
+     * @return String like "?, ?, ?".
+     */
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.employeedepartment.dao;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.employeedepartment.logging.HotPathLog;
+
+/**
+ * Reads the estimated number of rows of a table from the statistics of the database, without scanning the table.
+ * MySQL (InnoDB) keeps the estimate in information_schema.TABLES.TABLE_ROWS and H2 in ROW_COUNT_ESTIMATE.
+ * The estimate of InnoDB can be off by a few percent or more, it is only used for the estimated counts of the listings.
+ */
+@Repository
+class TableStatistics {
+    private static final Logger logger = LoggerFactory.getLogger(TableStatistics.class);
+
+    private static final String MYSQL_QUERY = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+    private static final String H2_QUERY = "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = SCHEMA() AND LOWER(TABLE_NAME) = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String query;
+
+    TableStatistics(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * This function reads the estimated number of rows of the table.
+     *
+     * @param table name of the table.
+     * @return Estimated number of rows, or an empty OptionalLong when the database has no estimate.
+     */
+    OptionalLong estimateRows(String table) {
+        String statisticsQuery = getQuery();
+        if (statisticsQuery.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try {
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Executing SQL query: {}", statisticsQuery);
+            }
+            List<Long> rows = jdbcTemplate.queryForList(statisticsQuery, Long.class, table);
+            if (rows.isEmpty() || rows.get(0) == null) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of(rows.get(0));
+        } catch (Exception ex) {
+            logger.error("Error reading the statistics of the {} table", table, ex);
+            return OptionalLong.empty();
+        }
+    }
+
+    private String getQuery() {
+        if (query == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if ("MySQL".equalsIgnoreCase(product)) {
+                query = MYSQL_QUERY;
+            } else if ("H2".equalsIgnoreCase(product)) {
+                query = H2_QUERY;
+            } else {
+                logger.warn("No table statistics for the {} database, estimated counts are counted", product);
+                query = "";
+            }
+        }
+        return query;
+    }
+}
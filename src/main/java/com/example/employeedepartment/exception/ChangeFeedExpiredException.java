@@ -0,0 +1,15 @@
+package com.example.employeedepartment.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the cursor of a change feed consumer points to changes which were already purged.
+ * The client gets a 410 response and has to read all the entities again before it follows the feed.
+ */
+@ResponseStatus(HttpStatus.GONE)
+public class ChangeFeedExpiredException extends RuntimeException {
+    public ChangeFeedExpiredException(String message) {
+        super(message);
+    }
+}
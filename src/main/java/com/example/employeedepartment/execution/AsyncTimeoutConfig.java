@@ -0,0 +1,26 @@
+package com.example.employeedepartment.execution;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Cancels the future of a request submitted to RequestExecutor when spring.mvc.async.request-timeout passes.
+ * The client still gets the 503 of the timeout, and the handler is skipped if the request still waits for a thread.
+ */
+@Configuration
+public class AsyncTimeoutConfig implements WebMvcConfigurer {
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerDeferredResultInterceptors(new DeferredResultProcessingInterceptor() {
+            @Override
+            public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> deferredResult) {
+                RequestExecutor.cancel(request);
+                return true;
+            }
+        });
+    }
+}
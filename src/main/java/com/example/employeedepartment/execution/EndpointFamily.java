@@ -0,0 +1,36 @@
+package com.example.employeedepartment.execution;
+
+/**
+ * Groups of endpoints which share one executor and one concurrency limit.
+ * The limits are set by request.concurrency.{key}.limit and request.concurrency.{key}.queue-capacity.
+ */
+public enum EndpointFamily {
+    /** The /all listings, which run the slowest queries. */
+    LISTING("listing", 8, 200),
+    /** The getById lookups. */
+    LOOKUP("lookup", 16, 400),
+    /** The endpoints which add, update or delete data. */
+    WRITE("write", 8, 100);
+
+    private final String key;
+    private final int defaultLimit;
+    private final int defaultQueueCapacity;
+
+    EndpointFamily(String key, int defaultLimit, int defaultQueueCapacity) {
+        this.key = key;
+        this.defaultLimit = defaultLimit;
+        this.defaultQueueCapacity = defaultQueueCapacity;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public int getDefaultQueueCapacity() {
+        return defaultQueueCapacity;
+    }
+}
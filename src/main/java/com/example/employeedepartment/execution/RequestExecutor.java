@@ -0,0 +1,184 @@
+package com.example.employeedepartment.execution;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.example.employeedepartment.exception.ServiceBusyException;
+import com.example.employeedepartment.routing.RoutingContext;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.internal.TimedExecutorService;
+
+/**
+ * Runs the work of the controllers, selected by request.execution.mode:
+ * <ul>
+ *     <li>servlet: on the container thread which received the request, as a plain blocking handler.</li>
+ *     <li>async: on a bounded executor of the endpoint family, so a slow database holds these threads and not
+ *     the container threads. Every family has its own threads and queue, so slow listings can not delay the
+ *     getById lookups. A request which finds the queue of its family full is rejected with a 503.</li>
+ *     <li>virtual: like async, but every request runs on its own virtual thread. The limit of the family bounds how
+ *     many of them run at the same time, the waiting requests are parked virtual threads instead of queued tasks.</li>
+ * </ul>
+ * In every mode the reads of a request are pinned to one database (see RoutingContext.pinReads). In async and virtual
+ * mode the read-your-writes routing of the request is carried to the thread which runs it. The executors are published as the executor.* metrics, tagged by name=request.executor and family,
+ * and the rejected requests as request.executor.rejected.
+ * When spring.mvc.async.request-timeout passes before a request got a thread, its future is cancelled (see AsyncTimeoutConfig)
+ * and its handler is skipped, counted as request.executor.expired, instead of running for a client which already got a 503.
+ */
+@Component
+public class RequestExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(RequestExecutor.class);
+
+    static final String ASYNC_MODE = "async";
+    static final String SERVLET_MODE = "servlet";
+    static final String VIRTUAL_MODE = "virtual";
+
+    private static final String EXECUTOR_NAME = "request.executor";
+    private static final String FUTURE_ATTRIBUTE = RequestExecutor.class.getName() + ".future";
+
+    private final Map<EndpointFamily, ExecutorService> executors = new EnumMap<>(EndpointFamily.class);
+    private final Map<EndpointFamily, Counter> rejectedCounters = new EnumMap<>(EndpointFamily.class);
+    private final Map<EndpointFamily, Counter> expiredCounters = new EnumMap<>(EndpointFamily.class);
+
+    public RequestExecutor(MeterRegistry meterRegistry, Environment environment,
+                           @Value("${request.execution.mode:servlet}") String mode) {
+        if (!ASYNC_MODE.equals(mode) && !SERVLET_MODE.equals(mode) && !VIRTUAL_MODE.equals(mode)) {
+            throw new IllegalArgumentException("Invalid request.execution.mode: " + mode + ". Must be servlet, async or virtual.");
+        }
+        if (!SERVLET_MODE.equals(mode)) {
+            for (EndpointFamily family : EndpointFamily.values()) {
+                String prefix = "request.concurrency." + family.getKey();
+                int limit = environment.getProperty(prefix + ".limit", Integer.class, family.getDefaultLimit());
+                int queueCapacity = environment.getProperty(prefix + ".queue-capacity", Integer.class, family.getDefaultQueueCapacity());
+                Tags tags = Tags.of("family", family.getKey());
+                if (VIRTUAL_MODE.equals(mode)) {
+                    // ExecutorServiceMetrics can not bind this executor, so its gauges are registered here with the
+                    // names and tags it gives to the pools of async mode, and only the timing wrapper is used.
+                    VirtualThreadFamilyExecutor virtualExecutor = new VirtualThreadFamilyExecutor(family, limit, queueCapacity);
+                    Tags gaugeTags = tags.and("name", EXECUTOR_NAME);
+                    Gauge.builder("executor.active", virtualExecutor, VirtualThreadFamilyExecutor::getActiveCount)
+                            .description("The approximate number of threads that are actively executing tasks")
+                            .tags(gaugeTags)
+                            .register(meterRegistry);
+                    Gauge.builder("executor.queued", virtualExecutor, VirtualThreadFamilyExecutor::getQueuedCount)
+                            .description("The approximate number of tasks that are queued for execution")
+                            .tags(gaugeTags)
+                            .register(meterRegistry);
+                    executors.put(family, new TimedExecutorService(meterRegistry, virtualExecutor, EXECUTOR_NAME, "", tags));
+                } else {
+                    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(limit, limit, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(queueCapacity), namedThreadFactory(family), new ThreadPoolExecutor.AbortPolicy());
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    executors.put(family, ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, EXECUTOR_NAME, tags));
+                }
+                rejectedCounters.put(family, Counter.builder("request.executor.rejected")
+                        .description("Requests rejected because the executor of the endpoint family was full")
+                        .tag("family", family.getKey())
+                        .register(meterRegistry));
+                expiredCounters.put(family, Counter.builder("request.executor.expired")
+                        .description("Requests whose handler was skipped because they timed out before they got a thread")
+                        .tag("family", family.getKey())
+                        .register(meterRegistry));
+                logger.info("Requests of the {} endpoints run {} at a time on {} threads with a queue of {}", family.getKey(), limit,
+                        VIRTUAL_MODE.equals(mode) ? "virtual" : "platform", queueCapacity);
+            }
+        }
+    }
+
+    /**
+     * This function runs the work of a request according to the execution mode.
+     *
+     * @param family  endpoint family of the request, which decides the executor.
+     * @param handler work of the request. Its exceptions complete the returned future exceptionally.
+     * @param <T>     type of the response.
+     * @return CompletableFuture of the response. It is already completed in servlet mode.
+     *         It fails with ServiceBusyException when the executor of the family is full.
+     *         The handler is not run when the future is already done, cancelled or completed by someone else, once it gets a thread.
+     */
+    public <T> CompletableFuture<T> submit(EndpointFamily family, Supplier<T> handler) {
+        ExecutorService executor = executors.get(family);
+        if (executor == null) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            try {
+                future.complete(RoutingContext.pinReads(handler).get());
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+            return future;
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Supplier<T> task = RoutingContext.propagate(RoutingContext.pinReads(handler));
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    expiredCounters.get(family).increment();
+                    return;
+                }
+                try {
+                    future.complete(task.get());
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejectedCounters.get(family).increment();
+            future.completeExceptionally(new ServiceBusyException("Too many " + family.getKey() + " requests, try again later"));
+            return future;
+        }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(FUTURE_ATTRIBUTE, future, RequestAttributes.SCOPE_REQUEST);
+        }
+        return future;
+    }
+
+    /**
+     * This function cancels the future of the request which timed out, so its handler does not run if it still waits for a thread.
+     *
+     * @param request the request which timed out.
+     */
+    static void cancel(NativeWebRequest request) {
+        Object future = request.getAttribute(FUTURE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (future instanceof CompletableFuture<?> requestFuture) {
+            requestFuture.cancel(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ExecutorService::shutdown);
+    }
+
+    private static ThreadFactory namedThreadFactory(EndpointFamily family) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "request-" + family.getKey() + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.employeedepartment.execution;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor of one endpoint family which starts a virtual thread per task.
+ * At most limit tasks run at the same time and at most queueCapacity more wait for a permit,
+ * parked on their virtual thread instead of holding a platform thread. Further tasks are rejected.
+ */
+class VirtualThreadFamilyExecutor extends AbstractExecutorService {
+    private final ExecutorService virtualThreads;
+    private final Semaphore running;
+    private final Semaphore admitted;
+    private final int limit;
+    private final int capacity;
+
+    VirtualThreadFamilyExecutor(EndpointFamily family, int limit, int queueCapacity) {
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("request-" + family.getKey() + "-", 1).factory());
+        this.running = new Semaphore(limit);
+        this.admitted = new Semaphore(limit + queueCapacity);
+        this.limit = limit;
+        this.capacity = limit + queueCapacity;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new RejectedExecutionException("Executor is full");
+        }
+        try {
+            virtualThreads.execute(() -> {
+                try {
+                    running.acquireUninterruptibly();
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                    }
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            admitted.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return Number of tasks which are running.
+     */
+    int getActiveCount() {
+        return limit - running.availablePermits();
+    }
+
+    /**
+     * @return Number of tasks which wait for a permit to run.
+     */
+    int getQueuedCount() {
+        return Math.max(0, capacity - admitted.availablePermits() - getActiveCount());
+    }
+
+    @Override
+    public void shutdown() {
+        virtualThreads.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return virtualThreads.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return virtualThreads.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return virtualThreads.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return virtualThreads.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.employeedepartment.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+
+/**
+ * Guard for the logs written on every request and every query (request received, response sent, SQL executed).
+ * These logs are written at DEBUG level and only a sample of them is written, so they can be switched on
+ * in production through /actuator/loggers without flooding the log files.
+ * At TRACE level every call is logged.
+ *
+ * Usage:
+ * <pre>
+ *     if (HotPathLog.isEnabled(logger)) {
+ *         logger.debug("Executing SQL query: {}", query);
+ *     }
+ * </pre>
+ */
+public final class HotPathLog {
+    private static volatile int sampleRate = 1;
+
+    private HotPathLog() {
+    }
+
+    /**
+     * This function decides whether a hot path log line should be written.
+     * When the level is not enabled it returns before the log arguments are built.
+     *
+     * @param logger logger of the class which writes the log.
+     * @return true if DEBUG is enabled and the call is part of the sample, or if TRACE is enabled.
+     */
+    public static boolean isEnabled(Logger logger) {
+        if (!logger.isDebugEnabled()) {
+            return false;
+        }
+        int rate = sampleRate;
+        return rate <= 1 || logger.isTraceEnabled() || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
+    /**
+     * This function sets the sampling of the hot path logs.
+     *
+     * @param rate one out of rate calls is logged at DEBUG level. 1 logs every call.
+     */
+    static void setSampleRate(int rate) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("Invalid parameter: logging.hot-path.sample-rate must be at least 1");
+        }
+        sampleRate = rate;
+    }
+}
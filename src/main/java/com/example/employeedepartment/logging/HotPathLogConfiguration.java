@@ -0,0 +1,14 @@
+package com.example.employeedepartment.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Applies the logging.hot-path.sample-rate property to HotPathLog at startup.
+ */
+@Configuration
+public class HotPathLogConfiguration {
+    public HotPathLogConfiguration(@Value("${logging.hot-path.sample-rate:1}") int sampleRate) {
+        HotPathLog.setSampleRate(sampleRate);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.employeedepartment.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records metrics for every public method of the DAOs and for the responses of the controllers.
+ * <ul>
+ *     <li>dao.query: timer of the DAO method, tagged by dao, method and outcome.</li>
+ *     <li>dao.query.rows: number of rows returned by the DAO methods which return a list.</li>
+ *     <li>dao.query.errors: counter of the failed DAO calls, tagged by the exception type.</li>
+ *     <li>http.response.items: number of objects sent in a list response, tagged by controller and method.</li>
+ * </ul>
+ * The per-endpoint request timers are the http.server.requests timers recorded by Spring Boot.
+ * This aspect runs inside the cache advice, so a getById served from the cache is not counted as a query.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class DaoMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    // Meters are looked up once per method, the hot path only reads these maps.
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> responseItemSummaries = new ConcurrentHashMap<>();
+
+    public DaoMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.example.employeedepartment.dao.*Dao.*(..))")
+    public Object timeDaoMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        String dao = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        String key = dao + "." + method;
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            String exception = rootExceptionName(ex);
+            Timer.builder("dao.query")
+                    .tags("dao", dao, "method", method, "outcome", "error")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Counter.builder("dao.query.errors")
+                    .description("Failed DAO calls")
+                    .tags("dao", dao, "method", method, "exception", exception)
+                    .register(meterRegistry)
+                    .increment();
+            throw ex;
+        }
+        successTimers.computeIfAbsent(key, k -> Timer.builder("dao.query")
+                .description("Latency of the DAO methods")
+                .tags("dao", dao, "method", method, "outcome", "success")
+                .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (result instanceof Collection) {
+            rowSummaries.computeIfAbsent(key, k -> DistributionSummary.builder("dao.query.rows")
+                    .description("Rows returned by the DAO methods")
+                    .tags("dao", dao, "method", method)
+                    .register(meterRegistry))
+                    .record(((Collection<?>) result).size());
+        }
+        return result;
+    }
+
+    @Around("execution(public * com.example.employeedepartment.controller.*Controller.*(..))")
+    public Object countResponseItems(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        // The controllers return a CompletableFuture, the response is counted when it is completed.
+        if (result instanceof CompletableFuture) {
+            ((CompletableFuture<?>) result).thenAccept(response -> recordResponseItems(joinPoint, response));
+        } else {
+            recordResponseItems(joinPoint, result);
+        }
+        return result;
+    }
+
+    private void recordResponseItems(ProceedingJoinPoint joinPoint, Object response) {
+        Object body = response instanceof ResponseEntity ? ((ResponseEntity<?>) response).getBody() : null;
+        if (body instanceof Collection) {
+            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+            String controller = signature.getDeclaringType().getSimpleName();
+            String method = signature.getName();
+            responseItemSummaries.computeIfAbsent(controller + "." + method, k -> DistributionSummary.builder("http.response.items")
+                    .description("Objects sent in the list responses")
+                    .tags("controller", controller, "method", method)
+                    .register(meterRegistry))
+                    .record(((Collection<?>) body).size());
+        }
+    }
+
+    /**
+     * This function finds the exception type used as the tag of the error counter.
+     * The DAOs wrap the database exceptions into plain RuntimeExceptions, so the wrapped cause is used instead.
+     *
+     * @param ex exception thrown by the DAO method.
+     * @return Simple class name of the most specific exception.
+     */
+    private static String rootExceptionName(Throwable ex) {
+        Throwable current = ex;
+        while (current.getClass() == RuntimeException.class && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.employeedepartment.model;
+
+/**
+ * Outcome of one employee of a batch insert request.
+ * The index refers to the position of the employee in the request body.
+ */
+public record BatchInsertResult(int index, String email, Long employeeId, Status status, String message) {
+    public enum Status {
+        /** A new employee was created and assigned to the region-department. */
+        CREATED,
+        /** An employee with the same email already existed, only the region-department assignment was added. */
+        EXISTING,
+        /** The employee was not saved because required details were missing. */
+        REJECTED
+    }
+}
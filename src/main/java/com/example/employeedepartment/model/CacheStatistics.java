@@ -0,0 +1,4 @@
+package com.example.employeedepartment.model;
+
+public record CacheStatistics(String name, long size, long hitCount, long missCount, double hitRate, long evictionCount) {
+}
@@ -0,0 +1,11 @@
+package com.example.employeedepartment.model;
+
+import java.util.List;
+
+/**
+ * A batch of the change feed, the response of GET /changes.
+ * nextSeq is the since of the next request. hasMore tells that more changes are ready, without it the consumer
+ * is up to date and polls again later.
+ */
+public record ChangeFeedPage(List<ChangeRecord> changes, long nextSeq, boolean hasMore) {
+}
@@ -0,0 +1,23 @@
+package com.example.employeedepartment.model;
+
+import java.time.Instant;
+
+/**
+ * One change of the change feed, GET /changes.
+ * The seq orders the changes, the next request of the consumer passes the seq of the last change it applied as since.
+ * A SAVED change carries no details, the consumer reads the entity again, e.g. with GET /employees?ids=.
+ */
+public record ChangeRecord(long seq, EntityType entityType, long entityId, Operation operation, Instant changedAt) {
+    public enum EntityType {
+        EMPLOYEE,
+        DEPARTMENT,
+        REGION
+    }
+
+    public enum Operation {
+        /** The entity was created or its details changed, including the details of its department or region. */
+        SAVED,
+        /** The entity was deleted. */
+        DELETED
+    }
+}
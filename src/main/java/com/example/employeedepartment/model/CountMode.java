@@ -0,0 +1,28 @@
+package com.example.employeedepartment.model;
+
+/**
+ * How the total count of a paged listing is computed, selected by the count parameter of the listings.
+ */
+public enum CountMode {
+    /** Counts the matching rows. The count is cached per search term and evicted by the writes of this instance. */
+    EXACT,
+    /** Uses the table statistics of the database or the name index, and the exact count when neither can answer. */
+    ESTIMATED,
+    /** Does not count, only the hasNext flag is sent. */
+    NONE;
+
+    /**
+     * This function converts the count parameter of the request.
+     *
+     * @param parameter exact, estimated or none, in any case.
+     * @return CountMode of the parameter.
+     */
+    public static CountMode fromParameter(String parameter) {
+        for (CountMode countMode : values()) {
+            if (countMode.name().equalsIgnoreCase(parameter)) {
+                return countMode;
+            }
+        }
+        throw new IllegalArgumentException("Invalid parameter: count must be either exact, estimated or none");
+    }
+}
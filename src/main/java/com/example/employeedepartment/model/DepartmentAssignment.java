@@ -0,0 +1,17 @@
+package com.example.employeedepartment.model;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * One department of a region in which an employee works or has worked.
+ * It is serialized with the same keys as the former departmentDetails map.
+ */
+@Value
+public class DepartmentAssignment {
+    private String departmentName;
+    private String region;
+    private LocalDate empStartDate;
+    private LocalDate empEndDate;
+}
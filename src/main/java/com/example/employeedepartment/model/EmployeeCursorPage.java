@@ -0,0 +1,15 @@
+package com.example.employeedepartment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeCursorPage {
+    private List<ResponseEmployee> employees;
+    private String nextCursor;
+}
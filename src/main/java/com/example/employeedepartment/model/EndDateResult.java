@@ -0,0 +1,18 @@
+package com.example.employeedepartment.model;
+
+/**
+ * Outcome of one item of a bulk end date request.
+ * The index refers to the position of the item in the request body, the id is its employee or department id.
+ */
+public record EndDateResult(int index, Long id, Status status, String message) {
+    public enum Status {
+        /** The end date was saved. */
+        UPDATED,
+        /** The employee or the department has no assignment in the department of the region, nothing was changed. */
+        NOT_FOUND,
+        /** The item was not saved because required details were missing. */
+        REJECTED,
+        /** The item was not saved because its chunk failed and was rolled back. The other chunks were saved. */
+        FAILED
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.employeedepartment.model;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Version of an employee, a department, a region or of a whole listing.
+ * The version is incremented by every write which changes the response, it is sent as the ETag of the response
+ * and updatedAt as its Last-Modified.
+ */
+@Value
+public class EntityVersion {
+    private long version;
+    private Instant updatedAt;
+}
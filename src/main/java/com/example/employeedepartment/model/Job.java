@@ -0,0 +1,23 @@
+package com.example.employeedepartment.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * State of a background job, the response of GET /jobs/{id}.
+ * The outcomes count the processed items by their status, e.g. CREATED and EXISTING for an import.
+ * The totalItems of an export is only known once it has finished.
+ */
+public record Job(long id, JobType type, Status status, int totalItems, int processedItems, Map<String, Long> outcomes,
+                  String error, Instant createdAt, Instant updatedAt) {
+    public enum Status {
+        /** Waiting for a worker. */
+        QUEUED,
+        /** Being processed, processedItems grows with every saved chunk. */
+        RUNNING,
+        /** All the items were processed. */
+        SUCCEEDED,
+        /** A chunk failed, the items before processedItems are saved and the others are not. */
+        FAILED
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.employeedepartment.model;
+
+/**
+ * Kinds of the background jobs, see POST /jobs/{type}.
+ */
+public enum JobType {
+    /** Adds employees like POST /employees/batch. */
+    EMPLOYEE_IMPORT,
+    /** Sets end dates of employees like PATCH /employees/end-dates. */
+    EMPLOYEE_END_DATES,
+    /** Closes departments like PATCH /departments/end-dates. */
+    DEPARTMENT_END_DATES,
+    /** Writes all the employees to a file like GET /employees/export. */
+    EMPLOYEE_EXPORT
+}
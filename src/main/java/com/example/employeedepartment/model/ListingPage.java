@@ -0,0 +1,24 @@
+package com.example.employeedepartment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a listing together with the paging details, so a client can render the pager from a single response.
+ * totalCount and totalPages are null when the count was not requested, countEstimated tells that they may be approximate.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListingPage<T> {
+    private List<T> items;
+    private int page;
+    private int size;
+    private Long totalCount;
+    private Long totalPages;
+    private boolean countEstimated;
+    private boolean hasNext;
+}
@@ -0,0 +1,53 @@
+package com.example.employeedepartment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token for keyset (seek) pagination.
+ * It remembers the sort order of the listing and the (sortField, id) pair of the last row that was sent,
+ * so the next page can continue right after that row instead of skipping rows with an OFFSET.
+ * The token is sent to the client as an opaque URL safe string.
+ */
+@Data
+@AllArgsConstructor
+public class PageCursor {
+    private static final String SEPARATOR = "|";
+
+    private String sortField;
+    private String sortDirection;
+    private long lastId;
+    private String lastValue;
+
+    /**
+     * Encodes this cursor into the opaque token which is sent to the client.
+     * @return URL safe Base64 token.
+     */
+    public String encode() {
+        String raw = sortField + SEPARATOR + sortDirection.toLowerCase() + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the token received from the client.
+     * @param token token which was previously created by encode().
+     * @return PageCursor object containing the sort order and the position of the last row.
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // lastValue is the last part so that a '|' inside a name does not break the parsing.
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid parameter: cursor is malformed");
+            }
+            return new PageCursor(parts[0], parts[1], Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and Base64 decoding errors are also IllegalArgumentExceptions.
+            throw new IllegalArgumentException("Invalid parameter: cursor is malformed");
+        }
+    }
+}
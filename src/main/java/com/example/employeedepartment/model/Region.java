@@ -6,7 +6,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
-import javax.persistence.Id;
+import jakarta.persistence.Id;
 
 @Data
 @AllArgsConstructor
@@ -0,0 +1,16 @@
+package com.example.employeedepartment.model;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * One region in which a department is or was open.
+ * It is serialized with the same keys as the former regionDetails map.
+ */
+@Value
+public class RegionAssignment {
+    private String region;
+    private LocalDate deptStartDate;
+    private LocalDate deptEndDate;
+}
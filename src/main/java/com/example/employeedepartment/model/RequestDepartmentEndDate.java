@@ -0,0 +1,10 @@
+package com.example.employeedepartment.model;
+
+import java.time.LocalDate;
+
+/**
+ * End date of a department in a region, one item of PATCH /departments/end-dates.
+ * It carries the same values as the body of PATCH /departments/{deptId}.
+ */
+public record RequestDepartmentEndDate(Long deptId, Long regId, LocalDate deptEndDate) {
+}
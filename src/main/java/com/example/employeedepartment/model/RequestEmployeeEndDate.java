@@ -0,0 +1,10 @@
+package com.example.employeedepartment.model;
+
+import java.time.LocalDate;
+
+/**
+ * End date of the assignments of an employee in the department of a region, one item of PATCH /employees/end-dates.
+ * It carries the same values as the body of PATCH /employees/{empId}.
+ */
+public record RequestEmployeeEndDate(Long empId, Long regId, Long deptId, LocalDate empEndDate) {
+}
@@ -4,10 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 @Data
 @AllArgsConstructor
@@ -15,6 +12,6 @@ import java.util.Map;
 public class ResponseDepartment {
     private Long id;
     private String name;
-    private List<Map<String, Object>> regionDetails;
+    private List<RegionAssignment> regionDetails;
 
 }
@@ -5,7 +5,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
-import java.util.Map;
 
 @Data
 @AllArgsConstructor
@@ -15,5 +14,5 @@ public class ResponseEmployee {
     private String name;
     private String role;
     private String email;
-    private List<Map<String,Object>> departmentDetails;
+    private List<DepartmentAssignment> departmentDetails;
 }
@@ -0,0 +1,19 @@
+package com.example.employeedepartment.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a DAO method which only reads, but must read the primary database, e.g. because the replicas may show the
+ * commits in another order or lag behind a status the client polls for.
+ * Unlike the DAO methods without an annotation it does not count as a write, so polling it does not keep the
+ * cached reads of this instance on the primary (see ReplicaRead.cached).
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PrimaryRead {
+}
@@ -0,0 +1,67 @@
+package com.example.employeedepartment.routing;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Remembers the recent writes, so the reads which must see them are sent to the primary instead of a replica
+ * which may not have received them yet.
+ * <ul>
+ *     <li>Per client: a client which wrote within datasource.replica.read-your-writes-ms reads from the primary.
+ *     The writes are remembered by this instance only, so a client balanced over several instances should
+ *     stick to one instance, e.g. by its X-Client-Id header.</li>
+ *     <li>Per instance: the reads which fill a cache of this instance run on the primary within
+ *     datasource.replica.max-lag-ms after any write of this instance, see ReplicaRead.cached.</li>
+ * </ul>
+ */
+public class ReadYourWrites {
+    private final Cache<String, Boolean> recentWriters;
+    private final long localWindowNanos;
+    private volatile long lastLocalWriteNanos;
+
+    /**
+     * @param clientWindow how long a client reads from the primary after its write.
+     * @param localWindow  how long the cached reads run on the primary after a write of this instance.
+     * @param maxClients   number of clients remembered, the oldest are forgotten first.
+     */
+    public ReadYourWrites(Duration clientWindow, Duration localWindow, long maxClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(clientWindow)
+                .maximumSize(maxClients)
+                .build();
+        this.localWindowNanos = localWindow.toNanos();
+        this.lastLocalWriteNanos = System.nanoTime() - localWindowNanos;
+    }
+
+    /**
+     * This function starts the read-your-writes window of the client.
+     *
+     * @param clientId id of the client which sent a write request.
+     */
+    public void recordWrite(String clientId) {
+        recentWriters.put(clientId, Boolean.TRUE);
+    }
+
+    /**
+     * @return true if the client wrote within the read-your-writes window.
+     */
+    public boolean wroteRecently(String clientId) {
+        return recentWriters.getIfPresent(clientId) != null;
+    }
+
+    /**
+     * This function starts the window of the cached reads, after a write of this instance.
+     */
+    public void recordLocalWrite() {
+        lastLocalWriteNanos = System.nanoTime();
+    }
+
+    /**
+     * @return true if this instance wrote within datasource.replica.max-lag-ms.
+     */
+    public boolean wroteLocallyRecently() {
+        return System.nanoTime() - lastLocalWriteNanos < localWindowNanos;
+    }
+}
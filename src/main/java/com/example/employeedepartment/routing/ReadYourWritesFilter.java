@@ -0,0 +1,67 @@
+package com.example.employeedepartment.routing;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Sends the requests of a client which wrote recently to the primary database.
+ * A POST, PUT, PATCH or DELETE starts the read-your-writes window of its client, when it arrives and again when its
+ * response is sent (the asynchronous dispatch of the response runs this filter again), so the window is counted from
+ * the end of the write. The other requests of the client within the window require the primary for all their reads.
+ *
+ * The client is identified by the X-Client-Id header, or by its remote address when the header is missing.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientId = clientId(request);
+        if (isWrite(request)) {
+            readYourWrites.recordWrite(clientId);
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!readYourWrites.wroteRecently(clientId)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RoutingContext.requirePrimary();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RoutingContext.clearPrimaryRequired();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // The dispatch of the response of a write marks the end of the write.
+        return false;
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.POST.matches(method) || HttpMethod.PUT.matches(method)
+                || HttpMethod.PATCH.matches(method) || HttpMethod.DELETE.matches(method);
+    }
+
+    private static String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId == null || clientId.isBlank() ? request.getRemoteAddr() : clientId;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.employeedepartment.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Measures the replication lag of the replicas and keeps the list of the replicas which the reads may use.
+ *
+ * Every datasource.replica.lag-check-interval-ms the monitor writes the current time into the replication_heartbeat
+ * table of the primary, and reads it back from every replica. The lag of a replica is how far its heartbeat is behind
+ * the heartbeat written by the previous check, so a replica which keeps up has a lag of 0 and the lag is measured
+ * with the resolution of the interval. The times come from the clock of this instance, not of the databases.
+ *
+ * A replica whose lag is above datasource.replica.max-lag-ms, or which can not be read, gets no reads until a later
+ * check finds it caught up again. Until the second check no replica is used. The reads are spread
+ * over the usable replicas round robin. The lag of every replica is published as the datasource.replica.lag gauge.
+ * The monitor owns the connection pools of the replicas and closes them at shutdown.
+ */
+public class ReplicaLagMonitor implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String READ_HEARTBEAT = "SELECT beat_at FROM replication_heartbeat WHERE id = 1";
+    private static final String WRITE_HEARTBEAT = "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final Map<String, HikariDataSource> replicaPools;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMs;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private volatile String[] usableReplicas = new String[0];
+    private long lastBeat;
+
+    /**
+     * @param primary       primary database, the heartbeat is written into it.
+     * @param replicaPools  connection pools of the replicas by their routing key.
+     * @param maxLagMs      lag above which a replica gets no reads.
+     * @param meterRegistry registry of the lag gauges, may be null.
+     */
+    public ReplicaLagMonitor(DataSource primary, Map<String, HikariDataSource> replicaPools, long maxLagMs,
+            MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicaPools = replicaPools;
+        this.maxLagMs = maxLagMs;
+        replicaPools.forEach((key, dataSource) -> {
+            Replica replica = new Replica(key, new JdbcTemplate(dataSource));
+            this.replicas.add(replica);
+            if (meterRegistry != null) {
+                Gauge.builder("datasource.replica.lag", replica, r -> r.lagMs < 0 ? Double.NaN : r.lagMs)
+                        .description("Replication lag of the replica in milliseconds, measured by the heartbeat")
+                        .baseUnit("milliseconds")
+                        .tag("replica", key)
+                        .register(meterRegistry);
+            }
+        });
+    }
+
+    /**
+     * This function measures the lag of every replica and writes the next heartbeat.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public synchronized void check() {
+        List<String> usable = new ArrayList<>();
+        for (Replica replica : replicas) {
+            long lagMs = measureLag(replica);
+            boolean caughtUp = lagMs >= 0 && lagMs <= maxLagMs;
+            if (caughtUp) {
+                usable.add(replica.key);
+            }
+            if (caughtUp && !replica.usable) {
+                logger.info("Replica {} is used for reads, its lag is {} ms", replica.key, lagMs);
+            } else if (!caughtUp && replica.usable) {
+                logger.warn("Replica {} is not used for reads, its lag is {}", replica.key, lagMs < 0 ? "unknown" : lagMs + " ms");
+            }
+            replica.usable = caughtUp;
+            replica.lagMs = lagMs;
+        }
+        usableReplicas = usable.toArray(new String[0]);
+
+        long beat = System.currentTimeMillis();
+        try {
+            primary.update(WRITE_HEARTBEAT, beat);
+            lastBeat = beat;
+        } catch (Exception ex) {
+            logger.error("Error writing the replication heartbeat", ex);
+        }
+    }
+
+    /**
+     * This function picks the replica of the next read.
+     *
+     * @return Routing key of the replica, or null when no replica is usable.
+     */
+    String nextReplica() {
+        String[] usable = usableReplicas;
+        if (usable.length == 0) {
+            return null;
+        }
+        return usable[Math.floorMod(nextReplica.getAndIncrement(), usable.length)];
+    }
+
+    /**
+     * @return Connection pools of the replicas by their routing key.
+     */
+    Map<String, HikariDataSource> getReplicaPools() {
+        return replicaPools;
+    }
+
+    @Override
+    public void destroy() {
+        replicaPools.values().forEach(HikariDataSource::close);
+    }
+
+    private long measureLag(Replica replica) {
+        if (lastBeat == 0) {
+            return -1;
+        }
+        try {
+            Long replicaBeat = replica.jdbcTemplate.queryForObject(READ_HEARTBEAT, Long.class);
+            return replicaBeat == null ? -1 : Math.max(0, lastBeat - replicaBeat);
+        } catch (Exception ex) {
+            logger.error("Error reading the replication heartbeat of replica {}", replica.key, ex);
+            return -1;
+        }
+    }
+
+    private static class Replica {
+        private final String key;
+        private final JdbcTemplate jdbcTemplate;
+        private volatile long lagMs = -1;
+        private boolean usable;
+
+        private Replica(String key, JdbcTemplate jdbcTemplate) {
+            this.key = key;
+            this.jdbcTemplate = jdbcTemplate;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.employeedepartment.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a DAO method which only reads, so its queries may run on a read replica when replicas are configured.
+ * The DAO methods without it or @PrimaryRead always run on the primary database and count as writes.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReplicaRead {
+    /**
+     * Whether the result is kept in a cache or an index of this instance. Such reads run on the primary for
+     * datasource.replica.max-lag-ms after a write of this instance, so the entry evicted by the write is not filled
+     * again from a replica which has not received the write yet.
+     */
+    boolean cached() default false;
+}
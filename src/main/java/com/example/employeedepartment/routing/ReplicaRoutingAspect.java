@@ -0,0 +1,96 @@
+package com.example.employeedepartment.routing;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Decides for every public DAO method whether its queries may run on a replica.
+ * A @ReplicaRead method may, unless its request requires the primary (read-your-writes) or it fills a cache
+ * of this instance shortly after a write of this instance. A @PrimaryRead method runs on the primary.
+ * Every other DAO method runs on the primary and counts as a write of this instance.
+ */
+@Aspect
+public class ReplicaRoutingAspect {
+    private final ReadYourWrites readYourWrites;
+
+    // The annotations are looked up once per DAO class and method, the hot path only reads these maps.
+    // The class is part of the key because the methods of ListingCounter are called through the interface.
+    private final Map<Class<?>, Map<Method, Routing>> routings = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingAspect(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Around("execution(public * com.example.employeedepartment.dao.*Dao.*(..))")
+    public Object routeDaoMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Class<?> targetClass = joinPoint.getTarget().getClass();
+        Routing routing = routings.computeIfAbsent(targetClass, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, m -> Routing.of(AopUtils.getMostSpecificMethod(m, targetClass)));
+
+        if (routing == Routing.WRITE || routing == Routing.PRIMARY_READ) {
+            Boolean previous = RoutingContext.setReplicaAllowed(false);
+            try {
+                return joinPoint.proceed();
+            } finally {
+                RoutingContext.restoreReplicaAllowed(previous);
+                if (routing == Routing.WRITE) {
+                    recordLocalWrite();
+                }
+            }
+        }
+        boolean replicaAllowed = !RoutingContext.isPrimaryRequired()
+                && !(routing == Routing.CACHED_REPLICA_READ && readYourWrites.wroteLocallyRecently());
+        Boolean previous = RoutingContext.setReplicaAllowed(replicaAllowed);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RoutingContext.restoreReplicaAllowed(previous);
+        }
+    }
+
+    /**
+     * This function starts the window of the cached reads once the write is visible on the primary: right away when the
+     * DAO method committed its own transaction, or once the transaction which it joined has been committed.
+     */
+    private void recordLocalWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            readYourWrites.recordLocalWrite();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWrites.recordLocalWrite();
+            }
+        });
+    }
+
+    private enum Routing {
+        WRITE,
+        PRIMARY_READ,
+        REPLICA_READ,
+        CACHED_REPLICA_READ;
+
+        private static Routing of(Method method) {
+            if (AnnotatedElementUtils.hasAnnotation(method, PrimaryRead.class)) {
+                return PRIMARY_READ;
+            }
+            ReplicaRead replicaRead = AnnotatedElementUtils.findMergedAnnotation(method, ReplicaRead.class);
+            if (replicaRead == null) {
+                return WRITE;
+            }
+            return replicaRead.cached() ? CACHED_REPLICA_READ : REPLICA_READ;
+        }
+    }
+}
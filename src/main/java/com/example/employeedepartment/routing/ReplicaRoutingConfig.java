@@ -0,0 +1,101 @@
+package com.example.employeedepartment.routing;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Splits the reads from the writes when datasource.replica.urls lists one or more read replicas.
+ * The primary pool is configured by the spring.datasource properties as without replicas. Every replica gets a pool
+ * with the same settings, the url of the replica and datasource.replica.username / password when they are set.
+ * Without datasource.replica.urls nothing of this package is created and all the queries run on spring.datasource.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "urls")
+public class ReplicaRoutingConfig {
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * @param primaryDataSource primary pool, its settings are copied to the replica pools.
+     * @param urls              jdbc urls of the replicas (datasource.replica.urls), separated by commas.
+     * @param username          user of the replicas (datasource.replica.username), the primary user when empty.
+     * @param password          password of the replicas (datasource.replica.password), the primary password when empty.
+     * @param maxLagMs          lag above which a replica gets no reads (datasource.replica.max-lag-ms).
+     * @param meterRegistry     registry of the pool metrics and of the lag gauges.
+     * @return ReplicaLagMonitor which owns the replica pools.
+     */
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource,
+                                               @Value("${datasource.replica.urls}") List<String> urls,
+                                               @Value("${datasource.replica.username:}") String username,
+                                               @Value("${datasource.replica.password:}") String password,
+                                               @Value("${datasource.replica.max-lag-ms:5000}") long maxLagMs,
+                                               MeterRegistry meterRegistry) {
+        Map<String, HikariDataSource> replicaPools = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String key = "replica-" + (i + 1);
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setPoolName(primaryDataSource.getPoolName() == null ? key : primaryDataSource.getPoolName() + "-" + key);
+            if (!username.isEmpty()) {
+                replica.setUsername(username);
+                replica.setPassword(password);
+            }
+            // The replicas only answer reads, an accidental write fails instead of diverging from the primary.
+            replica.setReadOnly(true);
+            if (replica.getMetricsTrackerFactory() == null && replica.getMetricRegistry() == null) {
+                replica.setMetricRegistry(meterRegistry);
+            }
+            replicaPools.put(key, replica);
+        }
+        return new ReplicaLagMonitor(primaryDataSource, replicaPools, maxLagMs, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor,
+                                              MeterRegistry meterRegistry) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor, meterRegistry);
+    }
+
+    /**
+     * @param clientWindowMs how long a client reads from the primary after its write (datasource.replica.read-your-writes-ms).
+     * @param maxLagMs       how long the cached reads run on the primary after a write of this instance.
+     * @param maxClients     number of clients remembered (datasource.replica.read-your-writes-max-clients).
+     * @return ReadYourWrites shared by the filter and the aspect.
+     */
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${datasource.replica.read-your-writes-ms:5000}") long clientWindowMs,
+                                         @Value("${datasource.replica.max-lag-ms:5000}") long maxLagMs,
+                                         @Value("${datasource.replica.read-your-writes-max-clients:100000}") long maxClients) {
+        return new ReadYourWrites(Duration.ofMillis(clientWindowMs), Duration.ofMillis(maxLagMs), maxClients);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWrites readYourWrites) {
+        return new ReadYourWritesFilter(readYourWrites);
+    }
+
+    @Bean
+    public ReplicaRoutingAspect replicaRoutingAspect(ReadYourWrites readYourWrites) {
+        return new ReplicaRoutingAspect(readYourWrites);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.employeedepartment.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Data source of the DAOs when replicas are configured.
+ * A connection taken while RoutingContext allows a replica comes from the next usable replica of ReplicaLagMonitor,
+ * or from the primary when no replica is usable. Every other connection comes from the primary.
+ * Within RoutingContext.pinReads the database picked for the first connection is kept for the following ones, and once
+ * a connection came from the primary, e.g. for a write or a cached read after a write, the following ones do too.
+ *
+ * The datasource.replica.reads counter counts the reads which were allowed on a replica, by where they ran.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = RoutingContext.PRIMARY_TARGET;
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter replicaReads;
+    private final Counter primaryFallbacks;
+
+    /**
+     * @param primary       primary database.
+     * @param lagMonitor    monitor of the replicas, which picks the replica of every read.
+     * @param meterRegistry registry of the datasource.replica.reads counter.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.replicaReads = Counter.builder("datasource.replica.reads")
+                .description("Reads allowed on a replica, by the database they ran on")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.primaryFallbacks = Counter.builder("datasource.replica.reads")
+                .description("Reads allowed on a replica, by the database they ran on")
+                .tag("target", "primary")
+                .register(meterRegistry);
+
+        Map<Object, Object> targets = new HashMap<>(lagMonitor.getReplicaPools());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = readTarget();
+        if (RoutingContext.isReplicaAllowed()) {
+            (PRIMARY.equals(target) ? primaryFallbacks : replicaReads).increment();
+        }
+        return target;
+    }
+
+    /**
+     * This function picks the database of the next connection of the current thread, and pins it when the thread
+     * is within RoutingContext.pinReads.
+     *
+     * @return Routing key of the replica, or PRIMARY.
+     */
+    String readTarget() {
+        if (!RoutingContext.isReplicaAllowed()) {
+            RoutingContext.pinTarget(PRIMARY);
+            return PRIMARY;
+        }
+        String pinned = RoutingContext.pinnedTarget();
+        if (pinned != null) {
+            return pinned;
+        }
+        String replica = lagMonitor.nextReplica();
+        String target = replica == null ? PRIMARY : replica;
+        RoutingContext.pinTarget(target);
+        return target;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.employeedepartment.routing;
+
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Routing state of the current thread, read by ReplicaRoutingDataSource when a connection is taken.
+ * <ul>
+ *     <li>replicaAllowed: set by ReplicaRoutingAspect for the duration of a @ReplicaRead DAO method.</li>
+ *     <li>primaryRequired: set by ReadYourWritesFilter for the requests of a client which wrote recently.
+ *     RequestExecutor carries it to the thread which runs the request.</li>
+ *     <li>read pin: set by RequestExecutor for the work of every request, see pinReads. All the reads of the request
+ *     run on the database of its first read, so its version (the ETag) and its body come from the same database.</li>
+ * </ul>
+ */
+public final class RoutingContext {
+    /** Read target of the primary database, see readTarget. */
+    public static final String PRIMARY_TARGET = "primary";
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+    private static final ThreadLocal<ReadPin> READ_PIN = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    public static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(REPLICA_ALLOWED.get());
+    }
+
+    /**
+     * @return The previous value, to be given back to restoreReplicaAllowed.
+     */
+    static Boolean setReplicaAllowed(boolean replicaAllowed) {
+        Boolean previous = REPLICA_ALLOWED.get();
+        REPLICA_ALLOWED.set(replicaAllowed);
+        return previous;
+    }
+
+    static void restoreReplicaAllowed(Boolean previous) {
+        if (previous == null) {
+            REPLICA_ALLOWED.remove();
+        } else {
+            REPLICA_ALLOWED.set(previous);
+        }
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    /**
+     * This function sends all the reads of the current thread to the primary, until clearPrimaryRequired is called.
+     */
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryRequired() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * This function pins the reads of the task to one database: ReplicaRoutingDataSource sends them all to the database
+     * picked for the first one, and all the reads after a query which had to run on the primary to the primary. Without
+     * the pin every read gets the next replica, and e.g. the version of a listing and its rows may come from two replicas
+     * which are not as far behind the primary.
+     *
+     * @param task work of a request.
+     * @param <T>  type of the result.
+     * @return Task which runs the given task with a new pin, or in the pin of the caller when it already has one.
+     */
+    public static <T> Supplier<T> pinReads(Supplier<T> task) {
+        return () -> {
+            if (READ_PIN.get() != null) {
+                return task.get();
+            }
+            READ_PIN.set(new ReadPin());
+            try {
+                return task.get();
+            } finally {
+                READ_PIN.remove();
+            }
+        };
+    }
+
+    /**
+     * This function picks the database of the next read of the current thread, without taking a connection.
+     * Within pinReads it is the database which the read will run on, e.g. to key a cache by it.
+     *
+     * @param dataSource data source of the DAO.
+     * @return Routing key of the replica, or PRIMARY_TARGET.
+     */
+    public static String readTarget(DataSource dataSource) {
+        return dataSource instanceof ReplicaRoutingDataSource routingDataSource ? routingDataSource.readTarget() : PRIMARY_TARGET;
+    }
+
+    /**
+     * @return Database the reads of the current thread are pinned to, or null when none is pinned yet.
+     */
+    static String pinnedTarget() {
+        ReadPin pin = READ_PIN.get();
+        return pin == null ? null : pin.target;
+    }
+
+    /**
+     * This function pins the reads of the current thread to the database, when they run within pinReads.
+     */
+    static void pinTarget(String target) {
+        ReadPin pin = READ_PIN.get();
+        if (pin != null) {
+            pin.target = target;
+        }
+    }
+
+    /**
+     * This function carries the routing of the current request to the thread which runs the task.
+     *
+     * @param task work of the request.
+     * @param <T>  type of the result.
+     * @return The task itself when the request has no routing, otherwise a task which runs it with the same routing.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        if (!isPrimaryRequired()) {
+            return task;
+        }
+        return () -> {
+            requirePrimary();
+            try {
+                return task.get();
+            } finally {
+                clearPrimaryRequired();
+            }
+        };
+    }
+
+    private static final class ReadPin {
+        private String target;
+    }
+}
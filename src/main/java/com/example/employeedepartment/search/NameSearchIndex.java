@@ -0,0 +1,335 @@
+package com.example.employeedepartment.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process trigram index over the names of one table, used to resolve the searchTerm of the listings
+ * to a set of ids without a LIKE '%term%' scan of the table.
+ * Every lower case name is split into its 3 character substrings (trigrams) and every trigram points to the sorted
+ * ids of the names containing it. A search reads the shortest id list of the trigrams of the term and keeps the ids
+ * whose name really contains the term. Terms shorter than 3 characters are matched against all the names in memory.
+ *
+ * The index is filled by rebuild() and kept up to date with put() and remove() by the DAO write methods.
+ * Names are compared in lower case, like the case-insensitive collation of the name columns.
+ * Until the first rebuild() has finished, search() returns an empty Optional and the DAOs use the LIKE query.
+ */
+public class NameSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexState state = new IndexState();
+    private boolean ready;
+    // Changes made while a rebuild reads the table, replayed on the rebuilt index.
+    private List<Consumer<IndexState>> changesDuringRebuild;
+
+    /**
+     * This function finds the ids of the names which contain the term, like name LIKE '%term%'.
+     *
+     * @param term search term received from the client.
+     * @return Sorted ids of the matching names, or an empty Optional when the index can not answer the search.
+     */
+    public Optional<long[]> search(String term) {
+        return find(term, false);
+    }
+
+    /**
+     * This function finds the ids of the names which start with the term, like name LIKE 'term%'.
+     *
+     * @param term search term received from the client.
+     * @return Sorted ids of the matching names, or an empty Optional when the index can not answer the search.
+     */
+    public Optional<long[]> searchPrefix(String term) {
+        return find(term, true);
+    }
+
+    /**
+     * This function checks whether a row with the id is indexed.
+     *
+     * @param id id of the row.
+     * @return true if the id is in the index.
+     */
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return state.names.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This function adds a row to the index or changes its name.
+     *
+     * @param id   id of the row.
+     * @param name new name of the row.
+     */
+    public void put(long id, String name) {
+        if (name == null) {
+            return;
+        }
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+        apply(indexState -> indexState.put(id, lowerCaseName));
+    }
+
+    /**
+     * This function removes a row from the index.
+     *
+     * @param id id of the row.
+     */
+    public void remove(long id) {
+        apply(indexState -> indexState.remove(id));
+    }
+
+    /**
+     * This function replaces the content of the index with all the rows of the table.
+     * The new index is built while the current one keeps answering the searches. The changes made by put() and remove()
+     * during the rebuild are applied to the new index before it replaces the current one.
+     *
+     * @param loader reads all the rows of the table and passes every id and name to the given consumer.
+     */
+    public void rebuild(Consumer<NameConsumer> loader) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        IndexState rebuilt = new IndexState();
+        try {
+            loader.accept((id, name) -> {
+                if (name != null) {
+                    rebuilt.put(id, name.toLowerCase(Locale.ROOT));
+                }
+            });
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Consumer<IndexState> change : changesDuringRebuild) {
+                change.accept(rebuilt);
+            }
+            changesDuringRebuild = null;
+            state = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This function gives the number of indexed rows.
+     *
+     * @return Number of ids in the index.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This function runs an index change once the current transaction has been committed, or right away when there is
+     * no transaction, so that a write which is rolled back does not leave its name in the index.
+     *
+     * @param change put() or remove() call to run.
+     */
+    public static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private void apply(Consumer<IndexState> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Optional<long[]> find(String term, boolean prefix) {
+        // % and _ are wildcards for LIKE, such terms are left to the database.
+        if (term == null || term.isEmpty() || term.indexOf('%') >= 0 || term.indexOf('_') >= 0 || term.indexOf('\\') >= 0) {
+            return Optional.empty();
+        }
+        String lowerCaseTerm = term.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            return Optional.of(state.find(lowerCaseTerm, prefix));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Receives the rows read by the loader of rebuild().
+     */
+    @FunctionalInterface
+    public interface NameConsumer {
+        void accept(long id, String name);
+    }
+
+    /**
+     * Names and trigram lists of the index. It is only accessed while holding the lock of the index.
+     */
+    private static final class IndexState {
+        private final Map<Long, String> names = new HashMap<>();
+        private final Map<String, PostingList> postings = new HashMap<>();
+
+        void put(long id, String lowerCaseName) {
+            String previous = names.put(id, lowerCaseName);
+            if (previous != null) {
+                if (previous.equals(lowerCaseName)) {
+                    return;
+                }
+                removeGrams(id, previous);
+            }
+            for (String gram : grams(lowerCaseName)) {
+                postings.computeIfAbsent(gram, key -> new PostingList()).add(id);
+            }
+        }
+
+        void remove(long id) {
+            String previous = names.remove(id);
+            if (previous != null) {
+                removeGrams(id, previous);
+            }
+        }
+
+        long[] find(String lowerCaseTerm, boolean prefix) {
+            PostingList candidates = null;
+            if (lowerCaseTerm.length() >= GRAM_LENGTH) {
+                for (String gram : grams(lowerCaseTerm)) {
+                    PostingList postingList = postings.get(gram);
+                    if (postingList == null) {
+                        return new long[0];
+                    }
+                    if (candidates == null || postingList.size < candidates.size) {
+                        candidates = postingList;
+                    }
+                }
+            }
+
+            long[] matches;
+            int count = 0;
+            if (candidates != null) {
+                matches = new long[candidates.size];
+                for (int i = 0; i < candidates.size; i++) {
+                    long id = candidates.ids[i];
+                    if (matches(names.get(id), lowerCaseTerm, prefix)) {
+                        matches[count++] = id;
+                    }
+                }
+            } else {
+                // Too short for a trigram, every name is checked. This is still done in memory, without a query.
+                matches = new long[names.size()];
+                for (Map.Entry<Long, String> entry : names.entrySet()) {
+                    if (matches(entry.getValue(), lowerCaseTerm, prefix)) {
+                        matches[count++] = entry.getKey();
+                    }
+                }
+                Arrays.sort(matches, 0, count);
+            }
+            return Arrays.copyOf(matches, count);
+        }
+
+        private void removeGrams(long id, String lowerCaseName) {
+            for (String gram : grams(lowerCaseName)) {
+                PostingList postingList = postings.get(gram);
+                if (postingList != null && postingList.remove(id) && postingList.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        private static boolean matches(String name, String lowerCaseTerm, boolean prefix) {
+            return name != null && (prefix ? name.startsWith(lowerCaseTerm) : name.contains(lowerCaseTerm));
+        }
+
+        private static Set<String> grams(String value) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+                grams.add(value.substring(i, i + GRAM_LENGTH));
+            }
+            return grams;
+        }
+    }
+
+    /**
+     * Sorted ids of the names containing one trigram, kept in a primitive array to avoid boxing every id.
+     * Ids are mostly added in increasing order, which only appends to the array.
+     */
+    private static final class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                insert(-position - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private void insert(int position, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.employeedepartment.service.imp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.employeedepartment.dao.ChangeDao;
+import com.example.employeedepartment.exception.ChangeFeedExpiredException;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.ChangeFeedPage;
+import com.example.employeedepartment.service.interfaces.ChangeFeedService;
+
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedServiceImpl.class);
+
+    private static final int MAX_LIMIT = 5000;
+
+    private final ChangeDao changeDao;
+
+    public ChangeFeedServiceImpl(ChangeDao changeDao) {
+        this.changeDao = changeDao;
+    }
+
+    /**
+     * This is a helper function which calls the getAfter method of the changeDao.
+     * A consumer which starts with since 0 gets the oldest changes which were not purged yet, one which has applied
+     * changes gets a ChangeFeedExpiredException when the changes after its cursor were purged.
+     *
+     * @param since seq of the last change the consumer has applied, 0 to start from the oldest change which was not purged.
+     * @param limit largest number of changes returned.
+     * @return ChangeFeedPage with the changes after since, in seq order.
+     */
+    @Override
+    public ChangeFeedPage getChanges(long since, int limit) {
+        if (since < 0) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: since must be greater than or equal to 0");
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Processing getChanges request with since={}, limit={}", since, limit);
+        }
+        long from = since == 0 ? changeDao.getPurgedThrough() : since;
+        ChangeFeedPage changeFeedPage = changeDao.getAfter(from, limit);
+        // Checked after the read: the purge saves its seq before it deletes, so a page read during a purge is caught here.
+        long purgedThrough = changeDao.getPurgedThrough();
+        while (from < purgedThrough) {
+            if (since != 0) {
+                logger.error("Change feed cursor {} is behind the purged changes", since);
+                throw new ChangeFeedExpiredException("The changes after " + since + " were purged, read all the entities again and follow the feed from seq " + purgedThrough);
+            }
+            from = purgedThrough;
+            changeFeedPage = changeDao.getAfter(from, limit);
+            purgedThrough = changeDao.getPurgedThrough();
+        }
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Finished processing getChanges request with {} changes", changeFeedPage.changes().size());
+        }
+        return changeFeedPage;
+    }
+}
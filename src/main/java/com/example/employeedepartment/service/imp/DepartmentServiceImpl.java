@@ -1,5 +1,7 @@
 package com.example.employeedepartment.service.imp;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -9,7 +11,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.employeedepartment.dao.DepartmentDao;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
 import com.example.employeedepartment.model.RequestDepartment;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
 import com.example.employeedepartment.model.ResponseDepartment;
 import com.example.employeedepartment.service.interfaces.DepartmentService;
 
@@ -20,6 +28,10 @@ public class DepartmentServiceImpl implements DepartmentService {
 
     private static final Logger logger = LoggerFactory.getLogger(DepartmentServiceImpl.class);
 
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    private static final int MAX_LOOKUP_IDS = 1000;
+
     /**
      * This is a helper function which calls the getAll method of the DepartmentDao
      *
@@ -48,10 +60,14 @@ public class DepartmentServiceImpl implements DepartmentService {
             logger.error("Error in passing parameters.");
             throw new IllegalArgumentException("Invalid parameter: sortDirection must be either of these. 1) asc/ASC, 2) desc/DESC");
         }
-        logger.info("Processing getAllDepartments request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Processing getAllDepartments request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
+        }
         try {
             List<ResponseDepartment> responseDepartments = departmentDao.getAll(page, size, sortField, sortDirection, searchTerm);
-            logger.info("Finished processing getAllDepartments request with {} departments", responseDepartments.size());
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getAllDepartments request with {} departments", responseDepartments.size());
+            }
             return responseDepartments;
         } catch (Exception e) {
             logger.error("Error occurred in database operation.");
@@ -66,9 +82,13 @@ public class DepartmentServiceImpl implements DepartmentService {
     @Override
     public ResponseDepartment getDepartmentById(Long id) {
         try {
-            logger.info("Processing getDepartmentById request with id={}", id);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Processing getDepartmentById request with id={}", id);
+            }
             ResponseDepartment responseDepartment = departmentDao.getById(id);
-            logger.info("Finished processing getDepartmentById request with department id = {}", id);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getDepartmentById request with department id = {}", id);
+            }
             return responseDepartment;
         } catch (RuntimeException e) {
             logger.error("Error occurred in database operation.");
@@ -76,6 +96,105 @@ public class DepartmentServiceImpl implements DepartmentService {
         }
     }
 
+    /**
+     * This is a service function which calls the getVersion() method of the DepartmentDao.
+     * The controller sends the version as the ETag of the department, and answers 304 Not Modified when the client has it already.
+     * @param id id of the department.
+     * @return EntityVersion of the department, or null if the department does not exist.
+     */
+    @Override
+    public EntityVersion getDepartmentVersion(Long id) {
+        try {
+            return departmentDao.getVersion(id);
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
+    /**
+     * This is a service function which calls the getListingVersion() method of the DepartmentDao.
+     * The controller sends the version as the ETag of every page of the department listings.
+     * @return EntityVersion of the department listings.
+     */
+    @Override
+    public EntityVersion getDepartmentsListingVersion() {
+        try {
+            return departmentDao.getListingVersion();
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
+    /**
+     * This is a helper function which gets one page of the departments with getAllDepartments and adds the total count and the hasNext flag to it.
+     *
+     * @param page          page number which is requested by the controller.
+     * @param size          size of the data requested by the controller.
+     * @param sortField     sorting parameter
+     * @param sortDirection ascending or descending parameter.
+     * @param searchTerm    String based on which data is filtered.
+     * @param countMode     how the total count is computed: exactly, estimated or not at all.
+     * @return ListingPage containing the departments of the page and the paging details.
+     */
+    @Override
+    public ListingPage<ResponseDepartment> getDepartmentsPage(int page, int size, String sortField, String sortDirection, String searchTerm, CountMode countMode) {
+        List<ResponseDepartment> items = getAllDepartments(page, size, sortField, sortDirection, searchTerm);
+        try {
+            ListingPage<ResponseDepartment> listingPage = ListingPages.of(items, page, size, searchTerm, countMode, departmentDao);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getDepartmentsPage request with totalCount={} and hasNext={}", listingPage.getTotalCount(), listingPage.isHasNext());
+            }
+            return listingPage;
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
+    /**
+     * This is a service function which calls the getByIds() method of the DepartmentDao, so that all the departments are fetched in one round trip.
+     * @param ids ids of the departments which need to be fetched. At most MAX_LOOKUP_IDS ids, repeated ids are returned once.
+     * @return Departments which were found, in the order of the requested ids. Ids which do not exist are left out.
+     */
+    @Override
+    public List<ResponseDepartment> getDepartmentsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at least one id is required");
+        }
+        LinkedHashSet<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.contains(null)) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: ids must not contain empty values, e.g. ids=1,,2");
+        }
+        if (uniqueIds.size() > MAX_LOOKUP_IDS) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at most " + MAX_LOOKUP_IDS + " ids can be requested at once");
+        }
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Processing getDepartmentsByIds request with {} ids", uniqueIds.size());
+        }
+        try {
+            Map<Long, ResponseDepartment> found = departmentDao.getByIds(uniqueIds);
+            List<ResponseDepartment> responseDepartments = new ArrayList<>(found.size());
+            for (Long id : uniqueIds) {
+                ResponseDepartment responseDepartment = found.get(id);
+                if (responseDepartment != null) {
+                    responseDepartments.add(responseDepartment);
+                }
+            }
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getDepartmentsByIds request with {} departments", responseDepartments.size());
+            }
+            return responseDepartments;
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
     /**
      * This service function calls the save() method of the DepartmentDao and works to add details in the system.
      * @param requestDepartment Department object containing details of the new department such as name, region id and start date.
@@ -121,6 +240,27 @@ public class DepartmentServiceImpl implements DepartmentService {
         }
     }
 
+    /**
+     * This service function calls the saveEndDates() method of Department DAO and closes many departments in the system.
+     * @param endDates Department id, region id and end date of every department. At most MAX_BATCH_SIZE items.
+     * @return Outcome of every item, in the order of the request.
+     */
+    @Override
+    public List<EndDateResult> updateEndDates(List<RequestDepartmentEndDate> endDates) {
+        if (endDates == null || endDates.isEmpty()) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at least one end date is required");
+        }
+        if (endDates.size() > MAX_BATCH_SIZE) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at most " + MAX_BATCH_SIZE + " end dates can be saved in one request");
+        }
+        logger.info("Processing updateEndDates request with {} end dates", endDates.size());
+        List<EndDateResult> results = departmentDao.saveEndDates(endDates);
+        logger.info("Finished processing updateEndDates request with {} results", results.size());
+        return results;
+    }
+
     /**
      * This service function deletes the department from the system by calling the delete() method of the DepartmentDao.
      * @param id id of the department that needs to be deleted.
@@ -1,7 +1,11 @@
 package com.example.employeedepartment.service.imp;
 
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,7 +13,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.employeedepartment.dao.EmployeeDao;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.BatchInsertResult;
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EmployeeCursorPage;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
+import com.example.employeedepartment.model.PageCursor;
 import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
 import com.example.employeedepartment.model.ResponseEmployee;
 import com.example.employeedepartment.service.interfaces.EmployeeService;
 
@@ -20,6 +33,10 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmployeeServiceImpl.class);
 
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    private static final int MAX_LOOKUP_IDS = 1000;
+
     public EmployeeServiceImpl(EmployeeDao employeeDao) {
         this.employeeDao = employeeDao;
     }
@@ -34,6 +51,33 @@ public class EmployeeServiceImpl implements EmployeeService {
         employeeDao.save(requestEmployee);
     }
 
+    /**
+     * This function is a helper function, and it calls the saveAll function of the EmployeeDao.
+     *
+     * @param requestEmployees Employee objects which need to be added. At most MAX_BATCH_SIZE employees.
+     * @return Outcome of every employee, in the order of the request.
+     */
+    @Override
+    public List<BatchInsertResult> addEmployees(List<RequestEmployee> requestEmployees) {
+        if (requestEmployees == null || requestEmployees.isEmpty()) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at least one employee is required");
+        }
+        if (requestEmployees.size() > MAX_BATCH_SIZE) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at most " + MAX_BATCH_SIZE + " employees can be added in one batch");
+        }
+        logger.info("Processing addEmployees request with {} employees", requestEmployees.size());
+        try {
+            List<BatchInsertResult> results = employeeDao.saveAll(requestEmployees);
+            logger.info("Finished processing addEmployees request with {} results", results.size());
+            return results;
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
     /**
      * This is a helper function which calls the getAll method of the employeeDao
      *
@@ -50,22 +94,15 @@ public class EmployeeServiceImpl implements EmployeeService {
             logger.error("Error in passing parameters.");
             throw new IllegalArgumentException("Invalid parameter: Page must be greater than or equal to 0");
         }
-        if(size <= 0){
-            logger.error("Error in passing parameters.");
-            throw new IllegalArgumentException("Invalid parameter: Size must be greater than 0");
-        }
-        if(!sortField.equals("id") && !sortField.equals("name")){
-            logger.error("Error in passing parameters.");
-            throw new IllegalArgumentException("Invalid parameter: sortField must be either id or name");
-        }
-        if (!sortDirection.equals("asc") && !sortDirection.equals("desc") && !sortDirection.equals("ASC") && !sortDirection.equals("DESC")){
-            logger.error("Error in passing parameters.");
-            throw new IllegalArgumentException("Invalid parameter: sortDirection must be either of these. 1) asc/ASC, 2) desc/DESC");
+        validateListingParameters(size, sortField, sortDirection);
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Processing getAllEmployees request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
         }
-        logger.info("Processing getAllEmployees request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
         try {
             List<ResponseEmployee> responseEmployees = employeeDao.getAll(page, size, sortField, sortDirection, searchTerm);
-            logger.info("Finished processing getAllEmployees request with {} employees", responseEmployees.size());
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getAllEmployees request with {} employees", responseEmployees.size());
+            }
             return responseEmployees;
         } catch (Exception e) {
             logger.error("Error occurred in database operation.");
@@ -73,6 +110,97 @@ public class EmployeeServiceImpl implements EmployeeService {
         }
     }
 
+    /**
+     * This is a helper function which gets one page of the employees with getAllEmployees and adds the total count and the hasNext flag to it.
+     *
+     * @param page          page number which is requested by the controller.
+     * @param size          size of the data requested by the controller.
+     * @param sortField     sorting parameter
+     * @param sortDirection ascending or descending parameter.
+     * @param searchTerm    String based on which data is filtered.
+     * @param countMode     how the total count is computed: exactly, estimated or not at all.
+     * @return ListingPage containing the employees of the page and the paging details.
+     */
+    @Override
+    public ListingPage<ResponseEmployee> getEmployeesPage(int page, int size, String sortField, String sortDirection, String searchTerm, CountMode countMode) {
+        List<ResponseEmployee> items = getAllEmployees(page, size, sortField, sortDirection, searchTerm);
+        try {
+            ListingPage<ResponseEmployee> listingPage = ListingPages.of(items, page, size, searchTerm, countMode, employeeDao);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getEmployeesPage request with totalCount={} and hasNext={}", listingPage.getTotalCount(), listingPage.isHasNext());
+            }
+            return listingPage;
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
+    /**
+     * This is a helper function which calls the getAllAfter method of the employeeDao for keyset pagination.
+     * An empty cursor starts from the first page. The cursor must have been created with the same sortField and sortDirection.
+     *
+     * @param size          size of the data requested by the controller.
+     * @param sortField     sorting parameter
+     * @param sortDirection ascending or descending parameter.
+     * @param searchTerm    String based on which data is filtered.
+     * @param cursor        continuation token received from the previous page. Empty for the first page.
+     * @return EmployeeCursorPage containing the employees of this page and the token for the next page (null on the last page).
+     */
+    @Override
+    public EmployeeCursorPage getEmployeesAfterCursor(int size, String sortField, String sortDirection, String searchTerm, String cursor) {
+        validateListingParameters(size, sortField, sortDirection);
+        PageCursor pageCursor = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            pageCursor = PageCursor.decode(cursor);
+            if (!pageCursor.getSortField().equals(sortField) || !pageCursor.getSortDirection().equalsIgnoreCase(sortDirection)) {
+                logger.error("Error in passing parameters.");
+                throw new IllegalArgumentException("Invalid parameter: cursor does not match the sortField and sortDirection");
+            }
+        }
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Processing getEmployeesAfterCursor request with size={}, sortField={}, sortDirection={}, searchTerm={}, cursor={}", size, sortField, sortDirection, searchTerm, cursor);
+        }
+        try {
+            List<ResponseEmployee> responseEmployees = employeeDao.getAllAfter(size, sortField, sortDirection, searchTerm, pageCursor);
+            String nextCursor = null;
+            // The DAO fetches one extra employee, it is only used to know that a next page exists.
+            if (responseEmployees.size() > size) {
+                responseEmployees = responseEmployees.subList(0, size);
+                ResponseEmployee last = responseEmployees.get(size - 1);
+                String lastValue = sortField.equals("name") ? last.getName() : String.valueOf(last.getId());
+                nextCursor = new PageCursor(sortField, sortDirection, last.getId(), lastValue).encode();
+            }
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getEmployeesAfterCursor request with {} employees", responseEmployees.size());
+            }
+            return new EmployeeCursorPage(new ArrayList<>(responseEmployees), nextCursor);
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
+    /**
+     * This is a helper function which calls the exportAll method of the employeeDao.
+     *
+     * @param consumer receives every employee with all of its department details, one at a time.
+     */
+    @Override
+    public void exportEmployees(Consumer<ResponseEmployee> consumer) {
+        logger.info("Processing exportEmployees request");
+        try {
+            employeeDao.exportAll(consumer);
+            logger.info("Finished processing exportEmployees request");
+        } catch (UncheckedIOException e) {
+            logger.error("Error occurred while writing the export.");
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
     /**
      * This is a helper function, and it calls the getById(Long id) method of the EmployeeDao.
      *
@@ -82,9 +210,13 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Override
     public ResponseEmployee getEmployeeById(Long id) {
         try {
-            logger.info("Processing getEmployeeById request with id={}", id);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Processing getEmployeeById request with id={}", id);
+            }
             ResponseEmployee responseEmployee = employeeDao.getById(id);
-            logger.info("Finished processing getEmployeeById request with employee id = {}", id);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getEmployeeById request with employee id = {}", id);
+            }
             return responseEmployee;
         } catch (RuntimeException e) {
             logger.error("Error occurred in database operation.");
@@ -92,15 +224,95 @@ public class EmployeeServiceImpl implements EmployeeService {
         }
     }
 
+    /**
+     * This is a service function which calls the getVersion() method of the EmployeeDao.
+     * The controller sends the version as the ETag of the employee, and answers 304 Not Modified when the client has it already.
+     * @param id id of the employee.
+     * @return EntityVersion of the employee, or null if the employee does not exist.
+     */
+    @Override
+    public EntityVersion getEmployeeVersion(Long id) {
+        try {
+            return employeeDao.getVersion(id);
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
+    /**
+     * This is a service function which calls the getListingVersion() method of the EmployeeDao.
+     * The controller sends the version as the ETag of every page of the employee listings.
+     * @return EntityVersion of the employee listings.
+     */
+    @Override
+    public EntityVersion getEmployeesListingVersion() {
+        try {
+            return employeeDao.getListingVersion();
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
+    /**
+     * This is a helper function which calls the getByIds method of the EmployeeDao, so that all the employees are fetched in one round trip.
+     *
+     * @param ids ids of the requested employees. At most MAX_LOOKUP_IDS ids, repeated ids are returned once.
+     * @return Employees which were found, in the order of the requested ids. Ids which do not exist are left out.
+     */
+    @Override
+    public List<ResponseEmployee> getEmployeesByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at least one id is required");
+        }
+        LinkedHashSet<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.contains(null)) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: ids must not contain empty values, e.g. ids=1,,2");
+        }
+        if (uniqueIds.size() > MAX_LOOKUP_IDS) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at most " + MAX_LOOKUP_IDS + " ids can be requested at once");
+        }
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Processing getEmployeesByIds request with {} ids", uniqueIds.size());
+        }
+        try {
+            Map<Long, ResponseEmployee> found = employeeDao.getByIds(uniqueIds);
+            List<ResponseEmployee> responseEmployees = new ArrayList<>(found.size());
+            for (Long id : uniqueIds) {
+                ResponseEmployee responseEmployee = found.get(id);
+                if (responseEmployee != null) {
+                    responseEmployees.add(responseEmployee);
+                }
+            }
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getEmployeesByIds request with {} employees", responseEmployees.size());
+            }
+            return responseEmployees;
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
     /**
      * This is a helper function which calls the update method of employeeDao
      *
      * @param id       id of the employee whose details needs to be updated
      * @param requestEmployee Employee object containing the updated details
+     * @throws IllegalArgumentException if the employee has more than one assignment, none of them is changed.
      */
     @Override
     public void updateEmployee(Long id, RequestEmployee requestEmployee) {
-        employeeDao.update(id, requestEmployee);
+        int assignments = employeeDao.update(id, requestEmployee);
+        if (assignments > 1) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: employee " + id + " has " + assignments
+                    + " assignments, the end date of one of them is changed with PATCH /employees/" + id);
+        }
     }
 
     /**
@@ -120,6 +332,27 @@ public class EmployeeServiceImpl implements EmployeeService {
         }
     }
 
+    /**
+     * This service function calls the saveEndDates method of Employee DAO and saves the end dates of many assignments in the system.
+     * @param endDates Employee id, region id, department id and end date of every assignment. At most MAX_BATCH_SIZE items.
+     * @return Outcome of every item, in the order of the request.
+     */
+    @Override
+    public List<EndDateResult> updateEmployeeEndDates(List<RequestEmployeeEndDate> endDates) {
+        if (endDates == null || endDates.isEmpty()) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at least one end date is required");
+        }
+        if (endDates.size() > MAX_BATCH_SIZE) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at most " + MAX_BATCH_SIZE + " end dates can be saved in one request");
+        }
+        logger.info("Processing updateEmployeeEndDates request with {} end dates", endDates.size());
+        List<EndDateResult> results = employeeDao.saveEndDates(endDates);
+        logger.info("Finished processing updateEmployeeEndDates request with {} results", results.size());
+        return results;
+    }
+
     /**
      * This is a helper function which calls the delete method of the employeeDao
      *
@@ -129,4 +362,26 @@ public class EmployeeServiceImpl implements EmployeeService {
     public void deleteEmployee(Long id) {
         employeeDao.delete(id);
     }
+
+    /**
+     * This function validates the size and sorting parameters which are common for all the employee listings.
+     *
+     * @param size          size of the data requested by the controller.
+     * @param sortField     sorting parameter
+     * @param sortDirection ascending or descending parameter.
+     */
+    private void validateListingParameters(int size, String sortField, String sortDirection) {
+        if(size <= 0){
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: Size must be greater than 0");
+        }
+        if(!sortField.equals("id") && !sortField.equals("name")){
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: sortField must be either id or name");
+        }
+        if (!sortDirection.equals("asc") && !sortDirection.equals("desc") && !sortDirection.equals("ASC") && !sortDirection.equals("DESC")){
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: sortDirection must be either of these. 1) asc/ASC, 2) desc/DESC");
+        }
+    }
 }
@@ -0,0 +1,412 @@
+package com.example.employeedepartment.service.imp;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.employeedepartment.dao.JobDao;
+import com.example.employeedepartment.exception.IdNotFoundException;
+import com.example.employeedepartment.exception.ServiceBusyException;
+import com.example.employeedepartment.model.BatchInsertResult;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.Job;
+import com.example.employeedepartment.model.JobType;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
+import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
+import com.example.employeedepartment.model.ResponseEmployee;
+import com.example.employeedepartment.service.interfaces.DepartmentService;
+import com.example.employeedepartment.service.interfaces.EmployeeService;
+import com.example.employeedepartment.service.interfaces.JobService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Runs the bulk operations which take too long for one request as background jobs.
+ * A job is saved in the job table and queued on a bounded pool of workers (jobs.worker-threads, jobs.queue-capacity).
+ * The worker saves the items in chunks of jobs.chunk-size through the employee and department services, and after
+ * every chunk the checkpoint of the job (processed_items and the outcomes), so after a restart the job continues with
+ * the first chunk which was not saved. A chunk of an import is committed in the same transaction as its checkpoint, so no
+ * employee is imported twice. The end dates are saved in the transactions of the DAO, which roll back a failing part of
+ * the chunk alone, and the checkpoint is written after them: saving a chunk again after a restart sets the same end dates.
+ * An export writes its file from the start again after a restart, its checkpoint only shows the progress.
+ * The jobs belong to the instance which received them (jobs.instance-id), it resumes them when it starts.
+ */
+@Service
+public class JobServiceImpl implements JobService {
+    private static final Logger logger = LoggerFactory.getLogger(JobServiceImpl.class);
+
+    private static final TypeReference<List<RequestEmployee>> EMPLOYEES = new TypeReference<>() {
+    };
+    private static final TypeReference<List<RequestEmployeeEndDate>> EMPLOYEE_END_DATES = new TypeReference<>() {
+    };
+    private static final TypeReference<List<RequestDepartmentEndDate>> DEPARTMENT_END_DATES = new TypeReference<>() {
+    };
+
+    private final JobDao jobDao;
+    private final EmployeeService employeeService;
+    private final DepartmentService departmentService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate writeTransactionTemplate;
+    private final ExecutorService executor;
+    private final String instanceId;
+    private final int chunkSize;
+    private final int maxItems;
+    private final Path exportDir;
+
+    /** Ids of the jobs which a worker has picked up, so a job resumed twice is not run twice at the same time. */
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean stopping;
+
+    /**
+     * @param workerThreads number of jobs which run at the same time (jobs.worker-threads).
+     * @param queueCapacity number of jobs which wait for a worker before new ones are rejected (jobs.queue-capacity).
+     * @param chunkSize     number of items saved in one transaction (jobs.chunk-size).
+     * @param maxItems      largest number of items of a job (jobs.max-items).
+     * @param exportDir     directory of the files written by the exports (jobs.export-dir).
+     * @param instanceId    owner of the jobs received by this instance (jobs.instance-id), the host name when empty.
+     */
+    public JobServiceImpl(JobDao jobDao, EmployeeService employeeService, DepartmentService departmentService,
+                          ObjectMapper objectMapper, TransactionTemplate writeTransactionTemplate, MeterRegistry meterRegistry,
+                          @Value("${jobs.worker-threads:2}") int workerThreads,
+                          @Value("${jobs.queue-capacity:100}") int queueCapacity,
+                          @Value("${jobs.chunk-size:500}") int chunkSize,
+                          @Value("${jobs.max-items:100000}") int maxItems,
+                          @Value("${jobs.export-dir:${java.io.tmpdir}/employee-department-jobs}") Path exportDir,
+                          @Value("${jobs.instance-id:}") String instanceId) {
+        this.jobDao = jobDao;
+        this.employeeService = employeeService;
+        this.departmentService = departmentService;
+        this.objectMapper = objectMapper;
+        this.writeTransactionTemplate = writeTransactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+        this.exportDir = exportDir;
+        this.instanceId = instanceId.isEmpty() ? hostName() : instanceId;
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, "job.executor");
+        logger.info("Jobs of instance {} run {} at a time with a queue of {} and chunks of {} items", this.instanceId,
+                workerThreads, queueCapacity, chunkSize);
+    }
+
+    /**
+     * This function queues a job which adds the employees like addEmployees.
+     *
+     * @param requestEmployees employees to add.
+     * @return Job which was queued.
+     */
+    @Override
+    public Job submitEmployeeImport(List<RequestEmployee> requestEmployees) {
+        return submitItems(JobType.EMPLOYEE_IMPORT, requestEmployees, "employee");
+    }
+
+    /**
+     * This function queues a job which saves the end dates like updateEmployeeEndDates.
+     *
+     * @param endDates end dates of the employee assignments.
+     * @return Job which was queued.
+     */
+    @Override
+    public Job submitEmployeeEndDates(List<RequestEmployeeEndDate> endDates) {
+        return submitItems(JobType.EMPLOYEE_END_DATES, endDates, "end date");
+    }
+
+    /**
+     * This function queues a job which saves the end dates like updateEndDates of the departments.
+     *
+     * @param endDates end dates of the departments.
+     * @return Job which was queued.
+     */
+    @Override
+    public Job submitDepartmentEndDates(List<RequestDepartmentEndDate> endDates) {
+        return submitItems(JobType.DEPARTMENT_END_DATES, endDates, "end date");
+    }
+
+    /**
+     * This function queues a job which writes all the employees to a newline-delimited JSON file, see getJobOutput.
+     *
+     * @return Job which was queued.
+     */
+    @Override
+    public Job submitEmployeeExport() {
+        long id = jobDao.insert(JobType.EMPLOYEE_EXPORT, instanceId, null, 0);
+        logger.info("Queued job {} of type {}", id, JobType.EMPLOYEE_EXPORT);
+        start(id, 0);
+        return jobDao.getById(id);
+    }
+
+    /**
+     * @param id id of the job.
+     * @return Job with its status and progress.
+     */
+    @Override
+    public Job getJob(Long id) {
+        Job job = jobDao.getById(id);
+        if (job == null) {
+            throw new IdNotFoundException("Job with id " + id + " does not exist");
+        }
+        return job;
+    }
+
+    /**
+     * @param id id of an export job.
+     * @return Path of the file written by the job.
+     */
+    @Override
+    public Path getJobOutput(Long id) {
+        Job job = getJob(id);
+        String outputFile = jobDao.getOutputFile(id);
+        if (job.status() != Job.Status.SUCCEEDED || outputFile == null) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: job " + id + " has no output, its status is " + job.status());
+        }
+        return Path.of(outputFile);
+    }
+
+    /**
+     * This function resumes the queued and running jobs of this instance, which were cut off when it stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        for (Long id : jobDao.getUnfinishedIds(instanceId)) {
+            logger.info("Resuming job {}", id);
+            try {
+                executor.execute(() -> run(id));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Job {} stays queued until the next start, the job queue is full", id);
+            }
+        }
+    }
+
+    /**
+     * This function lets the running jobs finish their current chunk and stops the workers.
+     * The jobs stay RUNNING in the job table and are resumed at the next start.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Jobs still running at shutdown, they are resumed from their last checkpoint at the next start");
+        }
+    }
+
+    private <T> Job submitItems(JobType type, List<T> items, String itemName) {
+        if (items == null || items.isEmpty()) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at least one " + itemName + " is required");
+        }
+        if (items.size() > maxItems) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: at most " + maxItems + " items can be processed in one job");
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(items);
+        } catch (JsonProcessingException e) {
+            logger.error("Error in passing parameters.");
+            throw new IllegalArgumentException("Invalid parameter: the items can not be saved", e);
+        }
+        long id = jobDao.insert(type, instanceId, payload, items.size());
+        logger.info("Queued job {} of type {} with {} items", id, type, items.size());
+        start(id, items.size());
+        return jobDao.getById(id);
+    }
+
+    private void start(long id, int totalItems) {
+        try {
+            executor.execute(() -> run(id));
+        } catch (RejectedExecutionException e) {
+            jobDao.finish(id, Job.Status.FAILED, totalItems, null, "Too many jobs");
+            throw new ServiceBusyException("Too many jobs, try again later");
+        }
+    }
+
+    /**
+     * This function runs a job from its checkpoint to its end, on a worker thread.
+     *
+     * @param id id of the job.
+     */
+    private void run(long id) {
+        if (!runningJobs.add(id)) {
+            return;
+        }
+        try {
+            Job job = jobDao.getById(id);
+            if (job == null || job.status() == Job.Status.SUCCEEDED || job.status() == Job.Status.FAILED) {
+                return;
+            }
+            jobDao.markRunning(id);
+            logger.info("Running job {} of type {} from item {}", id, job.type(), job.processedItems());
+            boolean finished = switch (job.type()) {
+                case EMPLOYEE_IMPORT -> runChunks(job, EMPLOYEES, false,
+                        chunk -> countByStatus(employeeService.addEmployees(chunk), BatchInsertResult::status));
+                case EMPLOYEE_END_DATES -> runChunks(job, EMPLOYEE_END_DATES, true,
+                        chunk -> countByStatus(employeeService.updateEmployeeEndDates(chunk), EndDateResult::status));
+                case DEPARTMENT_END_DATES -> runChunks(job, DEPARTMENT_END_DATES, true,
+                        chunk -> countByStatus(departmentService.updateEndDates(chunk), EndDateResult::status));
+                case EMPLOYEE_EXPORT -> runExport(job);
+            };
+            if (finished) {
+                logger.info("Finished job {}", id);
+            } else {
+                logger.info("Stopped job {} at its last checkpoint, it is resumed at the next start", id);
+            }
+        } catch (RuntimeException e) {
+            if (stopping) {
+                logger.warn("Job {} was interrupted by the shutdown, it is resumed at the next start", id);
+                return;
+            }
+            logger.error("Job {} failed", id, e);
+            Job job = jobDao.getById(id);
+            jobDao.finish(id, Job.Status.FAILED, job.totalItems(), null, rootMessage(e));
+        } finally {
+            runningJobs.remove(id);
+        }
+    }
+
+    /**
+     * This function saves the items of a job chunk by chunk, and the checkpoint of the job after every chunk.
+     *
+     * @param job          job with its checkpoint.
+     * @param itemsType    type of the items kept in the payload of the job.
+     * @param idempotent   true when a chunk saved again gives the same rows. The chunk then runs in the transactions of the
+     *                     DAO, whose failing parts are rolled back and counted as FAILED without failing the job, and its
+     *                     checkpoint is written once they are committed. Otherwise the chunk and its checkpoint are
+     *                     committed in one transaction, and a chunk which fails fails the job.
+     * @param processChunk saves a chunk and counts its outcomes by status.
+     * @return true when all the items were saved, false when the instance is stopping.
+     */
+    private <T> boolean runChunks(Job job, TypeReference<List<T>> itemsType, boolean idempotent,
+                                  Function<List<T>, Map<String, Long>> processChunk) {
+        List<T> items;
+        try {
+            items = objectMapper.readValue(jobDao.getPayload(job.id()), itemsType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read the items of job " + job.id(), e);
+        }
+        Map<String, Long> outcomes = new TreeMap<>(job.outcomes());
+        int processed = job.processedItems();
+        while (processed < items.size()) {
+            if (stopping) {
+                return false;
+            }
+            int end = Math.min(processed + chunkSize, items.size());
+            List<T> chunk = items.subList(processed, end);
+            Map<String, Long> previousOutcomes = outcomes;
+            Supplier<Map<String, Long>> saveChunk = () -> {
+                Map<String, Long> chunkOutcomes = new TreeMap<>(previousOutcomes);
+                processChunk.apply(chunk).forEach((outcome, count) -> chunkOutcomes.merge(outcome, count, Long::sum));
+                jobDao.checkpoint(job.id(), end, chunkOutcomes);
+                return chunkOutcomes;
+            };
+            outcomes = idempotent ? saveChunk.get() : writeTransactionTemplate.execute(status -> saveChunk.get());
+            processed = end;
+        }
+        jobDao.finish(job.id(), Job.Status.SUCCEEDED, items.size(), null, null);
+        return true;
+    }
+
+    /**
+     * This function writes all the employees to the file of the job, one JSON object per line.
+     *
+     * @param job export job.
+     * @return true when the file is complete.
+     */
+    private boolean runExport(Job job) {
+        Path file = exportDir.resolve("job-" + job.id() + ".ndjson");
+        ObjectWriter employeeWriter = objectMapper.writerFor(ResponseEmployee.class);
+        int[] exported = {0};
+        try {
+            Files.createDirectories(exportDir);
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+                employeeService.exportEmployees(responseEmployee -> {
+                    if (stopping) {
+                        throw new IllegalStateException("The instance is stopping");
+                    }
+                    try {
+                        outputStream.write(employeeWriter.writeValueAsBytes(responseEmployee));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (++exported[0] % chunkSize == 0) {
+                        jobDao.checkpoint(job.id(), exported[0], Map.of("EXPORTED", (long) exported[0]));
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        jobDao.checkpoint(job.id(), exported[0], Map.of("EXPORTED", (long) exported[0]));
+        jobDao.finish(job.id(), Job.Status.SUCCEEDED, exported[0], file.toAbsolutePath().toString(), null);
+        return true;
+    }
+
+    private static <R> Map<String, Long> countByStatus(List<R> results, Function<R, Enum<?>> status) {
+        return results.stream().collect(Collectors.groupingBy(result -> status.apply(result).name(), TreeMap::new, Collectors.counting()));
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "job-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
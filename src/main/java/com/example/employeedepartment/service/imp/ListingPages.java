@@ -0,0 +1,49 @@
+package com.example.employeedepartment.service.imp;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import com.example.employeedepartment.dao.ListingCounter;
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.ListingPage;
+
+/**
+ * Builds the paging envelope of the listings from one page of items and the counter of the DAO of the listing.
+ */
+final class ListingPages {
+    private ListingPages() {
+    }
+
+    /**
+     * This function adds the total count and the hasNext flag to a page of a listing.
+     * When the exact count is known, hasNext is computed from it. Otherwise the DAO checks whether a row follows the page,
+     * which is a single row lookup on the id index.
+     *
+     * @param items      items of the page.
+     * @param page       page number of the listing.
+     * @param size       page size of the listing.
+     * @param searchTerm search term of the listing, null for no filter.
+     * @param countMode  how the total count is computed.
+     * @param counter    DAO of the listing.
+     * @return ListingPage containing the items and the paging details.
+     */
+    static <T> ListingPage<T> of(List<T> items, int page, int size, String searchTerm, CountMode countMode, ListingCounter counter) {
+        Long totalCount = null;
+        boolean countEstimated = false;
+        if (countMode == CountMode.EXACT) {
+            totalCount = counter.count(searchTerm);
+        } else if (countMode == CountMode.ESTIMATED) {
+            OptionalLong estimatedCount = counter.estimateCount(searchTerm);
+            if (estimatedCount.isPresent()) {
+                totalCount = estimatedCount.getAsLong();
+                countEstimated = true;
+            } else {
+                totalCount = counter.count(searchTerm);
+            }
+        }
+        long nextOffset = (long) (page + 1) * size;
+        boolean hasNext = totalCount != null && !countEstimated ? nextOffset < totalCount : counter.hasMore(nextOffset, searchTerm);
+        Long totalPages = totalCount == null ? null : (totalCount + size - 1) / size;
+        return new ListingPage<>(items, page, size, totalCount, totalPages, countEstimated, hasNext);
+    }
+}
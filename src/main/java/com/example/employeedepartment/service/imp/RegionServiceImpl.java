@@ -8,6 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.employeedepartment.dao.RegionDao;
+import com.example.employeedepartment.logging.HotPathLog;
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
 import com.example.employeedepartment.model.Region;
 import com.example.employeedepartment.service.interfaces.RegionService;
 
@@ -60,10 +64,14 @@ public class RegionServiceImpl implements RegionService {
             logger.error("Error in passing parameters.");
             throw new IllegalArgumentException("Invalid parameter: sortDirection must be either of these. 1) asc/ASC, 2) desc/DESC");
         }
-        logger.info("Processing getAllRegions request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
+        if (HotPathLog.isEnabled(logger)) {
+            logger.debug("Processing getAllRegions request with page={}, size={}, sortField={}, sortDirection={}, searchTerm={}", page, size, sortField, sortDirection, searchTerm);
+        }
         try {
             List<Region> regions = regionDao.getAll(page, size, sortField, sortDirection, searchTerm);
-            logger.info("Finished processing getAllRegions request with {} employees", regions.size());
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getAllRegions request with {} employees", regions.size());
+            }
             return regions;
         } catch (Exception e) {
             logger.error("Error occurred in database operation.");
@@ -71,6 +79,32 @@ public class RegionServiceImpl implements RegionService {
         }
     }
 
+    /**
+     * This is a helper function which gets one page of the regions with getAllRegions and adds the total count and the hasNext flag to it.
+     *
+     * @param page          page number which is requested by the controller.
+     * @param size          size of the data requested by the controller.
+     * @param sortField     sorting parameter
+     * @param sortDirection ascending or descending parameter.
+     * @param searchTerm    String based on which data is filtered.
+     * @param countMode     how the total count is computed: exactly, estimated or not at all.
+     * @return ListingPage containing the regions of the page and the paging details.
+     */
+    @Override
+    public ListingPage<Region> getRegionsPage(int page, int size, String sortField, String sortDirection, String searchTerm, CountMode countMode) {
+        List<Region> items = getAllRegions(page, size, sortField, sortDirection, searchTerm);
+        try {
+            ListingPage<Region> listingPage = ListingPages.of(items, page, size, searchTerm, countMode, regionDao);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getRegionsPage request with totalCount={} and hasNext={}", listingPage.getTotalCount(), listingPage.isHasNext());
+            }
+            return listingPage;
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
     /**
      * This is a helper function, and it calls the getById(Long id) method of the RegionDao.
      *
@@ -80,9 +114,13 @@ public class RegionServiceImpl implements RegionService {
     @Override
     public Region getRegionById(Long id) {
         try {
-            logger.info("Processing getRegionById request with id={}", id);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Processing getRegionById request with id={}", id);
+            }
             Region region = regionDao.getById(id);
-            logger.info("Finished processing getRegionById request with region id = {}", id);
+            if (HotPathLog.isEnabled(logger)) {
+                logger.debug("Finished processing getRegionById request with region id = {}", id);
+            }
             return region;
         } catch (RuntimeException e) {
             logger.error("Error occurred in database operation.");
@@ -90,6 +128,37 @@ public class RegionServiceImpl implements RegionService {
         }
     }
 
+    /**
+     * This is a service function which calls the getVersion() method of the RegionDao.
+     * The controller sends the version as the ETag of the region, and answers 304 Not Modified when the client has it already.
+     * @param id id of the region.
+     * @return EntityVersion of the region, or null if the region does not exist.
+     */
+    @Override
+    public EntityVersion getRegionVersion(Long id) {
+        try {
+            return regionDao.getVersion(id);
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
+    /**
+     * This is a service function which calls the getListingVersion() method of the RegionDao.
+     * The controller sends the version as the ETag of every page of the region listings.
+     * @return EntityVersion of the region listings.
+     */
+    @Override
+    public EntityVersion getRegionsListingVersion() {
+        try {
+            return regionDao.getListingVersion();
+        } catch (Exception e) {
+            logger.error("Error occurred in database operation.");
+            throw new RuntimeException("Some error occurred in the server.",e);
+        }
+    }
+
     /**
      * This is a helper function which calls the update method of RegionDao
      *
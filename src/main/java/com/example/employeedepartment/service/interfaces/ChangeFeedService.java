@@ -0,0 +1,7 @@
+package com.example.employeedepartment.service.interfaces;
+
+import com.example.employeedepartment.model.ChangeFeedPage;
+
+public interface ChangeFeedService {
+    ChangeFeedPage getChanges(long since, int limit);
+}
@@ -3,19 +3,34 @@ package com.example.employeedepartment.service.interfaces;
 import java.util.List;
 import java.util.Map;
 
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
 import com.example.employeedepartment.model.RequestDepartment;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
 import com.example.employeedepartment.model.ResponseDepartment;
 
 public interface DepartmentService {
     List<ResponseDepartment> getAllDepartments(int page, int size, String sortField, String sortDirection, String searchTerm);
 
+    ListingPage<ResponseDepartment> getDepartmentsPage(int page, int size, String sortField, String sortDirection, String searchTerm, CountMode countMode);
+
     ResponseDepartment getDepartmentById(Long id);
 
+    EntityVersion getDepartmentVersion(Long id);
+
+    EntityVersion getDepartmentsListingVersion();
+
+    List<ResponseDepartment> getDepartmentsByIds(List<Long> ids);
+
     void addDepartment(RequestDepartment requestDepartment);
 
     void updateDepartment(Long id, RequestDepartment requestDepartment);
 
     void updateEndDate(Long id, Map<String, Object> updates);
 
+    List<EndDateResult> updateEndDates(List<RequestDepartmentEndDate> endDates);
+
     void deleteDepartment(Long id);
 }
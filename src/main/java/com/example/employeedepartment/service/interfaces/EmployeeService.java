@@ -2,21 +2,45 @@ package com.example.employeedepartment.service.interfaces;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 
+import com.example.employeedepartment.model.BatchInsertResult;
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EmployeeCursorPage;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
 import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
 import com.example.employeedepartment.model.ResponseEmployee;
 
 public interface EmployeeService {
     void addEmployee(RequestEmployee requestEmployee);
 
+    List<BatchInsertResult> addEmployees(List<RequestEmployee> requestEmployees);
+
     List<ResponseEmployee> getAllEmployees(int page, int size, String sortField, String sortDirection, String searchTerm);
 
+    ListingPage<ResponseEmployee> getEmployeesPage(int page, int size, String sortField, String sortDirection, String searchTerm, CountMode countMode);
+
+    EmployeeCursorPage getEmployeesAfterCursor(int size, String sortField, String sortDirection, String searchTerm, String cursor);
+
+    void exportEmployees(Consumer<ResponseEmployee> consumer);
+
     ResponseEmployee getEmployeeById(Long id);
 
+    EntityVersion getEmployeeVersion(Long id);
+
+    EntityVersion getEmployeesListingVersion();
+
+    List<ResponseEmployee> getEmployeesByIds(List<Long> ids);
+
     void updateEmployee(Long id, RequestEmployee requestEmployee);
 
     void updateEmployeeEndDate(Long empId, Map<String, Object> updates);
 
+    List<EndDateResult> updateEmployeeEndDates(List<RequestEmployeeEndDate> endDates);
+
     void deleteEmployee(Long id);
 }
@@ -0,0 +1,23 @@
+package com.example.employeedepartment.service.interfaces;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import com.example.employeedepartment.model.Job;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
+import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
+
+public interface JobService {
+    Job submitEmployeeImport(List<RequestEmployee> requestEmployees);
+
+    Job submitEmployeeEndDates(List<RequestEmployeeEndDate> endDates);
+
+    Job submitDepartmentEndDates(List<RequestDepartmentEndDate> endDates);
+
+    Job submitEmployeeExport();
+
+    Job getJob(Long id);
+
+    Path getJobOutput(Long id);
+}
@@ -2,6 +2,9 @@ package com.example.employeedepartment.service.interfaces;
 
 import java.util.List;
 
+import com.example.employeedepartment.model.CountMode;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.ListingPage;
 import com.example.employeedepartment.model.Region;
 
 public interface RegionService {
@@ -9,8 +12,14 @@ public interface RegionService {
 
     List<Region> getAllRegions(int page, int size, String sortField, String sortDirection, String searchTerm);
 
+    ListingPage<Region> getRegionsPage(int page, int size, String sortField, String sortDirection, String searchTerm, CountMode countMode);
+
     Region getRegionById(Long id);
 
+    EntityVersion getRegionVersion(Long id);
+
+    EntityVersion getRegionsListingVersion();
+
     void updateRegion(Long id, Region region);
 
     void deleteRegion(Long id);
@@ -0,0 +1,52 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Versions of the employees, departments and regions, see EntityVersions.
+ * version is incremented and updated_at set by every write which changes the details sent for the row,
+ * listing_version does the same for the /all listing of every table. They are the ETag and Last-Modified of the responses.
+ * Applied by Flyway, the DAO write methods keep them up to date afterwards.
+ *
+ * A database taken over by the baseline of Flyway may already have some of the columns and the table, so every one
+ * of them is only added when it is missing. It is a Java migration because MySQL has no ADD COLUMN IF NOT EXISTS.
+ */
+public class V3__entity_versions extends BaseJavaMigration {
+    private static final String[] VERSIONED_TABLES = {"employee", "department", "region"};
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String table : VERSIONED_TABLES) {
+                if (!hasColumn(connection, table, "version")) {
+                    statement.execute("ALTER TABLE " + table + " ADD COLUMN version BIGINT NOT NULL DEFAULT 0");
+                }
+                if (!hasColumn(connection, table, "updated_at")) {
+                    statement.execute("ALTER TABLE " + table + " ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP");
+                }
+            }
+            statement.execute("CREATE TABLE IF NOT EXISTS listing_version ("
+                    + " name VARCHAR(64) PRIMARY KEY,"
+                    + " version BIGINT NOT NULL,"
+                    + " updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+            statement.execute("INSERT INTO listing_version (name, version)"
+                    + " SELECT listings.name, 0 FROM (SELECT 'employee' AS name UNION ALL SELECT 'department' UNION ALL SELECT 'region') listings"
+                    + " WHERE NOT EXISTS (SELECT 1 FROM listing_version WHERE listing_version.name = listings.name)");
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+            return rs.next();
+        }
+    }
+}
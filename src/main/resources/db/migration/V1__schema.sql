@@ -0,0 +1,37 @@
+-- Tables of the regions, departments and employees, and of the assignments between them.
+-- A department is opened in a region by a region_department row, an employee works in it through employee_region_department rows.
+-- The indexes the queries of the DAOs depend on are added by V4__indexes.sql, see IndexCheck.
+CREATE TABLE region (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    start_date DATE,
+    end_date DATE
+);
+
+CREATE TABLE department (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE region_department (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    reg_id BIGINT NOT NULL,
+    dept_id BIGINT NOT NULL,
+    dept_start_date DATE NOT NULL,
+    dept_end_date DATE
+);
+
+CREATE TABLE employee (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    role VARCHAR(255),
+    email VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE employee_region_department (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    emp_id BIGINT NOT NULL,
+    reg_dept_id BIGINT NOT NULL,
+    emp_start_date DATE NOT NULL,
+    emp_end_date DATE
+);
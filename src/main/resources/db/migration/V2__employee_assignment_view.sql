@@ -0,0 +1,30 @@
+-- Read model of the employee details, see EmployeeAssignmentView.
+-- One row per employee_region_department row, with the employee, department and region columns already joined.
+-- Applied by Flyway, the DAO write methods keep it up to date afterwards.
+-- A database taken over by the baseline of Flyway may already have the table, so it is only created when it is missing
+-- and only the assignments without a row are copied into it.
+CREATE TABLE IF NOT EXISTS employee_assignment_view (
+    assignment_id BIGINT PRIMARY KEY,
+    emp_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    role VARCHAR(255),
+    email VARCHAR(255) NOT NULL,
+    reg_id BIGINT NOT NULL,
+    dept_id BIGINT NOT NULL,
+    department_name VARCHAR(255) NOT NULL,
+    region VARCHAR(255) NOT NULL,
+    emp_start_date DATE NOT NULL,
+    emp_end_date DATE,
+    INDEX idx_employee_assignment_view_emp_id (emp_id),
+    INDEX idx_employee_assignment_view_dept_id (dept_id),
+    INDEX idx_employee_assignment_view_reg_id (reg_id)
+);
+
+INSERT INTO employee_assignment_view (assignment_id, emp_id, name, role, email, reg_id, dept_id, department_name, region, emp_start_date, emp_end_date)
+SELECT employee_region_department.id, employee.id, employee.name, employee.role, employee.email, region.id, department.id, department.name, region.name, employee_region_department.emp_start_date, employee_region_department.emp_end_date
+FROM employee
+JOIN employee_region_department ON employee_region_department.emp_id = employee.id
+JOIN region_department ON employee_region_department.reg_dept_id = region_department.id
+JOIN region ON region_department.reg_id = region.id
+JOIN department ON region_department.dept_id = department.id
+WHERE NOT EXISTS (SELECT 1 FROM employee_assignment_view WHERE employee_assignment_view.assignment_id = employee_region_department.id);
@@ -0,0 +1,27 @@
+-- Indexes of the queries of the DAOs. IndexCheck reports at startup the ones which are missing.
+-- The secondary indexes of InnoDB also hold the primary key, so an index on (name) covers the (name, id) order of the keyset listings.
+
+-- The existence checks of the inserts (WHERE email = ?, WHERE name = ?) and the batch insert lookup by email.
+-- They also guarantee the uniqueness which the inserts only check.
+CREATE UNIQUE INDEX uk_employee_email ON employee (email);
+CREATE UNIQUE INDEX uk_department_name ON department (name);
+
+-- The keyset listings and the prefix searches by name.
+CREATE INDEX idx_employee_name ON employee (name);
+CREATE INDEX idx_region_name ON region (name);
+
+-- saveEndDate and the end date of a department look the assignment up by region and department.
+CREATE INDEX idx_region_department_reg_dept ON region_department (reg_id, dept_id);
+-- Covers the department details of getAll and getById, which join department, region_department and region.
+CREATE INDEX idx_region_department_dept_details ON region_department (dept_id, reg_id, dept_start_date, dept_end_date);
+
+-- The EXISTS of the keyset listing, the saveEndDate of an employee and the refresh of the read model by employee.
+CREATE INDEX idx_employee_region_department_emp ON employee_region_department (emp_id, reg_dept_id);
+-- The end date of the open assignments of a department (WHERE emp_end_date IS NULL AND reg_dept_id IN ...).
+CREATE INDEX idx_employee_region_department_reg_dept ON employee_region_department (reg_dept_id, emp_end_date);
+
+-- The updates of the read model by employee, region and department replace the single column indexes of V2.
+CREATE INDEX idx_employee_assignment_view_emp ON employee_assignment_view (emp_id, reg_id, dept_id);
+CREATE INDEX idx_employee_assignment_view_reg_dept ON employee_assignment_view (reg_id, dept_id, emp_end_date);
+DROP INDEX idx_employee_assignment_view_emp_id ON employee_assignment_view;
+DROP INDEX idx_employee_assignment_view_reg_id ON employee_assignment_view;
@@ -0,0 +1,8 @@
+-- Heartbeat of the replica lag check: ReplicaLagMonitor writes the time into the primary and reads it back
+-- from the replicas, a replica whose copy is too old gets no reads. The table is unused without replicas.
+CREATE TABLE replication_heartbeat (
+    id INT NOT NULL PRIMARY KEY,
+    beat_at BIGINT NOT NULL
+);
+
+INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, 0);
@@ -0,0 +1,19 @@
+-- Background jobs, see JobServiceImpl. The items of a job are kept in payload as JSON, processed_items is the checkpoint:
+-- the items before it are saved, a job which was running when its instance stopped continues from there.
+CREATE TABLE job (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(32) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    instance_id VARCHAR(255) NOT NULL,
+    payload LONGTEXT,
+    total_items INT NOT NULL,
+    processed_items INT NOT NULL DEFAULT 0,
+    outcomes VARCHAR(1000),
+    output_file VARCHAR(1000),
+    error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- The unfinished jobs of an instance, resumed at its startup.
+CREATE INDEX idx_job_instance_status ON job (instance_id, status);
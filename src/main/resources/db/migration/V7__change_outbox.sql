@@ -0,0 +1,20 @@
+-- Change feed of the employees, departments and regions, see ChangeOutbox and ChangeDao.
+-- Every DAO write appends a row per changed entity in its own transaction, seq is the cursor of GET /changes?since=.
+-- SAVED means the entity was created or its details changed, read it again. DELETED means it is gone.
+CREATE TABLE change_outbox (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(16) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    operation VARCHAR(16) NOT NULL,
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- The purge of the old changes finds its rows by changed_at.
+CREATE INDEX idx_change_outbox_changed_at ON change_outbox (changed_at);
+
+-- Highest seq removed by the purge. A consumer whose cursor is below it has missed changes and must read everything again.
+CREATE TABLE change_outbox_purge (
+    id INT PRIMARY KEY,
+    purged_through BIGINT NOT NULL
+);
+INSERT INTO change_outbox_purge (id, purged_through) VALUES (1, 0);
@@ -0,0 +1,24 @@
+-- The version of a listing is split over LISTING_SHARDS rows (see EntityVersions), its version is their sum.
+-- A write increments one row picked at random, so the writers of a listing do not all wait for the lock of one row
+-- until their transactions commit. The existing row becomes shard 0 and keeps the version reached so far.
+ALTER TABLE listing_version ADD COLUMN shard INT NOT NULL DEFAULT 0;
+ALTER TABLE listing_version DROP PRIMARY KEY;
+ALTER TABLE listing_version ADD PRIMARY KEY (name, shard);
+INSERT INTO listing_version (name, shard, version)
+SELECT listing_version.name, shards.shard, 0 FROM listing_version CROSS JOIN (
+    SELECT 1 AS shard
+    UNION ALL SELECT 2
+    UNION ALL SELECT 3
+    UNION ALL SELECT 4
+    UNION ALL SELECT 5
+    UNION ALL SELECT 6
+    UNION ALL SELECT 7
+    UNION ALL SELECT 8
+    UNION ALL SELECT 9
+    UNION ALL SELECT 10
+    UNION ALL SELECT 11
+    UNION ALL SELECT 12
+    UNION ALL SELECT 13
+    UNION ALL SELECT 14
+    UNION ALL SELECT 15
+) shards;
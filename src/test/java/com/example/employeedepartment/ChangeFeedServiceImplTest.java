@@ -0,0 +1,75 @@
+package com.example.employeedepartment;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.example.employeedepartment.dao.ChangeDao;
+import com.example.employeedepartment.exception.ChangeFeedExpiredException;
+import com.example.employeedepartment.model.ChangeFeedPage;
+import com.example.employeedepartment.service.imp.ChangeFeedServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+public class ChangeFeedServiceImplTest {
+    @Mock
+    private ChangeDao changeDao;
+
+    @InjectMocks
+    private ChangeFeedServiceImpl changeFeedService;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    public void setup() {
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    public void closeMocks() throws Exception {
+        mocks.close();
+    }
+
+    /**
+     * Test: Given since 0 after a purge, this should return the changes after the purged ones instead of a 410.
+     */
+    @Test
+    public void getChangesFromStartAfterPurgeTest() {
+        ChangeFeedPage expectedPage = new ChangeFeedPage(List.of(), 100, false);
+        when(changeDao.getPurgedThrough()).thenReturn(100L);
+        when(changeDao.getAfter(100, 500)).thenReturn(expectedPage);
+
+        assertEquals(expectedPage, changeFeedService.getChanges(0, 500));
+    }
+
+    /**
+     * Test: Given since 0 and a purge which runs during the read, this should read again after the new purged seq.
+     */
+    @Test
+    public void getChangesFromStartDuringPurgeTest() {
+        ChangeFeedPage expectedPage = new ChangeFeedPage(List.of(), 200, false);
+        when(changeDao.getPurgedThrough()).thenReturn(100L, 200L, 200L);
+        when(changeDao.getAfter(100, 500)).thenReturn(new ChangeFeedPage(List.of(), 150, true));
+        when(changeDao.getAfter(200, 500)).thenReturn(expectedPage);
+
+        assertEquals(expectedPage, changeFeedService.getChanges(0, 500));
+    }
+
+    /**
+     * Test: Given a cursor behind the purged changes, this should return ChangeFeedExpiredException.
+     */
+    @Test
+    public void getChangesBehindPurgeTest() {
+        when(changeDao.getPurgedThrough()).thenReturn(100L);
+        when(changeDao.getAfter(50, 500)).thenReturn(new ChangeFeedPage(List.of(), 50, false));
+
+        assertThrows(ChangeFeedExpiredException.class, () -> changeFeedService.getChanges(50, 500));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.employeedepartment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.employeedepartment.batching.CoalescingLoader;
+
+public class CoalescingLoaderTest {
+    private final List<Set<Long>> batches = new CopyOnWriteArrayList<>();
+
+    private Map<Long, String> loadEven(Set<Long> ids) {
+        batches.add(Set.copyOf(ids));
+        Map<Long, String> values = new HashMap<>();
+        for (Long id : ids) {
+            if (id % 2 == 0) {
+                values.put(id, "value-" + id);
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void concurrentLoadsShareOneBatchTest() throws Exception {
+        CoalescingLoader<Long, String> loader = new CoalescingLoader<>("test", Duration.ofSeconds(5), 4, this::loadEven, null);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<String>> values = new ArrayList<>();
+            for (long id : new long[]{2, 4, 5, 4, 6}) {
+                values.add(CompletableFuture.supplyAsync(() -> loader.load(id), executor));
+            }
+
+            // 2, 4, 5 and 6 fill the batch, so it is loaded long before the window has passed.
+            assertEquals("value-2", values.get(0).get(2, TimeUnit.SECONDS));
+            assertEquals("value-4", values.get(1).get(2, TimeUnit.SECONDS));
+            assertNull(values.get(2).get(2, TimeUnit.SECONDS));
+            assertEquals("value-4", values.get(3).get(2, TimeUnit.SECONDS));
+            assertEquals("value-6", values.get(4).get(2, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(Set.of(2L, 4L, 5L, 6L)), batches);
+    }
+
+    @Test
+    public void zeroWindowLoadsEveryKeyOnItsOwnTest() {
+        CoalescingLoader<Long, String> loader = new CoalescingLoader<>("test", Duration.ZERO, 100, this::loadEven, null);
+
+        assertEquals("value-2", loader.load(2L));
+        assertEquals("value-4", loader.load(4L));
+        assertEquals(List.of(Set.of(2L), Set.of(4L)), batches);
+    }
+
+    @Test
+    public void failedBatchFailsEveryCallerTest() {
+        CoalescingLoader<Long, String> loader = new CoalescingLoader<>("test", Duration.ofMillis(1), 100, ids -> {
+            throw new IllegalStateException("database is down");
+        }, null);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> loader.load(1L));
+        assertEquals("database is down", ex.getMessage());
+    }
+}
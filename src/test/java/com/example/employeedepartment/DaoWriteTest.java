@@ -0,0 +1,429 @@
+package com.example.employeedepartment;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.employeedepartment.dao.ChangeDao;
+import com.example.employeedepartment.dao.DepartmentDao;
+import com.example.employeedepartment.dao.DuplicateKeyCheck;
+import com.example.employeedepartment.dao.EmployeeDao;
+import com.example.employeedepartment.dao.IndexCheck;
+import com.example.employeedepartment.dao.RegionDao;
+import com.example.employeedepartment.model.ChangeFeedPage;
+import com.example.employeedepartment.model.EndDateResult;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.RequestDepartment;
+import com.example.employeedepartment.model.RequestDepartmentEndDate;
+import com.example.employeedepartment.model.Region;
+import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
+import com.example.employeedepartment.model.ResponseEmployee;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the DAO write methods against the embedded H2 database of the load tests, with a small amount of seeded data.
+ */
+@SpringBootTest(properties = {"loadtest.employees=20", "loadtest.regions=2", "loadtest.departments=4"})
+@ActiveProfiles("loadtest")
+public class DaoWriteTest {
+    @Autowired
+    private EmployeeDao employeeDao;
+
+    @Autowired
+    private DepartmentDao departmentDao;
+
+    @Autowired
+    private RegionDao regionDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IndexCheck indexCheck;
+
+    @Autowired
+    private ChangeDao changeDao;
+
+    @Autowired
+    private TransactionTemplate writeTransactionTemplate;
+
+    /**
+     * Test: Saving an employee with an existing email should reuse the employee and only add the new department.
+     */
+    @Test
+    public void saveEmployeeWithExistingEmailTest() {
+        long employeeId = employeeDao.save(new RequestEmployee(0, "Rock Lee", "Engineer", "rock.lee@example.com", 1L, LocalDate.of(2020, 1, 1), null));
+        long sameEmployeeId = employeeDao.save(new RequestEmployee(0, "Rock Lee", "Engineer", "rock.lee@example.com", 2L, LocalDate.of(2021, 1, 1), null));
+
+        assertEquals(employeeId, sameEmployeeId);
+        assertEquals(1, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee WHERE email = ?", Integer.class, "rock.lee@example.com"));
+        assertEquals(2, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_region_department WHERE emp_id = ?", Integer.class, employeeId));
+    }
+
+    /**
+     * Test: A failing statement should roll back the statements sent before it in the same write.
+     */
+    @Test
+    public void failedSaveIsRolledBackTest() {
+        RequestEmployee withoutStartDate = new RequestEmployee(0, "Might Guy", "Manager", "might.guy@example.com", 1L, null, null);
+
+        assertThrows(RuntimeException.class, () -> employeeDao.save(withoutStartDate));
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee WHERE email = ?", Integer.class, "might.guy@example.com"));
+    }
+
+    /**
+     * Test: Deleting an employee should delete its department assignments, not the assignment which has the same id.
+     */
+    @Test
+    public void deleteEmployeeTest() {
+        long employeeId = employeeDao.save(new RequestEmployee(0, "Tenten", "Analyst", "tenten@example.com", 1L, LocalDate.of(2020, 1, 1), null));
+        long otherAssignments = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_region_department WHERE emp_id <> ?", Long.class, employeeId);
+
+        employeeDao.delete(employeeId);
+
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_region_department WHERE emp_id = ?", Integer.class, employeeId));
+        assertEquals(otherAssignments, (long) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_region_department", Long.class));
+    }
+
+    /**
+     * Test: Updating an employee should move its own department assignment, not the assignment which has the same id.
+     */
+    @Test
+    public void updateEmployeeTest() {
+        long employeeId = employeeDao.save(new RequestEmployee(0, "Kakashi Hatake", "Manager", "kakashi@example.com", 1L, LocalDate.of(2020, 1, 1), null));
+        List<Map<String, Object>> otherAssignments = jdbcTemplate.queryForList("SELECT * FROM employee_region_department WHERE emp_id <> ? ORDER BY id", employeeId);
+
+        employeeDao.update(employeeId, new RequestEmployee(employeeId, "Kakashi Hatake", "Hokage", "kakashi@example.com", 2L, LocalDate.of(2021, 1, 1), null));
+
+        assertEquals(2L, (long) jdbcTemplate.queryForObject("SELECT reg_dept_id FROM employee_region_department WHERE emp_id = ?", Long.class, employeeId));
+        assertEquals(otherAssignments, jdbcTemplate.queryForList("SELECT * FROM employee_region_department WHERE emp_id <> ? ORDER BY id", employeeId));
+    }
+
+    /**
+     * Test: A save whose NOT EXISTS check runs while another transaction inserts the same email should wait for it,
+     * and use the employee of the other transaction once it commits instead of failing on the unique index.
+     */
+    @Test
+    public void saveEmployeeInsertedConcurrentlyTest() throws Exception {
+        CompletableFuture<Long> concurrentSave = new CompletableFuture<>();
+        Long otherEmployeeId = writeTransactionTemplate.execute(status -> {
+            jdbcTemplate.update("INSERT INTO employee (name, role, email) VALUES (?, ?, ?)", "Obito Uchiha", "Analyst", "obito@example.com");
+            long id = jdbcTemplate.queryForObject("SELECT id FROM employee WHERE email = ?", Long.class, "obito@example.com");
+            CompletableFuture.supplyAsync(() -> employeeDao.save(new RequestEmployee(0, "Obito Uchiha", "Analyst", "obito@example.com", 1L, LocalDate.of(2020, 1, 1), null)))
+                    .whenComplete((savedId, ex) -> {
+                        if (ex != null) {
+                            concurrentSave.completeExceptionally(ex);
+                        } else {
+                            concurrentSave.complete(savedId);
+                        }
+                    });
+            try {
+                // Gives the save the time to pass its NOT EXISTS check and wait on the unique index.
+                Thread.sleep(300);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return id;
+        });
+
+        assertEquals(otherEmployeeId, concurrentSave.get(10, TimeUnit.SECONDS));
+        assertEquals(1, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_region_department WHERE emp_id = ?", Integer.class, otherEmployeeId));
+    }
+
+    /**
+     * Test: Updating an employee with two assignments should change nothing and report the two assignments.
+     */
+    @Test
+    public void updateEmployeeWithTwoAssignmentsTest() {
+        long employeeId = employeeDao.save(new RequestEmployee(0, "Shisui Uchiha", "Analyst", "shisui@example.com", 1L, LocalDate.of(2020, 1, 1), null));
+        employeeDao.save(new RequestEmployee(0, "Shisui Uchiha", "Analyst", "shisui@example.com", 2L, LocalDate.of(2020, 6, 1), null));
+        List<Map<String, Object>> assignments = jdbcTemplate.queryForList("SELECT * FROM employee_region_department WHERE emp_id = ? ORDER BY id", employeeId);
+        assertEquals(2, assignments.size());
+
+        assertEquals(2, employeeDao.update(employeeId,
+                new RequestEmployee(employeeId, "Shisui Uchiha", "Manager", "shisui@example.com", 3L, LocalDate.of(2021, 1, 1), null)));
+
+        assertEquals("Analyst", jdbcTemplate.queryForObject("SELECT role FROM employee WHERE id = ?", String.class, employeeId));
+        assertEquals(assignments, jdbcTemplate.queryForList("SELECT * FROM employee_region_department WHERE emp_id = ? ORDER BY id", employeeId));
+    }
+
+    /**
+     * Test: Saving a department with an existing name should reuse it, and its end date should close the region-department
+     * and the open assignments of its employees.
+     */
+    @Test
+    public void saveDepartmentAndEndDateTest() {
+        long departmentId = departmentDao.save(new RequestDepartment(null, "Anbu", 1L, LocalDate.of(2020, 1, 1), null));
+        long sameDepartmentId = departmentDao.save(new RequestDepartment(null, "Anbu", 2L, LocalDate.of(2020, 1, 1), null));
+        assertEquals(departmentId, sameDepartmentId);
+
+        long regDeptId = jdbcTemplate.queryForObject("SELECT id FROM region_department WHERE reg_id = 1 AND dept_id = ?", Long.class, departmentId);
+        long employeeId = employeeDao.save(new RequestEmployee(0, "Yamato", "Manager", "yamato@example.com", regDeptId, LocalDate.of(2020, 6, 1), null));
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("regId", 1L);
+        updates.put("deptEndDate", "2022-12-31");
+        departmentDao.saveEndDate(departmentId, updates);
+
+        assertEquals(LocalDate.of(2022, 12, 31), jdbcTemplate.queryForObject("SELECT dept_end_date FROM region_department WHERE id = ?", Date.class, regDeptId).toLocalDate());
+        assertEquals(LocalDate.of(2022, 12, 31), jdbcTemplate.queryForObject("SELECT emp_end_date FROM employee_region_department WHERE emp_id = ?", Date.class, employeeId).toLocalDate());
+    }
+
+    /**
+     * Test: The bulk end dates should close the matching assignments and region-departments, in the tables and in the read model,
+     * and report the items which match nothing or miss details.
+     */
+    @Test
+    public void bulkEndDatesTest() {
+        long departmentId = departmentDao.save(new RequestDepartment(null, "Root", 1L, LocalDate.of(2020, 1, 1), null));
+        departmentDao.save(new RequestDepartment(null, "Root", 2L, LocalDate.of(2020, 1, 1), null));
+        long firstRegDeptId = jdbcTemplate.queryForObject("SELECT id FROM region_department WHERE reg_id = 1 AND dept_id = ?", Long.class, departmentId);
+        long secondRegDeptId = jdbcTemplate.queryForObject("SELECT id FROM region_department WHERE reg_id = 2 AND dept_id = ?", Long.class, departmentId);
+        long firstEmployeeId = employeeDao.save(new RequestEmployee(0, "Danzo", "Manager", "danzo@example.com", firstRegDeptId, LocalDate.of(2020, 6, 1), null));
+        long secondEmployeeId = employeeDao.save(new RequestEmployee(0, "Sai", "Analyst", "sai@example.com", secondRegDeptId, LocalDate.of(2020, 6, 1), null));
+
+        List<EndDateResult> employeeResults = employeeDao.saveEndDates(Arrays.asList(
+                new RequestEmployeeEndDate(firstEmployeeId, 1L, departmentId, LocalDate.of(2023, 3, 31)),
+                new RequestEmployeeEndDate(firstEmployeeId, 2L, departmentId, LocalDate.of(2023, 3, 31)),
+                new RequestEmployeeEndDate(secondEmployeeId, 2L, departmentId, null)));
+        List<EndDateResult> departmentResults = departmentDao.saveEndDates(Arrays.asList(
+                new RequestDepartmentEndDate(departmentId, 2L, LocalDate.of(2024, 1, 31)),
+                new RequestDepartmentEndDate(departmentId, 99L, LocalDate.of(2024, 1, 31))));
+
+        assertEquals(Arrays.asList(EndDateResult.Status.UPDATED, EndDateResult.Status.NOT_FOUND, EndDateResult.Status.REJECTED),
+                employeeResults.stream().map(EndDateResult::status).toList());
+        assertEquals(Arrays.asList(EndDateResult.Status.UPDATED, EndDateResult.Status.NOT_FOUND),
+                departmentResults.stream().map(EndDateResult::status).toList());
+        assertEquals(LocalDate.of(2023, 3, 31), jdbcTemplate.queryForObject("SELECT emp_end_date FROM employee_region_department WHERE emp_id = ?", Date.class, firstEmployeeId).toLocalDate());
+        assertEquals(LocalDate.of(2024, 1, 31), jdbcTemplate.queryForObject("SELECT emp_end_date FROM employee_region_department WHERE emp_id = ?", Date.class, secondEmployeeId).toLocalDate());
+        assertNull(jdbcTemplate.queryForObject("SELECT dept_end_date FROM region_department WHERE id = ?", Date.class, firstRegDeptId));
+        assertEquals(LocalDate.of(2024, 1, 31), jdbcTemplate.queryForObject("SELECT dept_end_date FROM region_department WHERE id = ?", Date.class, secondRegDeptId).toLocalDate());
+        assertEquals(LocalDate.of(2023, 3, 31), jdbcTemplate.queryForObject("SELECT emp_end_date FROM employee_assignment_view WHERE emp_id = ?", Date.class, firstEmployeeId).toLocalDate());
+        assertEquals(LocalDate.of(2024, 1, 31), jdbcTemplate.queryForObject("SELECT emp_end_date FROM employee_assignment_view WHERE emp_id = ?", Date.class, secondEmployeeId).toLocalDate());
+    }
+
+    /**
+     * Test: After the writes of all the DAOs, the read model of the employees should have the same rows as the join of the tables.
+     */
+    @Test
+    public void readModelFollowsWritesTest() {
+        long employeeId = employeeDao.save(new RequestEmployee(0, "Shino Aburame", "Analyst", "shino@example.com", 1L, LocalDate.of(2019, 1, 1), null));
+        employeeDao.saveAll(Arrays.asList(
+                new RequestEmployee(0, "Kiba Inuzuka", "Tester", "kiba@example.com", 2L, LocalDate.of(2019, 2, 1), null),
+                new RequestEmployee(0, "Shino Aburame", "Analyst", "shino@example.com", 3L, LocalDate.of(2019, 3, 1), null)));
+        long kibaId = jdbcTemplate.queryForObject("SELECT id FROM employee WHERE email = ?", Long.class, "kiba@example.com");
+        employeeDao.update(kibaId, new RequestEmployee(kibaId, "Kiba I.", "Lead", "kiba@example.com", 1L, LocalDate.of(2019, 2, 1), null));
+
+        Map<String, Object> employeeEndDate = new HashMap<>();
+        employeeEndDate.put("regId", 1L);
+        employeeEndDate.put("deptId", 1L);
+        employeeEndDate.put("empEndDate", "2023-01-31");
+        employeeDao.saveEndDate(2L, employeeEndDate);
+
+        Map<String, Object> departmentEndDate = new HashMap<>();
+        departmentEndDate.put("regId", 2L);
+        departmentEndDate.put("deptEndDate", "2023-06-30");
+        departmentDao.saveEndDate(2L, departmentEndDate);
+        departmentDao.update(3L, new RequestDepartment(3L, "Department 3 Renamed", 2L, LocalDate.of(2006, 1, 1), null));
+        regionDao.update(1L, new Region(1L, "Region 1 Renamed", LocalDate.of(2000, 1, 1), null));
+        employeeDao.delete(3L);
+
+        String columns = "emp_id, name, role, email, department_name, region, emp_start_date, emp_end_date";
+        List<Map<String, Object>> readModel = jdbcTemplate.queryForList("SELECT assignment_id, " + columns + " FROM employee_assignment_view ORDER BY assignment_id");
+        List<Map<String, Object>> tables = jdbcTemplate.queryForList("SELECT employee_region_department.id AS assignment_id, employee.id AS emp_id, employee.name, employee.role, employee.email, department.name AS department_name, region.name AS region, employee_region_department.emp_start_date, employee_region_department.emp_end_date FROM employee JOIN employee_region_department ON employee_region_department.emp_id = employee.id JOIN region_department ON employee_region_department.reg_dept_id = region_department.id JOIN region ON region_department.reg_id = region.id JOIN department ON region_department.dept_id = department.id ORDER BY employee_region_department.id");
+        assertEquals(tables, readModel);
+    }
+
+    /**
+     * Test: The cached exact count of the employees should follow a save, the statistics should give an estimate,
+     * and hasMore should find a row only before the end of the table.
+     */
+    @Test
+    public void countFollowsWritesTest() {
+        long before = employeeDao.count(null);
+        assertEquals((long) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee", Long.class), before);
+
+        employeeDao.save(new RequestEmployee(0, "Hinata Hyuga", "Engineer", "hinata@example.com", 1L, LocalDate.of(2020, 1, 1), null));
+
+        assertEquals(before + 1, employeeDao.count(null));
+        assertTrue(employeeDao.estimateCount(null).isPresent());
+        assertTrue(employeeDao.hasMore(before, null));
+        assertFalse(employeeDao.hasMore(before + 1, null));
+    }
+
+    /**
+     * Test: Every sort of the listing plans should return the rows in its order, a name search should find the row,
+     * and an invalid sort field or direction should be rejected.
+     */
+    @Test
+    public void listingPlansTest() {
+        long total = employeeDao.count(null);
+        for (String sortField : new String[]{"id", "name"}) {
+            for (String sortDirection : new String[]{"asc", "DESC"}) {
+                List<ResponseEmployee> page = employeeDao.getAll(0, (int) total, sortField, sortDirection, null);
+                assertEquals(total, page.size());
+                for (int i = 1; i < page.size(); i++) {
+                    int order = sortField.equals("id") ? Long.compare(page.get(i - 1).getId(), page.get(i).getId())
+                            : page.get(i - 1).getName().compareTo(page.get(i).getName());
+                    assertTrue(sortDirection.equalsIgnoreCase("asc") ? order <= 0 : order >= 0);
+                }
+            }
+        }
+        // The ids found by the name index are padded to the IN list of their bucket.
+        List<Region> regions = regionDao.getAll(0, 10, "name", "asc", null);
+        List<Region> found = regionDao.getAll(0, 10, "id", "asc", regions.get(0).getName());
+        assertTrue(found.stream().anyMatch(region -> region.getId() == regions.get(0).getId()));
+        // An invalid sort has no statement, the IllegalArgumentException is translated by the repository.
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> employeeDao.getAll(0, 10, "email; DROP TABLE employee", "asc", null));
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> departmentDao.getAll(0, 10, "name", "sideways", null));
+    }
+
+    /**
+     * Test: The index check should find every index needed by the queries, and report an index which was dropped.
+     */
+    @Test
+    public void indexCheckTest() {
+        assertEquals(List.of(), indexCheck.findMissingIndexes());
+
+        jdbcTemplate.execute("DROP INDEX idx_region_department_reg_dept ON region_department");
+        try {
+            assertEquals(List.of("region_department (reg_id, dept_id)"), indexCheck.findMissingIndexes());
+        } finally {
+            jdbcTemplate.execute("CREATE INDEX idx_region_department_reg_dept ON region_department (reg_id, dept_id)");
+        }
+    }
+
+    /**
+     * Test: The migration of the unique indexes should be stopped with the duplicate rows saved before version 4.
+     */
+    @Test
+    public void duplicateKeyCheckTest() {
+        String url = "jdbc:h2:mem:duplicate-key-check;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        Flyway.configure().dataSource(url, "sa", "").target("3").load().migrate();
+        JdbcTemplate baseline = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        baseline.update("INSERT INTO employee (id, name, role, email) VALUES (7, 'Sai', 'Engineer', 'sai@example.com'), (9, 'Sai', 'Engineer', 'sai@example.com')");
+        baseline.update("INSERT INTO department (id, name) VALUES (1, 'Root'), (2, 'Foundation')");
+
+        FlywayException exception = assertThrows(FlywayException.class,
+                () -> Flyway.configure().dataSource(url, "sa", "").callbacks(new DuplicateKeyCheck()).load().migrate());
+
+        assertTrue(exception.getMessage().contains("employee.email 'sai@example.com' in the rows [7, 9]"), exception.getMessage());
+        assertFalse(exception.getMessage().contains("department.name"), exception.getMessage());
+        assertEquals("3", Flyway.configure().dataSource(url, "sa", "").load().info().current().getVersion().getVersion());
+    }
+
+    /**
+     * Test: A database without flyway_schema_history should be taken over at version 1 and get all the later versions,
+     * also when V2 and V3 had already been run on it by hand.
+     */
+    @Test
+    public void baselineTest() {
+        for (String target : new String[]{"1", "3"}) {
+            // The database of V1 only, or with the read model and the versions already there.
+            String url = "jdbc:h2:mem:baseline-" + target + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+            Flyway.configure().dataSource(url, "sa", "").target("1").load().migrate();
+            JdbcTemplate existing = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+            existing.update("INSERT INTO region (id, name, start_date) VALUES (1, 'North', '2020-01-01')");
+            existing.update("INSERT INTO department (id, name) VALUES (1, 'Root')");
+            existing.update("INSERT INTO region_department (id, reg_id, dept_id, dept_start_date) VALUES (1, 1, 1, '2020-01-01')");
+            existing.update("INSERT INTO employee (id, name, role, email) VALUES (1, 'Sai', 'Engineer', 'sai@example.com')");
+            existing.update("INSERT INTO employee_region_department (id, emp_id, reg_dept_id, emp_start_date) VALUES (1, 1, 1, '2020-01-01')");
+            Flyway.configure().dataSource(url, "sa", "").target(target).load().migrate();
+            existing.execute("DROP TABLE \"flyway_schema_history\"");
+
+            Flyway flyway = Flyway.configure().dataSource(url, "sa", "").baselineOnMigrate(true).baselineVersion("1").load();
+            flyway.migrate();
+
+            assertEquals("8", flyway.info().current().getVersion().getVersion());
+            assertEquals(1, existing.queryForObject("SELECT COUNT(*) FROM employee_assignment_view WHERE emp_id = 1", Integer.class));
+            assertEquals(0L, existing.queryForObject("SELECT version FROM employee WHERE id = 1", Long.class));
+            assertEquals(3, existing.queryForObject("SELECT COUNT(DISTINCT name) FROM listing_version", Integer.class));
+        }
+    }
+
+    /**
+     * Test: A region rename should change the versions of the region, of its departments and employees and of all the listings,
+     * but not the versions of the rows of the other region.
+     */
+    @Test
+    public void versionsFollowWritesTest() {
+        long regDeptId = jdbcTemplate.queryForObject("SELECT id FROM region_department WHERE reg_id = 2 ORDER BY id LIMIT 1", Long.class);
+        long departmentId = jdbcTemplate.queryForObject("SELECT dept_id FROM region_department WHERE id = ?", Long.class, regDeptId);
+        long employeeId = employeeDao.save(new RequestEmployee(0, "Neji Hyuga", "Engineer", "neji@example.com", regDeptId, LocalDate.of(2020, 1, 1), null));
+        long otherRegionId = 1L;
+
+        EntityVersion region = regionDao.getVersion(2L);
+        EntityVersion otherRegion = regionDao.getVersion(otherRegionId);
+        EntityVersion department = departmentDao.getVersion(departmentId);
+        EntityVersion employee = employeeDao.getVersion(employeeId);
+        EntityVersion employeeListing = employeeDao.getListingVersion();
+        EntityVersion regionListing = regionDao.getListingVersion();
+
+        Region renamed = regionDao.getById(2L);
+        regionDao.update(2L, new Region(2L, "Region 2 Renamed", renamed.getStartDate(), renamed.getEndDate()));
+
+        assertTrue(regionDao.getVersion(2L).getVersion() > region.getVersion());
+        assertEquals(otherRegion, regionDao.getVersion(otherRegionId));
+        assertTrue(departmentDao.getVersion(departmentId).getVersion() > department.getVersion());
+        assertTrue(employeeDao.getVersion(employeeId).getVersion() > employee.getVersion());
+        assertTrue(employeeDao.getListingVersion().getVersion() > employeeListing.getVersion());
+        assertTrue(regionDao.getListingVersion().getVersion() > regionListing.getVersion());
+        assertNull(employeeDao.getVersion(Long.MAX_VALUE));
+    }
+
+    /**
+     * Test: Every write should append the entities it changes to the change feed, and the feed should stop at a gap
+     * in the seqs until the change after it is too old to belong to a transaction which can still commit.
+     */
+    @Test
+    public void changeFeedFollowsWritesTest() {
+        long since = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM change_outbox", Long.class);
+        long departmentId = departmentDao.save(new RequestDepartment(null, "Akatsuki", 1L, LocalDate.of(2020, 1, 1), null));
+        long regDeptId = jdbcTemplate.queryForObject("SELECT id FROM region_department WHERE dept_id = ?", Long.class, departmentId);
+        long employeeId = employeeDao.save(new RequestEmployee(0, "Konan", "Engineer", "konan@example.com", regDeptId, LocalDate.of(2020, 1, 1), null));
+        departmentDao.update(departmentId, new RequestDepartment(departmentId, "Akatsuki Renamed", 1L, LocalDate.of(2020, 1, 1), null));
+        employeeDao.delete(employeeId);
+
+        ChangeFeedPage page = changeDao.getAfter(since, 100);
+
+        assertEquals(List.of("DEPARTMENT " + departmentId + " SAVED", "EMPLOYEE " + employeeId + " SAVED",
+                        "DEPARTMENT " + departmentId + " SAVED", "EMPLOYEE " + employeeId + " SAVED", "EMPLOYEE " + employeeId + " DELETED"),
+                page.changes().stream().map(change -> change.entityType() + " " + change.entityId() + " " + change.operation()).toList());
+        assertEquals(page.changes().get(4).seq(), page.nextSeq());
+        assertFalse(page.hasMore());
+        assertEquals(2, changeDao.getAfter(since, 2).changes().size());
+        assertTrue(changeDao.getAfter(since, 2).hasMore());
+
+        long afterGap = page.nextSeq() + 1000;
+        jdbcTemplate.update("INSERT INTO change_outbox (seq, entity_type, entity_id, operation) VALUES (?, 'REGION', 1, 'SAVED')", afterGap);
+        try {
+            assertTrue(changeDao.getAfter(page.nextSeq(), 100).changes().isEmpty());
+            jdbcTemplate.update("UPDATE change_outbox SET changed_at = TIMESTAMPADD(HOUR, -1, CURRENT_TIMESTAMP) WHERE seq = ?", afterGap);
+            assertEquals(afterGap, changeDao.getAfter(page.nextSeq(), 100).nextSeq());
+        } finally {
+            jdbcTemplate.update("DELETE FROM change_outbox WHERE seq = ?", afterGap);
+        }
+    }
+}
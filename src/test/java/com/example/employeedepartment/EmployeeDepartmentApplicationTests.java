@@ -1,7 +1,7 @@
 package com.example.employeedepartment;
 
 
-import org.junit.Test;
+import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
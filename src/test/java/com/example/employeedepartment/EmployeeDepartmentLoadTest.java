@@ -0,0 +1,404 @@
+package com.example.employeedepartment;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test. The application runs on a random port against the embedded H2 database seeded by
+ * LoadTestDataSeeder, and loadtest.threads concurrent clients send a weighted mix of the read and write requests
+ * for loadtest.duration-seconds after a warm-up. The requests per second and the p50/p90/p99 latencies of every
+ * endpoint are logged and written to target/loadtest-report.json so runs can be compared before and after a change.
+ * The report also lists the dao.query timers, so the queries which take most of the time can be found.
+ * It is excluded from the normal build, run it with: mvn -P loadtest test
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+@ActiveProfiles("loadtest")
+public class EmployeeDepartmentLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeDepartmentLoadTest.class);
+    private static final String[] SEARCH_TERMS = {"naruto", "uchiha", "sakura", "hatake", "nara", "lee 1"};
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private LoadTestDataSeeder seeder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${loadtest.threads}")
+    private int threads;
+
+    @Value("${loadtest.warmup-seconds}")
+    private int warmupSeconds;
+
+    @Value("${loadtest.duration-seconds}")
+    private int durationSeconds;
+
+    private RestTemplate restTemplate;
+
+    /**
+     * One kind of request in the traffic mix. The weight is the relative number of times it is picked.
+     */
+    private enum Operation {
+        EMPLOYEES_PAGE("GET /employees/all", 20),
+        EMPLOYEES_CURSOR("GET /employees/all?cursor", 10),
+        EMPLOYEES_SEARCH("GET /employees/all?searchTerm", 10),
+        EMPLOYEE_BY_ID("GET /employees/{id}", 25),
+        DEPARTMENTS_PAGE("GET /departments/all", 8),
+        DEPARTMENT_BY_ID("GET /departments/{id}", 10),
+        REGIONS_PAGE("GET /regions/all", 4),
+        REGION_BY_ID("GET /regions/{id}", 6),
+        EMPLOYEE_ADD("POST /employees/add", 4),
+        EMPLOYEE_END_DATE("PATCH /employees/{empId}", 3);
+
+        private final String label;
+        private final int weight;
+
+        Operation(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Latencies and error counts of one endpoint, recorded by a single client thread and merged at the end.
+     */
+    private static class EndpointRecorder {
+        private long[] latenciesNanos = new long[1024];
+        private int count;
+        private int clientErrors;
+        private int serverErrors;
+
+        void record(long latencyNanos, int status) {
+            if (count == latenciesNanos.length) {
+                latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+            }
+            latenciesNanos[count++] = latencyNanos;
+            if (status >= 500) {
+                serverErrors++;
+            } else if (status >= 400) {
+                clientErrors++;
+            }
+        }
+
+        void merge(EndpointRecorder other) {
+            if (count + other.count > latenciesNanos.length) {
+                latenciesNanos = Arrays.copyOf(latenciesNanos, count + other.count);
+            }
+            System.arraycopy(other.latenciesNanos, 0, latenciesNanos, count, other.count);
+            count += other.count;
+            clientErrors += other.clientErrors;
+            serverErrors += other.serverErrors;
+        }
+
+        double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Test: The searches answered by the name index should return the same employees as the LIKE query.
+     */
+    @Test
+    public void searchMatchesLikeQueryTest() throws Exception {
+        createRestTemplate();
+        for (String searchTerm : new String[]{"naruto", "UCHIHA", "a", "lee 1", "7", "kakashi hatake 12"}) {
+            for (int page = 0; page < 3; page++) {
+                List<Long> expectedIds = jdbcTemplate.queryForList("SELECT DISTINCT employee.id FROM employee"
+                        + " INNER JOIN employee_region_department ON employee_region_department.emp_id = employee.id"
+                        + " INNER JOIN (SELECT id FROM employee WHERE employee.id = ? OR employee.name LIKE ? ORDER BY id LIMIT 20 OFFSET ?) AS empId"
+                        + " ON employee.id = empId.id ORDER BY employee.id", Long.class,
+                        searchTerm.matches("\\d+") ? Long.parseLong(searchTerm) : -1, "%" + searchTerm + "%", page * 20);
+                List<Long> actualIds = new ArrayList<>();
+                for (JsonNode employee : objectMapper.readTree(get("http://localhost:" + port + "/employees/all?size=20&page=" + page
+                        + "&searchTerm=" + searchTerm).getBody())) {
+                    actualIds.add(employee.get("id").asLong());
+                }
+                assertEquals(expectedIds, actualIds, "searchTerm=" + searchTerm + ", page=" + page);
+            }
+        }
+    }
+
+    @Test
+    public void mixedTrafficLoadTest() throws Exception {
+        createRestTemplate();
+        logger.info("Warming up for {} s with {} clients", warmupSeconds, threads);
+        runClients(TimeUnit.SECONDS.toNanos(warmupSeconds));
+        logger.info("Measuring for {} s with {} clients", durationSeconds, threads);
+        long start = System.nanoTime();
+        Map<Operation, EndpointRecorder> results = runClients(TimeUnit.SECONDS.toNanos(durationSeconds));
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Map<String, Object> report = writeReport(results, elapsedSeconds);
+        int serverErrors = 0;
+        for (EndpointRecorder recorder : results.values()) {
+            serverErrors += recorder.serverErrors;
+        }
+        String prometheus = get("http://localhost:" + managementPort + "/actuator/prometheus").getBody();
+        assertTrue(prometheus != null && prometheus.contains("dao_query_seconds"), "DAO timers are not exposed on /actuator/prometheus");
+        assertTrue(!results.isEmpty(), "No request was sent");
+        assertEquals(0, serverErrors, "Requests failed with a 5xx status: " + report);
+    }
+
+    private void createRestTemplate() {
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(
+                HttpClients.custom().setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnPerRoute(threads).setMaxConnTotal(threads).build()).build()));
+        restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                // The status codes are recorded by the test instead of being thrown.
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Runs the clients until the duration has passed.
+     * @param durationNanos how long the clients keep sending requests.
+     * @return Recorded latencies and errors per operation, merged over all the clients.
+     */
+    private Map<Operation, EndpointRecorder> runClients(long durationNanos) throws Exception {
+        long deadline = System.nanoTime() + durationNanos;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Map<Operation, EndpointRecorder>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(() -> runClient(deadline)));
+            }
+            Map<Operation, EndpointRecorder> merged = new LinkedHashMap<>();
+            for (Future<Map<Operation, EndpointRecorder>> future : futures) {
+                for (Map.Entry<Operation, EndpointRecorder> entry : future.get().entrySet()) {
+                    merged.computeIfAbsent(entry.getKey(), operation -> new EndpointRecorder()).merge(entry.getValue());
+                }
+            }
+            return merged;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private Map<Operation, EndpointRecorder> runClient(long deadline) {
+        Map<Operation, EndpointRecorder> recorders = new HashMap<>();
+        int totalWeight = 0;
+        for (Operation operation : Operation.values()) {
+            totalWeight += operation.weight;
+        }
+        while (System.nanoTime() < deadline) {
+            int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+            Operation operation = null;
+            for (Operation candidate : Operation.values()) {
+                pick -= candidate.weight;
+                if (pick < 0) {
+                    operation = candidate;
+                    break;
+                }
+            }
+            long start = System.nanoTime();
+            int status = send(operation);
+            recorders.computeIfAbsent(operation, key -> new EndpointRecorder()).record(System.nanoTime() - start, status);
+        }
+        return recorders;
+    }
+
+    /**
+     * Sends one request of the given kind with random parameters.
+     * @param operation kind of request to send.
+     * @return HTTP status code of the response.
+     */
+    private int send(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String baseUrl = "http://localhost:" + port;
+        switch (operation) {
+            case EMPLOYEES_PAGE:
+                return get(baseUrl + "/employees/all?page=" + random.nextInt(seeder.getEmployees() / 20 + 1) + "&size=20&sortField="
+                        + (random.nextBoolean() ? "id" : "name")).getStatusCode().value();
+            case EMPLOYEES_CURSOR:
+                return sendCursorPages(baseUrl);
+            case EMPLOYEES_SEARCH:
+                return get(baseUrl + "/employees/all?size=20&searchTerm=" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]).getStatusCode().value();
+            case EMPLOYEE_BY_ID:
+                return get(baseUrl + "/employees/" + (random.nextInt(seeder.getEmployees()) + 1)).getStatusCode().value();
+            case DEPARTMENTS_PAGE:
+                return get(baseUrl + "/departments/all?page=" + random.nextInt(seeder.getDepartments() / 10 + 1) + "&size=10").getStatusCode().value();
+            case DEPARTMENT_BY_ID:
+                return get(baseUrl + "/departments/" + (random.nextInt(seeder.getDepartments()) + 1)).getStatusCode().value();
+            case REGIONS_PAGE:
+                return get(baseUrl + "/regions/all?size=10").getStatusCode().value();
+            case REGION_BY_ID:
+                return get(baseUrl + "/regions/" + (random.nextInt(seeder.getRegions()) + 1)).getStatusCode().value();
+            case EMPLOYEE_ADD:
+                Map<String, Object> employee = new HashMap<>();
+                long suffix = random.nextLong(Long.MAX_VALUE);
+                employee.put("name", "Load Test " + suffix);
+                employee.put("role", "Engineer");
+                employee.put("email", "loadtest" + suffix + "@example.com");
+                employee.put("regDeptId", random.nextInt(seeder.getRegionDepartments()) + 1);
+                employee.put("empStartDate", LocalDate.of(2020, 1, 1).toString());
+                return restTemplate.exchange(baseUrl + "/employees/add", HttpMethod.POST, new HttpEntity<>(employee), String.class).getStatusCode().value();
+            case EMPLOYEE_END_DATE:
+                int departmentIndex = random.nextInt(seeder.getDepartments());
+                Map<String, Object> updates = new HashMap<>();
+                updates.put("regId", departmentIndex % seeder.getRegions() + 1);
+                updates.put("deptId", departmentIndex + 1);
+                updates.put("empEndDate", LocalDate.of(2030, 1, 1).toString());
+                return restTemplate.exchange(baseUrl + "/employees/" + (random.nextInt(seeder.getEmployees()) + 1), HttpMethod.PATCH,
+                        new HttpEntity<>(updates), String.class).getStatusCode().value();
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    /**
+     * Reads the first page of the keyset listing and follows the nextCursor for a few pages, like a client scrolling.
+     * @return HTTP status code of the first failed response, or of the last response.
+     */
+    private int sendCursorPages(String baseUrl) {
+        String cursor = "";
+        int pages = 1 + ThreadLocalRandom.current().nextInt(3);
+        int status = 0;
+        for (int i = 0; i < pages && cursor != null; i++) {
+            ResponseEntity<String> response = get(baseUrl + "/employees/all?size=20&sortField=name&cursor=" + cursor);
+            status = response.getStatusCode().value();
+            if (status != 200) {
+                return status;
+            }
+            try {
+                JsonNode nextCursor = objectMapper.readTree(response.getBody()).get("nextCursor");
+                cursor = nextCursor == null || nextCursor.isNull() ? null : nextCursor.asText();
+            } catch (Exception e) {
+                throw new IllegalStateException("Unreadable keyset page", e);
+            }
+        }
+        return status;
+    }
+
+    private ResponseEntity<String> get(String url) {
+        return restTemplate.getForEntity(url, String.class);
+    }
+
+    /**
+     * Logs the results as a table and writes them to target/loadtest-report.json.
+     * @return Report which was written.
+     */
+    private Map<String, Object> writeReport(Map<Operation, EndpointRecorder> results, double elapsedSeconds) throws Exception {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        StringBuilder table = new StringBuilder(String.format("%n%-32s %9s %9s %7s %7s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "rps", "4xx", "5xx", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Operation operation : Operation.values()) {
+            EndpointRecorder recorder = results.get(operation);
+            if (recorder == null) {
+                continue;
+            }
+            long[] sorted = Arrays.copyOf(recorder.latenciesNanos, recorder.count);
+            Arrays.sort(sorted);
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("requests", recorder.count);
+            endpoint.put("requestsPerSecond", recorder.count / elapsedSeconds);
+            endpoint.put("clientErrors", recorder.clientErrors);
+            endpoint.put("serverErrors", recorder.serverErrors);
+            endpoint.put("p50Millis", recorder.percentileMillis(sorted, 50));
+            endpoint.put("p90Millis", recorder.percentileMillis(sorted, 90));
+            endpoint.put("p99Millis", recorder.percentileMillis(sorted, 99));
+            endpoint.put("maxMillis", recorder.percentileMillis(sorted, 100));
+            endpoints.put(operation.label, endpoint);
+            table.append(String.format("%-32s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f%n", operation.label, recorder.count,
+                    recorder.count / elapsedSeconds, recorder.clientErrors, recorder.serverErrors, endpoint.get("p50Millis"),
+                    endpoint.get("p90Millis"), endpoint.get("p99Millis"), endpoint.get("maxMillis")));
+        }
+
+        // The timers also contain the warm-up, the total time still shows which queries dominate.
+        List<Timer> daoTimers = new ArrayList<>(meterRegistry.find("dao.query").tag("outcome", "success").timers());
+        daoTimers.sort(Comparator.comparingDouble((Timer timer) -> timer.totalTime(TimeUnit.MILLISECONDS)).reversed());
+        Map<String, Object> daoQueries = new LinkedHashMap<>();
+        table.append(String.format("%n%-32s %9s %9s %9s %12s%n", "dao query", "calls", "mean ms", "max ms", "total ms"));
+        for (Timer timer : daoTimers) {
+            String name = timer.getId().getTag("dao") + "." + timer.getId().getTag("method");
+            Map<String, Object> daoQuery = new LinkedHashMap<>();
+            daoQuery.put("calls", timer.count());
+            daoQuery.put("meanMillis", timer.mean(TimeUnit.MILLISECONDS));
+            daoQuery.put("maxMillis", timer.max(TimeUnit.MILLISECONDS));
+            daoQuery.put("totalMillis", timer.totalTime(TimeUnit.MILLISECONDS));
+            daoQueries.put(name, daoQuery);
+            table.append(String.format("%-32s %9d %9.2f %9.2f %12.1f%n", name, timer.count(), timer.mean(TimeUnit.MILLISECONDS),
+                    timer.max(TimeUnit.MILLISECONDS), timer.totalTime(TimeUnit.MILLISECONDS)));
+        }
+
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("threads", threads);
+        configuration.put("durationSeconds", elapsedSeconds);
+        configuration.put("regions", seeder.getRegions());
+        configuration.put("departments", seeder.getDepartments());
+        configuration.put("employees", seeder.getEmployees());
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("configuration", configuration);
+        report.put("endpoints", endpoints);
+        report.put("daoQueries", daoQueries);
+
+        logger.info("Load test results over {} s with {} clients:{}", String.format("%.1f", elapsedSeconds), threads, table);
+        File reportFile = new File("target", "loadtest-report.json");
+        reportFile.getParentFile().mkdirs();
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        logger.info("Load test report written to {}", reportFile.getAbsolutePath());
+        return Collections.unmodifiableMap(report);
+    }
+}
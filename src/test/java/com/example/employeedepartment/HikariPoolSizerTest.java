@@ -0,0 +1,35 @@
+package com.example.employeedepartment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class HikariPoolSizerTest {
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    @Test
+    public void sizesPoolFromCoresTest() {
+        HikariDataSource dataSource = new HikariDataSource();
+        new HikariPoolSizer(new MockEnvironment(), 2, 1).postProcessAfterInitialization(dataSource, "dataSource");
+
+        assertEquals(CORES * 2 + 1, dataSource.getMaximumPoolSize());
+        assertEquals(CORES * 2 + 1, dataSource.getMinimumIdle());
+    }
+
+    @Test
+    public void keepsExplicitPoolSizeTest() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(7);
+        dataSource.setMinimumIdle(3);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "7")
+                .withProperty("spring.datasource.hikari.minimum-idle", "3");
+        new HikariPoolSizer(environment, 2, 1).postProcessAfterInitialization(dataSource, "dataSource");
+
+        assertEquals(7, dataSource.getMaximumPoolSize());
+        assertEquals(3, dataSource.getMinimumIdle());
+    }
+}
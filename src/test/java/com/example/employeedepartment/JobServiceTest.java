@@ -0,0 +1,140 @@
+package com.example.employeedepartment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.employeedepartment.dao.JobDao;
+import com.example.employeedepartment.exception.IdNotFoundException;
+import com.example.employeedepartment.model.Job;
+import com.example.employeedepartment.model.JobType;
+import com.example.employeedepartment.model.RequestEmployee;
+import com.example.employeedepartment.model.RequestEmployeeEndDate;
+import com.example.employeedepartment.service.imp.JobServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the background jobs against an embedded H2 database like the one of the load tests, with a small amount of seeded data.
+ * The chunks of two items let a job of a few items run several chunks, and need their own database and application context.
+ */
+@SpringBootTest(properties = {
+        "loadtest.employees=20", "loadtest.regions=2", "loadtest.departments=4", "jobs.chunk-size=2",
+        "spring.datasource.url=jdbc:h2:mem:jobs;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1"})
+@ActiveProfiles("loadtest")
+public class JobServiceTest {
+    @Autowired
+    private JobServiceImpl jobService;
+
+    @Autowired
+    private JobDao jobDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Test: An import job should save the employees and count them by their outcome.
+     */
+    @Test
+    public void importJobTest() throws InterruptedException {
+        Job job = jobService.submitEmployeeImport(Arrays.asList(
+                new RequestEmployee(0, "Itachi Uchiha", "Lead", "itachi@example.com", 1L, LocalDate.of(2021, 1, 1), null),
+                new RequestEmployee(0, "Kisame Hoshigaki", "Tester", "kisame@example.com", 2L, LocalDate.of(2021, 1, 1), null),
+                new RequestEmployee(0, null, "Tester", "nameless@example.com", 2L, LocalDate.of(2021, 1, 1), null)));
+
+        Job finished = awaitFinished(job.id());
+
+        assertEquals(Job.Status.SUCCEEDED, finished.status());
+        assertEquals(3, finished.processedItems());
+        assertEquals(Map.of("CREATED", 2L, "REJECTED", 1L), finished.outcomes());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee WHERE email = ?", Integer.class, "kisame@example.com"));
+    }
+
+    /**
+     * Test: A job cut off by a restart should continue after its checkpoint, the items before it are not saved again.
+     */
+    @Test
+    public void resumeFromCheckpointTest() throws Exception {
+        List<RequestEmployee> employees = Arrays.asList(
+                new RequestEmployee(0, "Deidara", "Designer", "deidara@example.com", 1L, LocalDate.of(2021, 1, 1), null),
+                new RequestEmployee(0, "Sasori", "Designer", "sasori@example.com", 1L, LocalDate.of(2021, 1, 1), null));
+        long id = jobDao.insert(JobType.EMPLOYEE_IMPORT, "loadtest", objectMapper.writeValueAsString(employees), employees.size());
+        jobDao.markRunning(id);
+        jobDao.checkpoint(id, 1, Map.of("CREATED", 1L));
+
+        jobService.resumeJobs();
+        Job finished = awaitFinished(id);
+
+        assertEquals(Job.Status.SUCCEEDED, finished.status());
+        assertEquals(Map.of("CREATED", 2L), finished.outcomes());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee WHERE email = ?", Integer.class, "deidara@example.com"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee WHERE email = ?", Integer.class, "sasori@example.com"));
+    }
+
+    /**
+     * Test: An end date job whose chunk fails should report its items as FAILED and still save the other chunks.
+     * The end date before the start of its assignment is refused by a check constraint added for this test.
+     */
+    @Test
+    public void endDateJobWithFailingChunkTest() throws InterruptedException {
+        // The first chunk holds the first two items, the last item is alone in the failing chunk.
+        // An item ends all the assignments of its employee in the department of the region, the last one starts at the latest.
+        List<RequestEmployeeEndDate> endDates = jdbcTemplate.query("SELECT employee_region_department.emp_id, region_department.reg_id, region_department.dept_id, MAX(employee_region_department.emp_start_date) FROM employee_region_department JOIN region_department ON region_department.id = employee_region_department.reg_dept_id GROUP BY employee_region_department.emp_id, region_department.reg_id, region_department.dept_id ORDER BY 1, 2, 3 LIMIT 3",
+                (rs, rowNum) -> new RequestEmployeeEndDate(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        rowNum < 2 ? rs.getObject(4, LocalDate.class).plusYears(1) : rs.getObject(4, LocalDate.class).minusDays(1)));
+        jdbcTemplate.execute("ALTER TABLE employee_region_department ADD CONSTRAINT end_after_start CHECK (emp_end_date IS NULL OR emp_end_date >= emp_start_date)");
+        Job finished;
+        try {
+            finished = awaitFinished(jobService.submitEmployeeEndDates(endDates).id());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE employee_region_department DROP CONSTRAINT end_after_start");
+        }
+
+        assertEquals(Job.Status.SUCCEEDED, finished.status());
+        assertEquals(3, finished.processedItems());
+        assertEquals(Map.of("FAILED", 1L, "UPDATED", 2L), finished.outcomes());
+        for (RequestEmployeeEndDate endDate : endDates.subList(0, 2)) {
+            assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_region_department WHERE emp_id = ? AND emp_end_date = ?", Integer.class, endDate.empId(), endDate.empEndDate()) > 0);
+        }
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_region_department WHERE emp_end_date < emp_start_date", Integer.class));
+    }
+
+    /**
+     * Test: An export job should write one line per employee to its output file.
+     */
+    @Test
+    public void exportJobTest() throws InterruptedException, IOException {
+        Job finished = awaitFinished(jobService.submitEmployeeExport().id());
+
+        assertEquals(Job.Status.SUCCEEDED, finished.status());
+        assertTrue(finished.totalItems() > 0);
+        assertEquals(finished.totalItems(), Files.readAllLines(jobService.getJobOutput(finished.id())).size());
+        assertThrows(IdNotFoundException.class, () -> jobService.getJob(-1L));
+    }
+
+    private Job awaitFinished(long id) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Job job = jobService.getJob(id);
+            if (job.status() == Job.Status.SUCCEEDED || job.status() == Job.Status.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Job " + id + " did not finish");
+    }
+}
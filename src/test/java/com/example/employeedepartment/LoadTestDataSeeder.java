@@ -0,0 +1,120 @@
+package com.example.employeedepartment;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.employeedepartment.dao.EmployeeAssignmentView;
+
+/**
+ * Fills the embedded load test database with regions, departments and employees before the application is ready.
+ * The number of rows is configured with the loadtest.* properties. The ids are generated by the database and
+ * start at 1, so the load test can pick random existing ids in the range [1, count].
+ * The rows are inserted without the DAOs, so the read model of the employees is rebuilt at the end.
+ */
+@Component
+@Profile("loadtest")
+public class LoadTestDataSeeder implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestDataSeeder.class);
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] FIRST_NAMES = {"Naruto", "Sasuke", "Sakura", "Kakashi", "Hinata", "Shikamaru", "Itachi", "Gaara", "Rock", "Neji"};
+    private static final String[] LAST_NAMES = {"Uzumaki", "Uchiha", "Haruno", "Hatake", "Hyuga", "Nara", "Lee", "Sarutobi", "Akimichi", "Yamanaka"};
+    private static final String[] ROLES = {"Engineer", "Manager", "Analyst", "Designer", "Tester"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmployeeAssignmentView assignmentView;
+    private final int regions;
+    private final int departments;
+    private final int employees;
+    private final int assignmentsPerEmployee;
+
+    public LoadTestDataSeeder(JdbcTemplate jdbcTemplate, EmployeeAssignmentView assignmentView,
+                              @Value("${loadtest.regions}") int regions,
+                              @Value("${loadtest.departments}") int departments,
+                              @Value("${loadtest.employees}") int employees,
+                              @Value("${loadtest.assignments-per-employee}") int assignmentsPerEmployee) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.assignmentView = assignmentView;
+        this.regions = regions;
+        this.departments = departments;
+        this.employees = employees;
+        this.assignmentsPerEmployee = assignmentsPerEmployee;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        Random random = new Random(42);
+
+        List<Object[]> regionRows = new ArrayList<>();
+        for (int i = 1; i <= regions; i++) {
+            regionRows.add(new Object[]{"Region " + i, Date.valueOf(LocalDate.of(2000, 1, 1)), null});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO region (name, start_date, end_date) VALUES (?, ?, ?)", regionRows);
+
+        List<Object[]> departmentRows = new ArrayList<>();
+        for (int i = 1; i <= departments; i++) {
+            departmentRows.add(new Object[]{"Department " + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO department (name) VALUES (?)", departmentRows);
+
+        // Every department is present in two regions (one when there is only one region).
+        List<Object[]> regionDepartmentRows = new ArrayList<>();
+        for (int i = 0; i < departments; i++) {
+            regionDepartmentRows.add(new Object[]{i % regions + 1, i + 1, Date.valueOf(LocalDate.of(2005, 1, 1))});
+            if (regions > 1) {
+                regionDepartmentRows.add(new Object[]{(i + 1) % regions + 1, i + 1, Date.valueOf(LocalDate.of(2010, 1, 1))});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO region_department (reg_id, dept_id, dept_start_date) VALUES (?, ?, ?)", regionDepartmentRows);
+        int regionDepartmentCount = regionDepartmentRows.size();
+
+        List<Object[]> employeeRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> assignmentRows = new ArrayList<>(BATCH_SIZE * assignmentsPerEmployee);
+        for (int i = 1; i <= employees; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + i;
+            employeeRows.add(new Object[]{name, ROLES[random.nextInt(ROLES.length)], "employee" + i + "@example.com"});
+            for (int j = 0; j < assignmentsPerEmployee; j++) {
+                LocalDate startDate = LocalDate.of(2012 + j * 3, 1 + random.nextInt(12), 1);
+                Date endDate = j < assignmentsPerEmployee - 1 ? Date.valueOf(startDate.plusYears(3).minusDays(1)) : null;
+                assignmentRows.add(new Object[]{i, random.nextInt(regionDepartmentCount) + 1, Date.valueOf(startDate), endDate});
+            }
+            if (employeeRows.size() == BATCH_SIZE || i == employees) {
+                jdbcTemplate.batchUpdate("INSERT INTO employee (name, role, email) VALUES (?, ?, ?)", employeeRows);
+                jdbcTemplate.batchUpdate("INSERT INTO employee_region_department (emp_id, reg_dept_id, emp_start_date, emp_end_date) VALUES (?, ?, ?, ?)", assignmentRows);
+                employeeRows.clear();
+                assignmentRows.clear();
+            }
+        }
+        assignmentView.rebuild();
+        logger.info("Seeded {} regions, {} departments, {} region-departments and {} employees in {} ms",
+                regions, departments, regionDepartmentCount, employees, System.currentTimeMillis() - start);
+    }
+
+    public int getRegions() {
+        return regions;
+    }
+
+    public int getDepartments() {
+        return departments;
+    }
+
+    public int getEmployees() {
+        return employees;
+    }
+
+    public int getRegionDepartments() {
+        return regions > 1 ? departments * 2 : departments;
+    }
+}
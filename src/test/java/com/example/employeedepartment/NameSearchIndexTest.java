@@ -0,0 +1,69 @@
+package com.example.employeedepartment;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.employeedepartment.search.NameSearchIndex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class NameSearchIndexTest {
+    private NameSearchIndex nameIndex;
+
+    @BeforeEach
+    public void setUp() {
+        nameIndex = new NameSearchIndex();
+        nameIndex.rebuild(consumer -> {
+            consumer.accept(3, "Sasuke Uchiha");
+            consumer.accept(1, "Naruto Uzumaki");
+            consumer.accept(2, "Itachi Uchiha");
+            consumer.accept(4, "Boruto Uzumaki");
+        });
+    }
+
+    /**
+     * Test: The index should find the same names as LIKE '%term%' and LIKE 'term%', ignoring the case, with sorted ids.
+     */
+    @Test
+    public void searchTest() {
+        assertArrayEquals(new long[]{2, 3}, nameIndex.search("UCHIHA").get());
+        assertArrayEquals(new long[]{1, 4}, nameIndex.search("ruto").get());
+        assertArrayEquals(new long[]{1, 2, 3, 4}, nameIndex.search("u").get());
+        assertArrayEquals(new long[0], nameIndex.search("kakashi").get());
+        assertArrayEquals(new long[]{1}, nameIndex.searchPrefix("naru").get());
+        assertArrayEquals(new long[0], nameIndex.searchPrefix("ruto").get());
+    }
+
+    /**
+     * Test: put() and remove() should update the index, including the changes made while it is rebuilt.
+     */
+    @Test
+    public void incrementalUpdateTest() {
+        nameIndex.put(5, "Kakashi Hatake");
+        nameIndex.put(3, "Sasuke Uzumaki");
+        nameIndex.remove(4);
+        assertArrayEquals(new long[]{5}, nameIndex.search("kakashi").get());
+        assertArrayEquals(new long[]{2}, nameIndex.search("uchiha").get());
+        assertArrayEquals(new long[]{1, 3}, nameIndex.search("uzumaki").get());
+
+        nameIndex.rebuild(consumer -> {
+            consumer.accept(1, "Naruto Uzumaki");
+            nameIndex.put(6, "Sakura Haruno");
+        });
+        assertArrayEquals(new long[]{6}, nameIndex.search("sakura").get());
+    }
+
+    /**
+     * Test: The index should not answer before it is built and for terms containing LIKE wildcards.
+     */
+    @Test
+    public void unsupportedSearchTest() {
+        Optional<long[]> beforeBuild = new NameSearchIndex().search("naruto");
+        assertFalse(beforeBuild.isPresent());
+        assertFalse(nameIndex.search("naru_o").isPresent());
+        assertFalse(nameIndex.search("%").isPresent());
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.employeedepartment;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.employeedepartment.dao.ChangeDao;
+import com.example.employeedepartment.dao.JobDao;
+import com.example.employeedepartment.dao.RegionDao;
+import com.example.employeedepartment.model.EntityVersion;
+import com.example.employeedepartment.model.Region;
+import com.example.employeedepartment.routing.ReadYourWrites;
+import com.example.employeedepartment.routing.ReplicaLagMonitor;
+import com.example.employeedepartment.routing.RoutingContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the replica routing against two embedded H2 databases, a primary and a replica.
+ * Nothing replicates between them: the test copies the heartbeat to the replica itself, and a row which only the
+ * replica has shows which database answered a read.
+ */
+@SpringBootTest(properties = {
+        "loadtest.employees=20", "loadtest.regions=2", "loadtest.departments=4",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+        "datasource.replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "datasource.replica.max-lag-ms=500",
+        "datasource.replica.lag-check-interval-ms=3600000"})
+@ActiveProfiles("loadtest")
+public class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_ONLY_REGION = "Replica Only Region";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private RegionDao regionDao;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private ChangeDao changeDao;
+
+    @Autowired
+    private JobDao jobDao;
+
+    @BeforeAll
+    public static void createReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        replica.update("INSERT INTO region (name) VALUES (?)", REPLICA_ONLY_REGION);
+    }
+
+    /**
+     * Test: The reads go to a replica which keeps up, except for the requests which require the primary.
+     */
+    @Test
+    public void readsFromReplicaUnlessPrimaryRequiredTest() {
+        catchUp();
+
+        assertTrue(hasReplicaOnlyRegion());
+        RoutingContext.requirePrimary();
+        try {
+            assertFalse(hasReplicaOnlyRegion());
+        } finally {
+            RoutingContext.clearPrimaryRequired();
+        }
+    }
+
+    /**
+     * Test: The writes go to the primary while the replica is used for reads.
+     */
+    @Test
+    public void writesGoToPrimaryTest() {
+        catchUp();
+
+        regionDao.save(new Region(0, "Primary Only Region", LocalDate.of(2020, 1, 1), null));
+
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM region WHERE name = ?", Integer.class, "Primary Only Region") > 0);
+        assertTrue(replica.queryForObject("SELECT COUNT(*) FROM region WHERE name = ?", Integer.class, "Primary Only Region") == 0);
+    }
+
+    /**
+     * Test: A replica whose heartbeat falls behind by more than max-lag-ms gets no reads, they fall back to the primary.
+     */
+    @Test
+    public void lagFallsBackToPrimaryTest() throws InterruptedException {
+        catchUp();
+        assertTrue(hasReplicaOnlyRegion());
+
+        double fallbacks = meterRegistry.counter("datasource.replica.reads", "target", "primary").count();
+        Thread.sleep(600);
+        replicaLagMonitor.check();
+        replicaLagMonitor.check();
+
+        assertFalse(hasReplicaOnlyRegion());
+        assertTrue(meterRegistry.counter("datasource.replica.reads", "target", "primary").count() > fallbacks);
+    }
+
+    /**
+     * Test: Polling the change feed and a job reads the primary without counting as a write, so the cached reads
+     * of this instance still go to the replica. A write starts the window of the cached reads.
+     */
+    @Test
+    public void primaryReadsAreNotWritesTest() throws InterruptedException {
+        catchUp();
+        Thread.sleep(600);
+        assertFalse(readYourWrites.wroteLocallyRecently());
+
+        changeDao.getAfter(0, 10);
+        changeDao.getPurgedThrough();
+        jobDao.getById(Long.MAX_VALUE);
+        jobDao.getUnfinishedIds("loadtest");
+
+        assertFalse(readYourWrites.wroteLocallyRecently());
+        regionDao.save(new Region(0, "Written Region", LocalDate.of(2020, 1, 1), null));
+        assertTrue(readYourWrites.wroteLocallyRecently());
+    }
+
+    /**
+     * Test: The version of a listing and its rows come from the same database when the replica lags behind the primary.
+     * Shortly after a write of this instance the version is read on the primary, so the rows are too. Later both come
+     * from the replica, whose listing version differs from the one of the primary.
+     */
+    @Test
+    public void versionAndRowsFromSameDatabaseTest() throws InterruptedException {
+        catchUp();
+        replica.update("UPDATE listing_version SET version = version + 1000 WHERE name = 'region'");
+        regionDao.save(new Region(0, "Lagging Region", LocalDate.of(2020, 1, 1), null));
+
+        ListingRead primaryRead = RoutingContext.pinReads(this::readListing).get();
+        assertEquals(listingVersion(jdbcTemplate), primaryRead.version().getVersion());
+        assertFalse(primaryRead.hasReplicaOnlyRegion());
+
+        Thread.sleep(600);
+        catchUp();
+        ListingRead replicaRead = RoutingContext.pinReads(this::readListing).get();
+        assertEquals(listingVersion(replica), replicaRead.version().getVersion());
+        assertTrue(replicaRead.hasReplicaOnlyRegion());
+    }
+
+    /**
+     * This function brings the replica up to date with the heartbeat of the primary, as replication would,
+     * and lets the monitor measure it.
+     */
+    private void catchUp() {
+        replicaLagMonitor.check();
+        Long beat = jdbcTemplate.queryForObject("SELECT beat_at FROM replication_heartbeat WHERE id = 1", Long.class);
+        replica.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1", beat);
+        replicaLagMonitor.check();
+    }
+
+    /**
+     * This function reads the version of the region listing and then its rows, like GET /regions/all.
+     */
+    private ListingRead readListing() {
+        EntityVersion version = regionDao.getListingVersion();
+        return new ListingRead(version, hasReplicaOnlyRegion());
+    }
+
+    private static long listingVersion(JdbcTemplate database) {
+        return database.queryForObject("SELECT SUM(version) FROM listing_version WHERE name = 'region'", Long.class);
+    }
+
+    private boolean hasReplicaOnlyRegion() {
+        List<Region> regions = regionDao.getAll(0, 100, "id", "asc", null);
+        return regions.stream().anyMatch(region -> REPLICA_ONLY_REGION.equals(region.getName()));
+    }
+
+    private record ListingRead(EntityVersion version, boolean hasReplicaOnlyRegion) {
+    }
+}
@@ -1,20 +1,25 @@
 package com.example.employeedepartment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import com.example.employeedepartment.dao.EmployeeDao;
+import com.example.employeedepartment.model.EmployeeCursorPage;
+import com.example.employeedepartment.model.PageCursor;
 import com.example.employeedepartment.model.RequestEmployee;
 import com.example.employeedepartment.model.ResponseEmployee;
 import com.example.employeedepartment.service.imp.EmployeeServiceImpl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
@@ -25,9 +30,16 @@ public class RequestEmployeeServiceImplTest {
     @InjectMocks
     private EmployeeServiceImpl employeeService;
 
+    private AutoCloseable mocks;
+
     @BeforeEach
     public void setup() {
-        MockitoAnnotations.initMocks(this);
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    public void closeMocks() throws Exception {
+        mocks.close();
     }
 
     /**
@@ -173,4 +185,101 @@ public class RequestEmployeeServiceImplTest {
 
         assertEquals(expectedResponseEmployee, actualResponseEmployee);
     }
+
+    /**
+     * Test: Given an employee with two assignments, this should return IllegalArgumentException with the message:
+     * "Invalid parameter: employee 7 has 2 assignments, the end date of one of them is changed with PATCH /employees/7"
+     */
+    @Test
+    public void updateEmployeeWithTwoAssignmentsTest() {
+        long id = 7;
+        RequestEmployee requestEmployee = new RequestEmployee();
+
+        when(employeeDao.update(id, requestEmployee)).thenReturn(2);
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> employeeService.updateEmployee(id, requestEmployee));
+
+        assertEquals("Invalid parameter: employee 7 has 2 assignments, the end date of one of them is changed with PATCH /employees/7", exception.getMessage());
+    }
+
+    /**
+     * Test: Given a cursor which is not a valid token, this should return IllegalArgumentException with the message:
+     * "Invalid parameter: cursor is malformed"
+     */
+    @Test
+    public void getEmployeesAfterCursorMalformedCursorTest() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> employeeService.getEmployeesAfterCursor(5, "id", "asc", null, "not-a-cursor"));
+
+        assertEquals("Invalid parameter: cursor is malformed", exception.getMessage());
+    }
+
+    /**
+     * Test: Given a cursor which was created for a different sorting, this should return IllegalArgumentException.
+     */
+    @Test
+    public void getEmployeesAfterCursorSortMismatchTest() {
+        String cursor = new PageCursor("name", "asc", 3, "Naruto Uzumaki").encode();
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> employeeService.getEmployeesAfterCursor(5, "id", "asc", null, cursor));
+
+        assertEquals("Invalid parameter: cursor does not match the sortField and sortDirection", exception.getMessage());
+    }
+
+    /**
+     * Test: Given the DAO returns one employee more than the page size, the page should be trimmed to the size
+     * and the next cursor should point at the last employee of the page.
+     */
+    @Test
+    public void getEmployeesAfterCursorNextCursorTest() {
+        List<ResponseEmployee> daoEmployees = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            ResponseEmployee responseEmployee = new ResponseEmployee();
+            responseEmployee.setId(id);
+            responseEmployee.setName("Employee " + id);
+            daoEmployees.add(responseEmployee);
+        }
+        when(employeeDao.getAllAfter(2, "name", "asc", null, null)).thenReturn(daoEmployees);
+
+        EmployeeCursorPage employeeCursorPage = employeeService.getEmployeesAfterCursor(2, "name", "asc", null, "");
+
+        assertEquals(2, employeeCursorPage.getEmployees().size());
+        PageCursor nextCursor = PageCursor.decode(employeeCursorPage.getNextCursor());
+        assertEquals(2, nextCursor.getLastId());
+        assertEquals("Employee 2", nextCursor.getLastValue());
+    }
+
+    /**
+     * Test: Given the DAO returns at most the page size, there is no next page and the next cursor should be null.
+     */
+    @Test
+    public void getEmployeesAfterCursorLastPageTest() {
+        String cursor = new PageCursor("id", "desc", 10, "10").encode();
+        when(employeeDao.getAllAfter(5, "id", "DESC", null, PageCursor.decode(cursor))).thenReturn(new ArrayList<>());
+
+        EmployeeCursorPage employeeCursorPage = employeeService.getEmployeesAfterCursor(5, "id", "DESC", null, cursor);
+
+        assertEquals(0, employeeCursorPage.getEmployees().size());
+        assertNull(employeeCursorPage.getNextCursor());
+    }
+
+    /**
+     * Test: Given an empty batch of employees, this should return IllegalArgumentException with the message:
+     * "Invalid parameter: at least one employee is required"
+     */
+    @Test
+    public void addEmployeesEmptyBatchTest() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> employeeService.addEmployees(new ArrayList<>()));
+
+        assertEquals("Invalid parameter: at least one employee is required", exception.getMessage());
+    }
+
+    /**
+     * Test: Given ids with an empty value like ids=1,,2, this should return IllegalArgumentException with the message:
+     * "Invalid parameter: ids must not contain empty values, e.g. ids=1,,2"
+     */
+    @Test
+    public void getEmployeesByIdsNullIdTest() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> employeeService.getEmployeesByIds(Arrays.asList(1L, null, 2L)));
+
+        assertEquals("Invalid parameter: ids must not contain empty values, e.g. ids=1,,2", exception.getMessage());
+    }
 }
@@ -0,0 +1,163 @@
+package com.example.employeedepartment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+
+import com.example.employeedepartment.exception.ServiceBusyException;
+import com.example.employeedepartment.execution.AsyncTimeoutConfig;
+import com.example.employeedepartment.execution.EndpointFamily;
+import com.example.employeedepartment.execution.RequestExecutor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestExecutorTest {
+    @Test
+    public void servletModeRunsOnCallerThreadTest() throws Exception {
+        RequestExecutor requestExecutor = new RequestExecutor(new SimpleMeterRegistry(), new MockEnvironment(), "servlet");
+
+        CompletableFuture<String> future = requestExecutor.submit(EndpointFamily.LOOKUP, () -> Thread.currentThread().getName());
+
+        assertTrue(future.isDone());
+        assertEquals(Thread.currentThread().getName(), future.get());
+    }
+
+    @Test
+    public void virtualModeRunsOnVirtualThreadTest() throws Exception {
+        RequestExecutor requestExecutor = new RequestExecutor(new SimpleMeterRegistry(), new MockEnvironment(), "virtual");
+        try {
+            assertTrue(requestExecutor.submit(EndpointFamily.LOOKUP, () -> Thread.currentThread().isVirtual())
+                    .get(1, TimeUnit.SECONDS));
+        } finally {
+            requestExecutor.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"async", "virtual"})
+    public void fullFamilyIsRejectedWithoutBlockingOtherFamiliesTest(String mode) throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("request.concurrency.listing.limit", "1")
+                .withProperty("request.concurrency.listing.queue-capacity", "1");
+        RequestExecutor requestExecutor = new RequestExecutor(new SimpleMeterRegistry(), environment, mode);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // One listing runs and one waits in the queue, the third one is rejected.
+            CompletableFuture<String> running = requestExecutor.submit(EndpointFamily.LISTING, () -> await(release));
+            CompletableFuture<String> queued = requestExecutor.submit(EndpointFamily.LISTING, () -> await(release));
+            CompletableFuture<String> rejected = requestExecutor.submit(EndpointFamily.LISTING, () -> "rejected");
+
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+            assertTrue(ex.getCause() instanceof ServiceBusyException);
+
+            String lookupThread = requestExecutor.submit(EndpointFamily.LOOKUP, () -> Thread.currentThread().getName())
+                    .get(1, TimeUnit.SECONDS);
+            assertNotEquals(Thread.currentThread().getName(), lookupThread);
+
+            release.countDown();
+            assertEquals("done", running.get(1, TimeUnit.SECONDS));
+            assertEquals("done", queued.get(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            requestExecutor.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"async", "virtual"})
+    public void requestWhichTimesOutWhileQueuedIsSkippedTest(String mode) throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("request.concurrency.listing.limit", "1")
+                .withProperty("request.concurrency.listing.queue-capacity", "1");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RequestExecutor requestExecutor = new RequestExecutor(meterRegistry, environment, mode);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean expiredHandlerRan = new AtomicBoolean();
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+        var asyncSupport = new AsyncSupportConfigurer() {
+            List<DeferredResultProcessingInterceptor> interceptors() {
+                return getDeferredResultInterceptors();
+            }
+        };
+        new AsyncTimeoutConfig().configureAsyncSupport(asyncSupport);
+        try {
+            CompletableFuture<String> running = requestExecutor.submit(EndpointFamily.LISTING, () -> await(release));
+            RequestContextHolder.setRequestAttributes(request);
+            CompletableFuture<String> queued;
+            try {
+                queued = requestExecutor.submit(EndpointFamily.LISTING, () -> {
+                    expiredHandlerRan.set(true);
+                    return "expired";
+                });
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+
+            // The request times out while the listing before it still runs.
+            for (DeferredResultProcessingInterceptor interceptor : asyncSupport.interceptors()) {
+                interceptor.handleTimeout(request, new DeferredResult<>());
+            }
+            assertTrue(queued.isCancelled());
+
+            release.countDown();
+            assertEquals("done", running.get(1, TimeUnit.SECONDS));
+            Counter expired = meterRegistry.get("request.executor.expired").tags("family", "listing").counter();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (expired.count() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, expired.count());
+            assertFalse(expiredHandlerRan.get());
+        } finally {
+            release.countDown();
+            requestExecutor.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"async", "virtual"})
+    public void executorMetricsHaveSameTagsInBothModesTest(String mode) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RequestExecutor requestExecutor = new RequestExecutor(meterRegistry, new MockEnvironment(), mode);
+        try {
+            requestExecutor.submit(EndpointFamily.LOOKUP, () -> "done").get(1, TimeUnit.SECONDS);
+
+            assertNotNull(meterRegistry.find("executor.active").tags("name", "request.executor", "family", "lookup").gauge());
+            assertNotNull(meterRegistry.find("executor.queued").tags("name", "request.executor", "family", "lookup").gauge());
+            assertNotNull(meterRegistry.find("executor").tags("name", "request.executor", "family", "lookup").timer());
+        } finally {
+            requestExecutor.shutdown();
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.employeedepartment;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import com.example.employeedepartment.model.DepartmentAssignment;
+import com.example.employeedepartment.model.RegionAssignment;
+import com.example.employeedepartment.model.ResponseDepartment;
+import com.example.employeedepartment.model.ResponseEmployee;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResponseModelJsonTest {
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    /**
+     * Test: The typed department details of an employee should be serialized with the same keys as the former map,
+     * including the empEndDate key when there is no end date.
+     */
+    @Test
+    public void responseEmployeeJsonShapeTest() throws Exception {
+        ResponseEmployee responseEmployee = new ResponseEmployee(1L, "Naruto Uzumaki", "Engineer", "abc@gmail.com",
+                Collections.singletonList(new DepartmentAssignment("Sales", "Asia", LocalDate.of(2013, 1, 1), null)));
+
+        String expectedJson = "{\"id\":1,\"name\":\"Naruto Uzumaki\",\"role\":\"Engineer\",\"email\":\"abc@gmail.com\","
+                + "\"departmentDetails\":[{\"departmentName\":\"Sales\",\"region\":\"Asia\",\"empStartDate\":\"2013-01-01\",\"empEndDate\":null}]}";
+
+        assertEquals(objectMapper.readTree(expectedJson), objectMapper.readTree(objectMapper.writeValueAsString(responseEmployee)));
+    }
+
+    /**
+     * Test: The typed region details of a department should be serialized with the same keys as the former map.
+     */
+    @Test
+    public void responseDepartmentJsonShapeTest() throws Exception {
+        ResponseDepartment responseDepartment = new ResponseDepartment(2L, "Sales",
+                Collections.singletonList(new RegionAssignment("Asia", LocalDate.of(2013, 1, 1), LocalDate.of(2014, 1, 1))));
+
+        String expectedJson = "{\"id\":2,\"name\":\"Sales\","
+                + "\"regionDetails\":[{\"region\":\"Asia\",\"deptStartDate\":\"2013-01-01\",\"deptEndDate\":\"2014-01-01\"}]}";
+
+        assertEquals(objectMapper.readTree(expectedJson), objectMapper.readTree(objectMapper.writeValueAsString(responseDepartment)));
+    }
+
+    /**
+     * Test: The CBOR and Smile responses should hold the same tree as the JSON response, with the dates as ISO strings.
+     */
+    @Test
+    public void binaryEncodingsMatchJsonTest() throws Exception {
+        ResponseEmployee responseEmployee = new ResponseEmployee(1L, "Naruto Uzumaki", "Engineer", "abc@gmail.com",
+                Arrays.asList(new DepartmentAssignment("Sales", "Asia", LocalDate.of(2013, 1, 1), null),
+                        new DepartmentAssignment("Sales", "Asia", LocalDate.of(2010, 1, 1), LocalDate.of(2012, 12, 31))));
+        MessageConverterConfig messageConverterConfig = new MessageConverterConfig();
+        // Spring Boot configures its builder to write the dates as strings.
+        ObjectMapper cborMapper = messageConverterConfig.cborHttpMessageConverter(
+                new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)).getObjectMapper();
+        ObjectMapper smileMapper = messageConverterConfig.smileHttpMessageConverter(
+                new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)).getObjectMapper();
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(responseEmployee));
+
+        assertEquals(json, cborMapper.readTree(cborMapper.writeValueAsBytes(responseEmployee)));
+        assertEquals(json, smileMapper.readTree(smileMapper.writeValueAsBytes(responseEmployee)));
+    }
+}